@@ -0,0 +1,15 @@
+package com.gina.franquicias_api.application.dto.request;
+
+public class StockAdjustmentRequestDto {
+    // positivo para reposiciones, negativo para ventas; el servicio lo acota a ±1.000.000
+    private int delta;
+
+    public StockAdjustmentRequestDto() {}
+
+    public StockAdjustmentRequestDto(int delta) {
+        this.delta = delta;
+    }
+
+    public int getDelta() { return delta; }
+    public void setDelta(int delta) { this.delta = delta; }
+}
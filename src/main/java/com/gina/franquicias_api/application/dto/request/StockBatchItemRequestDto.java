@@ -0,0 +1,30 @@
+package com.gina.franquicias_api.application.dto.request;
+
+public class StockBatchItemRequestDto {
+    // solo se usa en el lote entre franquicias; en el lote de una franquicia manda la ruta
+    private String franchiseId;
+    private String branchId;
+    private String productId;
+    private int stock;
+
+    public StockBatchItemRequestDto() {}
+
+    public StockBatchItemRequestDto(String franchiseId, String branchId, String productId, int stock) {
+        this.franchiseId = franchiseId;
+        this.branchId = branchId;
+        this.productId = productId;
+        this.stock = stock;
+    }
+
+    public String getFranchiseId() { return franchiseId; }
+    public void setFranchiseId(String franchiseId) { this.franchiseId = franchiseId; }
+
+    public String getBranchId() { return branchId; }
+    public void setBranchId(String branchId) { this.branchId = branchId; }
+
+    public String getProductId() { return productId; }
+    public void setProductId(String productId) { this.productId = productId; }
+
+    public int getStock() { return stock; }
+    public void setStock(int stock) { this.stock = stock; }
+}
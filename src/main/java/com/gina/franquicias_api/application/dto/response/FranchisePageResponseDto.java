@@ -0,0 +1,19 @@
+package com.gina.franquicias_api.application.dto.response;
+
+import java.util.List;
+
+public class FranchisePageResponseDto<T> {
+    private List<T> items;
+    // id a enviar como after para pedir la página siguiente; null en la última página
+    private String nextCursor;
+
+    public FranchisePageResponseDto() {}
+
+    public FranchisePageResponseDto(List<T> items, String nextCursor) {
+        this.items = items;
+        this.nextCursor = nextCursor;
+    }
+
+    public List<T> getItems() { return items; }
+    public String getNextCursor() { return nextCursor; }
+}
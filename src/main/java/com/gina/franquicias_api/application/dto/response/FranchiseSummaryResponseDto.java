@@ -0,0 +1,19 @@
+package com.gina.franquicias_api.application.dto.response;
+
+public class FranchiseSummaryResponseDto {
+    private String id;
+    private String name;
+    private int branchCount;
+
+    public FranchiseSummaryResponseDto() {}
+
+    public FranchiseSummaryResponseDto(String id, String name, int branchCount) {
+        this.id = id;
+        this.name = name;
+        this.branchCount = branchCount;
+    }
+
+    public String getId() { return id; }
+    public String getName() { return name; }
+    public int getBranchCount() { return branchCount; }
+}
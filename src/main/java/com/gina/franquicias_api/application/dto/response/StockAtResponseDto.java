@@ -0,0 +1,30 @@
+package com.gina.franquicias_api.application.dto.response;
+
+import java.time.Instant;
+
+public class StockAtResponseDto {
+    private String productId;
+    private int stock;
+    private Instant at;
+    private Instant changedAt;
+    private String type;
+    private String source;
+
+    public StockAtResponseDto() {}
+
+    public StockAtResponseDto(String productId, int stock, Instant at, Instant changedAt, String type, String source) {
+        this.productId = productId;
+        this.stock = stock;
+        this.at = at;
+        this.changedAt = changedAt;
+        this.type = type;
+        this.source = source;
+    }
+
+    public String getProductId() { return productId; }
+    public int getStock() { return stock; }
+    public Instant getAt() { return at; }
+    public Instant getChangedAt() { return changedAt; }
+    public String getType() { return type; }
+    public String getSource() { return source; }
+}
@@ -0,0 +1,29 @@
+package com.gina.franquicias_api.application.dto.response;
+
+public class StockBatchItemResponseDto {
+    private String franchiseId;
+    private String branchId;
+    private String productId;
+    private int stock;
+    private String status;
+    private String message;
+
+    public StockBatchItemResponseDto() {}
+
+    public StockBatchItemResponseDto(String franchiseId, String branchId, String productId, int stock,
+                                     String status, String message) {
+        this.franchiseId = franchiseId;
+        this.branchId = branchId;
+        this.productId = productId;
+        this.stock = stock;
+        this.status = status;
+        this.message = message;
+    }
+
+    public String getFranchiseId() { return franchiseId; }
+    public String getBranchId() { return branchId; }
+    public String getProductId() { return productId; }
+    public int getStock() { return stock; }
+    public String getStatus() { return status; }
+    public String getMessage() { return message; }
+}
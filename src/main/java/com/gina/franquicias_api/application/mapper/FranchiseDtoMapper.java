@@ -1,34 +1,51 @@
 package com.gina.franquicias_api.application.mapper;
 
+import com.gina.franquicias_api.application.dto.request.StockBatchItemRequestDto;
 import com.gina.franquicias_api.application.dto.response.BranchResponseDto;
 import com.gina.franquicias_api.application.dto.response.FranchiseResponseDto;
+import com.gina.franquicias_api.application.dto.response.FranchiseSummaryResponseDto;
 import com.gina.franquicias_api.application.dto.response.ProductResponseDto;
 import com.gina.franquicias_api.application.dto.response.ProductWithBranchResponseDto;
+import com.gina.franquicias_api.application.dto.response.StockAtResponseDto;
+import com.gina.franquicias_api.application.dto.response.StockBatchItemResponseDto;
 import com.gina.franquicias_api.domain.model.Branch;
 import com.gina.franquicias_api.domain.model.Franchise;
+import com.gina.franquicias_api.domain.model.FranchiseSummary;
 import com.gina.franquicias_api.domain.model.Product;
 import com.gina.franquicias_api.domain.model.ProductWithBranch;
+import com.gina.franquicias_api.domain.model.StockEvent;
+import com.gina.franquicias_api.domain.model.StockUpdate;
+import com.gina.franquicias_api.domain.model.StockUpdateResult;
 import org.springframework.stereotype.Component;
 
+import java.time.Instant;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.stream.Collectors;
 
 @Component
 public class FranchiseDtoMapper {
 
 
     public FranchiseResponseDto toResponse(Franchise franchise) {
-        List<BranchResponseDto> branchDtos = franchise.getBranches().stream()
-                .map(this::toResponse)
-                .collect(Collectors.toList());
+        List<Branch> branches = franchise.getBranches();
+        List<BranchResponseDto> branchDtos = new ArrayList<>(branches.size());
+        for (Branch b : branches) {
+            branchDtos.add(toResponse(b));
+        }
 
         return new FranchiseResponseDto(franchise.getId(), franchise.getName(), branchDtos);
     }
 
+    public FranchiseSummaryResponseDto toResponse(FranchiseSummary summary) {
+        return new FranchiseSummaryResponseDto(summary.getId(), summary.getName(), summary.getBranchCount());
+    }
+
     public BranchResponseDto toResponse(Branch branch) {
-        List<ProductResponseDto> products = branch.getProducts().stream()
-                .map(p -> new ProductResponseDto(p.getId(), p.getName(), p.getStock()))
-                .collect(Collectors.toList());
+        List<Product> source = branch.getProducts();
+        List<ProductResponseDto> products = new ArrayList<>(source.size());
+        for (Product p : source) {
+            products.add(toResponse(p));
+        }
 
         return new BranchResponseDto(branch.getId(), branch.getName(), products);
     }
@@ -38,15 +55,23 @@ public class FranchiseDtoMapper {
     }
 
     public ProductWithBranchResponseDto toResponse(ProductWithBranch pwb) {
-        ProductResponseDto productDto = null;
-        if (pwb.getProduct() != null) {
-            productDto = new ProductResponseDto(
-                    pwb.getProduct().getId(),
-                    pwb.getProduct().getName(),
-                    pwb.getProduct().getStock()
-            );
-        }
+        ProductResponseDto productDto = pwb.getProduct() == null ? null : toResponse(pwb.getProduct());
         return new ProductWithBranchResponseDto(pwb.getBranchName(), productDto);
     }
 
+    public StockUpdate toStockUpdate(StockBatchItemRequestDto item, String franchiseId) {
+        return new StockUpdate(franchiseId, item.getBranchId(), item.getProductId(), item.getStock());
+    }
+
+    public StockBatchItemResponseDto toResponse(StockUpdateResult result) {
+        StockUpdate u = result.getUpdate();
+        return new StockBatchItemResponseDto(u.getFranchiseId(), u.getBranchId(), u.getProductId(), u.getStock(),
+                result.getStatus().name(), result.getMessage());
+    }
+
+    public StockAtResponseDto toResponse(StockEvent event, Instant at) {
+        return new StockAtResponseDto(event.getProductId(), event.getStock(), at, event.getAt(),
+                event.getType().name(), event.getSource());
+    }
+
 }
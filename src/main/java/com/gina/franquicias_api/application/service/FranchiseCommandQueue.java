@@ -0,0 +1,195 @@
+package com.gina.franquicias_api.application.service;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Cola serial por franquicia: los comandos de una misma clave se ejecutan de a uno, en orden de llegada, y el
+ * siguiente arranca cuando termina (o falla) el anterior. Claves distintas no se esperan entre sí. Las colas
+ * vacías se descartan, así que la memoria depende de las franquicias con escrituras en curso, no del total.
+ * <p>
+ * Métricas: {@code franchise.command.wait} (espera hasta arrancar, por operación), {@code franchise.command.queue.depth}
+ * (comandos por delante al llegar), y los gauges {@code franchise.command.queues} y {@code franchise.command.pending}.
+ * El detalle por franquicia no va en etiquetas: lo da {@link #deepest(int)} y un WARN al cruzar {@code warnDepth}.
+ */
+public class FranchiseCommandQueue {
+    private static final org.slf4j.Logger log = org.slf4j.LoggerFactory.getLogger(FranchiseCommandQueue.class);
+
+    private final MeterRegistry registry;
+    private final int warnDepth;
+    private final Map<String, Lane> lanes = new ConcurrentHashMap<>();
+    private final Map<String, Timer> waits = new ConcurrentHashMap<>();
+    private final DistributionSummary depth;
+    private final AtomicInteger pending = new AtomicInteger();
+
+    public FranchiseCommandQueue(MeterRegistry registry, int warnDepth) {
+        this.registry = registry;
+        this.warnDepth = warnDepth;
+        this.depth = DistributionSummary.builder("franchise.command.queue.depth")
+                .baseUnit("commands")
+                .register(registry);
+        Gauge.builder("franchise.command.queues", lanes, Map::size).register(registry);
+        Gauge.builder("franchise.command.pending", pending, AtomicInteger::get).register(registry);
+    }
+
+    /**
+     * Ejecuta {@code command} cuando terminen los comandos anteriores de {@code key}. Un comando cancelado
+     * antes de arrancar se descarta; uno en curso termina igual, para no solaparse con el siguiente.
+     */
+    public <T> Mono<T> submit(String operation, String key, Mono<T> command) {
+        return Mono.create(sink -> {
+            Command<T> c = new Command<>(wait(operation), command, sink, System.nanoTime());
+            sink.onCancel(c::cancel);
+            Lane lane;
+            int ahead;
+            do {
+                lane = lanes.computeIfAbsent(key, Lane::new);
+                ahead = lane.offer(c);
+                // -1: la cola se descartó entre la búsqueda y el offer; se toma la que la reemplaza
+            } while (ahead < 0);
+            depth.record(ahead);
+            if (ahead == warnDepth) {
+                log.warn("Cola de la franquicia {} con {} comandos pendientes", key, ahead);
+            }
+            lane.drain();
+        });
+    }
+
+    /** Las {@code limit} claves con más comandos en cola o en curso. */
+    public List<KeyDepth> deepest(int limit) {
+        long now = System.nanoTime();
+        List<KeyDepth> depths = new ArrayList<>();
+        for (Lane lane : lanes.values()) {
+            KeyDepth d = lane.snapshot(now);
+            if (d != null) {
+                depths.add(d);
+            }
+        }
+        depths.sort(Comparator.comparingInt(KeyDepth::depth).reversed().thenComparing(KeyDepth::key));
+        return depths.size() > limit ? depths.subList(0, limit) : depths;
+    }
+
+    public record KeyDepth(String key, int depth, Duration oldestWait) {
+    }
+
+    private Timer wait(String operation) {
+        return waits.computeIfAbsent(operation, op -> Timer.builder("franchise.command.wait")
+                .tag("operation", op)
+                .register(registry));
+    }
+
+    private final class Lane {
+        private final String key;
+        private final ArrayDeque<Command<?>> queue = new ArrayDeque<>();
+        // evita la recursión cuando un comando termina en el mismo hilo que lo arrancó
+        private final AtomicInteger wip = new AtomicInteger();
+        private boolean running;
+        private boolean retired;
+
+        Lane(String key) {
+            this.key = key;
+        }
+
+        synchronized int offer(Command<?> c) {
+            if (retired) {
+                return -1;
+            }
+            int ahead = queue.size() + (running ? 1 : 0);
+            queue.add(c);
+            pending.incrementAndGet();
+            return ahead;
+        }
+
+        void drain() {
+            if (wip.getAndIncrement() != 0) {
+                return;
+            }
+            do {
+                Command<?> next = null;
+                synchronized (this) {
+                    if (!running) {
+                        next = queue.poll();
+                        if (next != null) {
+                            running = true;
+                            pending.decrementAndGet();
+                        } else if (!retired) {
+                            retired = true;
+                            lanes.remove(key, this);
+                        }
+                    }
+                }
+                if (next != null) {
+                    next.start(this::finished);
+                }
+            } while (wip.decrementAndGet() != 0);
+        }
+
+        private void finished() {
+            synchronized (this) {
+                running = false;
+            }
+            drain();
+        }
+
+        synchronized KeyDepth snapshot(long now) {
+            int size = queue.size() + (running ? 1 : 0);
+            if (size == 0) {
+                return null;
+            }
+            Command<?> head = queue.peek();
+            return new KeyDepth(key, size, Duration.ofNanos(head == null ? 0 : now - head.enqueuedAt));
+        }
+    }
+
+    private static final class Command<T> {
+        private final Timer wait;
+        private final Mono<T> command;
+        private final MonoSink<T> sink;
+        private final long enqueuedAt;
+        private volatile boolean cancelled;
+
+        Command(Timer wait, Mono<T> command, MonoSink<T> sink, long enqueuedAt) {
+            this.wait = wait;
+            this.command = command;
+            this.sink = sink;
+            this.enqueuedAt = enqueuedAt;
+        }
+
+        void cancel() {
+            cancelled = true;
+        }
+
+        void start(Runnable finished) {
+            if (cancelled) {
+                finished.run();
+                return;
+            }
+            wait.record(System.nanoTime() - enqueuedAt, TimeUnit.NANOSECONDS);
+            // el contexto del llamador (observación, trazas) sigue al comando aunque lo arranque otro hilo
+            command.contextWrite(sink.contextView()).subscribe(
+                    sink::success,
+                    e -> {
+                        sink.error(e);
+                        finished.run();
+                    },
+                    () -> {
+                        sink.success();
+                        finished.run();
+                    });
+        }
+    }
+}
@@ -4,8 +4,11 @@ import com.gina.franquicias_api.domain.exception.BusinessException;
 import com.gina.franquicias_api.domain.exception.ResourceNotFoundException;
 import com.gina.franquicias_api.domain.model.Branch;
 import com.gina.franquicias_api.domain.model.Franchise;
+import com.gina.franquicias_api.domain.model.FranchiseSummary;
 import com.gina.franquicias_api.domain.model.Product;
 import com.gina.franquicias_api.domain.model.ProductWithBranch;
+import com.gina.franquicias_api.domain.model.StockUpdate;
+import com.gina.franquicias_api.domain.model.StockUpdateResult;
 import com.gina.franquicias_api.domain.port.in.FranchiseService;
 import com.gina.franquicias_api.domain.port.out.FranchiseRepository;
 import org.springframework.stereotype.Service;
@@ -13,7 +16,9 @@ import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 import java.util.ArrayList;
-import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 
@@ -21,17 +26,23 @@ import java.util.UUID;
 @Service
 public class FranchiseServiceImpl implements FranchiseService {
     private final FranchiseRepository repo;
+    private final OptimisticLockRetry retry;
     private static final org.slf4j.Logger log = org.slf4j.LoggerFactory.getLogger(FranchiseServiceImpl.class);
+    // elementos por escritura masiva y franquicias de un mismo lote escritas en paralelo
+    private static final int STOCK_BATCH_SIZE = 500;
+    private static final int STOCK_BATCH_CONCURRENCY = 4;
+    private static final int MAX_PAGE_SIZE = 500;
+    // tope de un ajuste: -delta y el stock resultante siempre entran en un int
+    static final int MAX_STOCK_DELTA = 1_000_000;
 
-    public FranchiseServiceImpl(FranchiseRepository repo) {
+    public FranchiseServiceImpl(FranchiseRepository repo, OptimisticLockRetry retry) {
         this.repo = repo;
+        this.retry = retry;
     }
 
     @Override
     public Mono<Franchise> createFranchise(String name) {
-        return repo.findAll()
-                .filter(fr -> fr.getName().equalsIgnoreCase(name))
-                .hasElements()
+        return repo.existsByNameIgnoreCase(name, null)
                 .flatMap(exists -> {
                     if (exists) {
                         log.warn("Intento de crear franquicia duplicada con nombre: {}", name);
@@ -45,53 +56,45 @@ public class FranchiseServiceImpl implements FranchiseService {
 
     @Override
     public Mono<Branch> addBranch(String franchiseId, String branchName) {
-        return repo.findById(franchiseId)
+        return Mono.defer(() -> repo.findBranchNames(franchiseId)
                 .switchIfEmpty(Mono.error(new ResourceNotFoundException("Franquicia no encontrada")))
                 .flatMap(fr -> {
-                    boolean exists = fr.getBranches().stream()
-                            .anyMatch(b -> b.getName().equalsIgnoreCase(branchName));
-                    if (exists) {
+                    if (fr.findBranchByName(branchName).isPresent()) {
                         return Mono.error(new BusinessException("Ya existe una sucursal con el mismo nombre en la franquicia"));
                     }
 
                     Branch newBranch = new Branch(UUID.randomUUID().toString(), branchName, new ArrayList<>());
-                    fr.addBranch(newBranch);
-
-                    return repo.save(fr).thenReturn(newBranch);
-                });
+                    return repo.insertBranch(fr, newBranch).thenReturn(newBranch);
+                }))
+                .transform(retry.on("addBranch"));
     }
 
     @Override
     public Mono<Product> addProduct(String franchiseId, String branchId, String productName, int stock) {
-        return repo.findById(franchiseId)
+        return Mono.defer(() -> repo.findBranch(franchiseId, branchId)
                 .switchIfEmpty(Mono.error(new ResourceNotFoundException("Franquicia no encontrada")))
                 .flatMap(fr -> {
-                    Branch branch = fr.getBranches().stream()
-                            .filter(b -> b.getId().equals(branchId))
-                            .findFirst()
+                    Branch branch = fr.findBranch(branchId)
                             .orElseThrow(() -> new ResourceNotFoundException("Sucursal no encontrada"));
 
-                    boolean productExists = branch.getProducts().stream()
-                            .anyMatch(p -> p.getName().equalsIgnoreCase(productName));
-                    if (productExists) {
+                    if (branch.findProductByName(productName).isPresent()) {
                         return Mono.error(new BusinessException("Ya existe un producto con el mismo nombre en esta sucursal"));
                     }
 
                     Product newProduct = new Product(UUID.randomUUID().toString(), productName, stock);
                     branch.addProduct(newProduct);
 
-                    return repo.save(fr).thenReturn(newProduct);
-                });
+                    return repo.saveBranch(fr, branch).thenReturn(newProduct);
+                }))
+                .transform(retry.on("addProduct"));
     }
 
     @Override
     public Mono<Branch> removeProduct(String franchiseId, String branchId, String productId) {
-        return repo.findById(franchiseId)
+        return Mono.defer(() -> repo.findBranch(franchiseId, branchId)
                 .switchIfEmpty(Mono.error(new ResourceNotFoundException("Franquicia no encontrada")))
                 .flatMap(fr -> {
-                    Branch branch = fr.getBranches().stream()
-                            .filter(b -> b.getId().equals(branchId))
-                            .findFirst()
+                    Branch branch = fr.findBranch(branchId)
                             .orElseThrow(() -> new ResourceNotFoundException("Sucursal no encontrada"));
 
                     boolean removed = branch.removeProductById(productId);
@@ -99,53 +102,85 @@ public class FranchiseServiceImpl implements FranchiseService {
                         return Mono.error(new ResourceNotFoundException("Producto no encontrado en la sucursal"));
                     }
 
-                    return repo.save(fr).thenReturn(branch);
-                });
+                    return repo.saveBranch(fr, branch).thenReturn(branch);
+                }))
+                .transform(retry.on("removeProduct"));
     }
 
     @Override
     public Mono<Product> updateStock(String franchiseId, String branchId, String productId, int newStock) {
-        return repo.findById(franchiseId)
-                .switchIfEmpty(Mono.error(new ResourceNotFoundException("Franquicia no encontrada")))
-                .flatMap(fr -> {
-                    Branch branch = fr.getBranches().stream()
-                            .filter(b -> b.getId().equals(branchId))
-                            .findFirst()
-                            .orElseThrow(() -> new ResourceNotFoundException("Sucursal no encontrada"));
-
-                    Product product = branch.getProducts().stream()
-                            .filter(p -> p.getId().equals(productId))
-                            .findFirst()
-                            .orElseThrow(() -> new ResourceNotFoundException("Producto no encontrado"));
+        return repo.updateProductStock(franchiseId, branchId, productId, newStock)
+                .switchIfEmpty(Mono.defer(() -> productUpdateFailure(franchiseId, branchId, productId,
+                        new ResourceNotFoundException("Producto no encontrado"))));
+    }
 
-                    product.updateStock(newStock);
+    @Override
+    public Mono<Product> adjustStock(String franchiseId, String branchId, String productId, int delta) {
+        if (delta == 0) {
+            return Mono.error(new BusinessException("El ajuste de stock debe ser distinto de cero"));
+        }
+        if (delta > MAX_STOCK_DELTA || delta < -MAX_STOCK_DELTA) {
+            return Mono.error(new BusinessException("El ajuste de stock no puede superar " + MAX_STOCK_DELTA + " unidades"));
+        }
+        // la guarda del repositorio rechaza tanto el stock negativo como el que no entra en un int
+        return repo.adjustProductStock(franchiseId, branchId, productId, delta)
+                .switchIfEmpty(Mono.defer(() -> productUpdateFailure(franchiseId, branchId, productId, delta < 0
+                        ? new BusinessException("Stock insuficiente para el ajuste solicitado")
+                        : new BusinessException("El ajuste supera el stock máximo permitido"))));
+    }
 
-                    return repo.save(fr).thenReturn(product);
+    @Override
+    public Flux<StockUpdateResult> updateStocks(Flux<StockUpdate> updates) {
+        return updates.buffer(STOCK_BATCH_SIZE)
+                .concatMap(chunk -> {
+                    List<StockUpdateResult> invalid = new ArrayList<>();
+                    Map<String, List<StockUpdate>> byFranchise = new LinkedHashMap<>();
+                    for (StockUpdate u : chunk) {
+                        if (u.getFranchiseId() == null || u.getBranchId() == null || u.getProductId() == null) {
+                            invalid.add(new StockUpdateResult(u, StockUpdateResult.Status.FAILED,
+                                    "Se requieren franquicia, sucursal y producto"));
+                        } else {
+                            byFranchise.computeIfAbsent(u.getFranchiseId(), k -> new ArrayList<>()).add(u);
+                        }
+                    }
+                    log.debug("Lote de stock: {} elementos en {} franquicias", chunk.size(), byFranchise.size());
+                    return Flux.fromIterable(invalid)
+                            .concatWith(Flux.fromIterable(byFranchise.entrySet())
+                                    .flatMap(e -> repo.updateProductStocks(e.getKey(), e.getValue()),
+                                            STOCK_BATCH_CONCURRENCY));
                 });
     }
 
     @Override
     public Flux<ProductWithBranch> findMaxStock(String franchiseId) {
-        return repo.findById(franchiseId)
-                .switchIfEmpty(Mono.error(new ResourceNotFoundException("Franquicia no encontrada")))
-                .flatMapMany(fr ->
-                        Flux.fromIterable(fr.getBranches())
-                                .map(branch -> {
-                                    Product max = branch.getProducts().stream()
-                                            .max(Comparator.comparingInt(Product::getStock))
-                                            .orElse(null);
-                                    return new ProductWithBranch(branch.getName(), max);
-                                })
-                );
+        return orMissingFranchise(franchiseId, repo.findMaxStockPerBranch(franchiseId));
+    }
+
+    @Override
+    public Flux<ProductWithBranch> findTopStockProducts(String franchiseId, int k) {
+        return validPageSize(k).thenMany(Flux.defer(() ->
+                orMissingFranchise(franchiseId, repo.findTopStockProducts(franchiseId, k))));
+    }
+
+    @Override
+    public Flux<ProductWithBranch> findLowStockProducts(String franchiseId, int below, int limit) {
+        return validPageSize(limit).thenMany(Flux.defer(() ->
+                orMissingFranchise(franchiseId, repo.findLowStockProducts(franchiseId, below, limit))));
+    }
+
+    // sin filas puede ser una franquicia sin productos o inexistente; solo entonces se consulta la existencia
+    private Flux<ProductWithBranch> orMissingFranchise(String franchiseId, Flux<ProductWithBranch> rows) {
+        return rows.switchIfEmpty(Flux.defer(() -> repo.existsById(franchiseId)
+                .flatMapMany(exists -> exists
+                        ? Flux.<ProductWithBranch>empty()
+                        : Flux.error(new ResourceNotFoundException("Franquicia no encontrada")))));
     }
 
     @Override
     public Mono<Franchise> updateFranchiseName(String franchiseId, String newName) {
-        return repo.findById(franchiseId)
+        return Mono.defer(() -> repo.findById(franchiseId)
                 .switchIfEmpty(Mono.error(new ResourceNotFoundException("Franquicia no encontrada")))
-                .flatMap(existing -> repo.findAll()
-                        .filter(fr -> fr.getName().equalsIgnoreCase(newName) && !fr.getId().equals(franchiseId))
-                        .hasElements()
+                .flatMap(existing -> repo.existsByNameIgnoreCase(newName, franchiseId)
                         .flatMap(dup -> {
                             if (dup) {
                                 return Mono.error(new BusinessException("Ya existe una franquicia con ese nombre"));
@@ -153,49 +188,87 @@ public class FranchiseServiceImpl implements FranchiseService {
                             existing.rename(newName);
                             return repo.save(existing);
                         })
-                );
+                ))
+                .transform(retry.on("updateFranchiseName"));
     }
 
     @Override
     public Mono<Branch> updateBranchName(String franchiseId, String branchId, String newName) {
-        return repo.findById(franchiseId)
+        return Mono.defer(() -> repo.findBranchNames(franchiseId)
                 .switchIfEmpty(Mono.error(new ResourceNotFoundException("Franquicia no encontrada")))
                 .flatMap(fr -> {
-                    Branch branch = fr.getBranches().stream()
-                            .filter(b -> b.getId().equals(branchId))
-                            .findFirst()
-                            .orElseThrow(() -> new ResourceNotFoundException("Sucursal no encontrada"));
+                    if (fr.findBranch(branchId).isEmpty()) return Mono.error(new ResourceNotFoundException("Sucursal no encontrada"));
 
-                    boolean exists = fr.getBranches().stream()
-                            .anyMatch(b -> b.getName().equalsIgnoreCase(newName) && !b.getId().equals(branchId));
+                    boolean exists = fr.findBranchByName(newName)
+                            .filter(b -> !b.getId().equals(branchId))
+                            .isPresent();
                     if (exists) return Mono.error(new BusinessException("Ya existe una sucursal con ese nombre"));
 
-                    branch.rename(newName);
-                    return repo.save(fr).thenReturn(branch);
-                });
+                    return repo.renameBranch(fr, branchId, newName);
+                }))
+                .transform(retry.on("updateBranchName"));
     }
 
     @Override
     public Mono<Product> updateProductName(String franchiseId, String branchId, String productId, String newName) {
-        return repo.findById(franchiseId)
+        return Mono.defer(() -> repo.findBranch(franchiseId, branchId)
                 .switchIfEmpty(Mono.error(new ResourceNotFoundException("Franquicia no encontrada")))
                 .flatMap(fr -> {
-                    Branch branch = fr.getBranches().stream()
-                            .filter(b -> b.getId().equals(branchId))
-                            .findFirst()
+                    Branch branch = fr.findBranch(branchId)
                             .orElseThrow(() -> new ResourceNotFoundException("Sucursal no encontrada"));
 
-                    boolean dup = branch.getProducts().stream()
-                            .anyMatch(p -> p.getName().equalsIgnoreCase(newName) && !p.getId().equals(productId));
+                    boolean dup = branch.findProductByName(newName)
+                            .filter(p -> !p.getId().equals(productId))
+                            .isPresent();
                     if (dup) return Mono.error(new BusinessException("Ya existe un producto con ese nombre en la sucursal"));
 
-                    Product product = branch.getProducts().stream()
-                            .filter(p -> p.getId().equals(productId))
-                            .findFirst()
+                    Product product = branch.renameProduct(productId, newName)
                             .orElseThrow(() -> new ResourceNotFoundException("Producto no encontrado"));
+                    return repo.saveBranch(fr, branch).thenReturn(product);
+                }))
+                .transform(retry.on("updateProductName"));
+    }
+
+    @Override
+    public Flux<Franchise> listFranchises(String after, int limit) {
+        return validPageSize(limit).thenMany(Flux.defer(() -> repo.findPage(after, limit)));
+    }
+
+    @Override
+    public Flux<FranchiseSummary> listFranchiseSummaries(String after, int limit) {
+        return validPageSize(limit).thenMany(Flux.defer(() -> repo.findSummaries(after, limit)));
+    }
+
+    @Override
+    public Flux<Franchise> streamFranchises(String after) {
+        return repo.findPage(after, 0);
+    }
+
+    @Override
+    public Flux<FranchiseSummary> streamFranchiseSummaries(String after) {
+        return repo.findSummaries(after, 0);
+    }
+
+    private Mono<Void> validPageSize(int limit) {
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            return Mono.error(new BusinessException("El tamaño de página debe estar entre 1 y " + MAX_PAGE_SIZE));
+        }
+        return Mono.empty();
+    }
+
+    // solo en el camino de error: distingue qué recurso falta para conservar los mensajes de la API.
+    // Si todo existe, la actualización no aplicó por otra condición y se devuelve whenProductExists
+    private <T> Mono<T> productUpdateFailure(String franchiseId, String branchId, String productId,
+                                             RuntimeException whenProductExists) {
+        return repo.findBranch(franchiseId, branchId)
+                .switchIfEmpty(Mono.error(new ResourceNotFoundException("Franquicia no encontrada")))
+                .flatMap(fr -> {
+                    Branch branch = fr.findBranch(branchId)
+                            .orElseThrow(() -> new ResourceNotFoundException("Sucursal no encontrada"));
 
-                    product.rename(newName);
-                    return repo.save(fr).thenReturn(product);
+                    return Mono.error(branch.findProduct(productId).isPresent()
+                            ? whenProductExists
+                            : new ResourceNotFoundException("Producto no encontrado"));
                 });
     }
 }
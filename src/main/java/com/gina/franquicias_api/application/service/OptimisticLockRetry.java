@@ -0,0 +1,57 @@
+package com.gina.franquicias_api.application.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+import java.time.Duration;
+import java.util.function.Function;
+
+/**
+ * Reintenta las escrituras lectura-modificación-guardado cuando otro escritor guardó la franquicia
+ * entre la lectura y el guardado. El flujo reintentado debe volver a leer el agregado al resuscribirse.
+ */
+@Component
+public class OptimisticLockRetry {
+    private static final org.slf4j.Logger log = org.slf4j.LoggerFactory.getLogger(OptimisticLockRetry.class);
+
+    private final MeterRegistry registry;
+    private final long maxRetries;
+    private final Duration minBackoff;
+    private final Duration maxBackoff;
+
+    public OptimisticLockRetry(MeterRegistry registry,
+                               @Value("${franchises.write.retry.max-retries:5}") long maxRetries,
+                               @Value("${franchises.write.retry.min-backoff:10ms}") Duration minBackoff,
+                               @Value("${franchises.write.retry.max-backoff:200ms}") Duration maxBackoff) {
+        this.registry = registry;
+        this.maxRetries = maxRetries;
+        this.minBackoff = minBackoff;
+        this.maxBackoff = maxBackoff;
+    }
+
+    public <T> Function<Mono<T>, Mono<T>> on(String operation) {
+        Counter retries = registry.counter("franchise.write.retries", "operation", operation);
+        Counter exhausted = registry.counter("franchise.write.retries.exhausted", "operation", operation);
+
+        Retry spec = Retry.backoff(maxRetries, minBackoff)
+                .maxBackoff(maxBackoff)
+                .jitter(0.5)
+                .filter(OptimisticLockingFailureException.class::isInstance)
+                .doBeforeRetry(signal -> {
+                    retries.increment();
+                    log.debug("Conflicto de versión en {}, reintento {}", operation, signal.totalRetries() + 1);
+                })
+                .onRetryExhaustedThrow((s, signal) -> {
+                    exhausted.increment();
+                    log.warn("Conflicto de versión en {} tras {} reintentos", operation, signal.totalRetries());
+                    return signal.failure();
+                });
+
+        return mono -> mono.retryWhen(spec);
+    }
+}
@@ -0,0 +1,123 @@
+package com.gina.franquicias_api.application.service;
+
+import com.gina.franquicias_api.domain.model.Branch;
+import com.gina.franquicias_api.domain.model.Franchise;
+import com.gina.franquicias_api.domain.model.FranchiseSummary;
+import com.gina.franquicias_api.domain.model.Product;
+import com.gina.franquicias_api.domain.model.ProductWithBranch;
+import com.gina.franquicias_api.domain.model.StockUpdate;
+import com.gina.franquicias_api.domain.model.StockUpdateResult;
+import com.gina.franquicias_api.domain.port.in.FranchiseService;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Decorador que pasa las lectura-modificación-guardado de una franquicia por su {@link FranchiseCommandQueue}:
+ * en esta instancia no se cruzan entre sí, así que no hay conflictos de versión que reintentar. Entre
+ * instancias sigue valiendo la versión del agregado (y el reintento); enrutar por franquicia hace que ese caso
+ * sea raro.
+ * <p>
+ * updateStock y adjustStock no pasan por la cola: son una única actualización atómica en el almacén, sin
+ * lectura previa, y encolarlas solo agregaría espera y dejaría de a uno los lotes de la escritura agrupada.
+ * Tampoco las pisa un saveBranch concurrente: en el esquema embebido la escritura de stock incrementa la
+ * versión, así que el guardado de la sucursal choca y se reintenta, y en el normalizado saveBranch no
+ * reescribe el stock de los productos existentes. Un comando encolado lee la franquicia al ejecutarse, no al
+ * encolarse, así que ve el stock escrito mientras esperaba. La cola queda para lo que sí choca entre sí: altas,
+ * bajas y renombres, que leen y vuelven a guardar la sucursal o la franquicia. Las lecturas, las altas de
+ * franquicia y el lote multi-franquicia de updateStocks tampoco pasan por la cola.
+ */
+public class SerializedFranchiseService implements FranchiseService {
+    private final FranchiseService delegate;
+    private final FranchiseCommandQueue queue;
+
+    public SerializedFranchiseService(FranchiseService delegate, FranchiseCommandQueue queue) {
+        this.delegate = delegate;
+        this.queue = queue;
+    }
+
+    @Override
+    public Mono<Franchise> createFranchise(String name) {
+        return delegate.createFranchise(name);
+    }
+
+    @Override
+    public Mono<Branch> addBranch(String franchiseId, String branchName) {
+        return queue.submit("addBranch", franchiseId, delegate.addBranch(franchiseId, branchName));
+    }
+
+    @Override
+    public Mono<Product> addProduct(String franchiseId, String branchId, String productName, int stock) {
+        return queue.submit("addProduct", franchiseId, delegate.addProduct(franchiseId, branchId, productName, stock));
+    }
+
+    @Override
+    public Mono<Branch> removeProduct(String franchiseId, String branchId, String productId) {
+        return queue.submit("removeProduct", franchiseId, delegate.removeProduct(franchiseId, branchId, productId));
+    }
+
+    @Override
+    public Mono<Product> updateStock(String franchiseId, String branchId, String productId, int newStock) {
+        return delegate.updateStock(franchiseId, branchId, productId, newStock);
+    }
+
+    @Override
+    public Mono<Product> adjustStock(String franchiseId, String branchId, String productId, int delta) {
+        return delegate.adjustStock(franchiseId, branchId, productId, delta);
+    }
+
+    @Override
+    public Flux<StockUpdateResult> updateStocks(Flux<StockUpdate> updates) {
+        return delegate.updateStocks(updates);
+    }
+
+    @Override
+    public Flux<ProductWithBranch> findMaxStock(String franchiseId) {
+        return delegate.findMaxStock(franchiseId);
+    }
+
+    @Override
+    public Flux<ProductWithBranch> findTopStockProducts(String franchiseId, int k) {
+        return delegate.findTopStockProducts(franchiseId, k);
+    }
+
+    @Override
+    public Flux<ProductWithBranch> findLowStockProducts(String franchiseId, int below, int limit) {
+        return delegate.findLowStockProducts(franchiseId, below, limit);
+    }
+
+    @Override
+    public Mono<Franchise> updateFranchiseName(String franchiseId, String newName) {
+        return queue.submit("updateFranchiseName", franchiseId, delegate.updateFranchiseName(franchiseId, newName));
+    }
+
+    @Override
+    public Mono<Branch> updateBranchName(String franchiseId, String branchId, String newName) {
+        return queue.submit("updateBranchName", franchiseId, delegate.updateBranchName(franchiseId, branchId, newName));
+    }
+
+    @Override
+    public Mono<Product> updateProductName(String franchiseId, String branchId, String productId, String newName) {
+        return queue.submit("updateProductName", franchiseId,
+                delegate.updateProductName(franchiseId, branchId, productId, newName));
+    }
+
+    @Override
+    public Flux<Franchise> listFranchises(String after, int limit) {
+        return delegate.listFranchises(after, limit);
+    }
+
+    @Override
+    public Flux<FranchiseSummary> listFranchiseSummaries(String after, int limit) {
+        return delegate.listFranchiseSummaries(after, limit);
+    }
+
+    @Override
+    public Flux<Franchise> streamFranchises(String after) {
+        return delegate.streamFranchises(after);
+    }
+
+    @Override
+    public Flux<FranchiseSummary> streamFranchiseSummaries(String after) {
+        return delegate.streamFranchiseSummaries(after);
+    }
+}
@@ -0,0 +1,41 @@
+package com.gina.franquicias_api.application.service;
+
+import com.gina.franquicias_api.domain.exception.ResourceNotFoundException;
+import com.gina.franquicias_api.domain.model.Branch;
+import com.gina.franquicias_api.domain.model.StockEvent;
+import com.gina.franquicias_api.domain.port.in.StockHistoryService;
+import com.gina.franquicias_api.domain.port.out.FranchiseRepository;
+import com.gina.franquicias_api.domain.port.out.StockLedger;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+import java.time.Instant;
+
+@Service
+@ConditionalOnProperty(name = "franchises.stock.ledger.enabled", havingValue = "true")
+public class StockHistoryServiceImpl implements StockHistoryService {
+    private final StockLedger ledger;
+    private final FranchiseRepository repo;
+
+    public StockHistoryServiceImpl(StockLedger ledger, FranchiseRepository repo) {
+        this.ledger = ledger;
+        this.repo = repo;
+    }
+
+    // el historial responde aunque el producto ya no exista; la franquicia solo se lee para explicar un vacío
+    @Override
+    public Mono<StockEvent> stockAt(String franchiseId, String branchId, String productId, Instant at) {
+        return ledger.stockAt(franchiseId, branchId, productId, at)
+                .switchIfEmpty(Mono.defer(() -> repo.findBranch(franchiseId, branchId)
+                        .switchIfEmpty(Mono.error(new ResourceNotFoundException("Franquicia no encontrada")))
+                        .flatMap(fr -> {
+                            Branch branch = fr.findBranch(branchId)
+                                    .orElseThrow(() -> new ResourceNotFoundException("Sucursal no encontrada"));
+
+                            return Mono.error(branch.findProduct(productId).isPresent()
+                                    ? new ResourceNotFoundException("Sin historial de stock del producto para ese instante")
+                                    : new ResourceNotFoundException("Producto no encontrado"));
+                        })));
+    }
+}
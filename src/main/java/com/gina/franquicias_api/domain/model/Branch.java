@@ -2,35 +2,139 @@ package com.gina.franquicias_api.domain.model;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
 
 public class Branch {
     private final String id;
     private String name;
+    // la lista conserva el orden y se expone sin copiar
     private final List<Product> products;
+    private final List<Product> productsView;
+    // índices por id y por nombre: se arman en la primera búsqueda y desde ahí se mantienen en cada alta,
+    // baja y renombre. Leer y mapear la sucursal no los necesita, así que no se pagan en ese camino
+    private Map<String, Product> productsById;
+    private Map<String, Product> productsByName;
+    // datos previos a la validación de duplicados: solo entonces una baja o un renombre buscan otro dueño del nombre
+    private boolean duplicateNames;
 
     public Branch(String id, String name, List<Product> products) {
+        this(id, name, products.size());
+        this.products.addAll(products);
+    }
+
+    // sucursal vacía con capacidad para expectedProducts: los mappers la llenan con addProduct sin listas intermedias
+    public Branch(String id, String name, int expectedProducts) {
         this.id = id;
         this.name = name;
-        this.products = new ArrayList<>(products); // copia defensiva
+        this.products = new ArrayList<>(expectedProducts);
+        this.productsView = Collections.unmodifiableList(this.products);
     }
 
     public String getId() { return id; }
     public String getName() { return name; }
     public List<Product> getProducts() {
-        return Collections.unmodifiableList(products);
+        return productsView;
     }
 
+    public Optional<Product> findProduct(String productId) {
+        indexProducts();
+        return Optional.ofNullable(productsById.get(productId));
+    }
+
+    // sin distinguir mayúsculas
+    public Optional<Product> findProductByName(String productName) {
+        indexProducts();
+        return Optional.ofNullable(productsByName.get(nameKey(productName)));
+    }
 
-    public void rename(String newName) {
+    // solo a través de Franchise.renameBranch, que mantiene su índice por nombre
+    void rename(String newName) {
         this.name = newName;
     }
 
     public void addProduct(Product product) {
-        this.products.add(product);
+        products.add(product);
+        if (productsById != null) {
+            index(product);
+        }
     }
 
     public boolean removeProductById(String productId) {
-        return this.products.removeIf(p -> p.getId().equals(productId));
+        List<Product> removed = new ArrayList<>(1);
+        products.removeIf(p -> {
+            if (p.getId().equals(productId)) {
+                removed.add(p);
+                return true;
+            }
+            return false;
+        });
+        if (productsById != null) {
+            for (Product p : removed) {
+                productsById.remove(p.getId(), p);
+                unindexName(p, p.getName());
+            }
+        }
+        return !removed.isEmpty();
+    }
+
+    // renombrar por aquí mantiene el índice por nombre; Product.rename no es visible fuera del paquete
+    public Optional<Product> renameProduct(String productId, String newName) {
+        Optional<Product> product = findProduct(productId);
+        product.ifPresent(p -> {
+            String oldName = p.getName();
+            p.rename(newName);
+            unindexName(p, oldName);
+            indexName(p);
+        });
+        return product;
+    }
+
+    private void indexProducts() {
+        if (productsById != null) {
+            return;
+        }
+        productsById = new HashMap<>(capacityFor(products.size()));
+        productsByName = new HashMap<>(capacityFor(products.size()));
+        for (Product p : products) {
+            index(p);
+        }
+    }
+
+    // con ids o nombres repetidos el índice apunta al primero cargado
+    private void index(Product p) {
+        productsById.putIfAbsent(p.getId(), p);
+        indexName(p);
+    }
+
+    private void indexName(Product p) {
+        Product previous = productsByName.putIfAbsent(nameKey(p.getName()), p);
+        if (previous != null && previous != p) {
+            duplicateNames = true;
+        }
+    }
+
+    private void unindexName(Product p, String name) {
+        String key = nameKey(name);
+        if (!productsByName.remove(key, p) || !duplicateNames) {
+            return;
+        }
+        for (Product other : products) {
+            if (other != p && nameKey(other.getName()).equals(key)) {
+                productsByName.put(key, other);
+                return;
+            }
+        }
+    }
+
+    static String nameKey(String name) {
+        return name == null ? "" : name.toLowerCase(Locale.ROOT);
+    }
+
+    static int capacityFor(int size) {
+        return (int) (size / 0.75f) + 1;
     }
 }
@@ -1,26 +1,58 @@
 package com.gina.franquicias_api.domain.model;
 
-import lombok.Setter;
-
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 
 public class Franchise {
     private final String id;
     private String name;
+    // misma organización que Branch: lista ordenada más índices armados en la primera búsqueda y mantenidos después
     private final List<Branch> branches;
+    private final List<Branch> branchesView;
+    private Map<String, Branch> branchesById;
+    private Map<String, Branch> branchesByName;
+    private boolean duplicateNames;
+    // versión de persistencia para control optimista; null mientras no se haya guardado
+    private final Long version;
 
     public Franchise(String id, String name, List<Branch> branches) {
+        this(id, name, branches, null);
+    }
+
+    public Franchise(String id, String name, List<Branch> branches, Long version) {
+        this(id, name, branches.size(), version);
+        this.branches.addAll(branches);
+    }
+
+    // franquicia vacía con capacidad para expectedBranches, para llenarla con addBranch
+    public Franchise(String id, String name, int expectedBranches, Long version) {
         this.id = id;
         this.name = name;
-        this.branches = new ArrayList<>(branches); // copia defensiva
+        this.branches = new ArrayList<>(expectedBranches);
+        this.branchesView = Collections.unmodifiableList(this.branches);
+        this.version = version;
     }
 
     public String getId() { return id; }
     public String getName() { return name; }
+    public Long getVersion() { return version; }
     public List<Branch> getBranches() {
-        return Collections.unmodifiableList(branches);
+        return branchesView;
+    }
+
+    public Optional<Branch> findBranch(String branchId) {
+        indexBranches();
+        return Optional.ofNullable(branchesById.get(branchId));
+    }
+
+    // sin distinguir mayúsculas
+    public Optional<Branch> findBranchByName(String branchName) {
+        indexBranches();
+        return Optional.ofNullable(branchesByName.get(Branch.nameKey(branchName)));
     }
 
     // Métodos de dominio
@@ -29,6 +61,57 @@ public class Franchise {
     }
 
     public void addBranch(Branch branch) {
-        this.branches.add(branch);
+        branches.add(branch);
+        if (branchesById != null) {
+            index(branch);
+        }
+    }
+
+    // renombrar por aquí mantiene el índice por nombre
+    public Optional<Branch> renameBranch(String branchId, String newName) {
+        Optional<Branch> branch = findBranch(branchId);
+        branch.ifPresent(b -> {
+            String oldName = b.getName();
+            b.rename(newName);
+            unindexName(b, oldName);
+            indexName(b);
+        });
+        return branch;
+    }
+
+    private void indexBranches() {
+        if (branchesById != null) {
+            return;
+        }
+        branchesById = new HashMap<>(Branch.capacityFor(branches.size()));
+        branchesByName = new HashMap<>(Branch.capacityFor(branches.size()));
+        for (Branch b : branches) {
+            index(b);
+        }
+    }
+
+    private void index(Branch b) {
+        branchesById.putIfAbsent(b.getId(), b);
+        indexName(b);
+    }
+
+    private void indexName(Branch b) {
+        Branch previous = branchesByName.putIfAbsent(Branch.nameKey(b.getName()), b);
+        if (previous != null && previous != b) {
+            duplicateNames = true;
+        }
+    }
+
+    private void unindexName(Branch b, String name) {
+        String key = Branch.nameKey(name);
+        if (!branchesByName.remove(key, b) || !duplicateNames) {
+            return;
+        }
+        for (Branch other : branches) {
+            if (other != b && Branch.nameKey(other.getName()).equals(key)) {
+                branchesByName.put(key, other);
+                return;
+            }
+        }
     }
 }
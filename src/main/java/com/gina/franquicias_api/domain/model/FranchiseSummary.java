@@ -0,0 +1,18 @@
+package com.gina.franquicias_api.domain.model;
+
+// vista liviana para listados: sin sucursales ni productos
+public class FranchiseSummary {
+    private final String id;
+    private final String name;
+    private final int branchCount;
+
+    public FranchiseSummary(String id, String name, int branchCount) {
+        this.id = id;
+        this.name = name;
+        this.branchCount = branchCount;
+    }
+
+    public String getId() { return id; }
+    public String getName() { return name; }
+    public int getBranchCount() { return branchCount; }
+}
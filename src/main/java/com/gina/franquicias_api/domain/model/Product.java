@@ -16,7 +16,8 @@ public class Product {
     public String getName() { return name; }
     public int getStock()   { return stock; }
 
-    public void rename(String newName) {
+    // solo a través de Branch.renameProduct, que mantiene su índice por nombre
+    void rename(String newName) {
         this.name = newName;
     }
 
@@ -0,0 +1,46 @@
+package com.gina.franquicias_api.domain.model;
+
+import java.time.Instant;
+
+/**
+ * Un cambio de stock ya aplicado: qué se pidió (valor absoluto o ajuste), cómo quedó el stock y cuándo.
+ */
+public class StockEvent {
+    public enum Type {
+        SET,
+        ADJUST
+    }
+
+    private final String franchiseId;
+    private final String branchId;
+    private final String productId;
+    private final Type type;
+    // stock pedido en SET, delta en ADJUST
+    private final int amount;
+    // stock resultante
+    private final int stock;
+    private final Instant at;
+    // operación que lo originó (updateStock, adjustStock, updateStocks)
+    private final String source;
+
+    public StockEvent(String franchiseId, String branchId, String productId, Type type, int amount, int stock,
+                      Instant at, String source) {
+        this.franchiseId = franchiseId;
+        this.branchId = branchId;
+        this.productId = productId;
+        this.type = type;
+        this.amount = amount;
+        this.stock = stock;
+        this.at = at;
+        this.source = source;
+    }
+
+    public String getFranchiseId() { return franchiseId; }
+    public String getBranchId() { return branchId; }
+    public String getProductId() { return productId; }
+    public Type getType() { return type; }
+    public int getAmount() { return amount; }
+    public int getStock() { return stock; }
+    public Instant getAt() { return at; }
+    public String getSource() { return source; }
+}
@@ -0,0 +1,20 @@
+package com.gina.franquicias_api.domain.model;
+
+public class StockUpdate {
+    private final String franchiseId;
+    private final String branchId;
+    private final String productId;
+    private final int stock;
+
+    public StockUpdate(String franchiseId, String branchId, String productId, int stock) {
+        this.franchiseId = franchiseId;
+        this.branchId = branchId;
+        this.productId = productId;
+        this.stock = stock;
+    }
+
+    public String getFranchiseId() { return franchiseId; }
+    public String getBranchId() { return branchId; }
+    public String getProductId() { return productId; }
+    public int getStock() { return stock; }
+}
@@ -0,0 +1,38 @@
+package com.gina.franquicias_api.domain.model;
+
+public class StockUpdateResult {
+    public enum Status {
+        UPDATED,
+        // otro elemento posterior del mismo lote actualizó el mismo producto
+        SUPERSEDED,
+        NOT_FOUND,
+        FAILED
+    }
+
+    private final StockUpdate update;
+    private final Status status;
+    private final String message;
+    // producto con el stock escrito; solo en UPDATED
+    private final Product product;
+
+    public StockUpdateResult(StockUpdate update, Status status, String message) {
+        this(update, status, message, null);
+    }
+
+    private StockUpdateResult(StockUpdate update, Status status, String message, Product product) {
+        this.update = update;
+        this.status = status;
+        this.message = message;
+        this.product = product;
+    }
+
+    public static StockUpdateResult updated(StockUpdate update, String productName) {
+        return new StockUpdateResult(update, Status.UPDATED, null,
+                new Product(update.getProductId(), productName, update.getStock()));
+    }
+
+    public StockUpdate getUpdate() { return update; }
+    public Status getStatus() { return status; }
+    public String getMessage() { return message; }
+    public Product getProduct() { return product; }
+}
@@ -2,8 +2,11 @@ package com.gina.franquicias_api.domain.port.in;
 
 import com.gina.franquicias_api.domain.model.Branch;
 import com.gina.franquicias_api.domain.model.Franchise;
+import com.gina.franquicias_api.domain.model.FranchiseSummary;
 import com.gina.franquicias_api.domain.model.Product;
 import com.gina.franquicias_api.domain.model.ProductWithBranch;
+import com.gina.franquicias_api.domain.model.StockUpdate;
+import com.gina.franquicias_api.domain.model.StockUpdateResult;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
@@ -14,10 +17,20 @@ public interface FranchiseService {
     Mono<Product>  addProduct(String franchiseId, String branchId, String productName, int stock);
     Mono<Branch>  removeProduct(String franchiseId, String branchId, String productId);
     Mono<Product> updateStock(String franchiseId, String branchId, String productId, int newStock);
+    Mono<Product> adjustStock(String franchiseId, String branchId, String productId, int delta);
+    Flux<StockUpdateResult> updateStocks(Flux<StockUpdate> updates);
     Flux<ProductWithBranch> findMaxStock(String franchiseId);
+    Flux<ProductWithBranch> findTopStockProducts(String franchiseId, int k);
+    Flux<ProductWithBranch> findLowStockProducts(String franchiseId, int below, int limit);
     Mono<Franchise> updateFranchiseName(String franchiseId, String newName);
     Mono<Branch> updateBranchName(String franchiseId, String branchId, String newName);
     Mono<Product> updateProductName(String franchiseId, String branchId, String productId, String newName);
+    // listado paginado por cursor: after es el id del último elemento de la página anterior
+    Flux<Franchise> listFranchises(String after, int limit);
+    Flux<FranchiseSummary> listFranchiseSummaries(String after, int limit);
+    // listado completo desde after, emitido a medida que el cliente lo consume
+    Flux<Franchise> streamFranchises(String after);
+    Flux<FranchiseSummary> streamFranchiseSummaries(String after);
 
 
 
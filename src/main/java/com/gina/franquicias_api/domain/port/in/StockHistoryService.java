@@ -0,0 +1,10 @@
+package com.gina.franquicias_api.domain.port.in;
+
+import com.gina.franquicias_api.domain.model.StockEvent;
+import reactor.core.publisher.Mono;
+
+import java.time.Instant;
+
+public interface StockHistoryService {
+    Mono<StockEvent> stockAt(String franchiseId, String branchId, String productId, Instant at);
+}
@@ -1,12 +1,50 @@
 package com.gina.franquicias_api.domain.port.out;
 
+import com.gina.franquicias_api.domain.model.Branch;
 import com.gina.franquicias_api.domain.model.Franchise;
+import com.gina.franquicias_api.domain.model.FranchiseSummary;
+import com.gina.franquicias_api.domain.model.Product;
+import com.gina.franquicias_api.domain.model.ProductWithBranch;
+import com.gina.franquicias_api.domain.model.StockUpdate;
+import com.gina.franquicias_api.domain.model.StockUpdateResult;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.util.List;
+
 public interface FranchiseRepository {
     //outbound port: define lo que la lógica del negocio necesita del exterior para funcionar (como guardar datos).
     Mono<Franchise> save(Franchise franchise);
     Mono<Franchise> findById(String id);
+    Mono<Boolean> existsById(String id);
     Flux<Franchise> findAll();
+    // keyset por id ascendente: franquicias con id mayor que afterId (null desde el inicio); limit 0 = sin límite
+    Flux<Franchise> findPage(String afterId, int limit);
+    Flux<FranchiseSummary> findSummaries(String afterId, int limit);
+    // vistas parciales con la versión leída, para no hidratar la franquicia completa: solo la sucursal pedida
+    // (sin sucursales si no existe) o todas las sucursales sin sus productos. Nunca se pasan a save:
+    // se escriben con insertBranch/saveBranch/renameBranch, que fallan con OptimisticLockingFailureException
+    // si la versión cambió desde la lectura
+    Mono<Franchise> findBranch(String franchiseId, String branchId);
+    Mono<Franchise> findBranchNames(String franchiseId);
+    Mono<Void> insertBranch(Franchise view, Branch branch);
+    // reemplaza la sucursal completa (nombre y productos)
+    Mono<Void> saveBranch(Franchise view, Branch branch);
+    // devuelve la sucursal renombrada con sus productos
+    Mono<Branch> renameBranch(Franchise view, String branchId, String newName);
+    // excludingId puede ser null; permite validar un renombrado sin chocar con la propia franquicia
+    Mono<Boolean> existsByNameIgnoreCase(String name, String excludingId);
+    // actualiza solo el stock del producto; vacío si la franquicia, sucursal o producto no existen
+    Mono<Product> updateProductStock(String franchiseId, String branchId, String productId, int stock);
+    // suma delta al stock de forma atómica; vacío si no existe el producto o si el stock quedaría negativo
+    Mono<Product> adjustProductStock(String franchiseId, String branchId, String productId, int delta);
+    // aplica en una sola escritura masiva un lote de actualizaciones de una misma franquicia; un resultado por elemento
+    Flux<StockUpdateResult> updateProductStocks(String franchiseId, List<StockUpdate> updates);
+    // producto con más stock de cada sucursal, calculado del lado de la base de datos
+    Flux<ProductWithBranch> findMaxStockPerBranch(String franchiseId);
+    // rankings entre todas las sucursales, resueltos en la base de datos sin ordenar la franquicia completa.
+    // Empates por id de producto. Los k de mayor stock, de mayor a menor
+    Flux<ProductWithBranch> findTopStockProducts(String franchiseId, int k);
+    // hasta limit productos con stock menor que below, de menor a mayor
+    Flux<ProductWithBranch> findLowStockProducts(String franchiseId, int below, int limit);
 }
@@ -0,0 +1,25 @@
+package com.gina.franquicias_api.domain.port.out;
+
+import com.gina.franquicias_api.domain.model.StockEvent;
+import reactor.core.publisher.Mono;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Historial de solo agregado de los cambios de stock. El stock vigente sigue en la franquicia; el historial
+ * permite saber cuánto había en un instante pasado.
+ */
+public interface StockLedger {
+    Mono<Void> append(List<StockEvent> events);
+
+    /** Último cambio del producto en o antes de {@code at}; vacío si no hay historial que lo cubra. */
+    Mono<StockEvent> stockAt(String franchiseId, String branchId, String productId, Instant at);
+
+    /**
+     * Resume los eventos anteriores a {@code before} en el último de cada producto y los borra: el historial
+     * queda acotado y {@link #stockAt} sigue respondiendo para cualquier instante posterior a ese último evento.
+     * Devuelve la cantidad de eventos borrados.
+     */
+    Mono<Long> compact(Instant before);
+}
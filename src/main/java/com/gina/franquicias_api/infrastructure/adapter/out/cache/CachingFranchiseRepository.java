@@ -0,0 +1,144 @@
+package com.gina.franquicias_api.infrastructure.adapter.out.cache;
+
+import com.gina.franquicias_api.domain.model.Branch;
+import com.gina.franquicias_api.domain.model.Franchise;
+import com.gina.franquicias_api.domain.model.FranchiseSummary;
+import com.gina.franquicias_api.domain.model.Product;
+import com.gina.franquicias_api.domain.model.ProductWithBranch;
+import com.gina.franquicias_api.domain.model.StockUpdate;
+import com.gina.franquicias_api.domain.model.StockUpdateResult;
+import com.gina.franquicias_api.domain.port.out.FranchiseRepository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+/**
+ * Decorador read-through del puerto: findById y findMaxStockPerBranch pasan por la caché, y toda
+ * escritura invalida la franquicia al terminar (también si falla, porque un lote puede aplicarse a medias).
+ * Las vistas parciales de escritura (findBranch, findBranchNames) van siempre al almacén: necesitan la
+ * versión vigente.
+ */
+public class CachingFranchiseRepository implements FranchiseRepository {
+    private final FranchiseRepository delegate;
+    private final FranchiseCache cache;
+
+    public CachingFranchiseRepository(FranchiseRepository delegate, FranchiseCache cache) {
+        this.delegate = delegate;
+        this.cache = cache;
+    }
+
+    @Override
+    public Mono<Franchise> save(Franchise franchise) {
+        return invalidating(franchise.getId(), delegate.save(franchise));
+    }
+
+    @Override
+    public Mono<Franchise> findById(String id) {
+        // el dominio es mutable: cada lector recibe su propia copia de la entrada
+        return cache.aggregate(id, delegate::findById).map(CachingFranchiseRepository::copyOf);
+    }
+
+    @Override
+    public Mono<Boolean> existsById(String id) {
+        return delegate.existsById(id);
+    }
+
+    @Override
+    public Flux<Franchise> findAll() {
+        return delegate.findAll();
+    }
+
+    @Override
+    public Flux<Franchise> findPage(String afterId, int limit) {
+        return delegate.findPage(afterId, limit);
+    }
+
+    @Override
+    public Flux<FranchiseSummary> findSummaries(String afterId, int limit) {
+        return delegate.findSummaries(afterId, limit);
+    }
+
+    @Override
+    public Mono<Franchise> findBranch(String franchiseId, String branchId) {
+        return delegate.findBranch(franchiseId, branchId);
+    }
+
+    @Override
+    public Mono<Franchise> findBranchNames(String franchiseId) {
+        return delegate.findBranchNames(franchiseId);
+    }
+
+    @Override
+    public Mono<Void> insertBranch(Franchise view, Branch branch) {
+        return invalidating(view.getId(), delegate.insertBranch(view, branch));
+    }
+
+    @Override
+    public Mono<Void> saveBranch(Franchise view, Branch branch) {
+        return invalidating(view.getId(), delegate.saveBranch(view, branch));
+    }
+
+    @Override
+    public Mono<Branch> renameBranch(Franchise view, String branchId, String newName) {
+        return invalidating(view.getId(), delegate.renameBranch(view, branchId, newName));
+    }
+
+    @Override
+    public Mono<Boolean> existsByNameIgnoreCase(String name, String excludingId) {
+        return delegate.existsByNameIgnoreCase(name, excludingId);
+    }
+
+    @Override
+    public Mono<Product> updateProductStock(String franchiseId, String branchId, String productId, int stock) {
+        return invalidating(franchiseId, delegate.updateProductStock(franchiseId, branchId, productId, stock));
+    }
+
+    @Override
+    public Mono<Product> adjustProductStock(String franchiseId, String branchId, String productId, int delta) {
+        return invalidating(franchiseId, delegate.adjustProductStock(franchiseId, branchId, productId, delta));
+    }
+
+    @Override
+    public Flux<StockUpdateResult> updateProductStocks(String franchiseId, List<StockUpdate> updates) {
+        return delegate.updateProductStocks(franchiseId, updates)
+                .doOnTerminate(() -> cache.invalidate(franchiseId))
+                .doOnCancel(() -> cache.invalidate(franchiseId));
+    }
+
+    @Override
+    public Flux<ProductWithBranch> findMaxStockPerBranch(String franchiseId) {
+        return cache.maxStock(franchiseId, id -> delegate.findMaxStockPerBranch(id).collectList())
+                .flatMapIterable(rows -> rows);
+    }
+
+    // los rankings dependen de cada escritura de stock: no compensa cachearlos
+    @Override
+    public Flux<ProductWithBranch> findTopStockProducts(String franchiseId, int k) {
+        return delegate.findTopStockProducts(franchiseId, k);
+    }
+
+    @Override
+    public Flux<ProductWithBranch> findLowStockProducts(String franchiseId, int below, int limit) {
+        return delegate.findLowStockProducts(franchiseId, below, limit);
+    }
+
+    // doOnTerminate corre antes de propagar la señal: quien encadene una lectura ya no ve la entrada vieja
+    private <T> Mono<T> invalidating(String franchiseId, Mono<T> write) {
+        return write
+                .doOnTerminate(() -> cache.invalidate(franchiseId))
+                .doOnCancel(() -> cache.invalidate(franchiseId));
+    }
+
+    private static Franchise copyOf(Franchise f) {
+        Franchise copy = new Franchise(f.getId(), f.getName(), f.getBranches().size(), f.getVersion());
+        for (Branch b : f.getBranches()) {
+            Branch branch = new Branch(b.getId(), b.getName(), b.getProducts().size());
+            for (Product p : b.getProducts()) {
+                branch.addProduct(new Product(p.getId(), p.getName(), p.getStock()));
+            }
+            copy.addBranch(branch);
+        }
+        return copy;
+    }
+}
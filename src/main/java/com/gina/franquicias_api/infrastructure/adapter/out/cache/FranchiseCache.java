@@ -0,0 +1,85 @@
+package com.gina.franquicias_api.infrastructure.adapter.out.cache;
+
+import com.gina.franquicias_api.domain.model.Franchise;
+import com.gina.franquicias_api.domain.model.ProductWithBranch;
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+
+/**
+ * Cachés locales de lectura por franquicia: el agregado completo y el máximo de stock por sucursal.
+ * El peso de cada entrada es su número de sucursales y productos, así max-weight acota la memoria y no
+ * la cantidad de franquicias. Las métricas quedan en /actuator/metrics/cache.gets, cache.evictions, etc.
+ */
+@Component
+@ConditionalOnProperty(name = "franchises.cache.enabled", havingValue = "true")
+public class FranchiseCache {
+    private final AsyncCache<String, Franchise> aggregates;
+    private final AsyncCache<String, List<ProductWithBranch>> maxStock;
+
+    public FranchiseCache(MeterRegistry registry,
+                          @Value("${franchises.cache.max-weight:500000}") long maxWeight,
+                          @Value("${franchises.cache.ttl:30s}") Duration ttl) {
+        this.aggregates = Caffeine.newBuilder()
+                .maximumWeight(maxWeight)
+                .weigher((String id, Franchise f) -> weight(f))
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .buildAsync();
+        this.maxStock = Caffeine.newBuilder()
+                .maximumWeight(maxWeight)
+                .weigher((String id, List<ProductWithBranch> rows) -> rows.size() + 1)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .buildAsync();
+        CaffeineCacheMetrics.monitor(registry, aggregates, "franchises.aggregates");
+        CaffeineCacheMetrics.monitor(registry, maxStock, "franchises.max-stock");
+    }
+
+    public Mono<Franchise> aggregate(String franchiseId, Function<String, Mono<Franchise>> loader) {
+        return load(aggregates, franchiseId, loader);
+    }
+
+    public Mono<List<ProductWithBranch>> maxStock(String franchiseId, Function<String, Mono<List<ProductWithBranch>>> loader) {
+        return load(maxStock, franchiseId, loader);
+    }
+
+    // quitar la entrada también descarta una carga en curso: su resultado no llega a guardarse
+    public void invalidate(String franchiseId) {
+        aggregates.synchronous().invalidate(franchiseId);
+        maxStock.synchronous().invalidate(franchiseId);
+    }
+
+    public void invalidateAll() {
+        aggregates.synchronous().invalidateAll();
+        maxStock.synchronous().invalidateAll();
+    }
+
+    // una sola carga en vuelo por clave; los demás suscriptores esperan el mismo futuro.
+    // Un vacío completa con null y Caffeine no lo guarda
+    private static <V> Mono<V> load(AsyncCache<String, V> cache, String key, Function<String, Mono<V>> loader) {
+        return Mono.defer(() -> {
+            CompletableFuture<V> future = cache.get(key, (k, executor) -> loader.apply(k).toFuture());
+            // la cancelación de un suscriptor no debe cancelar la carga compartida
+            return Mono.fromFuture(future, true);
+        });
+    }
+
+    private static int weight(Franchise f) {
+        int weight = 1 + f.getBranches().size();
+        for (var b : f.getBranches()) {
+            weight += b.getProducts().size();
+        }
+        return weight;
+    }
+}
@@ -0,0 +1,318 @@
+package com.gina.franquicias_api.infrastructure.adapter.out.coalescing;
+
+import com.gina.franquicias_api.domain.model.Branch;
+import com.gina.franquicias_api.domain.model.Franchise;
+import com.gina.franquicias_api.domain.model.FranchiseSummary;
+import com.gina.franquicias_api.domain.model.Product;
+import com.gina.franquicias_api.domain.model.ProductWithBranch;
+import com.gina.franquicias_api.domain.model.StockUpdate;
+import com.gina.franquicias_api.domain.model.StockUpdateResult;
+import com.gina.franquicias_api.domain.port.out.FranchiseRepository;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.TransientDataAccessResourceException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Decorador write-behind de updateProductStock: las actualizaciones de una misma franquicia que llegan
+ * dentro de {@code window} se escriben juntas con updateProductStocks (un bulkWrite en Mongo). Cada
+ * llamador recibe su resultado cuando el lote quedó escrito, nunca antes.
+ * <p>
+ * Por franquicia hay a lo sumo un lote en vuelo; lo que llega mientras tanto forma el siguiente, que sale
+ * apenas termina el anterior. Así los lotes de un mismo producto se aplican en orden de llegada y, dentro de
+ * un lote, gana la última actualización (la anterior se informa como aplicada y reemplazada, igual que si
+ * hubiese llegado sola un instante antes).
+ * <p>
+ * Lo acumulado por franquicia tiene tope ({@code maxPending}): con un lote en vuelo que no termina, las
+ * actualizaciones siguientes se rechazan con {@link TransientDataAccessResourceException} en lugar de crecer sin
+ * límite en memoria.
+ */
+public class CoalescingFranchiseRepository implements FranchiseRepository {
+    private static final org.slf4j.Logger log = org.slf4j.LoggerFactory.getLogger(CoalescingFranchiseRepository.class);
+
+    private final FranchiseRepository delegate;
+    private final long windowNanos;
+    private final int maxBatch;
+    private final int maxPending;
+    private final Scheduler timer = Schedulers.parallel();
+    private final DistributionSummary batchSizes;
+    private final Map<String, Lane> lanes = new ConcurrentHashMap<>();
+
+    public CoalescingFranchiseRepository(FranchiseRepository delegate, MeterRegistry registry,
+                                         Duration window, int maxBatch, int maxPending) {
+        this.delegate = delegate;
+        this.windowNanos = window.toNanos();
+        this.maxBatch = maxBatch;
+        this.maxPending = maxPending;
+        this.batchSizes = DistributionSummary.builder("franchise.stock.coalesced.batch")
+                .baseUnit("updates")
+                .register(registry);
+    }
+
+    @Override
+    public Mono<Product> updateProductStock(String franchiseId, String branchId, String productId, int stock) {
+        return Mono.create(sink -> enqueue(new Pending(new StockUpdate(franchiseId, branchId, productId, stock), sink)));
+    }
+
+    private void enqueue(Pending pending) {
+        Lane lane;
+        Offer offer;
+        do {
+            lane = lanes.computeIfAbsent(pending.update.getFranchiseId(), Lane::new);
+            offer = lane.offer(pending);
+            // RETIRED: el carril se cerró entre la búsqueda y el offer; se toma el que lo reemplaza
+        } while (offer == Offer.RETIRED);
+        if (offer == Offer.FLUSH) {
+            lane.flush();
+        } else if (offer == Offer.REJECTED) {
+            pending.error(new TransientDataAccessResourceException("Demasiadas actualizaciones de stock pendientes para la franquicia "
+                    + pending.update.getFranchiseId()));
+        }
+    }
+
+    private enum Offer { QUEUED, FLUSH, RETIRED, REJECTED }
+
+    // cada llamador se completa una sola vez, aunque el lote falle después de completar a una parte
+    private record Pending(StockUpdate update, MonoSink<Product> sink, AtomicBoolean settled) {
+        Pending(StockUpdate update, MonoSink<Product> sink) {
+            this(update, sink, new AtomicBoolean());
+        }
+
+        void success(Product product) {
+            if (settled.compareAndSet(false, true)) {
+                sink.success(product);
+            }
+        }
+
+        void error(Throwable e) {
+            if (settled.compareAndSet(false, true)) {
+                sink.error(e);
+            }
+        }
+    }
+
+    private final class Lane {
+        private final String franchiseId;
+        private List<Pending> pending = new ArrayList<>();
+        private boolean scheduled;
+        private boolean inFlight;
+        private boolean retired;
+
+        Lane(String franchiseId) {
+            this.franchiseId = franchiseId;
+        }
+
+        synchronized Offer offer(Pending p) {
+            if (retired) {
+                return Offer.RETIRED;
+            }
+            if (pending.size() >= maxPending) {
+                return Offer.REJECTED;
+            }
+            pending.add(p);
+            if (inFlight) {
+                return Offer.QUEUED;
+            }
+            if (pending.size() >= maxBatch) {
+                return Offer.FLUSH;
+            }
+            if (!scheduled) {
+                scheduled = true;
+                timer.schedule(this::flush, windowNanos, TimeUnit.NANOSECONDS);
+            }
+            return Offer.QUEUED;
+        }
+
+        void flush() {
+            List<Pending> batch;
+            synchronized (this) {
+                scheduled = false;
+                if (inFlight || pending.isEmpty()) {
+                    return;
+                }
+                if (pending.size() <= maxBatch) {
+                    batch = pending;
+                    pending = new ArrayList<>();
+                } else {
+                    batch = new ArrayList<>(pending.subList(0, maxBatch));
+                    pending = new ArrayList<>(pending.subList(maxBatch, pending.size()));
+                }
+                inFlight = true;
+            }
+            write(franchiseId, batch).doFinally(signal -> written()).subscribe();
+        }
+
+        // lo acumulado durante la escritura ya esperó al menos una ida y vuelta: sale sin esperar otra ventana
+        private void written() {
+            synchronized (this) {
+                inFlight = false;
+                if (pending.isEmpty()) {
+                    retired = true;
+                    lanes.remove(franchiseId, this);
+                    return;
+                }
+            }
+            flush();
+        }
+    }
+
+    private Mono<Void> write(String franchiseId, List<Pending> batch) {
+        List<StockUpdate> updates = new ArrayList<>(batch.size());
+        for (Pending p : batch) {
+            updates.add(p.update);
+        }
+        batchSizes.record(batch.size());
+        // el error del delegado se resuelve antes de completar; lo que falle después solo alcanza a los pendientes
+        return delegate.updateProductStocks(franchiseId, updates)
+                .collectList()
+                .onErrorResume(e -> {
+                    log.warn("Falló el lote de {} actualizaciones de stock de la franquicia {}: {}",
+                            batch.size(), franchiseId, e.getMessage());
+                    batch.forEach(p -> p.error(e));
+                    return Mono.empty();
+                })
+                .doOnNext(results -> complete(batch, results))
+                .onErrorResume(e -> {
+                    log.warn("No se pudo completar el lote de stock de la franquicia {}: {}", franchiseId, e.getMessage());
+                    batch.forEach(p -> p.error(e));
+                    return Mono.empty();
+                })
+                .then();
+    }
+
+    private static void complete(List<Pending> batch, List<StockUpdateResult> results) {
+        Map<StockUpdate, StockUpdateResult> byUpdate = new IdentityHashMap<>();
+        Map<String, Product> written = new HashMap<>();
+        for (StockUpdateResult r : results) {
+            byUpdate.put(r.getUpdate(), r);
+            if (r.getStatus() == StockUpdateResult.Status.UPDATED) {
+                written.put(key(r.getUpdate()), r.getProduct());
+            }
+        }
+        for (Pending p : batch) {
+            StockUpdateResult r = byUpdate.get(p.update);
+            StockUpdateResult.Status status = r == null ? StockUpdateResult.Status.FAILED : r.getStatus();
+            switch (status) {
+                case UPDATED -> p.success(r.getProduct());
+                // reemplazada dentro del lote: vale si la que la reemplazó quedó escrita
+                case SUPERSEDED -> {
+                    Product winner = written.get(key(p.update));
+                    if (winner == null) {
+                        p.error(new DataAccessResourceFailureException("No se pudo actualizar el stock"));
+                    } else {
+                        p.success(new Product(p.update.getProductId(), winner.getName(), p.update.getStock()));
+                    }
+                }
+                // el puerto informa la inexistencia con un vacío
+                case NOT_FOUND -> p.success(null);
+                case FAILED -> p.error(new DataAccessResourceFailureException(
+                        "No se pudo actualizar el stock" + (r == null ? "" : ": " + r.getMessage())));
+            }
+        }
+    }
+
+    private static String key(StockUpdate u) {
+        return u.getBranchId() + '/' + u.getProductId();
+    }
+
+    @Override
+    public Mono<Franchise> save(Franchise franchise) {
+        return delegate.save(franchise);
+    }
+
+    @Override
+    public Mono<Franchise> findById(String id) {
+        return delegate.findById(id);
+    }
+
+    @Override
+    public Mono<Boolean> existsById(String id) {
+        return delegate.existsById(id);
+    }
+
+    @Override
+    public Flux<Franchise> findAll() {
+        return delegate.findAll();
+    }
+
+    @Override
+    public Flux<Franchise> findPage(String afterId, int limit) {
+        return delegate.findPage(afterId, limit);
+    }
+
+    @Override
+    public Flux<FranchiseSummary> findSummaries(String afterId, int limit) {
+        return delegate.findSummaries(afterId, limit);
+    }
+
+    @Override
+    public Mono<Franchise> findBranch(String franchiseId, String branchId) {
+        return delegate.findBranch(franchiseId, branchId);
+    }
+
+    @Override
+    public Mono<Franchise> findBranchNames(String franchiseId) {
+        return delegate.findBranchNames(franchiseId);
+    }
+
+    @Override
+    public Mono<Void> insertBranch(Franchise view, Branch branch) {
+        return delegate.insertBranch(view, branch);
+    }
+
+    @Override
+    public Mono<Void> saveBranch(Franchise view, Branch branch) {
+        return delegate.saveBranch(view, branch);
+    }
+
+    @Override
+    public Mono<Branch> renameBranch(Franchise view, String branchId, String newName) {
+        return delegate.renameBranch(view, branchId, newName);
+    }
+
+    @Override
+    public Mono<Boolean> existsByNameIgnoreCase(String name, String excludingId) {
+        return delegate.existsByNameIgnoreCase(name, excludingId);
+    }
+
+    // los ajustes relativos dependen del valor vigente: no se pueden fusionar como last-writer-wins
+    @Override
+    public Mono<Product> adjustProductStock(String franchiseId, String branchId, String productId, int delta) {
+        return delegate.adjustProductStock(franchiseId, branchId, productId, delta);
+    }
+
+    @Override
+    public Flux<StockUpdateResult> updateProductStocks(String franchiseId, List<StockUpdate> updates) {
+        return delegate.updateProductStocks(franchiseId, updates);
+    }
+
+    @Override
+    public Flux<ProductWithBranch> findMaxStockPerBranch(String franchiseId) {
+        return delegate.findMaxStockPerBranch(franchiseId);
+    }
+
+    @Override
+    public Flux<ProductWithBranch> findTopStockProducts(String franchiseId, int k) {
+        return delegate.findTopStockProducts(franchiseId, k);
+    }
+
+    @Override
+    public Flux<ProductWithBranch> findLowStockProducts(String franchiseId, int below, int limit) {
+        return delegate.findLowStockProducts(franchiseId, below, limit);
+    }
+}
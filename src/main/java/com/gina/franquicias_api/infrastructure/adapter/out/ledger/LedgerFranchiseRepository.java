@@ -0,0 +1,170 @@
+package com.gina.franquicias_api.infrastructure.adapter.out.ledger;
+
+import com.gina.franquicias_api.domain.model.Branch;
+import com.gina.franquicias_api.domain.model.Franchise;
+import com.gina.franquicias_api.domain.model.FranchiseSummary;
+import com.gina.franquicias_api.domain.model.Product;
+import com.gina.franquicias_api.domain.model.ProductWithBranch;
+import com.gina.franquicias_api.domain.model.StockEvent;
+import com.gina.franquicias_api.domain.model.StockUpdate;
+import com.gina.franquicias_api.domain.model.StockUpdateResult;
+import com.gina.franquicias_api.domain.port.out.FranchiseRepository;
+import com.gina.franquicias_api.domain.port.out.StockLedger;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Decorador que agrega al {@link StockLedger} cada cambio de stock que el almacén confirmó. La franquicia sigue
+ * siendo la fuente del stock vigente: si el agregado falla, la escritura ya hecha no se deshace ni se informa
+ * como error al cliente, pero tampoco se pierde en silencio: cada evento sin registrar queda en un ERROR con
+ * todos sus datos, para completar el historial desde el log, y {@code franchise.stock.ledger.failures} cuenta
+ * los eventos perdidos.
+ * El instante de cada evento es el de la confirmación; dos escrituras concurrentes del mismo producto pueden
+ * quedar registradas en orden inverso por milisegundos. Debajo del coalescing los lotes de una franquicia
+ * llegan de a uno, así que los eventos de las actualizaciones agrupadas se registran en orden.
+ */
+public class LedgerFranchiseRepository implements FranchiseRepository {
+    private static final org.slf4j.Logger log = org.slf4j.LoggerFactory.getLogger(LedgerFranchiseRepository.class);
+
+    private final FranchiseRepository delegate;
+    private final StockLedger ledger;
+    private final Counter failures;
+
+    public LedgerFranchiseRepository(FranchiseRepository delegate, StockLedger ledger, MeterRegistry registry) {
+        this.delegate = delegate;
+        this.ledger = ledger;
+        this.failures = registry.counter("franchise.stock.ledger.failures");
+    }
+
+    @Override
+    public Mono<Product> updateProductStock(String franchiseId, String branchId, String productId, int stock) {
+        return delegate.updateProductStock(franchiseId, branchId, productId, stock)
+                .flatMap(p -> record(franchiseId, List.of(new StockEvent(franchiseId, branchId, productId,
+                        StockEvent.Type.SET, stock, p.getStock(), Instant.now(), "updateStock"))).thenReturn(p));
+    }
+
+    @Override
+    public Mono<Product> adjustProductStock(String franchiseId, String branchId, String productId, int delta) {
+        return delegate.adjustProductStock(franchiseId, branchId, productId, delta)
+                .flatMap(p -> record(franchiseId, List.of(new StockEvent(franchiseId, branchId, productId,
+                        StockEvent.Type.ADJUST, delta, p.getStock(), Instant.now(), "adjustStock"))).thenReturn(p));
+    }
+
+    // solo las UPDATED llegaron a Mongo: las reemplazadas dentro del lote no tienen un valor propio que registrar
+    @Override
+    public Flux<StockUpdateResult> updateProductStocks(String franchiseId, List<StockUpdate> updates) {
+        return delegate.updateProductStocks(franchiseId, updates)
+                .collectList()
+                .flatMapMany(results -> {
+                    Instant now = Instant.now();
+                    List<StockEvent> events = new ArrayList<>();
+                    for (StockUpdateResult r : results) {
+                        if (r.getStatus() == StockUpdateResult.Status.UPDATED) {
+                            StockUpdate u = r.getUpdate();
+                            events.add(new StockEvent(franchiseId, u.getBranchId(), u.getProductId(),
+                                    StockEvent.Type.SET, u.getStock(), u.getStock(), now, "updateStocks"));
+                        }
+                    }
+                    return record(franchiseId, events).thenMany(Flux.fromIterable(results));
+                });
+    }
+
+    private Mono<Void> record(String franchiseId, List<StockEvent> events) {
+        if (events.isEmpty()) {
+            return Mono.empty();
+        }
+        return ledger.append(events)
+                .onErrorResume(e -> {
+                    failures.increment(events.size());
+                    log.error("No se pudieron registrar {} cambios de stock de la franquicia {} en el historial: {}",
+                            events.size(), franchiseId, e.getMessage());
+                    for (StockEvent event : events) {
+                        log.error("Cambio de stock sin registrar: franchiseId={} branchId={} productId={} type={} amount={} stock={} at={} source={}",
+                                event.getFranchiseId(), event.getBranchId(), event.getProductId(), event.getType(),
+                                event.getAmount(), event.getStock(), event.getAt(), event.getSource());
+                    }
+                    return Mono.empty();
+                });
+    }
+
+    @Override
+    public Mono<Franchise> save(Franchise franchise) {
+        return delegate.save(franchise);
+    }
+
+    @Override
+    public Mono<Franchise> findById(String id) {
+        return delegate.findById(id);
+    }
+
+    @Override
+    public Mono<Boolean> existsById(String id) {
+        return delegate.existsById(id);
+    }
+
+    @Override
+    public Flux<Franchise> findAll() {
+        return delegate.findAll();
+    }
+
+    @Override
+    public Flux<Franchise> findPage(String afterId, int limit) {
+        return delegate.findPage(afterId, limit);
+    }
+
+    @Override
+    public Flux<FranchiseSummary> findSummaries(String afterId, int limit) {
+        return delegate.findSummaries(afterId, limit);
+    }
+
+    @Override
+    public Mono<Franchise> findBranch(String franchiseId, String branchId) {
+        return delegate.findBranch(franchiseId, branchId);
+    }
+
+    @Override
+    public Mono<Franchise> findBranchNames(String franchiseId) {
+        return delegate.findBranchNames(franchiseId);
+    }
+
+    @Override
+    public Mono<Void> insertBranch(Franchise view, Branch branch) {
+        return delegate.insertBranch(view, branch);
+    }
+
+    @Override
+    public Mono<Void> saveBranch(Franchise view, Branch branch) {
+        return delegate.saveBranch(view, branch);
+    }
+
+    @Override
+    public Mono<Branch> renameBranch(Franchise view, String branchId, String newName) {
+        return delegate.renameBranch(view, branchId, newName);
+    }
+
+    @Override
+    public Mono<Boolean> existsByNameIgnoreCase(String name, String excludingId) {
+        return delegate.existsByNameIgnoreCase(name, excludingId);
+    }
+
+    @Override
+    public Flux<ProductWithBranch> findMaxStockPerBranch(String franchiseId) {
+        return delegate.findMaxStockPerBranch(franchiseId);
+    }
+
+    @Override
+    public Flux<ProductWithBranch> findTopStockProducts(String franchiseId, int k) {
+        return delegate.findTopStockProducts(franchiseId, k);
+    }
+
+    @Override
+    public Flux<ProductWithBranch> findLowStockProducts(String franchiseId, int below, int limit) {
+        return delegate.findLowStockProducts(franchiseId, below, limit);
+    }
+}
@@ -0,0 +1,75 @@
+package com.gina.franquicias_api.infrastructure.adapter.out.ledger;
+
+import com.gina.franquicias_api.domain.port.out.StockLedger;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * Cada {@code franchises.stock.ledger.compaction-interval} resume en checkpoints los eventos de stock más
+ * viejos que {@code franchises.stock.ledger.retention}. Después de eso, el stock en un instante solo se
+ * puede consultar desde el último cambio anterior al corte.
+ */
+@Component
+@ConditionalOnProperty(name = "franchises.stock.ledger.enabled", havingValue = "true")
+public class StockLedgerCompactor implements SmartLifecycle {
+    private static final org.slf4j.Logger log = org.slf4j.LoggerFactory.getLogger(StockLedgerCompactor.class);
+
+    private final StockLedger ledger;
+    private final Duration retention;
+    private final Duration interval;
+
+    private volatile Disposable schedule;
+
+    public StockLedgerCompactor(StockLedger ledger,
+                                @Value("${franchises.stock.ledger.retention:30d}") Duration retention,
+                                @Value("${franchises.stock.ledger.compaction-interval:1h}") Duration interval) {
+        this.ledger = ledger;
+        this.retention = retention;
+        this.interval = interval;
+    }
+
+    @Override
+    public void start() {
+        schedule = Flux.interval(interval, Schedulers.boundedElastic())
+                .onBackpressureDrop()
+                .concatMap(tick -> compact()
+                        .onErrorResume(e -> {
+                            log.warn("No se pudo compactar el historial de stock: {}", e.getMessage());
+                            return Mono.empty();
+                        }))
+                .subscribe();
+    }
+
+    Mono<Long> compact() {
+        Instant before = Instant.now().minus(retention);
+        return ledger.compact(before)
+                .doOnNext(removed -> {
+                    if (removed > 0) {
+                        log.info("Historial de stock compactado: {} eventos anteriores a {}", removed, before);
+                    }
+                });
+    }
+
+    @Override
+    public void stop() {
+        Disposable current = schedule;
+        if (current != null) {
+            current.dispose();
+        }
+        schedule = null;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return schedule != null && !schedule.isDisposed();
+    }
+}
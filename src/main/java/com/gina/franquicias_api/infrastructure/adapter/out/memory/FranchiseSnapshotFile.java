@@ -0,0 +1,161 @@
+package com.gina.franquicias_api.infrastructure.adapter.out.memory;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.gina.franquicias_api.domain.model.Branch;
+import com.gina.franquicias_api.domain.model.Franchise;
+import com.gina.franquicias_api.domain.model.Product;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Instantánea en disco del almacén en memoria ({@code franchises.memory.snapshot.path}): se carga al
+ * arrancar, antes de abrir el servidor, y se reescribe cada {@code franchises.memory.snapshot.interval}
+ * si hubo escrituras, y una última vez al detenerse. El archivo se escribe aparte y se reemplaza con un
+ * move atómico, así que un corte nunca deja una instantánea a medias.
+ */
+@Component
+@ConditionalOnExpression("'${franchises.persistence.layout:embedded}' == 'memory' and '${franchises.memory.snapshot.path:}' != ''")
+public class FranchiseSnapshotFile implements SmartLifecycle {
+    private static final org.slf4j.Logger log = org.slf4j.LoggerFactory.getLogger(FranchiseSnapshotFile.class);
+
+    private final InMemoryFranchiseRepository repository;
+    private final ObjectMapper objectMapper;
+    private final Path path;
+    private final Duration interval;
+
+    private volatile Disposable schedule;
+    // modificaciones del almacén ya reflejadas en disco
+    private long written = -1;
+
+    public FranchiseSnapshotFile(InMemoryFranchiseRepository repository, ObjectMapper objectMapper,
+                                 @Value("${franchises.memory.snapshot.path}") Path path,
+                                 @Value("${franchises.memory.snapshot.interval:30s}") Duration interval) {
+        this.repository = repository;
+        this.objectMapper = objectMapper;
+        this.path = path;
+        this.interval = interval;
+    }
+
+    @Override
+    public void start() {
+        load();
+        schedule = Flux.interval(interval, Schedulers.boundedElastic())
+                .onBackpressureDrop()
+                .concatMap(tick -> Mono.fromRunnable(this::write)
+                        .onErrorResume(e -> {
+                            log.warn("No se pudo escribir la instantánea de franquicias en {}: {}", path, e.getMessage());
+                            return Mono.empty();
+                        }))
+                .subscribe();
+    }
+
+    @Override
+    public void stop() {
+        Disposable current = schedule;
+        if (current != null) {
+            current.dispose();
+        }
+        schedule = null;
+        write();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return schedule != null && !schedule.isDisposed();
+    }
+
+    // arranca antes y se detiene después que el servidor web: no se pierden escrituras del apagado
+    @Override
+    public int getPhase() {
+        return 0;
+    }
+
+    private void load() {
+        if (!Files.exists(path)) {
+            log.info("Sin instantánea de franquicias en {}: se arranca vacío", path);
+            return;
+        }
+        try {
+            List<FranchiseState> states = objectMapper.readValue(path.toFile(), new TypeReference<>() {});
+            List<Franchise> franchises = new ArrayList<>(states.size());
+            for (FranchiseState state : states) {
+                franchises.add(state.toDomain());
+            }
+            repository.restore(franchises);
+            written = repository.modifications();
+            log.info("Instantánea de franquicias cargada desde {}: {} franquicias", path, franchises.size());
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo leer la instantánea de franquicias en " + path, e);
+        }
+    }
+
+    private synchronized void write() {
+        long modifications = repository.modifications();
+        if (modifications == written) {
+            return;
+        }
+        List<FranchiseState> states = new ArrayList<>();
+        for (Franchise f : repository.revisions()) {
+            states.add(FranchiseState.of(f));
+        }
+        try {
+            Path parent = path.toAbsolutePath().getParent();
+            Files.createDirectories(parent);
+            Path tmp = Files.createTempFile(parent, path.getFileName().toString(), ".tmp");
+            objectMapper.writeValue(tmp.toFile(), states);
+            Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            written = modifications;
+            log.debug("Instantánea de franquicias escrita en {}: {} franquicias", path, states.size());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    record FranchiseState(String id, String name, Long version, List<BranchState> branches) {
+        static FranchiseState of(Franchise f) {
+            List<BranchState> branches = new ArrayList<>(f.getBranches().size());
+            for (Branch b : f.getBranches()) {
+                List<ProductState> products = new ArrayList<>(b.getProducts().size());
+                for (Product p : b.getProducts()) {
+                    products.add(new ProductState(p.getId(), p.getName(), p.getStock()));
+                }
+                branches.add(new BranchState(b.getId(), b.getName(), products));
+            }
+            return new FranchiseState(f.getId(), f.getName(), f.getVersion(), branches);
+        }
+
+        Franchise toDomain() {
+            Franchise f = new Franchise(id, name, branches.size(), version);
+            for (BranchState bs : branches) {
+                Branch b = new Branch(bs.id(), bs.name(), bs.products().size());
+                for (ProductState ps : bs.products()) {
+                    b.addProduct(new Product(ps.id(), ps.name(), ps.stock()));
+                }
+                f.addBranch(b);
+            }
+            return f;
+        }
+    }
+
+    record BranchState(String id, String name, List<ProductState> products) {
+    }
+
+    record ProductState(String id, String name, int stock) {
+    }
+}
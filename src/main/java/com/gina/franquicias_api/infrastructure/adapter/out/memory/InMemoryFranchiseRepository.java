@@ -0,0 +1,467 @@
+package com.gina.franquicias_api.infrastructure.adapter.out.memory;
+
+import com.gina.franquicias_api.domain.exception.BusinessException;
+import com.gina.franquicias_api.domain.model.Branch;
+import com.gina.franquicias_api.domain.model.Franchise;
+import com.gina.franquicias_api.domain.model.FranchiseSummary;
+import com.gina.franquicias_api.domain.model.Product;
+import com.gina.franquicias_api.domain.model.ProductWithBranch;
+import com.gina.franquicias_api.domain.model.StockUpdate;
+import com.gina.franquicias_api.domain.model.StockUpdateResult;
+import com.gina.franquicias_api.domain.port.out.FranchiseRepository;
+import com.gina.franquicias_api.infrastructure.config.FranchiseRepositoryConfig;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.IntUnaryOperator;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+
+/**
+ * Almacén en memoria ({@code franchises.persistence.layout=memory}) para correr y someter a carga la API
+ * sin Mongo, y como referencia para medir el costo del adaptador de Mongo.
+ * <p>
+ * Cada franquicia guardada es una revisión que nunca se modifica: una escritura arma la revisión siguiente
+ * (compartiendo las sucursales que no cambian) y la publica con un put. Las lecturas no toman locks y
+ * siempre ven una revisión completa; los escritores de una misma franquicia se serializan con un lock
+ * por franja de ids. Quien recibe un agregado recibe una copia, igual que con Mongo.
+ */
+@Repository
+@Qualifier(FranchiseRepositoryConfig.STORE)
+@ConditionalOnProperty(name = "franchises.persistence.layout", havingValue = "memory")
+public class InMemoryFranchiseRepository implements FranchiseRepository {
+    private static final int STRIPES = 64;
+
+    private final Map<String, Franchise> franchises = new ConcurrentHashMap<>();
+    // orden por id para el keyset de findPage/findSummaries
+    private final NavigableSet<String> ids = new ConcurrentSkipListSet<>();
+    // hace las veces del índice único sobre normalizedName: putIfAbsent resuelve las carreras entre altas
+    private final Map<String, String> idsByName = new ConcurrentHashMap<>();
+    private final ReentrantLock[] stripes = new ReentrantLock[STRIPES];
+    private final AtomicLong modifications = new AtomicLong();
+
+    public InMemoryFranchiseRepository() {
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+    }
+
+    @Override
+    public Mono<Franchise> save(Franchise franchise) {
+        return Mono.fromCallable(() -> locked(franchise.getId(), () -> {
+            Franchise current = franchises.get(franchise.getId());
+            Long expected = current == null ? null : current.getVersion();
+            if (current == null ? franchise.getVersion() != null : !expected.equals(franchise.getVersion())) {
+                throw versionConflict(franchise.getId());
+            }
+
+            String key = nameKey(franchise.getName());
+            String owner = idsByName.putIfAbsent(key, franchise.getId());
+            if (owner != null && !owner.equals(franchise.getId())) {
+                throw new BusinessException("Ya existe una franquicia con el mismo nombre");
+            }
+            if (current != null && !nameKey(current.getName()).equals(key)) {
+                idsByName.remove(nameKey(current.getName()), franchise.getId());
+            }
+
+            Franchise stored = copyOf(franchise, expected == null ? 0L : expected + 1);
+            publish(stored);
+            return copyOf(stored, stored.getVersion());
+        }));
+    }
+
+    @Override
+    public Mono<Franchise> findById(String id) {
+        return Mono.fromCallable(() -> {
+            Franchise f = franchises.get(id);
+            return f == null ? null : copyOf(f, f.getVersion());
+        });
+    }
+
+    @Override
+    public Mono<Boolean> existsById(String id) {
+        return Mono.fromCallable(() -> franchises.containsKey(id));
+    }
+
+    @Override
+    public Flux<Franchise> findAll() {
+        return findPage(null, 0);
+    }
+
+    @Override
+    public Flux<Franchise> findPage(String afterId, int limit) {
+        return page(afterId, limit).map(f -> copyOf(f, f.getVersion()));
+    }
+
+    @Override
+    public Flux<FranchiseSummary> findSummaries(String afterId, int limit) {
+        return page(afterId, limit).map(f -> new FranchiseSummary(f.getId(), f.getName(), f.getBranches().size()));
+    }
+
+    // el conjunto de ids se recorre en forma perezosa: un id borrado entre medio simplemente no aparece
+    private Flux<Franchise> page(String afterId, int limit) {
+        Flux<Franchise> page = Flux.defer(() -> Flux.fromIterable(afterId == null ? ids : ids.tailSet(afterId, false)))
+                .mapNotNull(franchises::get);
+        return limit > 0 ? page.take(limit) : page;
+    }
+
+    @Override
+    public Mono<Franchise> findBranch(String franchiseId, String branchId) {
+        return Mono.fromCallable(() -> {
+            Franchise f = franchises.get(franchiseId);
+            if (f == null) {
+                return null;
+            }
+            Franchise view = new Franchise(f.getId(), f.getName(), 1, f.getVersion());
+            f.findBranch(branchId).ifPresent(b -> view.addBranch(copyOf(b)));
+            return view;
+        });
+    }
+
+    @Override
+    public Mono<Franchise> findBranchNames(String franchiseId) {
+        return Mono.fromCallable(() -> {
+            Franchise f = franchises.get(franchiseId);
+            if (f == null) {
+                return null;
+            }
+            Franchise view = new Franchise(f.getId(), f.getName(), f.getBranches().size(), f.getVersion());
+            for (Branch b : f.getBranches()) {
+                view.addBranch(new Branch(b.getId(), b.getName(), 0));
+            }
+            return view;
+        });
+    }
+
+    @Override
+    public Mono<Void> insertBranch(Franchise view, Branch branch) {
+        return Mono.fromRunnable(() -> locked(view.getId(), () -> {
+            Franchise current = currentRevision(view);
+            Franchise next = new Franchise(current.getId(), current.getName(), current.getBranches().size() + 1,
+                    current.getVersion() + 1);
+            current.getBranches().forEach(next::addBranch);
+            next.addBranch(copyOf(branch));
+            publish(next);
+            return null;
+        }));
+    }
+
+    @Override
+    public Mono<Void> saveBranch(Franchise view, Branch branch) {
+        return Mono.fromRunnable(() -> locked(view.getId(), () -> {
+            Franchise current = currentRevision(view);
+            if (current.findBranch(branch.getId()).isEmpty()) {
+                throw versionConflict(view.getId());
+            }
+            publish(replaceBranch(current, branch.getId(), b -> copyOf(branch)));
+            return null;
+        }));
+    }
+
+    @Override
+    public Mono<Branch> renameBranch(Franchise view, String branchId, String newName) {
+        return Mono.fromCallable(() -> locked(view.getId(), () -> {
+            Franchise current = currentRevision(view);
+            if (current.findBranch(branchId).isEmpty()) {
+                throw versionConflict(view.getId());
+            }
+            Franchise next = replaceBranch(current, branchId, b -> copyOf(b, newName));
+            publish(next);
+            return copyOf(next.findBranch(branchId).orElseThrow());
+        }));
+    }
+
+    @Override
+    public Mono<Boolean> existsByNameIgnoreCase(String name, String excludingId) {
+        return Mono.fromCallable(() -> {
+            String id = idsByName.get(nameKey(name));
+            return id != null && !id.equals(excludingId);
+        });
+    }
+
+    @Override
+    public Mono<Product> updateProductStock(String franchiseId, String branchId, String productId, int stock) {
+        return Mono.fromCallable(() -> updateStock(franchiseId, branchId, productId, current -> stock));
+    }
+
+    @Override
+    public Mono<Product> adjustProductStock(String franchiseId, String branchId, String productId, int delta) {
+        // -1 como centinela: con lock tomado, el chequeo y la escritura son atómicos como el filtro de Mongo, que
+        // tampoco deja el stock en negativo ni por encima de un int
+        return Mono.fromCallable(() -> updateStock(franchiseId, branchId, productId, current -> {
+            long stock = (long) current + delta;
+            return stock < 0 || stock > Integer.MAX_VALUE ? -1 : (int) stock;
+        }));
+    }
+
+    private Product updateStock(String franchiseId, String branchId, String productId, IntUnaryOperator newStock) {
+        return locked(franchiseId, () -> {
+            Franchise current = franchises.get(franchiseId);
+            Product product = current == null ? null : current.findBranch(branchId)
+                    .flatMap(b -> b.findProduct(productId))
+                    .orElse(null);
+            if (product == null) {
+                return null;
+            }
+            int stock = newStock.applyAsInt(product.getStock());
+            if (stock < 0) {
+                return null;
+            }
+            publish(replaceBranch(current, branchId, b -> withStocks(b, Map.of(productId, stock))));
+            return new Product(product.getId(), product.getName(), stock);
+        });
+    }
+
+    @Override
+    public Flux<StockUpdateResult> updateProductStocks(String franchiseId, List<StockUpdate> updates) {
+        return Flux.defer(() -> Flux.fromIterable(locked(franchiseId, () -> {
+            Franchise current = franchises.get(franchiseId);
+            List<StockUpdateResult> results = new ArrayList<>(updates.size());
+            // una copia por sucursal tocada y una sola revisión nueva para todo el lote
+            Map<String, Map<String, Integer>> stocksByBranch = new HashMap<>();
+            for (StockUpdate u : updates) {
+                Product product = current == null ? null : current.findBranch(u.getBranchId())
+                        .flatMap(b -> b.findProduct(u.getProductId()))
+                        .orElse(null);
+                if (product == null) {
+                    results.add(new StockUpdateResult(u, StockUpdateResult.Status.NOT_FOUND, "Producto no encontrado"));
+                    continue;
+                }
+                stocksByBranch.computeIfAbsent(u.getBranchId(), k -> new HashMap<>()).put(u.getProductId(), u.getStock());
+                results.add(StockUpdateResult.updated(u, product.getName()));
+            }
+            if (!stocksByBranch.isEmpty()) {
+                Franchise next = current;
+                for (Map.Entry<String, Map<String, Integer>> e : stocksByBranch.entrySet()) {
+                    next = replaceBranch(next, e.getKey(), b -> withStocks(b, e.getValue()));
+                }
+                publish(next);
+            }
+            return results;
+        })));
+    }
+
+    @Override
+    public Flux<ProductWithBranch> findMaxStockPerBranch(String franchiseId) {
+        return Flux.defer(() -> {
+            Franchise f = franchises.get(franchiseId);
+            if (f == null) {
+                return Flux.empty();
+            }
+            List<ProductWithBranch> rows = new ArrayList<>(f.getBranches().size());
+            for (Branch b : f.getBranches()) {
+                Product max = null;
+                for (Product p : b.getProducts()) {
+                    if (max == null || p.getStock() > max.getStock()) {
+                        max = p;
+                    }
+                }
+                rows.add(new ProductWithBranch(b.getName(), max == null ? null : copyOf(max)));
+            }
+            return Flux.fromIterable(rows);
+        });
+    }
+
+    // mismo desempate por id de producto que los esquemas de Mongo: ascendente en el top, descendente en el bajo stock
+    @Override
+    public Flux<ProductWithBranch> findTopStockProducts(String franchiseId, int k) {
+        Comparator<ProductWithBranch> order = Comparator.<ProductWithBranch>comparingInt(r -> r.getProduct().getStock())
+                .reversed()
+                .thenComparing(r -> r.getProduct().getId());
+        return rank(franchiseId, null, order, k);
+    }
+
+    @Override
+    public Flux<ProductWithBranch> findLowStockProducts(String franchiseId, int below, int limit) {
+        Comparator<ProductWithBranch> order = Comparator.<ProductWithBranch>comparingInt(r -> r.getProduct().getStock())
+                .thenComparing(r -> r.getProduct().getId(), Comparator.reverseOrder());
+        return rank(franchiseId, below, order, limit);
+    }
+
+    // montículo acotado con el peor de los elegidos en la cima: O(n log limit) y limit elementos en memoria;
+    // below null no filtra por stock
+    private Flux<ProductWithBranch> rank(String franchiseId, Integer below, Comparator<ProductWithBranch> order, int limit) {
+        return Flux.defer(() -> {
+            Franchise f = franchises.get(franchiseId);
+            if (f == null) {
+                return Flux.empty();
+            }
+            PriorityQueue<ProductWithBranch> heap = new PriorityQueue<>(limit + 1, order.reversed());
+            for (Branch b : f.getBranches()) {
+                for (Product p : b.getProducts()) {
+                    if (below == null || p.getStock() < below) {
+                        heap.add(new ProductWithBranch(b.getName(), p));
+                        if (heap.size() > limit) {
+                            heap.poll();
+                        }
+                    }
+                }
+            }
+            List<ProductWithBranch> rows = new ArrayList<>(heap.size());
+            for (ProductWithBranch row : heap) {
+                rows.add(new ProductWithBranch(row.getBranchName(), copyOf(row.getProduct())));
+            }
+            rows.sort(order);
+            return Flux.fromIterable(rows);
+        });
+    }
+
+    // revisiones vigentes, sin copiar: quien las recibe no debe modificarlas
+    public Collection<Franchise> revisions() {
+        return franchises.values();
+    }
+
+    // número de escrituras aplicadas; permite saber si algo cambió desde la última instantánea
+    public long modifications() {
+        return modifications.get();
+    }
+
+    // carga inicial desde una instantánea, antes de atender tráfico
+    public void restore(Collection<Franchise> snapshot) {
+        for (Franchise f : snapshot) {
+            locked(f.getId(), () -> {
+                Franchise previous = franchises.get(f.getId());
+                if (previous != null) {
+                    idsByName.remove(nameKey(previous.getName()), f.getId());
+                }
+                idsByName.put(nameKey(f.getName()), f.getId());
+                franchises.put(f.getId(), indexed(copyOf(f, f.getVersion())));
+                ids.add(f.getId());
+                return null;
+            });
+        }
+    }
+
+    // bajas fuera del puerto: los benchmarks deshacen con ellas lo que dan de alta
+    public void delete(String franchiseId) {
+        locked(franchiseId, () -> {
+            Franchise removed = franchises.remove(franchiseId);
+            if (removed != null) {
+                ids.remove(franchiseId);
+                idsByName.remove(nameKey(removed.getName()), franchiseId);
+                modifications.incrementAndGet();
+            }
+            return null;
+        });
+    }
+
+    public void deleteBranch(String franchiseId, String branchId) {
+        locked(franchiseId, () -> {
+            Franchise current = franchises.get(franchiseId);
+            if (current == null || current.findBranch(branchId).isEmpty()) {
+                return null;
+            }
+            Franchise next = new Franchise(current.getId(), current.getName(), current.getBranches().size() - 1,
+                    current.getVersion() + 1);
+            for (Branch b : current.getBranches()) {
+                if (!b.getId().equals(branchId)) {
+                    next.addBranch(b);
+                }
+            }
+            publish(next);
+            return null;
+        });
+    }
+
+    private Franchise currentRevision(Franchise view) {
+        Franchise current = franchises.get(view.getId());
+        if (current == null || !current.getVersion().equals(view.getVersion())) {
+            throw versionConflict(view.getId());
+        }
+        return current;
+    }
+
+    private void publish(Franchise revision) {
+        franchises.put(revision.getId(), indexed(revision));
+        ids.add(revision.getId());
+        modifications.incrementAndGet();
+    }
+
+    // las revisiones publicadas se leen desde varios hilos: sus índices perezosos se arman antes del put,
+    // que los publica completos. Las sucursales compartidas con la revisión anterior ya vienen indexadas
+    private static Franchise indexed(Franchise revision) {
+        revision.findBranch(revision.getId());
+        for (Branch b : revision.getBranches()) {
+            b.findProduct(b.getId());
+        }
+        return revision;
+    }
+
+    // revisión siguiente: misma lista de sucursales salvo la reemplazada
+    private static Franchise replaceBranch(Franchise current, String branchId, UnaryOperator<Branch> change) {
+        Franchise next = new Franchise(current.getId(), current.getName(), current.getBranches().size(),
+                current.getVersion() + 1);
+        for (Branch b : current.getBranches()) {
+            next.addBranch(b.getId().equals(branchId) ? change.apply(b) : b);
+        }
+        return next;
+    }
+
+    private static Branch withStocks(Branch b, Map<String, Integer> stocks) {
+        Branch copy = new Branch(b.getId(), b.getName(), b.getProducts().size());
+        for (Product p : b.getProducts()) {
+            Integer stock = stocks.get(p.getId());
+            copy.addProduct(stock == null ? p : new Product(p.getId(), p.getName(), stock));
+        }
+        return copy;
+    }
+
+    private <T> T locked(String franchiseId, Supplier<T> action) {
+        ReentrantLock lock = stripes[(franchiseId.hashCode() & 0x7fffffff) % STRIPES];
+        lock.lock();
+        try {
+            return action.get();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static OptimisticLockingFailureException versionConflict(String franchiseId) {
+        return new OptimisticLockingFailureException("La franquicia " + franchiseId + " cambió desde la lectura");
+    }
+
+    private static String nameKey(String name) {
+        return name.toLowerCase(Locale.ROOT);
+    }
+
+    private static Franchise copyOf(Franchise f, Long version) {
+        Franchise copy = new Franchise(f.getId(), f.getName(), f.getBranches().size(), version);
+        for (Branch b : f.getBranches()) {
+            copy.addBranch(copyOf(b));
+        }
+        return copy;
+    }
+
+    private static Branch copyOf(Branch b) {
+        return copyOf(b, b.getName());
+    }
+
+    private static Branch copyOf(Branch b, String name) {
+        Branch copy = new Branch(b.getId(), name, b.getProducts().size());
+        for (Product p : b.getProducts()) {
+            copy.addProduct(copyOf(p));
+        }
+        return copy;
+    }
+
+    private static Product copyOf(Product p) {
+        return new Product(p.getId(), p.getName(), p.getStock());
+    }
+}
@@ -0,0 +1,87 @@
+package com.gina.franquicias_api.infrastructure.adapter.out.memory;
+
+import com.gina.franquicias_api.domain.model.StockEvent;
+import com.gina.franquicias_api.domain.port.out.StockLedger;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Mono;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Historial de stock del almacén en memoria: una lista por producto ordenada por instante. No se persiste
+ * con la instantánea en disco; al reiniciar el historial arranca vacío.
+ */
+@Repository
+@ConditionalOnExpression("${franchises.stock.ledger.enabled:false} and '${franchises.persistence.layout:embedded}' == 'memory'")
+public class InMemoryStockLedger implements StockLedger {
+    private final Map<Key, List<StockEvent>> events = new ConcurrentHashMap<>();
+
+    @Override
+    public Mono<Void> append(List<StockEvent> batch) {
+        return Mono.fromRunnable(() -> {
+            for (StockEvent e : batch) {
+                List<StockEvent> history = events.computeIfAbsent(
+                        new Key(e.getFranchiseId(), e.getBranchId(), e.getProductId()), k -> new ArrayList<>());
+                synchronized (history) {
+                    // los eventos llegan casi siempre en orden; el corrimiento es corto cuando no
+                    history.add(after(history, e.getAt()), e);
+                }
+            }
+        });
+    }
+
+    @Override
+    public Mono<StockEvent> stockAt(String franchiseId, String branchId, String productId, Instant at) {
+        return Mono.fromSupplier(() -> {
+            List<StockEvent> history = events.get(new Key(franchiseId, branchId, productId));
+            if (history == null) {
+                return null;
+            }
+            synchronized (history) {
+                int i = after(history, at);
+                return i == 0 ? null : history.get(i - 1);
+            }
+        });
+    }
+
+    // el último evento anterior al corte queda como checkpoint del producto
+    @Override
+    public Mono<Long> compact(Instant before) {
+        return Mono.fromSupplier(() -> {
+            long removed = 0;
+            for (List<StockEvent> history : events.values()) {
+                synchronized (history) {
+                    int older = after(history, before.minusNanos(1));
+                    if (older > 1) {
+                        history.subList(0, older - 1).clear();
+                        removed += older - 1;
+                    }
+                }
+            }
+            return removed;
+        });
+    }
+
+    // posición del primer evento posterior a at
+    private static int after(List<StockEvent> history, Instant at) {
+        int lo = 0;
+        int hi = history.size();
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (history.get(mid).getAt().isAfter(at)) {
+                hi = mid;
+            } else {
+                lo = mid + 1;
+            }
+        }
+        return lo;
+    }
+
+    private record Key(String franchiseId, String branchId, String productId) {
+    }
+}
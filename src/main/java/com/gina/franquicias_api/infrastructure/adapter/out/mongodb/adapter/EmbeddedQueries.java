@@ -0,0 +1,199 @@
+package com.gina.franquicias_api.infrastructure.adapter.out.mongodb.adapter;
+
+import com.gina.franquicias_api.domain.model.Franchise;
+import com.gina.franquicias_api.domain.model.FranchiseSummary;
+import com.gina.franquicias_api.domain.model.Product;
+import com.gina.franquicias_api.domain.model.ProductWithBranch;
+import com.gina.franquicias_api.domain.model.StockUpdate;
+import com.gina.franquicias_api.infrastructure.adapter.out.mongodb.entity.BranchMaxStockDocument;
+import com.gina.franquicias_api.infrastructure.adapter.out.mongodb.entity.FranchiseDocument;
+import org.bson.Document;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOperation;
+import org.springframework.data.mongodb.core.query.BasicQuery;
+import org.springframework.data.mongodb.core.query.Collation;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Consultas y agregaciones del esquema embebido, compartidas por el adaptador reactivo y el bloqueante:
+ * los dos mandan a Mongo exactamente lo mismo y solo cambia el driver que lo ejecuta.
+ */
+final class EmbeddedQueries {
+    // los empates de stock se ordenan por id de producto, igual en los tres esquemas: el mismo pedido devuelve
+    // siempre los mismos productos
+    static final Sort TOP_STOCK = Sort.by(Sort.Order.desc("branches.products.stock"), Sort.Order.asc("branches.products._id"));
+    static final Sort LOW_STOCK = Sort.by(Sort.Order.asc("branches.products.stock"), Sort.Order.desc("branches.products._id"));
+
+    private EmbeddedQueries() {
+    }
+
+    static Query byId(String franchiseId) {
+        return new Query(Criteria.where("_id").is(franchiseId));
+    }
+
+    static Query nameTaken(String normalizedName, String excludingId) {
+        Criteria criteria = Criteria.where("normalizedName").is(normalizedName);
+        if (excludingId != null) {
+            criteria = criteria.and("_id").ne(excludingId);
+        }
+        return new Query(criteria).collation(Collation.from(Document.parse(FranchiseDocument.NAME_COLLATION)));
+    }
+
+    // el conteo se resuelve en el servidor: las sucursales no viajan por la red
+    static Aggregation summaries(String afterId, int limit) {
+        List<AggregationOperation> stages = new ArrayList<>(KeysetPage.stages(afterId, limit));
+        stages.add(context -> new Document("$project", new Document("name", 1)
+                .append("branchCount", new Document("$size", new Document("$ifNull", List.of("$branches", List.of()))))));
+        return Aggregation.newAggregation(stages).withOptions(
+                Aggregation.newAggregationOptions().cursorBatchSize(KeysetPage.CURSOR_BATCH).build());
+    }
+
+    static FranchiseSummary toSummary(Document row) {
+        return new FranchiseSummary(row.getString("_id"), row.getString("name"), row.getInteger("branchCount"));
+    }
+
+    static Query branch(String franchiseId, String branchId) {
+        Query query = byId(franchiseId);
+        query.fields().include("name").include("version").elemMatch("branches", Criteria.where("_id").is(branchId));
+        return query;
+    }
+
+    static Query branchNames(String franchiseId) {
+        Query query = byId(franchiseId);
+        query.fields().include("name").include("version").include("branches._id").include("branches.name");
+        return query;
+    }
+
+    // sin coincidencia la versión cambió o la sucursal ya no existe; el reintento vuelve a leer y decide
+    static Query versionQuery(Franchise view) {
+        return new Query(Criteria.where("_id").is(view.getId()).and("version").is(view.getVersion()));
+    }
+
+    static OptimisticLockingFailureException versionConflict(Franchise view) {
+        return new OptimisticLockingFailureException("La franquicia " + view.getId() + " cambió desde la lectura");
+    }
+
+    // tamaño del documento ya escrito, calculado en el servidor en la misma operación ($bsonSize, Mongo 4.4+)
+    static final String SIZE = "size";
+    static final String BRANCH_COUNT = "branchCount";
+
+    static Document sizeFields() {
+        return new Document(SIZE, new Document("$bsonSize", "$$ROOT"))
+                .append(BRANCH_COUNT, new Document("$size", new Document("$ifNull", List.of("$branches", List.of()))));
+    }
+
+    // la proyección va como documento: findAndModify no evalúa las expresiones de Query.fields()
+    static Query withSize(Query query) {
+        return new BasicQuery(query.getQueryObject(), sizeFields());
+    }
+
+    // el producto escrito, para devolverlo desde la misma findAndModify que lo actualiza
+    static Query productWithSize(String franchiseId, String branchId, Criteria product, String productId) {
+        Document branch = new Document("$arrayElemAt", List.of(new Document("$filter", new Document("input", "$branches")
+                .append("as", "b")
+                .append("cond", new Document("$eq", List.of("$$b._id", branchId)))), 0));
+        Document written = new Document("$let", new Document("vars", new Document("b", branch))
+                .append("in", new Document("$arrayElemAt", List.of(new Document("$filter", new Document("input", "$$b.products")
+                        .append("as", "p")
+                        .append("cond", new Document("$eq", List.of("$$p._id", productId)))), 0))));
+
+        return new BasicQuery(productQuery(franchiseId, branchId, product).getQueryObject(),
+                sizeFields().append("product", written));
+    }
+
+    static Query productQuery(String franchiseId, String branchId, Criteria product) {
+        // los ids embebidos se guardan como _id; se filtra el documento para no contar como éxito un producto inexistente
+        return new Query(Criteria.where("_id").is(franchiseId)
+                .and("branches").elemMatch(Criteria.where("_id").is(branchId).and("products").elemMatch(product)));
+    }
+
+    static Criteria adjustable(String productId, int delta) {
+        Criteria product = Criteria.where("_id").is(productId);
+        // la guarda va en el filtro para que la suma sea atómica: nunca deja el stock en negativo ni lo pasa de
+        // int32, que Mongo guardaría como int64
+        return delta < 0
+                ? product.and("stock").gte(-delta)
+                : product.and("stock").lte(Integer.MAX_VALUE - delta);
+    }
+
+    // nombres de los productos de un lote, leídos después del bulkWrite: el resultado del bulk no los da ni
+    // dice qué elemento no coincidió. Se filtra en el servidor para no traer el arreglo completo de productos
+    static Aggregation productNames(String franchiseId, List<StockUpdate> updates) {
+        List<String> branchIds = updates.stream().map(StockUpdate::getBranchId).distinct().toList();
+        List<String> productIds = updates.stream().map(StockUpdate::getProductId).distinct().toList();
+        Document products = new Document("$map", new Document("input", new Document("$filter",
+                new Document("input", "$$b.products")
+                        .append("as", "p")
+                        .append("cond", new Document("$in", List.of("$$p._id", productIds)))))
+                .append("as", "p")
+                .append("in", new Document("_id", "$$p._id").append("name", "$$p.name")));
+        Document branches = new Document("$map", new Document("input", new Document("$filter",
+                new Document("input", "$branches")
+                        .append("as", "b")
+                        .append("cond", new Document("$in", List.of("$$b._id", branchIds)))))
+                .append("as", "b")
+                .append("in", new Document("_id", "$$b._id").append("products", products)));
+
+        return Aggregation.newAggregation(
+                Aggregation.match(Criteria.where("_id").is(franchiseId)),
+                context -> new Document("$project", sizeFields().append("branches", branches)));
+    }
+
+    static Map<String, Map<String, String>> productNamesByBranch(Document row) {
+        Map<String, Map<String, String>> names = new HashMap<>();
+        for (Document b : row.getList("branches", Document.class, List.of())) {
+            Map<String, String> products = new HashMap<>();
+            b.getList("products", Document.class, List.of()).forEach(p -> products.put(p.getString("_id"), p.getString("name")));
+            names.put(b.getString("_id"), products);
+        }
+        return names;
+    }
+
+    // lectura del máximo materializado; solo las sucursales escritas antes de materializarlo se recorren
+    static Aggregation maxStockPerBranch(String franchiseId) {
+        Document maxProduct = new Document("$ifNull", List.of(
+                "$branches.maxStockProduct", MaxStockExpressions.maxOf("$branches.products")));
+
+        return Aggregation.newAggregation(
+                Aggregation.match(Criteria.where("_id").is(franchiseId)),
+                Aggregation.unwind("branches"),
+                context -> new Document("$project", new Document("_id", 0)
+                        .append("branchName", "$branches.name")
+                        .append("product", maxProduct)));
+    }
+
+    // $sort seguido de $limit se fusiona en el servidor en un top-k: mantiene solo limit productos en memoria
+    static Aggregation rankProducts(String franchiseId, Criteria filter, Sort order, int limit) {
+        List<AggregationOperation> stages = new ArrayList<>();
+        stages.add(Aggregation.match(Criteria.where("_id").is(franchiseId)));
+        stages.add(Aggregation.unwind("branches"));
+        stages.add(Aggregation.unwind("branches.products"));
+        if (filter != null) {
+            stages.add(Aggregation.match(filter));
+        }
+        stages.add(Aggregation.sort(order));
+        stages.add(Aggregation.limit(limit));
+        stages.add(context -> new Document("$project", new Document("_id", 0)
+                .append("branchName", "$branches.name")
+                .append("product", "$branches.products")));
+        return Aggregation.newAggregation(stages);
+    }
+
+    static Criteria stockBelow(int below) {
+        return Criteria.where("branches.products.stock").lt(below);
+    }
+
+    static ProductWithBranch toProductWithBranch(BranchMaxStockDocument row) {
+        return new ProductWithBranch(row.getBranchName(), row.getProduct() == null
+                ? null
+                : new Product(row.getProduct().getId(), row.getProduct().getName(), row.getProduct().getStock()));
+    }
+}
@@ -0,0 +1,244 @@
+package com.gina.franquicias_api.infrastructure.adapter.out.mongodb.adapter;
+
+import com.gina.franquicias_api.domain.exception.BusinessException;
+import com.gina.franquicias_api.domain.model.Branch;
+import com.gina.franquicias_api.domain.model.Franchise;
+import com.gina.franquicias_api.domain.model.FranchiseSummary;
+import com.gina.franquicias_api.domain.model.Product;
+import com.gina.franquicias_api.domain.model.ProductWithBranch;
+import com.gina.franquicias_api.domain.model.StockUpdate;
+import com.gina.franquicias_api.domain.model.StockUpdateResult;
+import com.gina.franquicias_api.domain.port.out.FranchiseRepository;
+import com.gina.franquicias_api.infrastructure.adapter.out.mongodb.entity.BranchDocument;
+import com.gina.franquicias_api.infrastructure.adapter.out.mongodb.entity.BranchMaxStockDocument;
+import com.gina.franquicias_api.infrastructure.adapter.out.mongodb.entity.FranchiseDocument;
+import com.gina.franquicias_api.infrastructure.adapter.out.mongodb.mapper.FranchiseMapper;
+import com.gina.franquicias_api.infrastructure.config.BlockingMongoConfig;
+import com.gina.franquicias_api.infrastructure.config.FranchiseRepositoryConfig;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.BulkOperations.BulkMode;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.data.mongodb.core.query.UpdateDefinition;
+import org.springframework.data.util.TypeInformation;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * Esquema embebido sobre el driver sincrónico: misma colección y mismas consultas que {@link FranchiseMongoAdapter}
+ * ({@link EmbeddedQueries}), con las mismas idas y vueltas por operación, pero cada llamada ocupa un hilo de
+ * {@link BlockingMongoConfig#SCHEDULER} mientras espera a Mongo. Las proyecciones traen el tamaño del documento
+ * igual que en el adaptador reactivo; acá no se registra porque los diagnósticos son del perfil embebido. El puerto sigue siendo Mono/Flux, así que servicio y controlador no cambian. Sirve para comparar
+ * hilos virtuales contra el stack reactivo con la misma carga; se activa con el perfil {@code blocking}.
+ */
+@Repository
+@Qualifier(FranchiseRepositoryConfig.STORE)
+@ConditionalOnProperty(name = "franchises.persistence.layout", havingValue = "blocking")
+public class FranchiseBlockingMongoAdapter implements FranchiseRepository {
+    private final MongoTemplate template;
+    private final FranchiseMapper mapper;
+    private final Scheduler scheduler;
+
+    public FranchiseBlockingMongoAdapter(MongoTemplate template, FranchiseMapper mapper,
+                                         @Qualifier(BlockingMongoConfig.SCHEDULER) Scheduler scheduler) {
+        this.template = template;
+        this.mapper = mapper;
+        this.scheduler = scheduler;
+    }
+
+    // null -> vacío, igual que un findOne reactivo sin resultado
+    private <T> Mono<T> call(Callable<T> work) {
+        return Mono.fromCallable(work).subscribeOn(scheduler);
+    }
+
+    private <T> Flux<T> list(Callable<List<T>> work) {
+        return call(work).flatMapIterable(rows -> rows);
+    }
+
+    // el cursor avanza según la demanda, siempre en un hilo del scheduler; se cierra al completar o cancelar
+    private <T> Flux<T> stream(Supplier<Stream<? extends T>> cursor) {
+        return Flux.fromStream(cursor).subscribeOn(scheduler);
+    }
+
+    @Override
+    public Mono<Franchise> save(Franchise f) {
+        return call(() -> mapper.toDomain(template.save(mapper.toDocument(f))))
+                .onErrorMap(e -> e instanceof DuplicateKeyException
+                                && String.valueOf(e.getMessage()).contains(FranchiseDocument.NAME_INDEX),
+                        e -> new BusinessException("Ya existe una franquicia con el mismo nombre"));
+    }
+
+    @Override
+    public Mono<Franchise> findById(String id) {
+        return call(() -> template.findById(id, FranchiseDocument.class)).map(mapper::toDomain);
+    }
+
+    @Override
+    public Mono<Boolean> existsById(String id) {
+        return call(() -> template.exists(EmbeddedQueries.byId(id), FranchiseDocument.class));
+    }
+
+    @Override
+    public Flux<Franchise> findAll() {
+        return stream(() -> template.stream(new Query(), FranchiseDocument.class)).map(mapper::toDomain);
+    }
+
+    @Override
+    public Flux<Franchise> findPage(String afterId, int limit) {
+        return stream(() -> template.stream(KeysetPage.query(afterId, limit), FranchiseDocument.class))
+                .map(mapper::toDomain);
+    }
+
+    @Override
+    public Flux<FranchiseSummary> findSummaries(String afterId, int limit) {
+        return stream(() -> template.aggregateStream(EmbeddedQueries.summaries(afterId, limit),
+                        template.getCollectionName(FranchiseDocument.class), Document.class))
+                .map(EmbeddedQueries::toSummary);
+    }
+
+    @Override
+    public Mono<Franchise> findBranch(String franchiseId, String branchId) {
+        return call(() -> template.findOne(EmbeddedQueries.branch(franchiseId, branchId), FranchiseDocument.class))
+                .map(mapper::toDomain);
+    }
+
+    @Override
+    public Mono<Franchise> findBranchNames(String franchiseId) {
+        return call(() -> template.findOne(EmbeddedQueries.branchNames(franchiseId), FranchiseDocument.class))
+                .map(mapper::toDomain);
+    }
+
+    @Override
+    public Mono<Void> insertBranch(Franchise view, Branch branch) {
+        Update update = new Update().push("branches", toBson(branch)).inc("version", 1);
+        return updateIfUnchanged(view, EmbeddedQueries.versionQuery(view), update);
+    }
+
+    @Override
+    public Mono<Void> saveBranch(Franchise view, Branch branch) {
+        Query query = EmbeddedQueries.versionQuery(view).addCriteria(Criteria.where("branches._id").is(branch.getId()));
+        Update update = new Update().set("branches.$", toBson(branch)).inc("version", 1);
+        return updateIfUnchanged(view, query, update);
+    }
+
+    @Override
+    public Mono<Branch> renameBranch(Franchise view, String branchId, String newName) {
+        Query query = EmbeddedQueries.versionQuery(view).addCriteria(Criteria.where("branches._id").is(branchId));
+        query.fields().elemMatch("branches", Criteria.where("_id").is(branchId));
+        Update update = new Update().set("branches.$.name", newName).inc("version", 1);
+        return call(() -> template.findAndModify(query, update, FindAndModifyOptions.options().returnNew(true),
+                        FranchiseDocument.class))
+                .switchIfEmpty(Mono.error(() -> EmbeddedQueries.versionConflict(view)))
+                .map(d -> mapper.toDomain(d.getBranches().get(0)));
+    }
+
+    private Mono<Void> updateIfUnchanged(Franchise view, Query query, Update update) {
+        return call(() -> template.findAndModify(EmbeddedQueries.withSize(query), update,
+                        FindAndModifyOptions.options().returnNew(true), Document.class, collection()))
+                .switchIfEmpty(Mono.error(() -> EmbeddedQueries.versionConflict(view)))
+                .then();
+    }
+
+    // la escritura se mapea sin la entidad de la colección: con el tipo declarado el conversor no agrega _class
+    private Object toBson(Branch branch) {
+        return template.getConverter().convertToMongoType(mapper.toDocument(branch), TypeInformation.of(BranchDocument.class));
+    }
+
+    private String collection() {
+        return template.getCollectionName(FranchiseDocument.class);
+    }
+
+    @Override
+    public Mono<Boolean> existsByNameIgnoreCase(String name, String excludingId) {
+        Query query = EmbeddedQueries.nameTaken(FranchiseMapper.normalizeName(name), excludingId);
+        return call(() -> template.exists(query, FranchiseDocument.class));
+    }
+
+    @Override
+    public Mono<Product> updateProductStock(String franchiseId, String branchId, String productId, int stock) {
+        return updateProduct(franchiseId, branchId, productId, Criteria.where("_id").is(productId),
+                MaxStockExpressions.setStock(branchId, productId, stock));
+    }
+
+    @Override
+    public Mono<Product> adjustProductStock(String franchiseId, String branchId, String productId, int delta) {
+        return updateProduct(franchiseId, branchId, productId, EmbeddedQueries.adjustable(productId, delta),
+                MaxStockExpressions.setStock(branchId, productId, new Document("$add", List.of("$$p.stock", delta))));
+    }
+
+    // el producto escrito vuelve en la proyección de la misma findAndModify: una ida y vuelta, sin relectura
+    private Mono<Product> updateProduct(String franchiseId, String branchId, String productId,
+                                        Criteria product, UpdateDefinition update) {
+        return call(() -> template.findAndModify(EmbeddedQueries.productWithSize(franchiseId, branchId, product, productId),
+                        update, FindAndModifyOptions.options().returnNew(true), Document.class, collection()))
+                .mapNotNull(written -> written.get("product", Document.class))
+                .map(pd -> new Product(pd.getString("_id"), pd.getString("name"), pd.getInteger("stock")));
+    }
+
+    @Override
+    public Flux<StockUpdateResult> updateProductStocks(String franchiseId, List<StockUpdate> updates) {
+        return list(() -> {
+            StockBatch batch = StockBatch.plan(updates);
+            if (batch.applicable().isEmpty()) {
+                return batch.results((branchId, productId) -> null);
+            }
+
+            BulkOperations ops = template.bulkOps(BulkMode.UNORDERED, FranchiseDocument.class);
+            for (StockUpdate u : batch.applicable()) {
+                ops.updateOne(EmbeddedQueries.productQuery(franchiseId, u.getBranchId(), Criteria.where("_id").is(u.getProductId())),
+                        MaxStockExpressions.setStock(u.getBranchId(), u.getProductId(), u.getStock()));
+            }
+            try {
+                batch.written(ops.execute());
+            } catch (RuntimeException e) {
+                batch.failed(e);
+            }
+            if (!batch.anyApplied()) {
+                return batch.results((branchId, productId) -> null);
+            }
+            Document names = template.aggregate(EmbeddedQueries.productNames(franchiseId, batch.applicable()),
+                    collection(), Document.class).getUniqueMappedResult();
+            Map<String, Map<String, String>> known = names == null ? Map.of() : EmbeddedQueries.productNamesByBranch(names);
+            return batch.results((branchId, productId) -> known.getOrDefault(branchId, Map.of()).get(productId));
+        });
+    }
+
+    @Override
+    public Flux<ProductWithBranch> findMaxStockPerBranch(String franchiseId) {
+        return list(() -> template.aggregate(EmbeddedQueries.maxStockPerBranch(franchiseId),
+                        template.getCollectionName(FranchiseDocument.class), BranchMaxStockDocument.class).getMappedResults())
+                .map(EmbeddedQueries::toProductWithBranch);
+    }
+
+    @Override
+    public Flux<ProductWithBranch> findTopStockProducts(String franchiseId, int k) {
+        return rankProducts(franchiseId, null, EmbeddedQueries.TOP_STOCK, k);
+    }
+
+    @Override
+    public Flux<ProductWithBranch> findLowStockProducts(String franchiseId, int below, int limit) {
+        return rankProducts(franchiseId, EmbeddedQueries.stockBelow(below), EmbeddedQueries.LOW_STOCK, limit);
+    }
+
+    private Flux<ProductWithBranch> rankProducts(String franchiseId, Criteria filter, Sort order, int limit) {
+        return list(() -> template.aggregate(EmbeddedQueries.rankProducts(franchiseId, filter, order, limit),
+                        template.getCollectionName(FranchiseDocument.class), BranchMaxStockDocument.class).getMappedResults())
+                .map(EmbeddedQueries::toProductWithBranch);
+    }
+}
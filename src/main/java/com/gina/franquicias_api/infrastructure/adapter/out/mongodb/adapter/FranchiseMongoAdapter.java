@@ -1,35 +1,245 @@
 package com.gina.franquicias_api.infrastructure.adapter.out.mongodb.adapter;
 
+import com.gina.franquicias_api.domain.exception.BusinessException;
+import com.gina.franquicias_api.domain.model.Branch;
 import com.gina.franquicias_api.domain.model.Franchise;
+import com.gina.franquicias_api.domain.model.FranchiseSummary;
+import com.gina.franquicias_api.domain.model.Product;
+import com.gina.franquicias_api.domain.model.ProductWithBranch;
+import com.gina.franquicias_api.domain.model.StockUpdate;
+import com.gina.franquicias_api.domain.model.StockUpdateResult;
 import com.gina.franquicias_api.domain.port.out.FranchiseRepository;
+import com.gina.franquicias_api.infrastructure.adapter.out.mongodb.diagnostics.FranchiseMongoDiagnostics;
+import com.gina.franquicias_api.infrastructure.adapter.out.mongodb.entity.BranchDocument;
+import com.gina.franquicias_api.infrastructure.adapter.out.mongodb.entity.BranchMaxStockDocument;
+import com.gina.franquicias_api.infrastructure.adapter.out.mongodb.entity.FranchiseDocument;
 import com.gina.franquicias_api.infrastructure.adapter.out.mongodb.mapper.FranchiseMapper;
 import com.gina.franquicias_api.infrastructure.adapter.out.mongodb.repository.FranchiseMongoRepository;
+import com.gina.franquicias_api.infrastructure.config.FranchiseRepositoryConfig;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations.BulkMode;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.ReactiveBulkOperations;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.data.mongodb.core.query.UpdateDefinition;
+import org.springframework.data.util.TypeInformation;
 import org.springframework.stereotype.Repository;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.util.List;
+import java.util.Map;
+
 @Repository
+@Qualifier(FranchiseRepositoryConfig.STORE)
+@ConditionalOnProperty(name = "franchises.persistence.layout", havingValue = "embedded", matchIfMissing = true)
 public class FranchiseMongoAdapter implements FranchiseRepository {
     private final FranchiseMongoRepository repo;
     private final FranchiseMapper mapper;
+    private final ReactiveMongoTemplate template;
+    // tiempos de red y de mapeo por separado, tamaño de lo guardado
+    private final FranchiseMongoDiagnostics diagnostics;
 
-    public FranchiseMongoAdapter(FranchiseMongoRepository repo, FranchiseMapper mapper) {
-        this.repo   = repo;
-        this.mapper = mapper;
+    public FranchiseMongoAdapter(FranchiseMongoRepository repo, FranchiseMapper mapper, ReactiveMongoTemplate template,
+                                 FranchiseMongoDiagnostics diagnostics) {
+        this.repo     = repo;
+        this.mapper   = mapper;
+        this.template = template;
+        this.diagnostics = diagnostics;
     }
     @Override
     public Mono<Franchise> save(Franchise f) {
-        return repo.save(mapper.toDocument(f))
-                .map(mapper::toDomain);
+        return Mono.just(f).<FranchiseDocument>handle(diagnostics::toDocument)
+                .flatMap(d -> diagnostics.roundTrip("save", f.getId(), repo.save(d)))
+                // el índice único sobre normalizedName resuelve las carreras entre creaciones concurrentes
+                .onErrorMap(e -> e instanceof DuplicateKeyException
+                                && String.valueOf(e.getMessage()).contains(FranchiseDocument.NAME_INDEX),
+                        e -> new BusinessException("Ya existe una franquicia con el mismo nombre"))
+                .handle(diagnostics::toDomain);
     }
 
     @Override
     public Mono<Franchise> findById(String id) {
-        return repo.findById(id).map(mapper::toDomain);
+        return diagnostics.roundTrip("findById", id, repo.findById(id)).handle(diagnostics::toDomain);
+    }
+
+    @Override
+    public Mono<Boolean> existsById(String id) {
+        return diagnostics.roundTrip("existsById", id, repo.existsById(id));
     }
 
     @Override
     public Flux<Franchise> findAll() {
-        return repo.findAll().map(mapper::toDomain);
+        return repo.findAll().handle(diagnostics::toDomain);
+    }
+
+    @Override
+    public Flux<Franchise> findPage(String afterId, int limit) {
+        return diagnostics.roundTrip("findPage", afterId,
+                        template.find(KeysetPage.query(afterId, limit), FranchiseDocument.class))
+                .handle(diagnostics::toDomain);
+    }
+
+    @Override
+    public Flux<FranchiseSummary> findSummaries(String afterId, int limit) {
+        return diagnostics.roundTrip("findSummaries", afterId, template.aggregate(EmbeddedQueries.summaries(afterId, limit),
+                        template.getCollectionName(FranchiseDocument.class), Document.class))
+                .map(EmbeddedQueries::toSummary);
+    }
+
+    @Override
+    public Mono<Franchise> findBranch(String franchiseId, String branchId) {
+        return diagnostics.roundTrip("findBranch", franchiseId,
+                        template.findOne(EmbeddedQueries.branch(franchiseId, branchId), FranchiseDocument.class))
+                .handle(diagnostics::toDomain);
+    }
+
+    @Override
+    public Mono<Franchise> findBranchNames(String franchiseId) {
+        return diagnostics.roundTrip("findBranchNames", franchiseId,
+                        template.findOne(EmbeddedQueries.branchNames(franchiseId), FranchiseDocument.class))
+                .handle(diagnostics::toDomain);
+    }
+
+    @Override
+    public Mono<Void> insertBranch(Franchise view, Branch branch) {
+        Update update = new Update().push("branches", toBson(branch)).inc("version", 1);
+        return updateIfUnchanged("insertBranch", view, EmbeddedQueries.versionQuery(view), update);
+    }
+
+    @Override
+    public Mono<Void> saveBranch(Franchise view, Branch branch) {
+        Query query = EmbeddedQueries.versionQuery(view).addCriteria(Criteria.where("branches._id").is(branch.getId()));
+        Update update = new Update().set("branches.$", toBson(branch)).inc("version", 1);
+        return updateIfUnchanged("saveBranch", view, query, update);
+    }
+
+    @Override
+    public Mono<Branch> renameBranch(Franchise view, String branchId, String newName) {
+        Query query = EmbeddedQueries.versionQuery(view).addCriteria(Criteria.where("branches._id").is(branchId));
+        query.fields().elemMatch("branches", Criteria.where("_id").is(branchId));
+        Update update = new Update().set("branches.$.name", newName).inc("version", 1);
+        return diagnostics.roundTrip("renameBranch", view.getId(),
+                        template.findAndModify(query, update, FindAndModifyOptions.options().returnNew(true), FranchiseDocument.class))
+                .switchIfEmpty(Mono.error(() -> EmbeddedQueries.versionConflict(view)))
+                .map(d -> mapper.toDomain(d.getBranches().get(0)));
+    }
+
+    // findAndModify en lugar de updateFirst: devuelve en la misma ida y vuelta el tamaño con que quedó el documento
+    private Mono<Void> updateIfUnchanged(String operation, Franchise view, Query query, Update update) {
+        return diagnostics.roundTrip(operation, view.getId(), template.findAndModify(EmbeddedQueries.withSize(query), update,
+                        FindAndModifyOptions.options().returnNew(true), Document.class, collection()))
+                .switchIfEmpty(Mono.error(() -> EmbeddedQueries.versionConflict(view)))
+                .doOnNext(written -> documentSize(view.getId(), written))
+                .then();
+    }
+
+    private void documentSize(String franchiseId, Document written) {
+        diagnostics.documentSize(franchiseId, written.getInteger(EmbeddedQueries.SIZE), written.getInteger(EmbeddedQueries.BRANCH_COUNT));
+    }
+
+    // la escritura se mapea sin la entidad de la colección: con el tipo declarado el conversor no agrega _class
+    private Object toBson(Branch branch) {
+        return template.getConverter().convertToMongoType(mapper.toDocument(branch), TypeInformation.of(BranchDocument.class));
+    }
+
+    private String collection() {
+        return template.getCollectionName(FranchiseDocument.class);
+    }
+
+    @Override
+    public Mono<Boolean> existsByNameIgnoreCase(String name, String excludingId) {
+        String normalized = FranchiseMapper.normalizeName(name);
+        return diagnostics.roundTrip("existsByName", excludingId, excludingId == null
+                ? repo.existsByNormalizedName(normalized)
+                : repo.existsByNormalizedNameAndIdNot(normalized, excludingId));
+    }
+
+    @Override
+    public Mono<Product> updateProductStock(String franchiseId, String branchId, String productId, int stock) {
+        return updateProduct("updateProductStock", franchiseId, branchId, productId, Criteria.where("_id").is(productId),
+                MaxStockExpressions.setStock(branchId, productId, stock));
+    }
+
+    @Override
+    public Mono<Product> adjustProductStock(String franchiseId, String branchId, String productId, int delta) {
+        return updateProduct("adjustProductStock", franchiseId, branchId, productId, EmbeddedQueries.adjustable(productId, delta),
+                MaxStockExpressions.setStock(branchId, productId, new Document("$add", List.of("$$p.stock", delta))));
+    }
+
+    // el producto escrito y el tamaño del documento vuelven en la proyección de la misma findAndModify
+    private Mono<Product> updateProduct(String operation, String franchiseId, String branchId, String productId,
+                                        Criteria product, UpdateDefinition update) {
+        return diagnostics.roundTrip(operation, franchiseId, template.findAndModify(
+                        EmbeddedQueries.productWithSize(franchiseId, branchId, product, productId), update,
+                        FindAndModifyOptions.options().returnNew(true), Document.class, collection()))
+                .doOnNext(written -> documentSize(franchiseId, written))
+                .mapNotNull(written -> written.get("product", Document.class))
+                .map(pd -> new Product(pd.getString("_id"), pd.getString("name"), pd.getInteger("stock")));
+    }
+
+    @Override
+    public Flux<StockUpdateResult> updateProductStocks(String franchiseId, List<StockUpdate> updates) {
+        StockBatch batch = StockBatch.plan(updates);
+        if (batch.applicable().isEmpty()) {
+            return Flux.fromIterable(batch.results((branchId, productId) -> null));
+        }
+
+        ReactiveBulkOperations ops = template.bulkOps(BulkMode.UNORDERED, FranchiseDocument.class);
+        for (StockUpdate u : batch.applicable()) {
+            ops.updateOne(EmbeddedQueries.productQuery(franchiseId, u.getBranchId(), Criteria.where("_id").is(u.getProductId())),
+                    MaxStockExpressions.setStock(u.getBranchId(), u.getProductId(), u.getStock()));
+        }
+
+        return diagnostics.roundTrip("updateProductStocks", franchiseId, ops.execute())
+                .map(batch::written)
+                .onErrorResume(e -> Mono.just(batch.failed(e)))
+                .flatMap(written -> written.anyApplied()
+                        ? productNames(franchiseId, written.applicable()).map(known -> written.results(
+                                (branchId, productId) -> known.getOrDefault(branchId, Map.of()).get(productId)))
+                        : Mono.just(written.results((branchId, productId) -> null)))
+                .flatMapIterable(results -> results);
+    }
+
+    private Mono<Map<String, Map<String, String>>> productNames(String franchiseId, List<StockUpdate> updates) {
+        return diagnostics.roundTrip("findProductNames", franchiseId, template.aggregate(
+                        EmbeddedQueries.productNames(franchiseId, updates), collection(), Document.class)
+                        .next())
+                .doOnNext(row -> documentSize(franchiseId, row))
+                .map(EmbeddedQueries::productNamesByBranch)
+                .defaultIfEmpty(Map.of());
+    }
+
+    @Override
+    public Flux<ProductWithBranch> findMaxStockPerBranch(String franchiseId) {
+        return diagnostics.roundTrip("findMaxStockPerBranch", franchiseId, template.aggregate(
+                        EmbeddedQueries.maxStockPerBranch(franchiseId),
+                        template.getCollectionName(FranchiseDocument.class), BranchMaxStockDocument.class))
+                .map(EmbeddedQueries::toProductWithBranch);
+    }
+
+    @Override
+    public Flux<ProductWithBranch> findTopStockProducts(String franchiseId, int k) {
+        return rankProducts("findTopStockProducts", franchiseId, null, EmbeddedQueries.TOP_STOCK, k);
+    }
+
+    @Override
+    public Flux<ProductWithBranch> findLowStockProducts(String franchiseId, int below, int limit) {
+        return rankProducts("findLowStockProducts", franchiseId, EmbeddedQueries.stockBelow(below),
+                EmbeddedQueries.LOW_STOCK, limit);
+    }
+
+    private Flux<ProductWithBranch> rankProducts(String operation, String franchiseId, Criteria filter, Sort order, int limit) {
+        return diagnostics.roundTrip(operation, franchiseId, template.aggregate(
+                        EmbeddedQueries.rankProducts(franchiseId, filter, order, limit),
+                        template.getCollectionName(FranchiseDocument.class), BranchMaxStockDocument.class))
+                .map(EmbeddedQueries::toProductWithBranch);
     }
 }
@@ -0,0 +1,417 @@
+package com.gina.franquicias_api.infrastructure.adapter.out.mongodb.adapter;
+
+import com.gina.franquicias_api.domain.exception.BusinessException;
+import com.gina.franquicias_api.domain.model.Branch;
+import com.gina.franquicias_api.domain.model.Franchise;
+import com.gina.franquicias_api.domain.model.FranchiseSummary;
+import com.gina.franquicias_api.domain.model.Product;
+import com.gina.franquicias_api.domain.model.ProductWithBranch;
+import com.gina.franquicias_api.domain.model.StockUpdate;
+import com.gina.franquicias_api.domain.model.StockUpdateResult;
+import com.gina.franquicias_api.domain.port.out.FranchiseRepository;
+import com.gina.franquicias_api.infrastructure.adapter.out.mongodb.entity.FranchiseDocument;
+import com.gina.franquicias_api.infrastructure.adapter.out.mongodb.entity.NormalizedBranchDocument;
+import com.gina.franquicias_api.infrastructure.adapter.out.mongodb.entity.NormalizedProductDocument;
+import com.gina.franquicias_api.infrastructure.adapter.out.mongodb.mapper.FranchiseMapper;
+import com.gina.franquicias_api.infrastructure.adapter.out.mongodb.mapper.NormalizedFranchiseMapper;
+import com.gina.franquicias_api.infrastructure.adapter.out.mongodb.repository.FranchiseMongoRepository;
+import com.gina.franquicias_api.infrastructure.config.FranchiseRepositoryConfig;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations.BulkMode;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.ReactiveBulkOperations;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOperation;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Consumer;
+
+/**
+ * Persistencia alternativa para franquicias grandes: la raíz sigue en "franchises" (nombre, versión e
+ * índice único), mientras que sucursales y productos viven en sus propias colecciones. Así una franquicia
+ * no queda limitada a 16MB y las operaciones sobre un producto no leen ni escriben el árbol completo.
+ * Se activa con franchises.persistence.layout=normalized.
+ */
+@Repository
+@Qualifier(FranchiseRepositoryConfig.STORE)
+@ConditionalOnProperty(name = "franchises.persistence.layout", havingValue = "normalized")
+public class FranchiseNormalizedMongoAdapter implements FranchiseRepository {
+    // mismo desempate por id de producto que el esquema embebido y el de memoria; LOW_STOCK es TOP_STOCK al
+    // revés para que ix_product_franchise_stock sirva a los dos, recorrido en un sentido o en el otro
+    static final Sort TOP_STOCK = Sort.by(Sort.Order.desc("stock"), Sort.Order.asc("_id"));
+    static final Sort LOW_STOCK = Sort.by(Sort.Order.asc("stock"), Sort.Order.desc("_id"));
+
+    private static final int BULK_CHUNK = 1000;
+
+    private final FranchiseMongoRepository repo;
+    private final NormalizedFranchiseMapper mapper;
+    private final ReactiveMongoTemplate template;
+
+    public FranchiseNormalizedMongoAdapter(FranchiseMongoRepository repo, NormalizedFranchiseMapper mapper,
+                                           ReactiveMongoTemplate template) {
+        this.repo     = repo;
+        this.mapper   = mapper;
+        this.template = template;
+    }
+
+    @Override
+    public Mono<Franchise> save(Franchise f) {
+        // la raíz se guarda primero: su versión decide si el guardado es válido antes de tocar los hijos
+        return repo.save(mapper.toRootDocument(f))
+                .onErrorMap(e -> e instanceof DuplicateKeyException
+                                && String.valueOf(e.getMessage()).contains(FranchiseDocument.NAME_INDEX),
+                        e -> new BusinessException("Ya existe una franquicia con el mismo nombre"))
+                .flatMap(root -> syncChildren(f)
+                        .thenReturn(new Franchise(f.getId(), f.getName(), f.getBranches(), root.getVersion())));
+    }
+
+    private Mono<Void> syncChildren(Franchise f) {
+        Criteria scope = Criteria.where("franchiseId").is(f.getId());
+        return syncBranches(f.getId(), mapper.toBranchDocuments(f))
+                .then(syncProducts(scope, mapper.toProductDocuments(f)));
+    }
+
+    // escribe solo la diferencia con lo guardado: altas, bajas y nombres cambiados
+    private Mono<Void> syncBranches(String franchiseId, List<NormalizedBranchDocument> branches) {
+        Query stored = new Query(Criteria.where("franchiseId").is(franchiseId));
+        stored.fields().include("_id").include("name").include("position");
+
+        return template.find(stored, NormalizedBranchDocument.class).collectList().flatMap(existing -> {
+            Map<String, NormalizedBranchDocument> storedById = new HashMap<>();
+            int next = 0;
+            for (NormalizedBranchDocument b : existing) {
+                storedById.put(b.getId(), b);
+                next = Math.max(next, b.getPosition() + 1);
+            }
+            List<Consumer<ReactiveBulkOperations>> writes = new ArrayList<>();
+            for (NormalizedBranchDocument b : branches) {
+                NormalizedBranchDocument current = storedById.remove(b.getId());
+                if (current == null) {
+                    b.setPosition(next++);
+                    writes.add(ops -> ops.insert(b));
+                } else if (!Objects.equals(current.getName(), b.getName())) {
+                    writes.add(ops -> ops.updateOne(byId(b.getId()), new Update().set("name", b.getName())));
+                }
+            }
+            removeAll(storedById.keySet(), writes);
+            return execute(writes, NormalizedBranchDocument.class);
+        });
+    }
+
+    // deja en scope exactamente los productos dados escribiendo solo los que cambiaron: altas, bajas y
+    // renombres. Los nuevos van al final de su sucursal; las bajas dejan huecos en position, que solo ordena
+    private Mono<Void> syncProducts(Criteria scope, List<NormalizedProductDocument> products) {
+        Query stored = new Query(scope);
+        stored.fields().include("_id").include("branchId").include("name").include("position");
+
+        return template.find(stored, NormalizedProductDocument.class).collectList().flatMap(existing -> {
+            Map<String, NormalizedProductDocument> storedById = new HashMap<>();
+            Map<String, Integer> nextPosition = new HashMap<>();
+            for (NormalizedProductDocument p : existing) {
+                storedById.put(p.getId(), p);
+                nextPosition.merge(p.getBranchId(), p.getPosition() + 1, Math::max);
+            }
+            List<Consumer<ReactiveBulkOperations>> writes = new ArrayList<>();
+            for (NormalizedProductDocument p : products) {
+                NormalizedProductDocument current = storedById.remove(p.getId());
+                if (current == null) {
+                    p.setPosition(nextPosition.merge(p.getBranchId(), 1, Integer::sum) - 1);
+                    writes.add(ops -> ops.insert(p));
+                } else if (!Objects.equals(current.getName(), p.getName())) {
+                    writes.add(ops -> ops.updateOne(byId(p.getId()), new Update().set("name", p.getName())));
+                }
+            }
+            removeAll(storedById.keySet(), writes);
+            return execute(writes, NormalizedProductDocument.class);
+        });
+    }
+
+    private static void removeAll(Collection<String> ids, List<Consumer<ReactiveBulkOperations>> writes) {
+        if (!ids.isEmpty()) {
+            List<String> stale = List.copyOf(ids);
+            writes.add(ops -> ops.remove(new Query(Criteria.where("_id").in(stale))));
+        }
+    }
+
+    private Mono<Void> execute(List<Consumer<ReactiveBulkOperations>> writes, Class<?> type) {
+        return Flux.fromIterable(writes)
+                .buffer(BULK_CHUNK)
+                .concatMap(chunk -> {
+                    ReactiveBulkOperations ops = template.bulkOps(BulkMode.UNORDERED, type);
+                    chunk.forEach(write -> write.accept(ops));
+                    return ops.execute();
+                })
+                .then();
+    }
+
+    @Override
+    public Mono<Franchise> findById(String id) {
+        return repo.findById(id).flatMap(this::withChildren);
+    }
+
+    private Mono<Franchise> withChildren(FranchiseDocument root) {
+        return Mono.zip(
+                        template.find(byFranchise(root.getId()), NormalizedBranchDocument.class).collectList(),
+                        template.find(byFranchise(root.getId()), NormalizedProductDocument.class).collectList())
+                .map(children -> mapper.toDomain(root, children.getT1(), children.getT2()));
+    }
+
+    @Override
+    public Mono<Franchise> findBranch(String franchiseId, String branchId) {
+        Query branch = new Query(Criteria.where("_id").is(branchId).and("franchiseId").is(franchiseId));
+        return repo.findById(franchiseId)
+                .flatMap(root -> Mono.zip(
+                                template.find(branch, NormalizedBranchDocument.class).collectList(),
+                                template.find(byBranch(franchiseId, branchId), NormalizedProductDocument.class).collectList())
+                        .map(children -> mapper.toDomain(root, children.getT1(), children.getT2())));
+    }
+
+    @Override
+    public Mono<Franchise> findBranchNames(String franchiseId) {
+        return repo.findById(franchiseId)
+                .flatMap(root -> template.find(byFranchise(franchiseId), NormalizedBranchDocument.class).collectList()
+                        .map(branches -> mapper.toDomain(root, branches, List.of())));
+    }
+
+    @Override
+    public Mono<Void> insertBranch(Franchise view, Branch branch) {
+        return claimVersion(view)
+                .then(template.count(new Query(Criteria.where("franchiseId").is(view.getId())), NormalizedBranchDocument.class))
+                .flatMap(count -> template.insert(mapper.toBranchDocument(view.getId(), branch, count.intValue())))
+                .then(syncProducts(Criteria.where("franchiseId").is(view.getId()).and("branchId").is(branch.getId()),
+                        mapper.toProductDocuments(view.getId(), branch)));
+    }
+
+    // alta, baja o renombre de un producto: se escribe solo ese documento, no los demás de la sucursal
+    @Override
+    public Mono<Void> saveBranch(Franchise view, Branch branch) {
+        return claimVersion(view)
+                .then(renameBranchDocument(view.getId(), branch.getId(), branch.getName()))
+                .then(syncProducts(Criteria.where("franchiseId").is(view.getId()).and("branchId").is(branch.getId()),
+                        mapper.toProductDocuments(view.getId(), branch)));
+    }
+
+    @Override
+    public Mono<Branch> renameBranch(Franchise view, String branchId, String newName) {
+        return claimVersion(view)
+                .then(renameBranchDocument(view.getId(), branchId, newName))
+                .then(findBranch(view.getId(), branchId))
+                .flatMap(f -> Mono.justOrEmpty(f.getBranches().stream().findFirst()));
+    }
+
+    private Mono<Void> renameBranchDocument(String franchiseId, String branchId, String name) {
+        return template.updateFirst(new Query(Criteria.where("_id").is(branchId).and("franchiseId").is(franchiseId)),
+                        new Update().set("name", name), NormalizedBranchDocument.class)
+                .then();
+    }
+
+    // las escrituras parciales reservan primero la versión de la raíz, igual que save
+    private Mono<Void> claimVersion(Franchise view) {
+        return template.updateFirst(new Query(Criteria.where("_id").is(view.getId()).and("version").is(view.getVersion())),
+                        new Update().inc("version", 1), FranchiseDocument.class)
+                .flatMap(result -> result.getMatchedCount() > 0
+                        ? Mono.<Void>empty()
+                        : Mono.error(new OptimisticLockingFailureException("La franquicia " + view.getId() + " cambió desde la lectura")));
+    }
+
+    @Override
+    public Mono<Boolean> existsById(String id) {
+        return repo.existsById(id);
+    }
+
+    @Override
+    public Flux<Franchise> findAll() {
+        return repo.findAll().concatMap(this::withChildren);
+    }
+
+    @Override
+    public Flux<Franchise> findPage(String afterId, int limit) {
+        return template.find(KeysetPage.query(afterId, limit), FranchiseDocument.class).concatMap(this::withChildren);
+    }
+
+    @Override
+    public Flux<FranchiseSummary> findSummaries(String afterId, int limit) {
+        // el $lookup usa el índice (franchiseId, position) y solo trae los _id de las sucursales
+        List<AggregationOperation> stages = new ArrayList<>(KeysetPage.stages(afterId, limit));
+        stages.add(context -> new Document("$lookup", new Document("from", template.getCollectionName(NormalizedBranchDocument.class))
+                .append("localField", "_id")
+                .append("foreignField", "franchiseId")
+                .append("pipeline", List.of(new Document("$project", new Document("_id", 1))))
+                .append("as", "branchIds")));
+        stages.add(context -> new Document("$project", new Document("name", 1)
+                .append("branchCount", new Document("$size", "$branchIds"))));
+
+        return template.aggregate(Aggregation.newAggregation(stages).withOptions(
+                                Aggregation.newAggregationOptions().cursorBatchSize(KeysetPage.CURSOR_BATCH).build()),
+                        template.getCollectionName(FranchiseDocument.class), Document.class)
+                .map(row -> new FranchiseSummary(row.getString("_id"), row.getString("name"), row.getInteger("branchCount")));
+    }
+
+    @Override
+    public Mono<Boolean> existsByNameIgnoreCase(String name, String excludingId) {
+        String normalized = FranchiseMapper.normalizeName(name);
+        return excludingId == null
+                ? repo.existsByNormalizedName(normalized)
+                : repo.existsByNormalizedNameAndIdNot(normalized, excludingId);
+    }
+
+    @Override
+    public Mono<Product> updateProductStock(String franchiseId, String branchId, String productId, int stock) {
+        return modifyProduct(franchiseId, productQuery(franchiseId, branchId, productId), new Update().set("stock", stock));
+    }
+
+    @Override
+    public Mono<Product> adjustProductStock(String franchiseId, String branchId, String productId, int delta) {
+        Query query = productQuery(franchiseId, branchId, productId);
+        // la guarda va en el filtro para que el $inc sea atómico: nunca deja el stock en negativo ni fuera de int32
+        query.addCriteria(delta < 0
+                ? Criteria.where("stock").gte(-delta)
+                : Criteria.where("stock").lte(Integer.MAX_VALUE - delta));
+        return modifyProduct(franchiseId, query, new Update().inc("stock", delta));
+    }
+
+    private Mono<Product> modifyProduct(String franchiseId, Query query, Update update) {
+        return template.findAndModify(query, update, FindAndModifyOptions.options().returnNew(true),
+                        NormalizedProductDocument.class)
+                .flatMap(pd -> touchRoot(franchiseId).thenReturn(mapper.toDomain(pd)));
+    }
+
+    @Override
+    public Flux<StockUpdateResult> updateProductStocks(String franchiseId, List<StockUpdate> updates) {
+        StockBatch batch = StockBatch.plan(updates);
+        if (batch.applicable().isEmpty()) {
+            return Flux.fromIterable(batch.results((branchId, productId) -> null));
+        }
+
+        ReactiveBulkOperations ops = template.bulkOps(BulkMode.UNORDERED, NormalizedProductDocument.class);
+        for (StockUpdate u : batch.applicable()) {
+            ops.updateOne(productQuery(franchiseId, u.getBranchId(), u.getProductId()),
+                    new Update().set("stock", u.getStock()));
+        }
+
+        return ops.execute()
+                .map(batch::written)
+                .onErrorResume(e -> Mono.just(batch.failed(e)))
+                .flatMap(written -> written.anyApplied()
+                        ? productNames(franchiseId, written.applicable())
+                                .map(known -> written.results((branchId, productId) -> {
+                                    NormalizedProductDocument p = known.get(productId);
+                                    return p != null && branchId.equals(p.getBranchId()) ? p.getName() : null;
+                                }))
+                                .flatMap(results -> touchRoot(franchiseId).thenReturn(results))
+                        : Mono.just(written.results((branchId, productId) -> null)))
+                .flatMapIterable(results -> results);
+    }
+
+    private Mono<Map<String, NormalizedProductDocument>> productNames(String franchiseId, List<StockUpdate> updates) {
+        Query ids = new Query(Criteria.where("franchiseId").is(franchiseId)
+                .and("_id").in(updates.stream().map(StockUpdate::getProductId).toList()));
+        ids.fields().include("_id").include("branchId").include("name");
+        return template.find(ids, NormalizedProductDocument.class)
+                .collectMap(NormalizedProductDocument::getId, p -> p, HashMap::new);
+    }
+
+    @Override
+    public Flux<ProductWithBranch> findMaxStockPerBranch(String franchiseId) {
+        // el índice (branchId, stock desc, position) actúa como vista materializada que Mongo mantiene en cada
+        // escritura: por sucursal se lee solo su primera entrada. Empate: gana el de menor position
+        Document topProduct = new Document("$lookup", new Document("from", template.getCollectionName(NormalizedProductDocument.class))
+                .append("localField", "_id")
+                .append("foreignField", "branchId")
+                .append("pipeline", List.of(
+                        new Document("$sort", new Document("stock", -1).append("position", 1)),
+                        new Document("$limit", 1)))
+                .append("as", "top"));
+
+        Aggregation aggregation = Aggregation.newAggregation(
+                Aggregation.match(Criteria.where("franchiseId").is(franchiseId)),
+                Aggregation.sort(Sort.by("position")),
+                context -> topProduct);
+
+        return template.aggregate(aggregation, template.getCollectionName(NormalizedBranchDocument.class), Document.class)
+                .map(row -> {
+                    List<Document> top = row.getList("top", Document.class);
+                    Product product = top.isEmpty()
+                            ? null
+                            : mapper.toDomain(template.getConverter().read(NormalizedProductDocument.class, top.get(0)));
+                    return new ProductWithBranch(row.getString("name"), product);
+                });
+    }
+
+    @Override
+    public Flux<ProductWithBranch> findTopStockProducts(String franchiseId, int k) {
+        return rankProducts(Criteria.where("franchiseId").is(franchiseId), TOP_STOCK, k);
+    }
+
+    @Override
+    public Flux<ProductWithBranch> findLowStockProducts(String franchiseId, int below, int limit) {
+        return rankProducts(Criteria.where("franchiseId").is(franchiseId).and("stock").lt(below), LOW_STOCK, limit);
+    }
+
+    // ix_product_franchise_stock resuelve filtro y orden: se leen limit entradas del índice, sin ordenar en memoria.
+    // El nombre de la sucursal se busca solo para los productos que salen
+    private Flux<ProductWithBranch> rankProducts(Criteria filter, Sort order, int limit) {
+        Document branchName = new Document("$lookup", new Document("from", template.getCollectionName(NormalizedBranchDocument.class))
+                .append("localField", "branchId")
+                .append("foreignField", "_id")
+                .append("pipeline", List.of(new Document("$project", new Document("name", 1))))
+                .append("as", "branch"));
+
+        Aggregation aggregation = Aggregation.newAggregation(
+                Aggregation.match(filter),
+                Aggregation.sort(order),
+                Aggregation.limit(limit),
+                context -> branchName);
+
+        return template.aggregate(aggregation, template.getCollectionName(NormalizedProductDocument.class), Document.class)
+                .map(row -> {
+                    List<Document> branch = row.getList("branch", Document.class);
+                    Product product = mapper.toDomain(template.getConverter().read(NormalizedProductDocument.class, row));
+                    return new ProductWithBranch(branch.isEmpty() ? null : branch.get(0).getString("name"), product);
+                });
+    }
+
+    // cada escritura sobre hijos incrementa la versión de la raíz: invalida lecturas concurrentes del agregado.
+    // Va después del producto y no en la misma operación; no hace falta, porque saveBranch y save nunca
+    // escriben el stock de un producto existente y no pueden pisar uno escrito entre medio
+    private Mono<Void> touchRoot(String franchiseId) {
+        return template.updateFirst(new Query(Criteria.where("_id").is(franchiseId)),
+                        new Update().inc("version", 1), FranchiseDocument.class)
+                .then();
+    }
+
+    private static Query byId(String id) {
+        return new Query(Criteria.where("_id").is(id));
+    }
+
+    private static Query byFranchise(String franchiseId) {
+        return new Query(Criteria.where("franchiseId").is(franchiseId)).with(Sort.by("position"));
+    }
+
+    private static Query byBranch(String franchiseId, String branchId) {
+        return new Query(Criteria.where("franchiseId").is(franchiseId).and("branchId").is(branchId)).with(Sort.by("position"));
+    }
+
+    private static Query productQuery(String franchiseId, String branchId, String productId) {
+        return new Query(Criteria.where("_id").is(productId)
+                .and("franchiseId").is(franchiseId)
+                .and("branchId").is(branchId));
+    }
+}
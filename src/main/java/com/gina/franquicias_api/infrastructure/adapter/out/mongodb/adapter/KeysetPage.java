@@ -0,0 +1,46 @@
+package com.gina.franquicias_api.infrastructure.adapter.out.mongodb.adapter;
+
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOperation;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Paginación por cursor sobre _id: cada página es un recorrido del índice desde el último id entregado,
+ * así el costo no crece con la profundidad como con skip. limit 0 = sin límite.
+ */
+final class KeysetPage {
+    // documentos por lote del cursor; el driver pide el siguiente lote según la demanda del suscriptor
+    static final int CURSOR_BATCH = 100;
+
+    private KeysetPage() {
+    }
+
+    static Query query(String afterId, int limit) {
+        Query query = new Query(criteria(afterId))
+                .with(Sort.by(Sort.Direction.ASC, "_id"))
+                .cursorBatchSize(limit > 0 ? Math.min(limit, CURSOR_BATCH) : CURSOR_BATCH);
+        if (limit > 0) {
+            query.limit(limit);
+        }
+        return query;
+    }
+
+    static List<AggregationOperation> stages(String afterId, int limit) {
+        List<AggregationOperation> stages = new ArrayList<>();
+        stages.add(Aggregation.match(criteria(afterId)));
+        stages.add(Aggregation.sort(Sort.Direction.ASC, "_id"));
+        if (limit > 0) {
+            stages.add(Aggregation.limit(limit));
+        }
+        return stages;
+    }
+
+    private static Criteria criteria(String afterId) {
+        return afterId == null ? new Criteria() : Criteria.where("_id").gt(afterId);
+    }
+}
@@ -0,0 +1,76 @@
+package com.gina.franquicias_api.infrastructure.adapter.out.mongodb.adapter;
+
+import org.bson.Document;
+import org.springframework.data.mongodb.core.aggregation.AggregationUpdate;
+import org.springframework.data.mongodb.core.aggregation.ArithmeticOperators;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Expresiones de agregación para el máximo de stock materializado en cada sucursal embebida
+ * (branches.maxStockProduct). Todo se evalúa dentro de una única actualización por pipeline, así el stock
+ * y el máximo cambian juntos de forma atómica aunque haya escritores concurrentes.
+ */
+final class MaxStockExpressions {
+
+    private MaxStockExpressions() {
+    }
+
+    // recorre los productos; ante empate conserva el primero, igual que Stream.max. Lista vacía -> null
+    static Document maxOf(Object products) {
+        return new Document("$reduce", new Document("input", products)
+                .append("initialValue", null)
+                .append("in", new Document("$cond", List.of(
+                        new Document("$or", List.of(
+                                new Document("$eq", Arrays.asList("$$value", null)),
+                                new Document("$gt", List.of("$$this.stock", "$$value.stock")))),
+                        "$$this",
+                        "$$value"))));
+    }
+
+    /**
+     * Fija el stock del producto con stockExpr (evaluada con $$p = producto actual) y mantiene el máximo
+     * de la sucursal de forma incremental: solo se vuelve a recorrer la sucursal cuando baja el stock del
+     * producto que era el máximo o cuando la sucursal aún no tiene máximo calculado.
+     */
+    static AggregationUpdate setStock(String branchId, String productId, Object stockExpr) {
+        Document products = new Document("$map", new Document("input", "$$b.products")
+                .append("as", "p")
+                .append("in", new Document("$cond", List.of(
+                        new Document("$eq", List.of("$$p._id", productId)),
+                        new Document("$mergeObjects", List.of("$$p", new Document("stock", stockExpr))),
+                        "$$p"))));
+        Document updated = new Document("$arrayElemAt", List.of(
+                new Document("$filter", new Document("input", "$$products")
+                        .append("as", "p")
+                        .append("cond", new Document("$eq", List.of("$$p._id", productId)))),
+                0));
+
+        Document max = new Document("$switch", new Document("branches", List.of(
+                new Document("case", new Document("$eq", Arrays.asList(new Document("$ifNull", Arrays.asList("$$b.maxStockProduct", null)), null)))
+                        .append("then", maxOf("$$products")),
+                new Document("case", new Document("$eq", List.of("$$b.maxStockProduct._id", productId)))
+                        .append("then", new Document("$cond", List.of(
+                                new Document("$gte", List.of("$$updated.stock", "$$b.maxStockProduct.stock")),
+                                "$$updated",
+                                maxOf("$$products")))),
+                new Document("case", new Document("$gt", List.of("$$updated.stock", "$$b.maxStockProduct.stock")))
+                        .append("then", "$$updated")))
+                .append("default", "$$b.maxStockProduct"));
+
+        Document branch = new Document("$let", new Document("vars", new Document("products", products))
+                .append("in", new Document("$let", new Document("vars", new Document("updated", updated))
+                        .append("in", new Document("$mergeObjects", List.of("$$b",
+                                new Document("products", "$$products").append("maxStockProduct", max)))))));
+
+        Document branches = new Document("$map", new Document("input", "$branches")
+                .append("as", "b")
+                .append("in", new Document("$cond", List.of(
+                        new Document("$eq", List.of("$$b._id", branchId)), branch, "$$b"))));
+
+        return AggregationUpdate.from(List.of(context -> new Document("$set", new Document("branches", branches))))
+                // invalida las lecturas concurrentes que luego intenten guardar el agregado completo
+                .set("version").toValue(ArithmeticOperators.valueOf("version").add(1));
+    }
+}
@@ -0,0 +1,124 @@
+package com.gina.franquicias_api.infrastructure.adapter.out.mongodb.adapter;
+
+import com.gina.franquicias_api.domain.model.StockEvent;
+import com.gina.franquicias_api.domain.port.out.StockLedger;
+import com.gina.franquicias_api.infrastructure.adapter.out.mongodb.entity.StockCheckpointDocument;
+import com.gina.franquicias_api.infrastructure.adapter.out.mongodb.entity.StockEventDocument;
+import com.mongodb.client.result.DeleteResult;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Mono;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Historial de stock en Mongo: cada cambio es un insert chico en {@code stock_events}, sin tocar el documento
+ * de la franquicia. La compactación resume los eventos viejos en {@code stock_checkpoints} (el último de cada
+ * producto) con un $merge en el servidor y después los borra; es idempotente, así que varias réplicas pueden
+ * correrla a la vez. Antes de resumir marca los eventos de la pasada y solo resume y borra los marcados: un evento
+ * que se agrega mientras tanto con un instante anterior al corte queda para la siguiente pasada en vez de
+ * borrarse sin haber entrado en el checkpoint.
+ */
+@Repository
+@ConditionalOnExpression("${franchises.stock.ledger.enabled:false} and '${franchises.persistence.layout:embedded}' != 'memory'")
+public class MongoStockLedger implements StockLedger {
+    private static final Sort LATEST = Sort.by(Sort.Order.desc("at"), Sort.Order.desc("_id"));
+    // pasada de compactación que tomó el evento; solo existe en los eventos anteriores al corte
+    private static final String COMPACTION = "compaction";
+
+    private final ReactiveMongoTemplate template;
+
+    public MongoStockLedger(ReactiveMongoTemplate template) {
+        this.template = template;
+    }
+
+    @Override
+    public Mono<Void> append(List<StockEvent> events) {
+        List<StockEventDocument> docs = new ArrayList<>(events.size());
+        for (StockEvent e : events) {
+            docs.add(toDocument(e));
+        }
+        return template.insertAll(docs).then();
+    }
+
+    @Override
+    public Mono<StockEvent> stockAt(String franchiseId, String branchId, String productId, Instant at) {
+        Query latest = new Query(Criteria.where("franchiseId").is(franchiseId).and("branchId").is(branchId)
+                .and("productId").is(productId).and("at").lte(at)).with(LATEST).limit(1);
+        Query checkpoint = new Query(Criteria.where("_id").is(key(franchiseId, branchId, productId)).and("at").lte(at));
+
+        return template.findOne(latest, StockEventDocument.class)
+                .map(MongoStockLedger::toDomain)
+                .switchIfEmpty(Mono.defer(() -> template.findOne(checkpoint, StockCheckpointDocument.class)
+                        .map(MongoStockLedger::toDomain)));
+    }
+
+    // el checkpoint existente solo se reemplaza por uno más nuevo: dos compactaciones cruzadas no retroceden. Si
+    // otra réplica vuelve a marcar los mismos eventos, los resume y borra ella
+    @Override
+    public Mono<Long> compact(Instant before) {
+        String pass = new ObjectId().toHexString();
+        Query older = new Query(Criteria.where("at").lt(before));
+        Query marked = new Query(Criteria.where("at").lt(before).and(COMPACTION).is(pass));
+        List<Document> pipeline = List.of(
+                new Document("$match", new Document("at", new Document("$lt", Date.from(before))).append(COMPACTION, pass)),
+                new Document("$sort", new Document("at", 1).append("_id", 1)),
+                new Document("$group", new Document("_id", new Document("franchiseId", "$franchiseId")
+                        .append("branchId", "$branchId")
+                        .append("productId", "$productId"))
+                        .append("type", new Document("$last", "$type"))
+                        .append("amount", new Document("$last", "$amount"))
+                        .append("stock", new Document("$last", "$stock"))
+                        .append("at", new Document("$last", "$at"))
+                        .append("source", new Document("$last", "$source"))),
+                new Document("$merge", new Document("into", StockCheckpointDocument.COLLECTION)
+                        .append("on", "_id")
+                        .append("whenMatched", List.of(new Document("$replaceWith", new Document("$cond",
+                                List.of(new Document("$gte", List.of("$$new.at", "$at")), "$$new", "$$ROOT")))))
+                        .append("whenNotMatched", "insert")));
+
+        return template.updateMulti(older, new Update().set(COMPACTION, pass), StockEventDocument.class)
+                .then(template.getCollection(StockEventDocument.COLLECTION))
+                .flatMap(events -> Mono.from(events.aggregate(pipeline).allowDiskUse(true).toCollection()))
+                .then(template.remove(marked, StockEventDocument.class))
+                .map(DeleteResult::getDeletedCount);
+    }
+
+    private static Document key(String franchiseId, String branchId, String productId) {
+        return new Document("franchiseId", franchiseId).append("branchId", branchId).append("productId", productId);
+    }
+
+    private static StockEventDocument toDocument(StockEvent e) {
+        StockEventDocument d = new StockEventDocument();
+        d.setFranchiseId(e.getFranchiseId());
+        d.setBranchId(e.getBranchId());
+        d.setProductId(e.getProductId());
+        d.setType(e.getType().name());
+        d.setAmount(e.getAmount());
+        d.setStock(e.getStock());
+        d.setAt(e.getAt());
+        d.setSource(e.getSource());
+        return d;
+    }
+
+    private static StockEvent toDomain(StockEventDocument d) {
+        return new StockEvent(d.getFranchiseId(), d.getBranchId(), d.getProductId(), StockEvent.Type.valueOf(d.getType()),
+                d.getAmount(), d.getStock(), d.getAt(), d.getSource());
+    }
+
+    private static StockEvent toDomain(StockCheckpointDocument d) {
+        StockCheckpointDocument.Key k = d.getId();
+        return new StockEvent(k.getFranchiseId(), k.getBranchId(), k.getProductId(), StockEvent.Type.valueOf(d.getType()),
+                d.getAmount(), d.getStock(), d.getAt(), d.getSource());
+    }
+}
@@ -0,0 +1,107 @@
+package com.gina.franquicias_api.infrastructure.adapter.out.mongodb.adapter;
+
+import com.gina.franquicias_api.domain.model.StockUpdate;
+import com.gina.franquicias_api.domain.model.StockUpdateResult;
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.bulk.BulkWriteResult;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiFunction;
+
+/**
+ * Reparte un lote de actualizaciones de stock entre las que se envían en el bulkWrite y las repetidas, y arma
+ * un resultado por elemento. El bulkWrite se envía sin leer antes el documento: qué productos no existían se
+ * deduce del matchedCount y de los nombres que se leen, solo de los productos del lote, después de escribir.
+ */
+final class StockBatch {
+    private final List<StockUpdate> applicable;
+    private final List<StockUpdateResult> results;
+    // índice en applicable -> mensaje de error
+    private final Map<Integer, String> failed = new HashMap<>();
+    private long matched;
+
+    private StockBatch(List<StockUpdate> applicable, List<StockUpdateResult> results) {
+        this.applicable = applicable;
+        this.results = results;
+    }
+
+    static StockBatch plan(List<StockUpdate> updates) {
+        List<StockUpdateResult> results = new ArrayList<>(updates.size());
+        // el bulk es desordenado: si un producto se repite en el lote, solo se envía la última actualización
+        Map<String, StockUpdate> latest = new LinkedHashMap<>();
+        for (StockUpdate u : updates) {
+            StockUpdate previous = latest.put(u.getBranchId() + '/' + u.getProductId(), u);
+            if (previous != null) {
+                results.add(new StockUpdateResult(previous, StockUpdateResult.Status.SUPERSEDED, null));
+            }
+        }
+        return new StockBatch(new ArrayList<>(latest.values()), results);
+    }
+
+    List<StockUpdate> applicable() {
+        return applicable;
+    }
+
+    // sin acuse (w:0) no hay conteo: se da por escrito todo lo enviado
+    StockBatch written(BulkWriteResult result) {
+        this.matched = result.wasAcknowledged() ? result.getMatchedCount() : applicable.size();
+        return this;
+    }
+
+    StockBatch failed(Throwable error) {
+        MongoBulkWriteException bulkError = findCause(error, MongoBulkWriteException.class);
+        if (bulkError == null) {
+            for (int i = 0; i < applicable.size(); i++) {
+                failed.put(i, error.getMessage());
+            }
+            return this;
+        }
+        // en modo desordenado Mongo aplica todo lo que no figura en writeErrors
+        for (BulkWriteError writeError : bulkError.getWriteErrors()) {
+            failed.put(writeError.getIndex(), writeError.getMessage());
+        }
+        BulkWriteResult result = bulkError.getWriteResult();
+        matched = result.wasAcknowledged() ? result.getMatchedCount() : applicable.size() - failed.size();
+        return this;
+    }
+
+    // si nada llegó a aplicarse no hace falta leer nombres
+    boolean anyApplied() {
+        return failed.size() < applicable.size();
+    }
+
+    /**
+     * productName recibe (branchId, productId) y devuelve null si el producto no existe. Solo se consulta
+     * para decidir NOT_FOUND cuando el bulkWrite coincidió con menos documentos de los que se enviaron.
+     */
+    List<StockUpdateResult> results(BiFunction<String, String, String> productName) {
+        boolean unmatched = matched < applicable.size() - failed.size();
+        for (int i = 0; i < applicable.size(); i++) {
+            StockUpdate u = applicable.get(i);
+            String message = failed.get(i);
+            if (message != null) {
+                results.add(new StockUpdateResult(u, StockUpdateResult.Status.FAILED, message));
+                continue;
+            }
+            String name = productName.apply(u.getBranchId(), u.getProductId());
+            results.add(name == null && unmatched
+                    ? new StockUpdateResult(u, StockUpdateResult.Status.NOT_FOUND, "Producto no encontrado")
+                    : StockUpdateResult.updated(u, name));
+        }
+        return results;
+    }
+
+    private static <T extends Throwable> T findCause(Throwable error, Class<T> type) {
+        for (Throwable t = error; t != null; t = t.getCause()) {
+            if (type.isInstance(t)) {
+                return type.cast(t);
+            }
+        }
+        return null;
+    }
+}
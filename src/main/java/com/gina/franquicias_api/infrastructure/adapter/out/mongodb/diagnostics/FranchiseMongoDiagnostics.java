@@ -0,0 +1,158 @@
+package com.gina.franquicias_api.infrastructure.adapter.out.mongodb.diagnostics;
+
+import com.gina.franquicias_api.domain.model.Branch;
+import com.gina.franquicias_api.domain.model.Franchise;
+import com.gina.franquicias_api.infrastructure.adapter.out.mongodb.entity.FranchiseDocument;
+import com.gina.franquicias_api.infrastructure.adapter.out.mongodb.mapper.FranchiseMapper;
+import com.gina.franquicias_api.infrastructure.metrics.ReactiveObservation;
+import com.mongodb.MongoClientSettings;
+import io.micrometer.common.KeyValues;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import org.bson.Document;
+import org.bson.RawBsonDocument;
+import org.bson.codecs.Codec;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.mongodb.core.convert.MongoConverter;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SynchronousSink;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Separa el costo de cada llamada del adaptador embebido en sus partes: ida y vuelta a Mongo
+ * ({@code franchise.mongo.roundtrip} por operación), mapeo documento-dominio ({@code franchise.mongo.mapping}
+ * por dirección) y tamaño BSON de cada franquicia después de cada escritura ({@code franchise.mongo.document.size},
+ * en bytes).
+ * Ida y vuelta y mapeo son observaciones: además del timer quedan como spans hijos del método del puerto.
+ * Las llamadas más lentas que {@code franchises.mongo.diagnostics.slow-query} y los documentos mayores que
+ * {@code franchises.mongo.diagnostics.max-document-size} se registran con WARN y se cuentan en
+ * {@code franchise.mongo.flagged} por motivo: un documento que crece hacia el límite de 16MB se ve antes
+ * de que las escrituras empiecen a fallar. En save medir el tamaño cuesta una segunda conversión del agregado, así
+ * que se mide una de cada {@code franchises.mongo.diagnostics.save-size-sample} escrituras y siempre que el agregado
+ * tenga al menos {@code franchises.mongo.diagnostics.save-size-min-products} productos.
+ */
+@Component
+@ConditionalOnProperty(name = "franchises.persistence.layout", havingValue = "embedded", matchIfMissing = true)
+public class FranchiseMongoDiagnostics {
+    private static final org.slf4j.Logger log = org.slf4j.LoggerFactory.getLogger(FranchiseMongoDiagnostics.class);
+    private static final Codec<Document> DOCUMENT_CODEC = MongoClientSettings.getDefaultCodecRegistry().get(Document.class);
+
+    private final ObservationRegistry observations;
+    private final ReactiveObservation roundTrips;
+    private final FranchiseMapper mapper;
+    private final MongoConverter converter;
+    private final long slowQueryNanos;
+    private final long maxDocumentBytes;
+    private final int saveSizeSample;
+    private final int saveSizeMinProducts;
+    private final AtomicLong saves = new AtomicLong();
+    private final DistributionSummary documentSize;
+    private final Counter slow;
+    private final Counter oversized;
+
+    public FranchiseMongoDiagnostics(ObservationRegistry observations, MeterRegistry registry,
+                                     FranchiseMapper mapper, MongoConverter converter,
+                                     @Value("${franchises.mongo.diagnostics.slow-query:200ms}") Duration slowQuery,
+                                     @Value("${franchises.mongo.diagnostics.max-document-size:4MB}") DataSize maxDocumentSize,
+                                     @Value("${franchises.mongo.diagnostics.save-size-sample:100}") int saveSizeSample,
+                                     @Value("${franchises.mongo.diagnostics.save-size-min-products:1000}") int saveSizeMinProducts) {
+        this.observations = observations;
+        this.roundTrips = new ReactiveObservation(observations, "franchise.mongo.roundtrip");
+        this.mapper = mapper;
+        this.converter = converter;
+        this.slowQueryNanos = slowQuery.toNanos();
+        this.maxDocumentBytes = maxDocumentSize.toBytes();
+        this.saveSizeSample = Math.max(1, saveSizeSample);
+        this.saveSizeMinProducts = saveSizeMinProducts;
+        this.documentSize = DistributionSummary.builder("franchise.mongo.document.size").baseUnit("bytes").register(registry);
+        this.slow = Counter.builder("franchise.mongo.flagged").tag("reason", "slow-query").register(registry);
+        this.oversized = Counter.builder("franchise.mongo.flagged").tag("reason", "oversized-document").register(registry);
+    }
+
+    // el tiempo se corta al llegar el resultado, antes de que lo procese quien se suscribió
+    public <T> Mono<T> roundTrip(String operation, String franchiseId, Mono<T> call) {
+        return Mono.defer(() -> {
+            long start = System.nanoTime();
+            return roundTrips.observe(operation, ids(franchiseId), call
+                    .doOnSuccess(r -> flagIfSlow(operation, franchiseId, System.nanoTime() - start))
+                    .doOnError(e -> flagIfSlow(operation, franchiseId, System.nanoTime() - start)));
+        });
+    }
+
+    // en un Flux corre hasta el último elemento: solo para resultados acotados, no para listados en streaming
+    public <T> Flux<T> roundTrip(String operation, String franchiseId, Flux<T> call) {
+        return Flux.defer(() -> {
+            long start = System.nanoTime();
+            return roundTrips.observe(operation, ids(franchiseId), call
+                    .doOnComplete(() -> flagIfSlow(operation, franchiseId, System.nanoTime() - start))
+                    .doOnError(e -> flagIfSlow(operation, franchiseId, System.nanoTime() - start)));
+        });
+    }
+
+    // pensados para handle: Reactor restaura ahí la observación del contexto y el span del mapeo queda en su traza
+    public void toDomain(FranchiseDocument d, SynchronousSink<Franchise> sink) {
+        sink.next(mapping("toDomain").observe(() -> mapper.toDomain(d)));
+    }
+
+    // en save el tamaño sale de serializar el documento como lo haría el driver: una segunda conversión, solo
+    // en las escrituras muestreadas y en los agregados grandes, que son los que pueden acercarse al límite
+    public void toDocument(Franchise f, SynchronousSink<FranchiseDocument> sink) {
+        FranchiseDocument d = mapping("toDocument").observe(() -> mapper.toDocument(f));
+
+        if (measureOnSave(f)) {
+            Document bson = new Document();
+            converter.write(d, bson);
+            documentSize(f.getId(), new RawBsonDocument(bson, DOCUMENT_CODEC).getByteBuffer().remaining(), f.getBranches().size());
+        }
+        sink.next(d);
+    }
+
+    private boolean measureOnSave(Franchise f) {
+        if (saves.getAndIncrement() % saveSizeSample == 0) {
+            return true;
+        }
+        int products = 0;
+        for (Branch b : f.getBranches()) {
+            products += b.getProducts().size();
+        }
+        return products >= saveSizeMinProducts;
+    }
+
+    // las escrituras parciales ($push, branches.$, stock por pipeline) no pasan por toDocument: el tamaño lo
+    // calcula Mongo con $bsonSize en la proyección de la misma operación
+    public void documentSize(String franchiseId, int bytes, int branches) {
+        documentSize.record(bytes);
+        if (bytes > maxDocumentBytes) {
+            oversized.increment();
+            log.warn("Documento de franquicia {} con {} bytes ({} sucursales), supera el umbral de {} bytes",
+                    franchiseId, bytes, branches, maxDocumentBytes);
+        }
+    }
+
+    private Observation mapping(String direction) {
+        return Observation.createNotStarted("franchise.mongo.mapping", observations)
+                .lowCardinalityKeyValue("direction", direction);
+    }
+
+    private static KeyValues ids(String franchiseId) {
+        return franchiseId == null ? KeyValues.empty() : KeyValues.of("franchise.id", franchiseId);
+    }
+
+    private void flagIfSlow(String operation, String franchiseId, long nanos) {
+        if (nanos > slowQueryNanos) {
+            slow.increment();
+            log.warn("Consulta lenta a Mongo: {} sobre la franquicia {} tardó {} ms",
+                    operation, franchiseId, TimeUnit.NANOSECONDS.toMillis(nanos));
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.gina.franquicias_api.infrastructure.adapter.out.mongodb.diagnostics;
+
+import com.gina.franquicias_api.infrastructure.adapter.out.mongodb.entity.FranchiseDocument;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+/**
+ * {@code /actuator/franchise-sizes}: las franquicias más grandes según {@code by} (products, branches o bytes),
+ * con su cantidad de sucursales y productos y el tamaño BSON que Mongo calcula con $bsonSize. Recorre toda la
+ * colección en el servidor (solo viajan las limit filas): pensado para diagnóstico, no para consultas frecuentes.
+ */
+@Component
+@Endpoint(id = "franchisesizes")
+@ConditionalOnProperty(name = "franchises.persistence.layout", havingValue = "embedded", matchIfMissing = true)
+public class FranchiseSizesEndpoint {
+    private static final int DEFAULT_LIMIT = 20;
+    private static final int MAX_LIMIT = 500;
+    private static final List<String> ORDERS = List.of("products", "branches", "bytes");
+
+    private final ReactiveMongoTemplate template;
+    private final long maxDocumentBytes;
+
+    public FranchiseSizesEndpoint(ReactiveMongoTemplate template,
+                                  @Value("${franchises.mongo.diagnostics.max-document-size:4MB}") DataSize maxDocumentSize) {
+        this.template = template;
+        this.maxDocumentBytes = maxDocumentSize.toBytes();
+    }
+
+    @ReadOperation
+    public Mono<List<FranchiseSize>> largest(@Nullable Integer limit, @Nullable String by) {
+        int n = limit == null ? DEFAULT_LIMIT : Math.max(1, Math.min(limit, MAX_LIMIT));
+        String order = by == null ? "products" : by;
+        if (!ORDERS.contains(order)) {
+            return Mono.error(new IllegalArgumentException("by debe ser uno de " + ORDERS));
+        }
+
+        Document branches = new Document("$ifNull", List.of("$branches", List.of()));
+        Document productCounts = new Document("$map", new Document("input", branches)
+                .append("as", "b")
+                .append("in", new Document("$size", new Document("$ifNull", List.of("$$b.products", List.of())))));
+        List<Document> pipeline = List.of(
+                new Document("$project", new Document("name", 1)
+                        .append("branches", new Document("$size", branches))
+                        .append("products", new Document("$sum", productCounts))
+                        .append("bytes", new Document("$bsonSize", "$$ROOT"))),
+                new Document("$sort", new Document(order, -1).append("_id", 1)),
+                new Document("$limit", n));
+
+        return template.getCollection(template.getCollectionName(FranchiseDocument.class))
+                .flatMapMany(collection -> collection.aggregate(pipeline))
+                .map(row -> {
+                    long bytes = ((Number) row.get("bytes")).longValue();
+                    return new FranchiseSize(row.getString("_id"), row.getString("name"), row.getInteger("branches"),
+                            ((Number) row.get("products")).longValue(), bytes, bytes > maxDocumentBytes);
+                })
+                .collectList();
+    }
+
+    public record FranchiseSize(String id, String name, int branches, long products, long bytes, boolean oversized) {
+    }
+}
@@ -7,6 +7,8 @@ public class BranchDocument {
     private String id;
     private String name;
     private List<ProductDocument> products = new ArrayList<>();
+    // copia del producto con más stock, mantenida en cada escritura; null si la sucursal no tiene productos
+    private ProductDocument maxStockProduct;
 
     public String getId() {
         return id;
@@ -31,4 +33,12 @@ public class BranchDocument {
     public void setProducts(List<ProductDocument> products) {
         this.products = products;
     }
+
+    public ProductDocument getMaxStockProduct() {
+        return maxStockProduct;
+    }
+
+    public void setMaxStockProduct(ProductDocument maxStockProduct) {
+        this.maxStockProduct = maxStockProduct;
+    }
 }
@@ -0,0 +1,23 @@
+package com.gina.franquicias_api.infrastructure.adapter.out.mongodb.entity;
+
+// resultado de la agregación de máximo stock: una fila por sucursal
+public class BranchMaxStockDocument {
+    private String branchName;
+    private ProductDocument product;
+
+    public String getBranchName() {
+        return branchName;
+    }
+
+    public void setBranchName(String branchName) {
+        this.branchName = branchName;
+    }
+
+    public ProductDocument getProduct() {
+        return product;
+    }
+
+    public void setProduct(ProductDocument product) {
+        this.product = product;
+    }
+}
@@ -1,6 +1,8 @@
 package com.gina.franquicias_api.infrastructure.adapter.out.mongodb.entity;
 
 import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Version;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import java.util.ArrayList;
@@ -8,10 +10,18 @@ import java.util.List;
 
 @Document(collection = "franchises")
 public class FranchiseDocument {
+    // colación insensible a mayúsculas; debe coincidir entre el índice y las consultas por nombre
+    public static final String NAME_COLLATION = "{ 'locale' : 'es', 'strength' : 2 }";
+    public static final String NAME_INDEX = "uk_franchise_normalized_name";
+
     @Id
     private String id;
     private String name;
+    @Indexed(name = NAME_INDEX, unique = true, sparse = true, collation = NAME_COLLATION)
+    private String normalizedName;
     private List<BranchDocument> branches = new ArrayList<>();
+    @Version
+    private Long version;
 
     public FranchiseDocument() {
     }
@@ -38,6 +48,14 @@ public class FranchiseDocument {
         this.name = name;
     }
 
+    public String getNormalizedName() {
+        return normalizedName;
+    }
+
+    public void setNormalizedName(String normalizedName) {
+        this.normalizedName = normalizedName;
+    }
+
     public List<BranchDocument> getBranches() {
         return branches;
     }
@@ -45,4 +63,12 @@ public class FranchiseDocument {
     public void setBranches(List<BranchDocument> branches) {
         this.branches = branches;
     }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
 }
@@ -0,0 +1,48 @@
+package com.gina.franquicias_api.infrastructure.adapter.out.mongodb.entity;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+// sucursal en su propia colección (modo normalizado); position conserva el orden de inserción
+@Document(collection = "branches")
+@CompoundIndex(name = "ix_branch_franchise_position", def = "{ 'franchiseId': 1, 'position': 1 }")
+public class NormalizedBranchDocument {
+    @Id
+    private String id;
+    private String franchiseId;
+    private String name;
+    private int position;
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getFranchiseId() {
+        return franchiseId;
+    }
+
+    public void setFranchiseId(String franchiseId) {
+        this.franchiseId = franchiseId;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public int getPosition() {
+        return position;
+    }
+
+    public void setPosition(int position) {
+        this.position = position;
+    }
+}
@@ -0,0 +1,74 @@
+package com.gina.franquicias_api.infrastructure.adapter.out.mongodb.entity;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+// producto en su propia colección (modo normalizado); position conserva el orden dentro de la sucursal
+@Document(collection = "products")
+@CompoundIndexes({
+        @CompoundIndex(name = "ix_product_franchise_branch", def = "{ 'franchiseId': 1, 'branchId': 1 }"),
+        @CompoundIndex(name = "ix_product_branch_name", def = "{ 'branchId': 1, 'name': 1 }"),
+        // mantiene ordenados los productos de cada sucursal por stock: el máximo es la primera entrada
+        @CompoundIndex(name = "ix_product_branch_stock", def = "{ 'branchId': 1, 'stock': -1, 'position': 1 }"),
+        // rankings de la franquicia: los de más stock al inicio, los de menos recorriendo el índice al revés
+        @CompoundIndex(name = "ix_product_franchise_stock", def = "{ 'franchiseId': 1, 'stock': -1, '_id': 1 }")
+})
+public class NormalizedProductDocument {
+    @Id
+    private String id;
+    private String franchiseId;
+    private String branchId;
+    private String name;
+    private int stock;
+    private int position;
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getFranchiseId() {
+        return franchiseId;
+    }
+
+    public void setFranchiseId(String franchiseId) {
+        this.franchiseId = franchiseId;
+    }
+
+    public String getBranchId() {
+        return branchId;
+    }
+
+    public void setBranchId(String branchId) {
+        this.branchId = branchId;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public int getStock() {
+        return stock;
+    }
+
+    public void setStock(int stock) {
+        this.stock = stock;
+    }
+
+    public int getPosition() {
+        return position;
+    }
+
+    public void setPosition(int position) {
+        this.position = position;
+    }
+}
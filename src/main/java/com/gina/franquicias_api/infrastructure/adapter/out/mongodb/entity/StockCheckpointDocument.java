@@ -0,0 +1,108 @@
+package com.gina.franquicias_api.infrastructure.adapter.out.mongodb.entity;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+
+// último evento compactado de cada producto; lo escribe el $merge de la compactación, no la aplicación
+@Document(collection = StockCheckpointDocument.COLLECTION)
+public class StockCheckpointDocument {
+    public static final String COLLECTION = "stock_checkpoints";
+
+    // mismo orden de campos que el _id del $group: el $merge compara el documento completo
+    @Id
+    private Key id;
+    private String type;
+    private int amount;
+    private int stock;
+    private Instant at;
+    private String source;
+
+    public Key getId() {
+        return id;
+    }
+
+    public void setId(Key id) {
+        this.id = id;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public void setType(String type) {
+        this.type = type;
+    }
+
+    public int getAmount() {
+        return amount;
+    }
+
+    public void setAmount(int amount) {
+        this.amount = amount;
+    }
+
+    public int getStock() {
+        return stock;
+    }
+
+    public void setStock(int stock) {
+        this.stock = stock;
+    }
+
+    public Instant getAt() {
+        return at;
+    }
+
+    public void setAt(Instant at) {
+        this.at = at;
+    }
+
+    public String getSource() {
+        return source;
+    }
+
+    public void setSource(String source) {
+        this.source = source;
+    }
+
+    public static class Key {
+        private String franchiseId;
+        private String branchId;
+        private String productId;
+
+        public Key() {
+        }
+
+        public Key(String franchiseId, String branchId, String productId) {
+            this.franchiseId = franchiseId;
+            this.branchId = branchId;
+            this.productId = productId;
+        }
+
+        public String getFranchiseId() {
+            return franchiseId;
+        }
+
+        public void setFranchiseId(String franchiseId) {
+            this.franchiseId = franchiseId;
+        }
+
+        public String getBranchId() {
+            return branchId;
+        }
+
+        public void setBranchId(String branchId) {
+            this.branchId = branchId;
+        }
+
+        public String getProductId() {
+            return productId;
+        }
+
+        public void setProductId(String productId) {
+            this.productId = productId;
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package com.gina.franquicias_api.infrastructure.adapter.out.mongodb.entity;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+
+// un cambio de stock (historial de solo inserción); el ObjectId desempata eventos del mismo milisegundo
+@Document(collection = StockEventDocument.COLLECTION)
+@CompoundIndexes({
+        // stock en un instante: el primer evento del producto recorriendo el índice desde ese instante hacia atrás
+        @CompoundIndex(name = "ix_stock_event_product_at", def = "{ 'franchiseId': 1, 'branchId': 1, 'productId': 1, 'at': -1 }")
+})
+public class StockEventDocument {
+    public static final String COLLECTION = "stock_events";
+
+    @Id
+    private String id;
+    private String franchiseId;
+    private String branchId;
+    private String productId;
+    private String type;
+    private int amount;
+    private int stock;
+    // la compactación recorre y borra por rango de fecha
+    @Indexed(name = "ix_stock_event_at")
+    private Instant at;
+    private String source;
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getFranchiseId() {
+        return franchiseId;
+    }
+
+    public void setFranchiseId(String franchiseId) {
+        this.franchiseId = franchiseId;
+    }
+
+    public String getBranchId() {
+        return branchId;
+    }
+
+    public void setBranchId(String branchId) {
+        this.branchId = branchId;
+    }
+
+    public String getProductId() {
+        return productId;
+    }
+
+    public void setProductId(String productId) {
+        this.productId = productId;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public void setType(String type) {
+        this.type = type;
+    }
+
+    public int getAmount() {
+        return amount;
+    }
+
+    public void setAmount(int amount) {
+        this.amount = amount;
+    }
+
+    public int getStock() {
+        return stock;
+    }
+
+    public void setStock(int stock) {
+        this.stock = stock;
+    }
+
+    public Instant getAt() {
+        return at;
+    }
+
+    public void setAt(Instant at) {
+        this.at = at;
+    }
+
+    public String getSource() {
+        return source;
+    }
+
+    public void setSource(String source) {
+        this.source = source;
+    }
+}
@@ -0,0 +1,157 @@
+package com.gina.franquicias_api.infrastructure.adapter.out.mongodb.listener;
+
+import com.gina.franquicias_api.infrastructure.adapter.out.cache.FranchiseCache;
+import com.gina.franquicias_api.infrastructure.adapter.out.mongodb.entity.FranchiseDocument;
+import com.mongodb.MongoException;
+import com.mongodb.client.model.changestream.ChangeStreamDocument;
+import com.mongodb.client.model.changestream.FullDocument;
+import com.mongodb.client.model.changestream.OperationType;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.bson.BsonDocument;
+import org.bson.BsonValue;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.data.mongodb.core.ChangeStreamEvent;
+import org.springframework.data.mongodb.core.ChangeStreamOptions;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.util.retry.Retry;
+
+import java.time.Duration;
+import java.util.Set;
+
+/**
+ * Mantiene coherente la caché local entre réplicas: escucha el change stream de "franchises" e invalida
+ * la franquicia modificada por cualquier instancia. En el esquema normalizado toda escritura sobre
+ * sucursales o productos incrementa la versión de la raíz, así que basta con observar esta colección.
+ * <p>
+ * Si el stream se corta se reanuda desde el último token recibido; si el token ya no sirve (historial del
+ * oplog perdido o stream invalidado) se vuelve a escuchar desde ahora, y la caché completa se vacía justo
+ * antes de reabrir: lo escrito mientras no había stream no llega como evento, pero tampoco queda en caché.
+ */
+@Component
+@ConditionalOnExpression("${franchises.cache.enabled:false} and ${franchises.cache.change-stream.enabled:true}"
+        + " and '${franchises.persistence.layout:embedded}' != 'memory'")
+public class FranchiseCacheChangeListener implements SmartLifecycle {
+    private static final org.slf4j.Logger log = org.slf4j.LoggerFactory.getLogger(FranchiseCacheChangeListener.class);
+    // ChangeStreamFatalError, ChangeStreamHistoryLost, InvalidResumeToken
+    private static final Set<Integer> LOST_RESUME_POINT = Set.of(280, 286, 260);
+
+    private final ReactiveMongoTemplate template;
+    private final FranchiseCache cache;
+    private final Duration maxBackoff;
+    private final Counter invalidations;
+    private final Counter flushes;
+
+    // solo lo escribe el hilo que entrega las señales del stream, y se lee al resuscribirse
+    private volatile BsonValue resumeToken;
+    // motivo para vaciar la caché al reabrir sin token; null si el stream anterior no dejó cambios sin ver
+    private volatile String flushReason;
+    private volatile Disposable subscription;
+
+    public FranchiseCacheChangeListener(ReactiveMongoTemplate template, FranchiseCache cache, MeterRegistry registry,
+                                        @Value("${franchises.cache.change-stream.max-backoff:30s}") Duration maxBackoff) {
+        this.template = template;
+        this.cache = cache;
+        this.maxBackoff = maxBackoff;
+        this.invalidations = registry.counter("franchise.cache.change-stream.invalidations");
+        this.flushes = registry.counter("franchise.cache.change-stream.flushes");
+    }
+
+    @Override
+    public void start() {
+        subscription = Flux.defer(this::watch)
+                .doOnNext(this::apply)
+                .doOnError(this::onStreamError)
+                .retryWhen(Retry.backoff(Long.MAX_VALUE, Duration.ofMillis(100)).maxBackoff(maxBackoff))
+                // el servidor cierra el stream tras un invalidate: se vuelve a abrir
+                .repeatWhen(completed -> completed.delayElements(Duration.ofMillis(100)))
+                .subscribe();
+        log.info("Escuchando cambios de franquicias para invalidar la caché local");
+    }
+
+    @Override
+    public void stop() {
+        Disposable current = subscription;
+        if (current != null) {
+            current.dispose();
+        }
+        subscription = null;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return subscription != null && !subscription.isDisposed();
+    }
+
+    private Flux<ChangeStreamEvent<Document>> watch() {
+        // solo interesan la clave y el tipo de operación: sin fullDocument cada evento pesa unos pocos bytes
+        ChangeStreamOptions.ChangeStreamOptionsBuilder options = ChangeStreamOptions.builder()
+                .fullDocumentLookup(FullDocument.DEFAULT)
+                .filter(Aggregation.newAggregation(Aggregation.project("documentKey", "operationType")));
+        BsonValue token = resumeToken;
+        if (token != null) {
+            options.resumeAfter(token);
+        } else if (flushReason != null) {
+            // al reabrir y no antes: vaciar en el evento dejaría cargar entradas viejas durante la espera
+            flush(flushReason);
+            flushReason = null;
+        }
+        return template.changeStream(template.getCollectionName(FranchiseDocument.class), options.build(), Document.class);
+    }
+
+    private void apply(ChangeStreamEvent<Document> event) {
+        ChangeStreamDocument<Document> raw = event.getRaw();
+        OperationType type = raw == null ? null : raw.getOperationType();
+        if (type == OperationType.INVALIDATE || type == OperationType.DROP
+                || type == OperationType.RENAME || type == OperationType.DROP_DATABASE) {
+            // tras invalidate el token ya no permite reanudar
+            resumeToken = null;
+            flushReason = "evento " + type.getValue() + " sobre la colección";
+            return;
+        }
+
+        BsonDocument key = raw == null ? null : raw.getDocumentKey();
+        if (key != null && key.isString("_id")) {
+            cache.invalidate(key.getString("_id").getValue());
+            invalidations.increment();
+        }
+        resumeToken = event.getResumeToken();
+    }
+
+    private void onStreamError(Throwable error) {
+        if (lostResumePoint(error)) {
+            resumeToken = null;
+            flushReason = "no se pudo reanudar el change stream";
+            log.warn("Change stream de franquicias sin punto de reanudación, se reabre desde ahora: {}", error.getMessage());
+            return;
+        }
+        if (resumeToken == null) {
+            // sin token el stream reabre desde ahora: lo escrito durante el corte no llegaría nunca
+            flushReason = "change stream interrumpido sin punto de reanudación";
+        }
+        log.warn("Change stream de franquicias interrumpido, se reanuda desde el último evento: {}", error.getMessage());
+    }
+
+    // el template traduce las excepciones del driver: el código queda en la causa
+    private static boolean lostResumePoint(Throwable error) {
+        for (Throwable t = error; t != null; t = t.getCause()) {
+            if (t instanceof MongoException me && LOST_RESUME_POINT.contains(me.getCode())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void flush(String reason) {
+        cache.invalidateAll();
+        flushes.increment();
+        log.warn("Caché de franquicias vaciada: {}", reason);
+    }
+}
@@ -8,8 +8,9 @@ import com.gina.franquicias_api.infrastructure.adapter.out.mongodb.entity.Franch
 import com.gina.franquicias_api.infrastructure.adapter.out.mongodb.entity.ProductDocument;
 import org.springframework.stereotype.Component;
 
+import java.util.ArrayList;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Locale;
 
 @Component
 public class FranchiseMapper {
@@ -17,45 +18,60 @@ public class FranchiseMapper {
         FranchiseDocument d = new FranchiseDocument();
         d.setId(f.getId());
         d.setName(f.getName());
-        d.setBranches(
-                f.getBranches().stream()
-                        .map(b -> {
-                            BranchDocument bd = new BranchDocument();
-                            bd.setId(b.getId());
-                            bd.setName(b.getName());
-                            bd.setProducts(
-                                    b.getProducts().stream()
-                                            .map(p -> {
-                                                ProductDocument pd = new ProductDocument();
-                                                pd.setId(p.getId());
-                                                pd.setName(p.getName());
-                                                pd.setStock(p.getStock());
-                                                return pd;
-                                            })
-                                            .collect(Collectors.toList())
-                            );
-                            return bd;
-                        })
-                        .collect(Collectors.toList())
-        );
+        d.setNormalizedName(normalizeName(f.getName()));
+        d.setVersion(f.getVersion());
+        List<Branch> branches = f.getBranches();
+        List<BranchDocument> docs = new ArrayList<>(branches.size());
+        for (Branch b : branches) {
+            docs.add(toDocument(b));
+        }
+        d.setBranches(docs);
         return d;
     }
 
+    public BranchDocument toDocument(Branch b) {
+        BranchDocument bd = new BranchDocument();
+        bd.setId(b.getId());
+        bd.setName(b.getName());
+        List<Product> products = b.getProducts();
+        List<ProductDocument> docs = new ArrayList<>(products.size());
+        // mismo criterio que la actualización incremental: ante empate gana el primero
+        ProductDocument max = null;
+        for (Product p : products) {
+            ProductDocument pd = new ProductDocument();
+            pd.setId(p.getId());
+            pd.setName(p.getName());
+            pd.setStock(p.getStock());
+            docs.add(pd);
+            if (max == null || pd.getStock() > max.getStock()) {
+                max = pd;
+            }
+        }
+        bd.setProducts(docs);
+        bd.setMaxStockProduct(max);
+        return bd;
+    }
+
+    // se llena el agregado directamente: sin listas intermedias que el constructor volvería a copiar
     public Franchise toDomain(FranchiseDocument d) {
-        List<Branch> branches = d.getBranches().stream()
-                .map(bd -> new Branch(
-                        bd.getId(),
-                        bd.getName(),
-                        bd.getProducts().stream()
-                                .map(pd -> new Product(pd.getId(), pd.getName(), pd.getStock()))
-                                .collect(Collectors.toList())
-                ))
-                .collect(Collectors.toList());
+        List<BranchDocument> branches = d.getBranches();
+        Franchise f = new Franchise(d.getId(), d.getName(), branches.size(), d.getVersion());
+        for (BranchDocument bd : branches) {
+            f.addBranch(toDomain(bd));
+        }
+        return f;
+    }
 
-        return new Franchise(
-                d.getId(),
-                d.getName(),
-                branches
-        );
-}
+    public Branch toDomain(BranchDocument bd) {
+        List<ProductDocument> products = bd.getProducts();
+        Branch b = new Branch(bd.getId(), bd.getName(), products.size());
+        for (ProductDocument pd : products) {
+            b.addProduct(new Product(pd.getId(), pd.getName(), pd.getStock()));
+        }
+        return b;
+    }
+
+    public static String normalizeName(String name) {
+        return name == null ? null : name.toLowerCase(Locale.ROOT);
+    }
 }
@@ -0,0 +1,85 @@
+package com.gina.franquicias_api.infrastructure.adapter.out.mongodb.mapper;
+
+import com.gina.franquicias_api.domain.model.Branch;
+import com.gina.franquicias_api.domain.model.Franchise;
+import com.gina.franquicias_api.domain.model.Product;
+import com.gina.franquicias_api.infrastructure.adapter.out.mongodb.entity.FranchiseDocument;
+import com.gina.franquicias_api.infrastructure.adapter.out.mongodb.entity.NormalizedBranchDocument;
+import com.gina.franquicias_api.infrastructure.adapter.out.mongodb.entity.NormalizedProductDocument;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Component
+public class NormalizedFranchiseMapper {
+
+    // raíz de la franquicia sin sucursales embebidas: en modo normalizado viven en su colección
+    public FranchiseDocument toRootDocument(Franchise f) {
+        FranchiseDocument d = new FranchiseDocument(f.getId(), f.getName(), new ArrayList<>());
+        d.setNormalizedName(FranchiseMapper.normalizeName(f.getName()));
+        d.setVersion(f.getVersion());
+        return d;
+    }
+
+    public List<NormalizedBranchDocument> toBranchDocuments(Franchise f) {
+        List<NormalizedBranchDocument> branches = new ArrayList<>(f.getBranches().size());
+        int position = 0;
+        for (Branch b : f.getBranches()) {
+            branches.add(toBranchDocument(f.getId(), b, position++));
+        }
+        return branches;
+    }
+
+    public NormalizedBranchDocument toBranchDocument(String franchiseId, Branch b, int position) {
+        NormalizedBranchDocument bd = new NormalizedBranchDocument();
+        bd.setId(b.getId());
+        bd.setFranchiseId(franchiseId);
+        bd.setName(b.getName());
+        bd.setPosition(position);
+        return bd;
+    }
+
+    public List<NormalizedProductDocument> toProductDocuments(Franchise f) {
+        List<NormalizedProductDocument> products = new ArrayList<>();
+        for (Branch b : f.getBranches()) {
+            products.addAll(toProductDocuments(f.getId(), b));
+        }
+        return products;
+    }
+
+    public List<NormalizedProductDocument> toProductDocuments(String franchiseId, Branch b) {
+        List<NormalizedProductDocument> products = new ArrayList<>(b.getProducts().size());
+        int position = 0;
+        for (Product p : b.getProducts()) {
+            NormalizedProductDocument pd = new NormalizedProductDocument();
+            pd.setId(p.getId());
+            pd.setFranchiseId(franchiseId);
+            pd.setBranchId(b.getId());
+            pd.setName(p.getName());
+            pd.setStock(p.getStock());
+            pd.setPosition(position++);
+            products.add(pd);
+        }
+        return products;
+    }
+
+    public Product toDomain(NormalizedProductDocument pd) {
+        return new Product(pd.getId(), pd.getName(), pd.getStock());
+    }
+
+    // branches y products deben venir ordenados por position
+    public Franchise toDomain(FranchiseDocument root, List<NormalizedBranchDocument> branches,
+                              List<NormalizedProductDocument> products) {
+        Franchise f = new Franchise(root.getId(), root.getName(), branches.size(), root.getVersion());
+        int expectedProducts = branches.isEmpty() ? 0 : products.size() / branches.size();
+        for (NormalizedBranchDocument bd : branches) {
+            f.addBranch(new Branch(bd.getId(), bd.getName(), expectedProducts));
+        }
+        // los productos van directo a su sucursal; los de una sucursal ya borrada se descartan
+        for (NormalizedProductDocument pd : products) {
+            f.findBranch(pd.getBranchId()).ifPresent(branch -> branch.addProduct(toDomain(pd)));
+        }
+        return f;
+    }
+}
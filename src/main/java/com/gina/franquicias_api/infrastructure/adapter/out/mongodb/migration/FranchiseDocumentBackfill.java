@@ -0,0 +1,54 @@
+package com.gina.franquicias_api.infrastructure.adapter.out.mongodb.migration;
+
+import com.gina.franquicias_api.infrastructure.adapter.out.mongodb.entity.FranchiseDocument;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.AggregationUpdate;
+import org.springframework.data.mongodb.core.aggregation.StringOperators;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.data.mongodb.core.query.UpdateDefinition;
+import org.springframework.stereotype.Component;
+
+/**
+ * Completa los campos que las franquicias guardadas antes de su introducción no tienen:
+ * <ul>
+ *     <li>normalizedName: sin él, el índice único (sparse) no las cubre y la validación de duplicados no las vería.</li>
+ *     <li>version: con null Spring Data trataría el guardado como una inserción nueva.</li>
+ * </ul>
+ */
+@Component
+@ConditionalOnExpression("'${franchises.persistence.layout:embedded}' != 'memory'")
+public class FranchiseDocumentBackfill {
+    private static final org.slf4j.Logger log = org.slf4j.LoggerFactory.getLogger(FranchiseDocumentBackfill.class);
+
+    private final ReactiveMongoTemplate template;
+
+    public FranchiseDocumentBackfill(ReactiveMongoTemplate template) {
+        this.template = template;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfill() {
+        // $toLower solo es exacto para ASCII, pero la colación del índice compara sin distinguir mayúsculas
+        AggregationUpdate normalizedName = AggregationUpdate.update()
+                .set("normalizedName").toValue(StringOperators.valueOf("name").toLower());
+        backfill("normalizedName", normalizedName);
+        backfill("version", new Update().set("version", 0L));
+    }
+
+    private void backfill(String field, UpdateDefinition update) {
+        Query missing = new Query(Criteria.where(field).exists(false));
+        template.updateMulti(missing, update, FranchiseDocument.class)
+                .subscribe(
+                        result -> {
+                            if (result.getModifiedCount() > 0) {
+                                log.info("{} completado en {} franquicias", field, result.getModifiedCount());
+                            }
+                        },
+                        e -> log.warn("No se pudo completar {} en franquicias existentes: {}", field, e.getMessage()));
+    }
+}
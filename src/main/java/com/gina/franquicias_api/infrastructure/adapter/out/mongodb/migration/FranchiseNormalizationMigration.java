@@ -0,0 +1,128 @@
+package com.gina.franquicias_api.infrastructure.adapter.out.mongodb.migration;
+
+import com.gina.franquicias_api.domain.model.Franchise;
+import com.gina.franquicias_api.infrastructure.adapter.out.mongodb.entity.FranchiseDocument;
+import com.gina.franquicias_api.infrastructure.adapter.out.mongodb.entity.NormalizedBranchDocument;
+import com.gina.franquicias_api.infrastructure.adapter.out.mongodb.entity.NormalizedProductDocument;
+import com.gina.franquicias_api.infrastructure.adapter.out.mongodb.mapper.FranchiseMapper;
+import com.gina.franquicias_api.infrastructure.adapter.out.mongodb.mapper.NormalizedFranchiseMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationContext;
+import org.springframework.data.mongodb.core.BulkOperations.BulkMode;
+import org.springframework.data.mongodb.core.FindAndReplaceOptions;
+import org.springframework.data.mongodb.core.ReactiveBulkOperations;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Mueve las sucursales y productos embebidos a sus colecciones (modo normalizado). Se ejecuta una vez:
+ * <pre>
+ * ./mvnw spring-boot:run -Dspring-boot.run.arguments="--franchises.migration.normalize=true --spring.main.web-application-type=none"
+ * </pre>
+ * Lee las franquicias con cursor en lotes, escribe primero los hijos (upserts idempotentes) y solo después
+ * vacía el arreglo embebido, condicionado a la versión leída: si alguien escribió mientras tanto, la
+ * franquicia queda sin vaciar, se borran los hijos recién escritos y se migra en la siguiente ejecución.
+ * Una franquicia que todavía tiene sucursales embebidas no está migrada, así que antes de escribir sus hijos
+ * se borran los que hubiera dejado una ejecución interrumpida: no quedan filas de sucursales o productos que
+ * ya no existen en el documento.
+ */
+@Component
+@ConditionalOnProperty(name = "franchises.migration.normalize", havingValue = "true")
+public class FranchiseNormalizationMigration implements ApplicationRunner {
+    private static final org.slf4j.Logger log = org.slf4j.LoggerFactory.getLogger(FranchiseNormalizationMigration.class);
+
+    private final ReactiveMongoTemplate template;
+    private final FranchiseMapper embeddedMapper;
+    private final NormalizedFranchiseMapper normalizedMapper;
+    private final ApplicationContext context;
+    private final int batchSize;
+    private final boolean exitOnFinish;
+
+    public FranchiseNormalizationMigration(ReactiveMongoTemplate template,
+                                           FranchiseMapper embeddedMapper,
+                                           NormalizedFranchiseMapper normalizedMapper,
+                                           ApplicationContext context,
+                                           @Value("${franchises.migration.batch-size:500}") int batchSize,
+                                           @Value("${franchises.migration.exit-on-finish:true}") boolean exitOnFinish) {
+        this.template = template;
+        this.embeddedMapper = embeddedMapper;
+        this.normalizedMapper = normalizedMapper;
+        this.context = context;
+        this.batchSize = batchSize;
+        this.exitOnFinish = exitOnFinish;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        AtomicLong migrated = new AtomicLong();
+        AtomicLong skipped = new AtomicLong();
+
+        Query pending = new Query(Criteria.where("branches.0").exists(true)).cursorBatchSize(batchSize);
+        template.find(pending, FranchiseDocument.class)
+                .concatMap(this::migrate)
+                .doOnNext(done -> {
+                    long count = (done ? migrated : skipped).incrementAndGet();
+                    if (done && count % batchSize == 0) {
+                        log.info("Normalización en curso: {} franquicias migradas", count);
+                    }
+                })
+                .blockLast();
+
+        log.info("Normalización terminada: {} franquicias migradas, {} modificadas durante la migración (volver a ejecutar)",
+                migrated.get(), skipped.get());
+        if (exitOnFinish) {
+            System.exit(SpringApplication.exit(context));
+        }
+    }
+
+    private Mono<Boolean> migrate(FranchiseDocument document) {
+        Franchise franchise = embeddedMapper.toDomain(document);
+        Query unchanged = new Query(Criteria.where("_id").is(document.getId()).and("version").is(document.getVersion()));
+        Update clearEmbedded = new Update().set("branches", new ArrayList<>()).inc("version", 1);
+
+        return removeChildren(document.getId())
+                .then(upsertAll(normalizedMapper.toBranchDocuments(franchise), NormalizedBranchDocument.class, NormalizedBranchDocument::getId))
+                .then(upsertAll(normalizedMapper.toProductDocuments(franchise), NormalizedProductDocument.class, NormalizedProductDocument::getId))
+                .then(template.updateFirst(unchanged, clearEmbedded, FranchiseDocument.class))
+                .flatMap(result -> {
+                    if (result.getModifiedCount() == 0) {
+                        log.warn("La franquicia {} cambió durante la migración; se reintentará en la próxima ejecución", document.getId());
+                        return removeChildren(document.getId()).thenReturn(false);
+                    }
+                    return Mono.just(true);
+                });
+    }
+
+    private Mono<Void> removeChildren(String franchiseId) {
+        Query children = new Query(Criteria.where("franchiseId").is(franchiseId));
+        return template.remove(children, NormalizedProductDocument.class)
+                .then(template.remove(children, NormalizedBranchDocument.class))
+                .then();
+    }
+
+    private <T> Mono<Void> upsertAll(List<T> documents, Class<T> type, Function<T, String> id) {
+        return Flux.fromIterable(documents)
+                .buffer(batchSize)
+                .concatMap(chunk -> {
+                    ReactiveBulkOperations ops = template.bulkOps(BulkMode.UNORDERED, type);
+                    chunk.forEach(d -> ops.replaceOne(new Query(Criteria.where("_id").is(id.apply(d))), d,
+                            FindAndReplaceOptions.options().upsert()));
+                    return ops.execute();
+                })
+                .then();
+    }
+}
@@ -1,9 +1,17 @@
 package com.gina.franquicias_api.infrastructure.adapter.out.mongodb.repository;
 
 import com.gina.franquicias_api.infrastructure.adapter.out.mongodb.entity.FranchiseDocument;
+import org.springframework.data.mongodb.core.annotation.Collation;
 import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
 import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Mono;
 
 @Repository
 public interface FranchiseMongoRepository extends ReactiveMongoRepository<FranchiseDocument, String> {
+
+    @Collation(FranchiseDocument.NAME_COLLATION)
+    Mono<Boolean> existsByNormalizedName(String normalizedName);
+
+    @Collation(FranchiseDocument.NAME_COLLATION)
+    Mono<Boolean> existsByNormalizedNameAndIdNot(String normalizedName, String id);
 }
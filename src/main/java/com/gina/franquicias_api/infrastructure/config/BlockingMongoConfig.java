@@ -0,0 +1,36 @@
+package com.gina.franquicias_api.infrastructure.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Hilos en los que el adaptador bloqueante ({@code franchises.persistence.layout=blocking}) ejecuta las llamadas
+ * al driver sincrónico. Con {@code franchises.blocking.virtual-threads=true} (por defecto) cada llamada corre en
+ * un hilo virtual propio, si la JVM es 21 o posterior; si no, o con false, en un boundedElastic de
+ * {@code franchises.blocking.platform-threads} hilos de plataforma.
+ */
+@Configuration
+@ConditionalOnProperty(name = "franchises.persistence.layout", havingValue = "blocking")
+public class BlockingMongoConfig {
+    public static final String SCHEDULER = "blockingMongoScheduler";
+    private static final org.slf4j.Logger log = org.slf4j.LoggerFactory.getLogger(BlockingMongoConfig.class);
+
+    @Bean(name = SCHEDULER, destroyMethod = "dispose")
+    public Scheduler blockingMongoScheduler(@Value("${franchises.blocking.virtual-threads:true}") boolean virtualThreads,
+                                            @Value("${franchises.blocking.platform-threads:200}") int platformThreads) {
+        if (virtualThreads) {
+            try {
+                return Schedulers.fromExecutor(new VirtualThreadTaskExecutor("franchise-mongo-"));
+            } catch (UnsupportedOperationException e) {
+                log.warn("La JVM {} no tiene hilos virtuales: el adaptador bloqueante usa {} hilos de plataforma",
+                        Runtime.version().feature(), platformThreads);
+            }
+        }
+        return Schedulers.newBoundedElastic(platformThreads, Integer.MAX_VALUE, "franchise-mongo");
+    }
+}
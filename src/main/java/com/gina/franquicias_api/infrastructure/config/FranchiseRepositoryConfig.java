@@ -0,0 +1,60 @@
+package com.gina.franquicias_api.infrastructure.config;
+
+import com.gina.franquicias_api.domain.port.out.FranchiseRepository;
+import com.gina.franquicias_api.domain.port.out.StockLedger;
+import com.gina.franquicias_api.infrastructure.adapter.out.cache.CachingFranchiseRepository;
+import com.gina.franquicias_api.infrastructure.adapter.out.cache.FranchiseCache;
+import com.gina.franquicias_api.infrastructure.adapter.out.coalescing.CoalescingFranchiseRepository;
+import com.gina.franquicias_api.infrastructure.adapter.out.ledger.LedgerFranchiseRepository;
+import com.gina.franquicias_api.infrastructure.metrics.ObservedFranchiseRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.observation.ObservationRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+
+import java.time.Duration;
+
+/**
+ * Arma el puerto que usa el servicio: el adaptador de almacenamiento activo (marcado con
+ * {@link #STORE}) envuelto por los decoradores habilitados.
+ */
+@Configuration
+public class FranchiseRepositoryConfig {
+    public static final String STORE = "franchiseStore";
+
+    @Bean
+    @Primary
+    public FranchiseRepository franchiseRepository(@Qualifier(STORE) FranchiseRepository store,
+                                                   ObjectProvider<FranchiseCache> cache,
+                                                   ObjectProvider<StockLedger> ledger,
+                                                   ObservationRegistry observations,
+                                                   MeterRegistry registry,
+                                                   @Value("${franchises.metrics.enabled:true}") boolean metrics,
+                                                   @Value("${franchises.stock.coalescing.enabled:false}") boolean coalescing,
+                                                   @Value("${franchises.stock.coalescing.window:10ms}") Duration window,
+                                                   @Value("${franchises.stock.coalescing.max-batch:500}") int maxBatch,
+                                                   @Value("${franchises.stock.coalescing.max-pending:10000}") int maxPending) {
+        FranchiseRepository repository = store;
+        FranchiseCache franchiseCache = cache.getIfAvailable();
+        if (franchiseCache != null) {
+            repository = new CachingFranchiseRepository(repository, franchiseCache);
+        }
+        // por debajo del coalescing: ve cada lote ya fusionado y registra solo la actualización ganadora de cada
+        // producto; las reemplazadas dentro del lote nunca llegaron a escribirse
+        StockLedger stockLedger = ledger.getIfAvailable();
+        if (stockLedger != null) {
+            repository = new LedgerFranchiseRepository(repository, stockLedger, registry);
+        }
+        if (coalescing) {
+            repository = new CoalescingFranchiseRepository(repository, registry, window, maxBatch, maxPending);
+        }
+        if (metrics) {
+            repository = new ObservedFranchiseRepository(repository, observations, registry);
+        }
+        return repository;
+    }
+}
@@ -0,0 +1,47 @@
+package com.gina.franquicias_api.infrastructure.config;
+
+import com.gina.franquicias_api.application.service.FranchiseCommandQueue;
+import com.gina.franquicias_api.application.service.FranchiseServiceImpl;
+import com.gina.franquicias_api.application.service.SerializedFranchiseService;
+import com.gina.franquicias_api.domain.port.in.FranchiseService;
+import com.gina.franquicias_api.infrastructure.metrics.ObservedFranchiseService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.observation.ObservationRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+
+/**
+ * Arma el puerto de entrada que usa el controlador: el servicio envuelto por los decoradores habilitados.
+ */
+@Configuration
+public class FranchiseServiceConfig {
+
+    @Bean
+    @ConditionalOnProperty(name = "franchises.commands.serialized", havingValue = "true")
+    public FranchiseCommandQueue franchiseCommandQueue(MeterRegistry registry,
+                                                       @Value("${franchises.commands.warn-depth:100}") int warnDepth) {
+        return new FranchiseCommandQueue(registry, warnDepth);
+    }
+
+    @Bean
+    @Primary
+    public FranchiseService franchiseService(FranchiseServiceImpl service,
+                                             ObjectProvider<FranchiseCommandQueue> queue,
+                                             ObservationRegistry registry,
+                                             @Value("${franchises.metrics.enabled:true}") boolean metrics) {
+        FranchiseService decorated = service;
+        FranchiseCommandQueue commandQueue = queue.getIfAvailable();
+        if (commandQueue != null) {
+            decorated = new SerializedFranchiseService(decorated, commandQueue);
+        }
+        // por fuera de la cola: el span de la operación incluye la espera
+        if (metrics) {
+            decorated = new ObservedFranchiseService(decorated, registry);
+        }
+        return decorated;
+    }
+}
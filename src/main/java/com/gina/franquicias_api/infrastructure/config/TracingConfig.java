@@ -0,0 +1,22 @@
+package com.gina.franquicias_api.infrastructure.config;
+
+import io.opentelemetry.exporter.logging.LoggingSpanExporter;
+import io.opentelemetry.sdk.trace.export.SpanExporter;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Exportadores de spans además del OTLP de Spring Boot (activo con {@code management.otlp.tracing.endpoint}).
+ * Con {@code franchises.tracing.log-spans=true} cada span se escribe en el log: sirve en local y en pruebas,
+ * sin levantar un colector.
+ */
+@Configuration
+public class TracingConfig {
+
+    @Bean
+    @ConditionalOnProperty(name = "franchises.tracing.log-spans", havingValue = "true")
+    public SpanExporter loggingSpanExporter() {
+        return LoggingSpanExporter.create();
+    }
+}
@@ -0,0 +1,33 @@
+package com.gina.franquicias_api.infrastructure.metrics;
+
+import com.gina.franquicias_api.application.service.FranchiseCommandQueue;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * {@code /actuator/franchise-queues}: las franquicias con más escrituras en cola en esta instancia, con la
+ * espera del comando más antiguo. Es la vista por franquicia que las métricas no dan (los ids no son etiquetas).
+ */
+@Component
+@Endpoint(id = "franchisequeues")
+@ConditionalOnProperty(name = "franchises.commands.serialized", havingValue = "true")
+public class FranchiseQueuesEndpoint {
+    private static final int DEFAULT_LIMIT = 20;
+    private static final int MAX_LIMIT = 500;
+
+    private final FranchiseCommandQueue queue;
+
+    public FranchiseQueuesEndpoint(FranchiseCommandQueue queue) {
+        this.queue = queue;
+    }
+
+    @ReadOperation
+    public List<FranchiseCommandQueue.KeyDepth> deepest(@Nullable Integer limit) {
+        return queue.deepest(limit == null ? DEFAULT_LIMIT : Math.max(1, Math.min(limit, MAX_LIMIT)));
+    }
+}
@@ -0,0 +1,164 @@
+package com.gina.franquicias_api.infrastructure.metrics;
+
+import com.gina.franquicias_api.domain.model.Branch;
+import com.gina.franquicias_api.domain.model.Franchise;
+import com.gina.franquicias_api.domain.model.FranchiseSummary;
+import com.gina.franquicias_api.domain.model.Product;
+import com.gina.franquicias_api.domain.model.ProductWithBranch;
+import com.gina.franquicias_api.domain.model.StockUpdate;
+import com.gina.franquicias_api.domain.model.StockUpdateResult;
+import com.gina.franquicias_api.domain.port.out.FranchiseRepository;
+import io.micrometer.common.KeyValues;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.observation.ObservationRegistry;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+/**
+ * Decorador del puerto que observa cada método como {@code franchise.repository} (timer y span hijo de la
+ * operación del servicio) y, para cada agregado que entra o sale (save, findById, findPage, findAll),
+ * registra cuántas sucursales y productos trae en {@code franchise.aggregate.branches} y
+ * {@code franchise.aggregate.products}. Va por fuera de la caché: mide lo que ve el servicio.
+ */
+public class ObservedFranchiseRepository implements FranchiseRepository {
+    private final FranchiseRepository delegate;
+    private final ReactiveObservation observation;
+    private final MeterRegistry registry;
+
+    public ObservedFranchiseRepository(FranchiseRepository delegate, ObservationRegistry observations,
+                                       MeterRegistry registry) {
+        this.delegate = delegate;
+        this.registry = registry;
+        this.observation = new ReactiveObservation(observations, "franchise.repository");
+    }
+
+    @Override
+    public Mono<Franchise> save(Franchise franchise) {
+        return observation.observe("save", KeyValues.of("franchise.id", franchise.getId()),
+                delegate.save(franchise).doOnNext(f -> recordSize("save", f)));
+    }
+
+    @Override
+    public Mono<Franchise> findById(String id) {
+        return observation.observe("findById", KeyValues.of("franchise.id", id),
+                delegate.findById(id).doOnNext(f -> recordSize("findById", f)));
+    }
+
+    @Override
+    public Mono<Boolean> existsById(String id) {
+        return observation.observe("existsById", KeyValues.of("franchise.id", id), delegate.existsById(id));
+    }
+
+    @Override
+    public Flux<Franchise> findAll() {
+        return observation.observe("findAll", KeyValues.empty(),
+                delegate.findAll().doOnNext(f -> recordSize("findAll", f)));
+    }
+
+    @Override
+    public Flux<Franchise> findPage(String afterId, int limit) {
+        return observation.observe("findPage", KeyValues.empty(),
+                delegate.findPage(afterId, limit).doOnNext(f -> recordSize("findPage", f)));
+    }
+
+    @Override
+    public Flux<FranchiseSummary> findSummaries(String afterId, int limit) {
+        return observation.observe("findSummaries", KeyValues.empty(), delegate.findSummaries(afterId, limit));
+    }
+
+    @Override
+    public Mono<Franchise> findBranch(String franchiseId, String branchId) {
+        return observation.observe("findBranch", KeyValues.of("franchise.id", franchiseId, "branch.id", branchId),
+                delegate.findBranch(franchiseId, branchId));
+    }
+
+    @Override
+    public Mono<Franchise> findBranchNames(String franchiseId) {
+        return observation.observe("findBranchNames", KeyValues.of("franchise.id", franchiseId),
+                delegate.findBranchNames(franchiseId));
+    }
+
+    @Override
+    public Mono<Void> insertBranch(Franchise view, Branch branch) {
+        return observation.observe("insertBranch", KeyValues.of("franchise.id", view.getId(),
+                "branch.id", branch.getId()), delegate.insertBranch(view, branch));
+    }
+
+    @Override
+    public Mono<Void> saveBranch(Franchise view, Branch branch) {
+        return observation.observe("saveBranch", KeyValues.of("franchise.id", view.getId(),
+                "branch.id", branch.getId()), delegate.saveBranch(view, branch));
+    }
+
+    @Override
+    public Mono<Branch> renameBranch(Franchise view, String branchId, String newName) {
+        return observation.observe("renameBranch", KeyValues.of("franchise.id", view.getId(),
+                "branch.id", branchId), delegate.renameBranch(view, branchId, newName));
+    }
+
+    @Override
+    public Mono<Boolean> existsByNameIgnoreCase(String name, String excludingId) {
+        return observation.observe("existsByNameIgnoreCase", KeyValues.empty(),
+                delegate.existsByNameIgnoreCase(name, excludingId));
+    }
+
+    @Override
+    public Mono<Product> updateProductStock(String franchiseId, String branchId, String productId, int stock) {
+        return observation.observe("updateProductStock", productIds(franchiseId, branchId, productId),
+                delegate.updateProductStock(franchiseId, branchId, productId, stock));
+    }
+
+    @Override
+    public Mono<Product> adjustProductStock(String franchiseId, String branchId, String productId, int delta) {
+        return observation.observe("adjustProductStock", productIds(franchiseId, branchId, productId),
+                delegate.adjustProductStock(franchiseId, branchId, productId, delta));
+    }
+
+    @Override
+    public Flux<StockUpdateResult> updateProductStocks(String franchiseId, List<StockUpdate> updates) {
+        return observation.observe("updateProductStocks", KeyValues.of("franchise.id", franchiseId),
+                delegate.updateProductStocks(franchiseId, updates));
+    }
+
+    @Override
+    public Flux<ProductWithBranch> findMaxStockPerBranch(String franchiseId) {
+        return observation.observe("findMaxStockPerBranch", KeyValues.of("franchise.id", franchiseId),
+                delegate.findMaxStockPerBranch(franchiseId));
+    }
+
+    @Override
+    public Flux<ProductWithBranch> findTopStockProducts(String franchiseId, int k) {
+        return observation.observe("findTopStockProducts", KeyValues.of("franchise.id", franchiseId),
+                delegate.findTopStockProducts(franchiseId, k));
+    }
+
+    @Override
+    public Flux<ProductWithBranch> findLowStockProducts(String franchiseId, int below, int limit) {
+        return observation.observe("findLowStockProducts", KeyValues.of("franchise.id", franchiseId),
+                delegate.findLowStockProducts(franchiseId, below, limit));
+    }
+
+    private void recordSize(String method, Franchise f) {
+        int products = 0;
+        for (Branch b : f.getBranches()) {
+            products += b.getProducts().size();
+        }
+        DistributionSummary.builder("franchise.aggregate.branches")
+                .baseUnit("branches")
+                .tag("method", method)
+                .register(registry)
+                .record(f.getBranches().size());
+        DistributionSummary.builder("franchise.aggregate.products")
+                .baseUnit("products")
+                .tag("method", method)
+                .register(registry)
+                .record(products);
+    }
+
+    private static KeyValues productIds(String franchiseId, String branchId, String productId) {
+        return KeyValues.of("franchise.id", franchiseId, "branch.id", branchId, "product.id", productId);
+    }
+}
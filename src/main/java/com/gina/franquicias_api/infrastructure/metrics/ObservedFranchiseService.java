@@ -0,0 +1,131 @@
+package com.gina.franquicias_api.infrastructure.metrics;
+
+import com.gina.franquicias_api.domain.model.Branch;
+import com.gina.franquicias_api.domain.model.Franchise;
+import com.gina.franquicias_api.domain.model.FranchiseSummary;
+import com.gina.franquicias_api.domain.model.Product;
+import com.gina.franquicias_api.domain.model.ProductWithBranch;
+import com.gina.franquicias_api.domain.model.StockUpdate;
+import com.gina.franquicias_api.domain.model.StockUpdateResult;
+import com.gina.franquicias_api.domain.port.in.FranchiseService;
+import io.micrometer.common.KeyValues;
+import io.micrometer.observation.ObservationRegistry;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Decorador del puerto de entrada que observa cada operación como {@code franchise.service}: el timer por
+ * operación (la etiqueta error separa BusinessException, ResourceNotFoundException y los errores
+ * inesperados) y el span padre de las llamadas al puerto de persistencia.
+ */
+public class ObservedFranchiseService implements FranchiseService {
+    private final FranchiseService delegate;
+    private final ReactiveObservation observation;
+
+    public ObservedFranchiseService(FranchiseService delegate, ObservationRegistry registry) {
+        this.delegate = delegate;
+        this.observation = new ReactiveObservation(registry, "franchise.service");
+    }
+
+    @Override
+    public Mono<Franchise> createFranchise(String name) {
+        return observation.observe("createFranchise", KeyValues.empty(), delegate.createFranchise(name));
+    }
+
+    @Override
+    public Mono<Branch> addBranch(String franchiseId, String branchName) {
+        return observation.observe("addBranch", KeyValues.of("franchise.id", franchiseId),
+                delegate.addBranch(franchiseId, branchName));
+    }
+
+    @Override
+    public Mono<Product> addProduct(String franchiseId, String branchId, String productName, int stock) {
+        return observation.observe("addProduct", KeyValues.of("franchise.id", franchiseId, "branch.id", branchId),
+                delegate.addProduct(franchiseId, branchId, productName, stock));
+    }
+
+    @Override
+    public Mono<Branch> removeProduct(String franchiseId, String branchId, String productId) {
+        return observation.observe("removeProduct", productIds(franchiseId, branchId, productId),
+                delegate.removeProduct(franchiseId, branchId, productId));
+    }
+
+    @Override
+    public Mono<Product> updateStock(String franchiseId, String branchId, String productId, int newStock) {
+        return observation.observe("updateStock", productIds(franchiseId, branchId, productId),
+                delegate.updateStock(franchiseId, branchId, productId, newStock));
+    }
+
+    @Override
+    public Mono<Product> adjustStock(String franchiseId, String branchId, String productId, int delta) {
+        return observation.observe("adjustStock", productIds(franchiseId, branchId, productId),
+                delegate.adjustStock(franchiseId, branchId, productId, delta));
+    }
+
+    @Override
+    public Flux<StockUpdateResult> updateStocks(Flux<StockUpdate> updates) {
+        return observation.observe("updateStocks", KeyValues.empty(), delegate.updateStocks(updates));
+    }
+
+    @Override
+    public Flux<ProductWithBranch> findMaxStock(String franchiseId) {
+        return observation.observe("findMaxStock", KeyValues.of("franchise.id", franchiseId),
+                delegate.findMaxStock(franchiseId));
+    }
+
+    @Override
+    public Flux<ProductWithBranch> findTopStockProducts(String franchiseId, int k) {
+        return observation.observe("findTopStockProducts", KeyValues.of("franchise.id", franchiseId),
+                delegate.findTopStockProducts(franchiseId, k));
+    }
+
+    @Override
+    public Flux<ProductWithBranch> findLowStockProducts(String franchiseId, int below, int limit) {
+        return observation.observe("findLowStockProducts", KeyValues.of("franchise.id", franchiseId),
+                delegate.findLowStockProducts(franchiseId, below, limit));
+    }
+
+    @Override
+    public Mono<Franchise> updateFranchiseName(String franchiseId, String newName) {
+        return observation.observe("updateFranchiseName", KeyValues.of("franchise.id", franchiseId),
+                delegate.updateFranchiseName(franchiseId, newName));
+    }
+
+    @Override
+    public Mono<Branch> updateBranchName(String franchiseId, String branchId, String newName) {
+        return observation.observe("updateBranchName", KeyValues.of("franchise.id", franchiseId, "branch.id", branchId),
+                delegate.updateBranchName(franchiseId, branchId, newName));
+    }
+
+    @Override
+    public Mono<Product> updateProductName(String franchiseId, String branchId, String productId, String newName) {
+        return observation.observe("updateProductName", productIds(franchiseId, branchId, productId),
+                delegate.updateProductName(franchiseId, branchId, productId, newName));
+    }
+
+    @Override
+    public Flux<Franchise> listFranchises(String after, int limit) {
+        return observation.observe("listFranchises", KeyValues.empty(), delegate.listFranchises(after, limit));
+    }
+
+    @Override
+    public Flux<FranchiseSummary> listFranchiseSummaries(String after, int limit) {
+        return observation.observe("listFranchiseSummaries", KeyValues.empty(),
+                delegate.listFranchiseSummaries(after, limit));
+    }
+
+    @Override
+    public Flux<Franchise> streamFranchises(String after) {
+        return observation.observe("streamFranchises", KeyValues.empty(), delegate.streamFranchises(after));
+    }
+
+    @Override
+    public Flux<FranchiseSummary> streamFranchiseSummaries(String after) {
+        return observation.observe("streamFranchiseSummaries", KeyValues.empty(),
+                delegate.streamFranchiseSummaries(after));
+    }
+
+    private static KeyValues productIds(String franchiseId, String branchId, String productId) {
+        return KeyValues.of("franchise.id", franchiseId, "branch.id", branchId, "product.id", productId);
+    }
+}
@@ -0,0 +1,94 @@
+package com.gina.franquicias_api.infrastructure.metrics;
+
+import io.micrometer.common.KeyValues;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import io.micrometer.observation.contextpropagation.ObservationThreadLocalAccessor;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.context.ContextView;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Observa cada suscripción de un Mono o Flux como {@code name}: con los handlers de Spring Boot queda un
+ * timer etiquetado por método, resultado (success, error, cancelled) y error (clase de la excepción), y un
+ * span hijo de la observación que viaja en el contexto de Reactor (la del request HTTP o la del decorador
+ * exterior). Los ids van como atributos de alta cardinalidad: están en el span, nunca en las métricas.
+ * En un Mono la observación termina con el valor; en un Flux, con el último elemento.
+ */
+public class ReactiveObservation {
+    private final ObservationRegistry registry;
+    private final String name;
+
+    public ReactiveObservation(ObservationRegistry registry, String name) {
+        this.registry = registry;
+        this.name = name;
+    }
+
+    public <T> Mono<T> observe(String method, KeyValues ids, Mono<T> source) {
+        return Mono.deferContextual(context -> {
+            Stop stop = new Stop(start(method, ids, context));
+            return source
+                    .contextWrite(c -> c.put(ObservationThreadLocalAccessor.KEY, stop.observation))
+                    // un Mono puede cancelarse después de entregar su valor: cuenta como éxito
+                    .doOnSuccess(value -> stop.success())
+                    .doOnError(stop::error)
+                    .doOnCancel(stop::cancelled);
+        });
+    }
+
+    public <T> Flux<T> observe(String method, KeyValues ids, Flux<T> source) {
+        return Flux.deferContextual(context -> {
+            Stop stop = new Stop(start(method, ids, context));
+            return source
+                    .contextWrite(c -> c.put(ObservationThreadLocalAccessor.KEY, stop.observation))
+                    .doOnComplete(stop::success)
+                    .doOnError(stop::error)
+                    .doOnCancel(stop::cancelled);
+        });
+    }
+
+    private Observation start(String method, KeyValues ids, ContextView context) {
+        Observation parent = context.getOrDefault(ObservationThreadLocalAccessor.KEY, registry.getCurrentObservation());
+        return Observation.createNotStarted(name, registry)
+                .contextualName(name + " " + method)
+                .parentObservation(parent)
+                .lowCardinalityKeyValue("method", method)
+                .highCardinalityKeyValues(ids)
+                .start();
+    }
+
+    // cancelación y terminación pueden llegar a la vez desde hilos distintos: la primera gana
+    private static final class Stop {
+        private final Observation observation;
+        private final AtomicBoolean stopped = new AtomicBoolean();
+
+        Stop(Observation observation) {
+            this.observation = observation;
+        }
+
+        void success() {
+            if (stopped.compareAndSet(false, true)) {
+                finish("success");
+            }
+        }
+
+        void error(Throwable error) {
+            if (stopped.compareAndSet(false, true)) {
+                observation.error(error);
+                finish("error");
+            }
+        }
+
+        void cancelled() {
+            if (stopped.compareAndSet(false, true)) {
+                finish("cancelled");
+            }
+        }
+
+        private void finish(String outcome) {
+            observation.lowCardinalityKeyValue("outcome", outcome).stop();
+        }
+    }
+}
@@ -2,6 +2,8 @@ package com.gina.franquicias_api.presentation.web.advice;
 
 import com.gina.franquicias_api.domain.exception.BusinessException;
 import com.gina.franquicias_api.domain.exception.ResourceNotFoundException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.dao.TransientDataAccessResourceException;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
@@ -19,6 +21,16 @@ public class GlobalExceptionHandler {
         return ResponseEntity.status(400).body(ex.getMessage());
     }
 
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    public ResponseEntity<?> handleConflict(OptimisticLockingFailureException ex) {
+        return ResponseEntity.status(409).body("La franquicia fue modificada por otra operación, intente de nuevo");
+    }
+
+    @ExceptionHandler(TransientDataAccessResourceException.class)
+    public ResponseEntity<?> handleOverload(TransientDataAccessResourceException ex) {
+        return ResponseEntity.status(503).body(ex.getMessage());
+    }
+
     @ExceptionHandler(Exception.class)
     public ResponseEntity<?> handleGeneral(Exception ex) {
         return ResponseEntity.status(500).body("Error interno: " + ex.getMessage());
@@ -2,22 +2,34 @@ package com.gina.franquicias_api.presentation.web.controller;
 
 import com.gina.franquicias_api.application.dto.request.*;
 import com.gina.franquicias_api.application.dto.response.BranchResponseDto;
+import com.gina.franquicias_api.application.dto.response.FranchisePageResponseDto;
 import com.gina.franquicias_api.application.dto.response.FranchiseResponseDto;
+import com.gina.franquicias_api.application.dto.response.FranchiseSummaryResponseDto;
 import com.gina.franquicias_api.application.dto.response.ProductResponseDto;
 import com.gina.franquicias_api.application.dto.response.ProductWithBranchResponseDto;
+import com.gina.franquicias_api.application.dto.response.StockBatchItemResponseDto;
 import com.gina.franquicias_api.application.mapper.FranchiseDtoMapper;
+import com.gina.franquicias_api.domain.exception.BusinessException;
 import com.gina.franquicias_api.domain.port.in.FranchiseService;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.util.List;
+import java.util.function.Function;
+
 
 
 @RestController
 @RequestMapping("/api/franchises")
 public class FranchiseController {
+    private static final String FULL_VIEW = "full";
+    private static final String SUMMARY_VIEW = "summary";
+    private static final String STOCK_ORDER = "stock";
+
     private final FranchiseService svc;
     private final FranchiseDtoMapper mapper;
 
@@ -33,6 +45,36 @@ public class FranchiseController {
                 .map(f -> ResponseEntity.status(HttpStatus.CREATED).body(f));
     }
 
+    @GetMapping(produces = MediaType.APPLICATION_JSON_VALUE)
+    public Mono<FranchisePageResponseDto<?>> listFranchises(
+            @RequestParam(required = false) String after,
+            @RequestParam(defaultValue = "50") int limit,
+            @RequestParam(defaultValue = FULL_VIEW) String view) {
+
+        if (isSummaryView(view)) {
+            return svc.listFranchiseSummaries(after, limit)
+                    .map(mapper::toResponse)
+                    .collectList()
+                    .map(items -> page(items, limit, FranchiseSummaryResponseDto::getId));
+        }
+        return svc.listFranchises(after, limit)
+                .map(mapper::toResponse)
+                .collectList()
+                .map(items -> page(items, limit, FranchiseResponseDto::getId));
+    }
+
+    // NDJSON: emite cada franquicia apenas llega del cursor y al ritmo que el cliente consume
+    @GetMapping(produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<?> streamFranchises(
+            @RequestParam(required = false) String after,
+            @RequestParam(defaultValue = FULL_VIEW) String view) {
+
+        if (isSummaryView(view)) {
+            return svc.streamFranchiseSummaries(after).map(mapper::toResponse);
+        }
+        return svc.streamFranchises(after).map(mapper::toResponse);
+    }
+
     @PostMapping("/{franchiseId}/branches")
     public Mono<ResponseEntity<BranchResponseDto>> addBranch(
             @PathVariable String franchiseId,
@@ -77,6 +119,37 @@ public class FranchiseController {
                 .map(p -> ResponseEntity.ok().body(p));
     }
 
+    @PostMapping("/{franchiseId}/branches/{branchId}/products/{productId}/stock/adjustments")
+    public Mono<ResponseEntity<ProductResponseDto>> adjustStock(
+            @PathVariable String franchiseId,
+            @PathVariable String branchId,
+            @PathVariable String productId,
+            @RequestBody StockAdjustmentRequestDto request) {
+
+        return svc.adjustStock(franchiseId, branchId, productId, request.getDelta())
+                .map(mapper::toResponse)
+                .map(p -> ResponseEntity.ok().body(p));
+    }
+
+    @PostMapping(value = "/{franchiseId}/stock:batch",
+            consumes = MediaType.APPLICATION_NDJSON_VALUE, produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<StockBatchItemResponseDto> updateStockBatch(
+            @PathVariable String franchiseId,
+            @RequestBody Flux<StockBatchItemRequestDto> items) {
+
+        return svc.updateStocks(items.map(item -> mapper.toStockUpdate(item, franchiseId)))
+                .map(mapper::toResponse);
+    }
+
+    @PostMapping(value = "/stock:batch",
+            consumes = MediaType.APPLICATION_NDJSON_VALUE, produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<StockBatchItemResponseDto> updateStockBatchAcrossFranchises(
+            @RequestBody Flux<StockBatchItemRequestDto> items) {
+
+        return svc.updateStocks(items.map(item -> mapper.toStockUpdate(item, item.getFranchiseId())))
+                .map(mapper::toResponse);
+    }
+
     @GetMapping("/{franchiseId}/max-stock")
     public Flux<ProductWithBranchResponseDto> getMaxStockPerBranch(
             @PathVariable String franchiseId) {
@@ -85,6 +158,29 @@ public class FranchiseController {
                 .map(mapper::toResponse);
     }
 
+    @GetMapping("/{franchiseId}/products/top")
+    public Flux<ProductWithBranchResponseDto> getTopProducts(
+            @PathVariable String franchiseId,
+            @RequestParam(defaultValue = "10") int k,
+            @RequestParam(defaultValue = STOCK_ORDER) String by) {
+
+        if (!STOCK_ORDER.equals(by)) {
+            throw new BusinessException("Criterio de orden no soportado: " + by);
+        }
+        return svc.findTopStockProducts(franchiseId, k)
+                .map(mapper::toResponse);
+    }
+
+    @GetMapping("/{franchiseId}/products/low-stock")
+    public Flux<ProductWithBranchResponseDto> getLowStockProducts(
+            @PathVariable String franchiseId,
+            @RequestParam int below,
+            @RequestParam(defaultValue = "50") int limit) {
+
+        return svc.findLowStockProducts(franchiseId, below, limit)
+                .map(mapper::toResponse);
+    }
+
     @PatchMapping("/{franchiseId}")
     public Mono<ResponseEntity<FranchiseResponseDto>> renameFranchise(
             @PathVariable String franchiseId,
@@ -118,6 +214,19 @@ public class FranchiseController {
                 .map(ResponseEntity::ok);
     }
 
+    private static boolean isSummaryView(String view) {
+        if (!SUMMARY_VIEW.equals(view) && !FULL_VIEW.equals(view)) {
+            throw new BusinessException("Vista no soportada: " + view);
+        }
+        return SUMMARY_VIEW.equals(view);
+    }
+
+    // página completa: puede haber más elementos después del último id
+    private static <T> FranchisePageResponseDto<?> page(List<T> items, int limit, Function<T, String> id) {
+        String nextCursor = items.size() == limit ? id.apply(items.get(items.size() - 1)) : null;
+        return new FranchisePageResponseDto<>(items, nextCursor);
+    }
+
 
 
 }
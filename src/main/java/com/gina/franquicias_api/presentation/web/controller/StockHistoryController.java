@@ -0,0 +1,46 @@
+package com.gina.franquicias_api.presentation.web.controller;
+
+import com.gina.franquicias_api.application.dto.response.StockAtResponseDto;
+import com.gina.franquicias_api.application.mapper.FranchiseDtoMapper;
+import com.gina.franquicias_api.domain.exception.BusinessException;
+import com.gina.franquicias_api.domain.port.in.StockHistoryService;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Mono;
+
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+
+// stock de un producto en un instante pasado, reconstruido desde el historial
+@RestController
+@RequestMapping("/api/franchises")
+@ConditionalOnProperty(name = "franchises.stock.ledger.enabled", havingValue = "true")
+public class StockHistoryController {
+    private final StockHistoryService svc;
+    private final FranchiseDtoMapper mapper;
+
+    public StockHistoryController(StockHistoryService svc, FranchiseDtoMapper mapper) {
+        this.svc = svc;
+        this.mapper = mapper;
+    }
+
+    @GetMapping("/{franchiseId}/branches/{branchId}/products/{productId}/stock")
+    public Mono<StockAtResponseDto> stockAt(
+            @PathVariable String franchiseId,
+            @PathVariable String branchId,
+            @PathVariable String productId,
+            @RequestParam String at) {
+
+        Instant instant = parseInstant(at);
+        return svc.stockAt(franchiseId, branchId, productId, instant)
+                .map(event -> mapper.toResponse(event, instant));
+    }
+
+    private static Instant parseInstant(String at) {
+        try {
+            return Instant.parse(at);
+        } catch (DateTimeParseException e) {
+            throw new BusinessException("at debe ser un instante ISO-8601, p. ej. 2026-01-31T12:00:00Z");
+        }
+    }
+}
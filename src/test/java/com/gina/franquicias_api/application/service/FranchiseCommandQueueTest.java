@@ -0,0 +1,88 @@
+package com.gina.franquicias_api.application.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FranchiseCommandQueueTest {
+
+    private FranchiseCommandQueue queue;
+    // comandos arrancados, en orden
+    private final List<String> started = new CopyOnWriteArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        queue = new FranchiseCommandQueue(new SimpleMeterRegistry(), 100);
+    }
+
+    // comando que anota cuándo arranca y termina cuando se emite en su sink
+    private Mono<String> command(String name, Sinks.One<String> done) {
+        return Mono.defer(() -> {
+            started.add(name);
+            return done.asMono();
+        });
+    }
+
+    @Test
+    void submit_shouldRunCommandsOfTheSameKeyOneAtATimeInArrivalOrder() {
+        Sinks.One<String> first = Sinks.one();
+        Sinks.One<String> second = Sinks.one();
+        Sinks.One<String> third = Sinks.one();
+        List<String> results = new CopyOnWriteArrayList<>();
+
+        queue.submit("op", "f1", command("first", first)).subscribe(results::add);
+        queue.submit("op", "f1", command("second", second)).subscribe(results::add);
+        queue.submit("op", "f1", command("third", third)).subscribe(results::add);
+        assertEquals(List.of("first"), started);
+        assertEquals(3, queue.deepest(10).get(0).depth());
+
+        first.tryEmitValue("1");
+        assertEquals(List.of("first", "second"), started);
+        second.tryEmitValue("2");
+        third.tryEmitValue("3");
+
+        assertEquals(List.of("first", "second", "third"), started);
+        assertEquals(List.of("1", "2", "3"), results);
+        assertTrue(queue.deepest(10).isEmpty());
+    }
+
+    @Test
+    void submit_shouldNotMakeDifferentKeysWait() {
+        Sinks.One<String> f1 = Sinks.one();
+        Sinks.One<String> f2 = Sinks.one();
+
+        queue.submit("op", "f1", command("f1", f1)).subscribe();
+        queue.submit("op", "f2", command("f2", f2)).subscribe();
+
+        // las dos arrancan aunque ninguna terminó
+        assertEquals(List.of("f1", "f2"), started);
+        assertEquals(2, queue.deepest(10).size());
+    }
+
+    @Test
+    void submit_shouldRunTheNextCommand_whenThePreviousOneFails() {
+        Sinks.One<String> failing = Sinks.one();
+        Sinks.One<String> next = Sinks.one();
+
+        Mono<String> failed = queue.submit("op", "f1", command("failing", failing)).cache();
+        failed.subscribe(v -> { }, e -> { });
+        Mono<String> after = queue.submit("op", "f1", command("next", next)).cache();
+        after.subscribe();
+
+        failing.tryEmitError(new IllegalStateException("boom"));
+        next.tryEmitValue("ok");
+
+        StepVerifier.create(failed).expectErrorMessage("boom").verify();
+        StepVerifier.create(after).expectNext("ok").verifyComplete();
+        assertEquals(List.of("failing", "next"), started);
+    }
+}
@@ -3,36 +3,48 @@ package com.gina.franquicias_api.application.service;
 import com.gina.franquicias_api.domain.exception.BusinessException;
 import com.gina.franquicias_api.domain.model.Branch;
 import com.gina.franquicias_api.domain.model.Franchise;
+import com.gina.franquicias_api.domain.model.FranchiseSummary;
 import com.gina.franquicias_api.domain.model.Product;
+import com.gina.franquicias_api.domain.model.ProductWithBranch;
+import com.gina.franquicias_api.domain.model.StockUpdate;
+import com.gina.franquicias_api.domain.model.StockUpdateResult;
 import com.gina.franquicias_api.domain.port.out.FranchiseRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
+import org.springframework.dao.OptimisticLockingFailureException;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import reactor.test.StepVerifier;
 
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 class FranchiseServiceImplTest {
 
     private FranchiseRepository franchiseRepository;
     private FranchiseServiceImpl franchiseService;
+    private SimpleMeterRegistry meterRegistry;
 
     @BeforeEach
     void setUp() {
         franchiseRepository = Mockito.mock(FranchiseRepository.class);
-        franchiseService = new FranchiseServiceImpl(franchiseRepository);
+        meterRegistry = new SimpleMeterRegistry();
+        OptimisticLockRetry retry = new OptimisticLockRetry(meterRegistry, 3, Duration.ofMillis(1), Duration.ofMillis(5));
+        franchiseService = new FranchiseServiceImpl(franchiseRepository, retry);
     }
 
     @Test
     void createFranchise_shouldCreateFranchise_whenNameIsUnique() {
         // Arrange: no hay franquicias con el mismo nombre
-        Mockito.when(franchiseRepository.findAll())
-                .thenReturn(Flux.empty());
+        Mockito.when(franchiseRepository.existsByNameIgnoreCase("NuevaFranquicia", null))
+                .thenReturn(Mono.just(false));
 
         Mockito.when(franchiseRepository.save(any(Franchise.class)))
                 .thenAnswer(invocation -> {
@@ -48,16 +60,16 @@ class FranchiseServiceImplTest {
                 )
                 .verifyComplete();
 
-        // Verify: que se llamó a save()
+        // Verify: que se llamó a save() sin recorrer toda la colección
         Mockito.verify(franchiseRepository).save(any(Franchise.class));
+        Mockito.verify(franchiseRepository, Mockito.never()).findAll();
     }
 
     @Test
     void createFranchise_shouldFail_whenNameAlreadyExists() {
         // Arrange: ya existe franquicia con el mismo nombre
-        Franchise existing = new Franchise("1", "Duplicada", Collections.emptyList());
-        Mockito.when(franchiseRepository.findAll())
-                .thenReturn(Flux.just(existing));
+        Mockito.when(franchiseRepository.existsByNameIgnoreCase("Duplicada", null))
+                .thenReturn(Mono.just(true));
 
         // Act & Assert: lanzar error por nombre duplicado
         StepVerifier.create(franchiseService.createFranchise("Duplicada"))
@@ -71,10 +83,10 @@ class FranchiseServiceImplTest {
     void addBranch_shouldAddBranch_whenBranchNameIsUnique() {
         // Arrange: franquicia existente sin sucursales con el mismo nombre
         Franchise existingFranchise = new Franchise("1", "FranquiciaExistente", new ArrayList<>());
-        Mockito.when(franchiseRepository.findById("1"))
+        Mockito.when(franchiseRepository.findBranchNames("1"))
                 .thenReturn(Mono.just(existingFranchise));
-        Mockito.when(franchiseRepository.save(any(Franchise.class)))
-                .thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
+        Mockito.when(franchiseRepository.insertBranch(any(Franchise.class), any(Branch.class)))
+                .thenReturn(Mono.empty());
 
         // Act & Assert
         StepVerifier.create(franchiseService.addBranch("1", "NuevaSucursal"))
@@ -83,7 +95,7 @@ class FranchiseServiceImplTest {
                                 branch.getProducts().isEmpty())
                 .verifyComplete();
 
-        Mockito.verify(franchiseRepository).save(any(Franchise.class));
+        Mockito.verify(franchiseRepository).insertBranch(any(Franchise.class), any(Branch.class));
     }
 
     @Test
@@ -91,7 +103,7 @@ class FranchiseServiceImplTest {
         // Arrange: franquicia con una sucursal que ya tiene el mismo nombre
         Branch existingBranch = new Branch("b1", "SucursalDuplicada", new ArrayList<>());
         Franchise existingFranchise = new Franchise("1", "FranquiciaExistente", new ArrayList<>(Collections.singletonList(existingBranch)));
-        Mockito.when(franchiseRepository.findById("1"))
+        Mockito.when(franchiseRepository.findBranchNames("1"))
                 .thenReturn(Mono.just(existingFranchise));
 
         // Act & Assert
@@ -108,10 +120,10 @@ class FranchiseServiceImplTest {
         Branch existingBranch = new Branch("b1", "Sucursal", new ArrayList<>());
         Franchise existingFranchise = new Franchise("1", "Franquicia", new ArrayList<>(Collections.singletonList(existingBranch)));
 
-        Mockito.when(franchiseRepository.findById("1"))
+        Mockito.when(franchiseRepository.findBranch("1", "b1"))
                 .thenReturn(Mono.just(existingFranchise));
-        Mockito.when(franchiseRepository.save(any(Franchise.class)))
-                .thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
+        Mockito.when(franchiseRepository.saveBranch(any(Franchise.class), any(Branch.class)))
+                .thenReturn(Mono.empty());
 
         // Act & Assert
         StepVerifier.create(franchiseService.addProduct("1", "b1", "ProductoNuevo", 10))
@@ -120,7 +132,48 @@ class FranchiseServiceImplTest {
                                 product.getStock() == 10)
                 .verifyComplete();
 
-        Mockito.verify(franchiseRepository).save(any(Franchise.class));
+        // Verify: solo se lee y reescribe la sucursal afectada
+        Mockito.verify(franchiseRepository, Mockito.never()).findById(any());
+        Mockito.verify(franchiseRepository).saveBranch(any(Franchise.class), any(Branch.class));
+    }
+
+    @Test
+    void addProduct_shouldRetryWithFreshRead_whenVersionConflicts() {
+        // Arrange: cada lectura devuelve una copia nueva, como haría la base de datos
+        Mockito.when(franchiseRepository.findBranch("1", "b1"))
+                .thenAnswer(invocation -> Mono.just(new Franchise("1", "Franquicia",
+                        new ArrayList<>(List.of(new Branch("b1", "Sucursal", new ArrayList<>()))), 3L)));
+        Mockito.when(franchiseRepository.saveBranch(any(Franchise.class), any(Branch.class)))
+                .thenReturn(Mono.error(new OptimisticLockingFailureException("versión obsoleta")))
+                .thenReturn(Mono.empty());
+
+        // Act & Assert: el segundo intento vuelve a leer y guarda sin detectar duplicado
+        StepVerifier.create(franchiseService.addProduct("1", "b1", "ProductoNuevo", 10))
+                .expectNextMatches(product -> product.getName().equals("ProductoNuevo"))
+                .verifyComplete();
+
+        Mockito.verify(franchiseRepository, Mockito.times(2)).findBranch("1", "b1");
+        Mockito.verify(franchiseRepository, Mockito.times(2)).saveBranch(any(Franchise.class), any(Branch.class));
+        assertEquals(1.0,
+                meterRegistry.counter("franchise.write.retries", "operation", "addProduct").count());
+    }
+
+    @Test
+    void addBranch_shouldPropagateConflict_whenRetriesAreExhausted() {
+        // Arrange: todos los guardados chocan con otro escritor
+        Mockito.when(franchiseRepository.findBranchNames("1"))
+                .thenAnswer(invocation -> Mono.just(new Franchise("1", "Franquicia", new ArrayList<>(), 3L)));
+        Mockito.when(franchiseRepository.insertBranch(any(Franchise.class), any(Branch.class)))
+                .thenReturn(Mono.error(new OptimisticLockingFailureException("versión obsoleta")));
+
+        // Act & Assert
+        StepVerifier.create(franchiseService.addBranch("1", "NuevaSucursal"))
+                .expectError(OptimisticLockingFailureException.class)
+                .verify();
+
+        Mockito.verify(franchiseRepository, Mockito.times(4)).insertBranch(any(Franchise.class), any(Branch.class));
+        assertEquals(1.0,
+                meterRegistry.counter("franchise.write.retries.exhausted", "operation", "addBranch").count());
     }
 
     @Test
@@ -130,7 +183,7 @@ class FranchiseServiceImplTest {
         Branch existingBranch = new Branch("b1", "Sucursal", new ArrayList<>(Collections.singletonList(existingProduct)));
         Franchise existingFranchise = new Franchise("1", "Franquicia", new ArrayList<>(Collections.singletonList(existingBranch)));
 
-        Mockito.when(franchiseRepository.findById("1"))
+        Mockito.when(franchiseRepository.findBranch("1", "b1"))
                 .thenReturn(Mono.just(existingFranchise));
 
         // Act & Assert
@@ -148,10 +201,10 @@ class FranchiseServiceImplTest {
         Branch existingBranch = new Branch("b1", "Sucursal", new ArrayList<>(Collections.singletonList(existingProduct)));
         Franchise existingFranchise = new Franchise("1", "Franquicia", new ArrayList<>(Collections.singletonList(existingBranch)));
 
-        Mockito.when(franchiseRepository.findById("1"))
+        Mockito.when(franchiseRepository.findBranch("1", "b1"))
                 .thenReturn(Mono.just(existingFranchise));
-        Mockito.when(franchiseRepository.save(any(Franchise.class)))
-                .thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
+        Mockito.when(franchiseRepository.saveBranch(any(Franchise.class), any(Branch.class)))
+                .thenReturn(Mono.empty());
 
         // Act & Assert
         StepVerifier.create(franchiseService.removeProduct("1", "b1", "p1"))
@@ -160,7 +213,7 @@ class FranchiseServiceImplTest {
                                 branch.getName().equals("Sucursal"))
                 .verifyComplete();
 
-        Mockito.verify(franchiseRepository).save(any(Franchise.class));
+        Mockito.verify(franchiseRepository).saveBranch(any(Franchise.class), any(Branch.class));
     }
 
 
@@ -170,7 +223,7 @@ class FranchiseServiceImplTest {
         Branch existingBranch = new Branch("b1", "Sucursal", new ArrayList<>());
         Franchise existingFranchise = new Franchise("1", "Franquicia", new ArrayList<>(Collections.singletonList(existingBranch)));
 
-        Mockito.when(franchiseRepository.findById("1"))
+        Mockito.when(franchiseRepository.findBranch("1", "b1"))
                 .thenReturn(Mono.just(existingFranchise));
 
         // Act & Assert
@@ -183,15 +236,9 @@ class FranchiseServiceImplTest {
 
     @Test
     void updateStock_shouldUpdateStock_whenProductExists() {
-        // Arrange: franquicia con sucursal y producto existente
-        Product existingProduct = new Product("p1", "ProductoStock", 5);
-        Branch existingBranch = new Branch("b1", "Sucursal", new ArrayList<>(Collections.singletonList(existingProduct)));
-        Franchise existingFranchise = new Franchise("1", "Franquicia", new ArrayList<>(Collections.singletonList(existingBranch)));
-
-        Mockito.when(franchiseRepository.findById("1"))
-                .thenReturn(Mono.just(existingFranchise));
-        Mockito.when(franchiseRepository.save(any(Franchise.class)))
-                .thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
+        // Arrange: el repositorio actualiza el stock en el propio documento
+        Mockito.when(franchiseRepository.updateProductStock("1", "b1", "p1", 50))
+                .thenReturn(Mono.just(new Product("p1", "ProductoStock", 50)));
 
         // Act & Assert
         StepVerifier.create(franchiseService.updateStock("1", "b1", "p1", 50))
@@ -200,7 +247,9 @@ class FranchiseServiceImplTest {
                                 product.getStock() == 50)
                 .verifyComplete();
 
-        Mockito.verify(franchiseRepository).save(any(Franchise.class));
+        // Verify: no se lee ni se reescribe la franquicia completa
+        Mockito.verify(franchiseRepository, Mockito.never()).findById(any());
+        Mockito.verify(franchiseRepository, Mockito.never()).save(any(Franchise.class));
     }
 
     @Test
@@ -209,7 +258,9 @@ class FranchiseServiceImplTest {
         Branch existingBranch = new Branch("b1", "Sucursal", new ArrayList<>());
         Franchise existingFranchise = new Franchise("1", "Franquicia", new ArrayList<>(Collections.singletonList(existingBranch)));
 
-        Mockito.when(franchiseRepository.findById("1"))
+        Mockito.when(franchiseRepository.updateProductStock("1", "b1", "pInexistente", 50))
+                .thenReturn(Mono.empty());
+        Mockito.when(franchiseRepository.findBranch("1", "b1"))
                 .thenReturn(Mono.just(existingFranchise));
 
         // Act & Assert
@@ -220,30 +271,169 @@ class FranchiseServiceImplTest {
                 .verify();
     }
 
+    @Test
+    void updateStock_shouldFail_whenBranchDoesNotExist() {
+        // Arrange: franquicia sin la sucursal indicada
+        Franchise existingFranchise = new Franchise("1", "Franquicia", new ArrayList<>());
+
+        Mockito.when(franchiseRepository.updateProductStock("1", "bInexistente", "p1", 50))
+                .thenReturn(Mono.empty());
+        Mockito.when(franchiseRepository.findBranch("1", "bInexistente"))
+                .thenReturn(Mono.just(existingFranchise));
+
+        // Act & Assert
+        StepVerifier.create(franchiseService.updateStock("1", "bInexistente", "p1", 50))
+                .expectErrorMatches(throwable ->
+                        throwable instanceof com.gina.franquicias_api.domain.exception.ResourceNotFoundException &&
+                                throwable.getMessage().equals("Sucursal no encontrada"))
+                .verify();
+    }
+
+    @Test
+    void adjustStock_shouldApplyDelta_whenStockIsEnough() {
+        // Arrange: el repositorio aplica el $inc y devuelve el producto actualizado
+        Mockito.when(franchiseRepository.adjustProductStock("1", "b1", "p1", -3))
+                .thenReturn(Mono.just(new Product("p1", "ProductoStock", 7)));
+
+        // Act & Assert
+        StepVerifier.create(franchiseService.adjustStock("1", "b1", "p1", -3))
+                .expectNextMatches(product -> product.getId().equals("p1") && product.getStock() == 7)
+                .verifyComplete();
+
+        Mockito.verify(franchiseRepository, Mockito.never()).save(any(Franchise.class));
+    }
+
+    @Test
+    void adjustStock_shouldFail_whenStockWouldBeNegative() {
+        // Arrange: el producto existe pero la guarda del repositorio rechaza el ajuste
+        Product existingProduct = new Product("p1", "ProductoStock", 2);
+        Branch existingBranch = new Branch("b1", "Sucursal", new ArrayList<>(List.of(existingProduct)));
+        Franchise existingFranchise = new Franchise("1", "Franquicia", new ArrayList<>(List.of(existingBranch)));
+
+        Mockito.when(franchiseRepository.adjustProductStock("1", "b1", "p1", -3))
+                .thenReturn(Mono.empty());
+        Mockito.when(franchiseRepository.findBranch("1", "b1"))
+                .thenReturn(Mono.just(existingFranchise));
+
+        // Act & Assert
+        StepVerifier.create(franchiseService.adjustStock("1", "b1", "p1", -3))
+                .expectErrorMatches(ex -> ex instanceof BusinessException &&
+                        ex.getMessage().equals("Stock insuficiente para el ajuste solicitado"))
+                .verify();
+    }
+
+    @Test
+    void adjustStock_shouldFail_whenDeltaIsZero() {
+        // Act & Assert
+        StepVerifier.create(franchiseService.adjustStock("1", "b1", "p1", 0))
+                .expectErrorMatches(ex -> ex instanceof BusinessException &&
+                        ex.getMessage().equals("El ajuste de stock debe ser distinto de cero"))
+                .verify();
+
+        Mockito.verifyNoInteractions(franchiseRepository);
+    }
+
+    @Test
+    void adjustStock_shouldFail_whenDeltaIsTooLarge() {
+        // Act & Assert: un delta sin tope haría que la suma desbordara int32 en Mongo
+        StepVerifier.create(franchiseService.adjustStock("1", "b1", "p1", Integer.MAX_VALUE))
+                .expectErrorMatches(ex -> ex instanceof BusinessException &&
+                        ex.getMessage().equals("El ajuste de stock no puede superar 1000000 unidades"))
+                .verify();
+        StepVerifier.create(franchiseService.adjustStock("1", "b1", "p1", Integer.MIN_VALUE))
+                .expectError(BusinessException.class)
+                .verify();
+
+        Mockito.verifyNoInteractions(franchiseRepository);
+    }
+
+    @Test
+    void adjustStock_shouldFail_whenStockWouldExceedTheMaximum() {
+        // Arrange: la guarda del repositorio rechaza el ajuste porque el stock no entraría en un int
+        Product existingProduct = new Product("p1", "ProductoStock", Integer.MAX_VALUE - 10);
+        Branch existingBranch = new Branch("b1", "Sucursal", new ArrayList<>(List.of(existingProduct)));
+        Franchise existingFranchise = new Franchise("1", "Franquicia", new ArrayList<>(List.of(existingBranch)));
+
+        Mockito.when(franchiseRepository.adjustProductStock("1", "b1", "p1", 1_000_000))
+                .thenReturn(Mono.empty());
+        Mockito.when(franchiseRepository.findBranch("1", "b1"))
+                .thenReturn(Mono.just(existingFranchise));
+
+        // Act & Assert
+        StepVerifier.create(franchiseService.adjustStock("1", "b1", "p1", 1_000_000))
+                .expectErrorMatches(ex -> ex instanceof BusinessException &&
+                        ex.getMessage().equals("El ajuste supera el stock máximo permitido"))
+                .verify();
+    }
+
+    @Test
+    void updateStocks_shouldGroupUpdatesByFranchise() {
+        // Arrange: un lote con dos franquicias y un elemento incompleto
+        StockUpdate a1 = new StockUpdate("1", "b1", "p1", 10);
+        StockUpdate b1 = new StockUpdate("2", "b9", "p9", 3);
+        StockUpdate a2 = new StockUpdate("1", "b1", "p2", 20);
+        StockUpdate incomplete = new StockUpdate("1", null, "p3", 5);
+
+        Mockito.when(franchiseRepository.updateProductStocks(Mockito.eq("1"), any()))
+                .thenAnswer(invocation -> Flux.fromIterable(invocation.<List<StockUpdate>>getArgument(1))
+                        .map(u -> StockUpdateResult.updated(u, "Producto " + u.getProductId())));
+        Mockito.when(franchiseRepository.updateProductStocks(Mockito.eq("2"), any()))
+                .thenAnswer(invocation -> Flux.fromIterable(invocation.<List<StockUpdate>>getArgument(1))
+                        .map(u -> new StockUpdateResult(u, StockUpdateResult.Status.NOT_FOUND, "Producto no encontrado")));
+
+        // Act & Assert
+        StepVerifier.create(franchiseService.updateStocks(Flux.just(a1, b1, a2, incomplete)).collectList())
+                .expectNextMatches(results -> results.size() == 4
+                        && results.stream().filter(r -> r.getStatus() == StockUpdateResult.Status.UPDATED).count() == 2
+                        && results.stream().anyMatch(r -> r.getUpdate() == b1 && r.getStatus() == StockUpdateResult.Status.NOT_FOUND)
+                        && results.stream().anyMatch(r -> r.getUpdate() == incomplete && r.getStatus() == StockUpdateResult.Status.FAILED))
+                .verifyComplete();
+
+        // Verify: una escritura masiva por franquicia, no una por producto
+        Mockito.verify(franchiseRepository).updateProductStocks("1", List.of(a1, a2));
+        Mockito.verify(franchiseRepository).updateProductStocks("2", List.of(b1));
+        Mockito.verify(franchiseRepository, Mockito.never()).updateProductStock(any(), any(), any(), Mockito.anyInt());
+    }
+
     @Test
     void findMaxStock_shouldReturnMaxProductPerBranch() {
-        // Arrange: franquicia con dos sucursales con productos
+        // Arrange: el repositorio ya devuelve un producto por sucursal
         Product p1 = new Product("p1", "Producto1", 10);
         Product p2 = new Product("p2", "Producto2", 5);
-        Branch branch1 = new Branch("b1", "Sucursal1", new ArrayList<>(Collections.singletonList(p1)));
-        Branch branch2 = new Branch("b2", "Sucursal2", new ArrayList<>(Collections.singletonList(p2)));
-        Franchise existingFranchise = new Franchise("1", "Franquicia", new ArrayList<>(List.of(branch1, branch2)));
-
-        Mockito.when(franchiseRepository.findById("1"))
-                .thenReturn(Mono.just(existingFranchise));
+        Mockito.when(franchiseRepository.findMaxStockPerBranch("1"))
+                .thenReturn(Flux.just(new ProductWithBranch("Sucursal1", p1), new ProductWithBranch("Sucursal2", p2)));
 
         // Act & Assert
         StepVerifier.create(franchiseService.findMaxStock("1"))
                 .expectNextMatches(pwb -> pwb.getBranchName().equals("Sucursal1") && pwb.getProduct() != null && pwb.getProduct().getId().equals("p1"))
                 .expectNextMatches(pwb -> pwb.getBranchName().equals("Sucursal2") && pwb.getProduct() != null && pwb.getProduct().getId().equals("p2"))
                 .verifyComplete();
+
+        // Verify: no se trae el documento completo
+        Mockito.verify(franchiseRepository, Mockito.never()).findById(any());
+        Mockito.verify(franchiseRepository, Mockito.never()).existsById(any());
+    }
+
+    @Test
+    void findMaxStock_shouldReturnEmpty_whenFranchiseHasNoBranches() {
+        // Arrange
+        Mockito.when(franchiseRepository.findMaxStockPerBranch("1"))
+                .thenReturn(Flux.empty());
+        Mockito.when(franchiseRepository.existsById("1"))
+                .thenReturn(Mono.just(true));
+
+        // Act & Assert
+        StepVerifier.create(franchiseService.findMaxStock("1"))
+                .verifyComplete();
     }
 
     @Test
     void findMaxStock_shouldFail_whenFranchiseDoesNotExist() {
         // Arrange: franquicia inexistente
-        Mockito.when(franchiseRepository.findById("1"))
-                .thenReturn(Mono.empty());
+        Mockito.when(franchiseRepository.findMaxStockPerBranch("1"))
+                .thenReturn(Flux.empty());
+        Mockito.when(franchiseRepository.existsById("1"))
+                .thenReturn(Mono.just(false));
 
         // Act & Assert
         StepVerifier.create(franchiseService.findMaxStock("1"))
@@ -253,14 +443,57 @@ class FranchiseServiceImplTest {
                 .verify();
     }
 
+    @Test
+    void findTopStockProducts_shouldReturnRankingFromRepository() {
+        // Arrange
+        Product p1 = new Product("p1", "Producto1", 90);
+        Product p2 = new Product("p2", "Producto2", 80);
+        Mockito.when(franchiseRepository.findTopStockProducts("1", 2))
+                .thenReturn(Flux.just(new ProductWithBranch("Sucursal1", p1), new ProductWithBranch("Sucursal2", p2)));
+
+        // Act & Assert
+        StepVerifier.create(franchiseService.findTopStockProducts("1", 2))
+                .expectNextMatches(pwb -> pwb.getProduct().getId().equals("p1"))
+                .expectNextMatches(pwb -> pwb.getProduct().getId().equals("p2"))
+                .verifyComplete();
+
+        Mockito.verify(franchiseRepository, Mockito.never()).existsById(any());
+    }
+
+    @Test
+    void findLowStockProducts_shouldFail_whenFranchiseDoesNotExist() {
+        // Arrange
+        Mockito.when(franchiseRepository.findLowStockProducts("1", 5, 50))
+                .thenReturn(Flux.empty());
+        Mockito.when(franchiseRepository.existsById("1"))
+                .thenReturn(Mono.just(false));
+
+        // Act & Assert
+        StepVerifier.create(franchiseService.findLowStockProducts("1", 5, 50))
+                .expectErrorMatches(throwable ->
+                        throwable instanceof com.gina.franquicias_api.domain.exception.ResourceNotFoundException &&
+                                throwable.getMessage().equals("Franquicia no encontrada"))
+                .verify();
+    }
+
+    @Test
+    void findLowStockProducts_shouldFail_whenLimitIsOutOfRange() {
+        // Act & Assert
+        StepVerifier.create(franchiseService.findLowStockProducts("1", 5, 0))
+                .expectError(BusinessException.class)
+                .verify();
+
+        Mockito.verifyNoInteractions(franchiseRepository);
+    }
+
     @Test
     void updateFranchiseName_shouldUpdateName_whenNewNameIsUnique() {
         // Arrange: franquicia existente con nombre distinto
         Franchise existing = new Franchise("1", "FranquiciaVieja", new ArrayList<>());
         Mockito.when(franchiseRepository.findById("1"))
                 .thenReturn(Mono.just(existing));
-        Mockito.when(franchiseRepository.findAll())
-                .thenReturn(Flux.just(existing)); // No hay otra con el mismo nombre
+        Mockito.when(franchiseRepository.existsByNameIgnoreCase("FranquiciaNueva", "1"))
+                .thenReturn(Mono.just(false)); // No hay otra con el mismo nombre
         Mockito.when(franchiseRepository.save(any(Franchise.class)))
                 .thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
 
@@ -276,11 +509,10 @@ class FranchiseServiceImplTest {
     void updateFranchiseName_shouldFail_whenNewNameAlreadyExists() {
         // Arrange: dos franquicias, una con el nombre que queremos usar
         Franchise existing = new Franchise("1", "FranquiciaVieja", new ArrayList<>());
-        Franchise other = new Franchise("2", "Duplicada", new ArrayList<>());
         Mockito.when(franchiseRepository.findById("1"))
                 .thenReturn(Mono.just(existing));
-        Mockito.when(franchiseRepository.findAll())
-                .thenReturn(Flux.just(existing, other));
+        Mockito.when(franchiseRepository.existsByNameIgnoreCase("Duplicada", "1"))
+                .thenReturn(Mono.just(true));
 
         // Act & Assert
         StepVerifier.create(franchiseService.updateFranchiseName("1", "Duplicada"))
@@ -295,17 +527,17 @@ class FranchiseServiceImplTest {
         Branch branch = new Branch("b1", "SucursalVieja", new ArrayList<>());
         Franchise franchise = new Franchise("1", "Franquicia", new ArrayList<>(List.of(branch)));
 
-        Mockito.when(franchiseRepository.findById("1"))
+        Mockito.when(franchiseRepository.findBranchNames("1"))
                 .thenReturn(Mono.just(franchise));
-        Mockito.when(franchiseRepository.save(any(Franchise.class)))
-                .thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
+        Mockito.when(franchiseRepository.renameBranch(any(Franchise.class), eq("b1"), eq("SucursalNueva")))
+                .thenReturn(Mono.just(new Branch("b1", "SucursalNueva", new ArrayList<>())));
 
         // Act & Assert
         StepVerifier.create(franchiseService.updateBranchName("1", "b1", "SucursalNueva"))
                 .expectNextMatches(b -> b.getName().equals("SucursalNueva"))
                 .verifyComplete();
 
-        Mockito.verify(franchiseRepository).save(any(Franchise.class));
+        Mockito.verify(franchiseRepository).renameBranch(any(Franchise.class), eq("b1"), eq("SucursalNueva"));
     }
 
 
@@ -316,7 +548,7 @@ class FranchiseServiceImplTest {
         Branch branch2 = new Branch("b2", "SucursalDuplicada", new ArrayList<>());
         Franchise franchise = new Franchise("1", "Franquicia", new ArrayList<>(List.of(branch1, branch2)));
 
-        Mockito.when(franchiseRepository.findById("1"))
+        Mockito.when(franchiseRepository.findBranchNames("1"))
                 .thenReturn(Mono.just(franchise));
 
         // Act & Assert
@@ -333,17 +565,17 @@ class FranchiseServiceImplTest {
         Branch branch = new Branch("b1", "Sucursal", new ArrayList<>(List.of(product)));
         Franchise franchise = new Franchise("1", "Franquicia", new ArrayList<>(List.of(branch)));
 
-        Mockito.when(franchiseRepository.findById("1"))
+        Mockito.when(franchiseRepository.findBranch("1", "b1"))
                 .thenReturn(Mono.just(franchise));
-        Mockito.when(franchiseRepository.save(any(Franchise.class)))
-                .thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
+        Mockito.when(franchiseRepository.saveBranch(any(Franchise.class), any(Branch.class)))
+                .thenReturn(Mono.empty());
 
         // Act & Assert
         StepVerifier.create(franchiseService.updateProductName("1", "b1", "p1", "ProductoNuevo"))
                 .expectNextMatches(p -> p.getName().equals("ProductoNuevo"))
                 .verifyComplete();
 
-        Mockito.verify(franchiseRepository).save(any(Franchise.class));
+        Mockito.verify(franchiseRepository).saveBranch(any(Franchise.class), any(Branch.class));
     }
 
     @Test
@@ -354,7 +586,7 @@ class FranchiseServiceImplTest {
         Branch branch = new Branch("b1", "Sucursal", new ArrayList<>(List.of(product1, product2)));
         Franchise franchise = new Franchise("1", "Franquicia", new ArrayList<>(List.of(branch)));
 
-        Mockito.when(franchiseRepository.findById("1"))
+        Mockito.when(franchiseRepository.findBranch("1", "b1"))
                 .thenReturn(Mono.just(franchise));
 
         // Act & Assert
@@ -364,6 +596,27 @@ class FranchiseServiceImplTest {
                 .verify();
     }
 
+    @Test
+    void listFranchiseSummaries_shouldReadPageAfterCursor() {
+        // Arrange
+        Mockito.when(franchiseRepository.findSummaries("f1", 2))
+                .thenReturn(Flux.just(new FranchiseSummary("f2", "B", 3), new FranchiseSummary("f3", "C", 0)));
+
+        // Act & Assert
+        StepVerifier.create(franchiseService.listFranchiseSummaries("f1", 2))
+                .expectNextMatches(s -> s.getId().equals("f2") && s.getBranchCount() == 3)
+                .expectNextMatches(s -> s.getId().equals("f3"))
+                .verifyComplete();
+    }
 
+    @Test
+    void listFranchises_shouldFail_whenPageSizeIsOutOfRange() {
+        // Act & Assert: sin límite solo se permite en streaming
+        StepVerifier.create(franchiseService.listFranchises(null, 0))
+                .expectErrorMatches(ex -> ex instanceof BusinessException &&
+                        ex.getMessage().equals("El tamaño de página debe estar entre 1 y 500"))
+                .verify();
 
+        Mockito.verify(franchiseRepository, Mockito.never()).findPage(any(), Mockito.anyInt());
+    }
 }
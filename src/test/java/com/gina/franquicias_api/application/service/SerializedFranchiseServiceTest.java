@@ -0,0 +1,79 @@
+package com.gina.franquicias_api.application.service;
+
+import com.gina.franquicias_api.domain.model.Branch;
+import com.gina.franquicias_api.domain.model.Franchise;
+import com.gina.franquicias_api.domain.model.Product;
+import com.gina.franquicias_api.infrastructure.adapter.out.memory.InMemoryFranchiseRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SerializedFranchiseServiceTest {
+
+    private InMemoryFranchiseRepository repo;
+    private FranchiseCommandQueue queue;
+    private SerializedFranchiseService service;
+
+    @BeforeEach
+    void setUp() {
+        repo = new InMemoryFranchiseRepository();
+        queue = new FranchiseCommandQueue(new SimpleMeterRegistry(), 1000);
+        OptimisticLockRetry retry = new OptimisticLockRetry(new SimpleMeterRegistry(), 100, Duration.ofMillis(1), Duration.ofMillis(5));
+        service = new SerializedFranchiseService(new FranchiseServiceImpl(repo, retry), queue);
+        repo.save(new Franchise("f1", "Gina", List.of(new Branch("b1", "Centro",
+                new ArrayList<>(List.of(new Product("p1", "Coca", 10))))))).block();
+    }
+
+    private Branch branch() {
+        return repo.findById("f1").block().findBranch("b1").orElseThrow();
+    }
+
+    @Test
+    void queuedCommand_shouldKeepAStockWriteThatLandedWhileItWaited() {
+        // Arrange: un comando ocupa la cola de la franquicia
+        Sinks.One<String> busy = Sinks.one();
+        queue.submit("busy", "f1", busy.asMono()).subscribe();
+        Mono<Product> added = service.addProduct("f1", "b1", "Pepsi", 3).cache();
+        added.subscribe();
+
+        // Act: la escritura de stock no espera detrás del alta encolada
+        assertEquals(25, service.updateStock("f1", "b1", "p1", 25).block(Duration.ofSeconds(5)).getStock());
+        busy.tryEmitValue("listo");
+        added.block(Duration.ofSeconds(5));
+
+        // Assert: el alta leyó la franquicia al ejecutarse, después del stock, y no lo pisó
+        assertEquals(25, branch().findProduct("p1").orElseThrow().getStock());
+        assertTrue(branch().findProductByName("Pepsi").isPresent());
+    }
+
+    @Test
+    void stockWritesAndQueuedWrites_shouldNotLoseEachOther_underConcurrency() {
+        // Arrange
+        int adjustments = 200;
+        int products = 20;
+
+        // Act: ajustes sin cola y altas encoladas sobre la misma sucursal, en paralelo
+        Flux<Object> stock = Flux.range(0, adjustments)
+                .flatMap(i -> service.adjustStock("f1", "b1", "p1", 1).subscribeOn(Schedulers.parallel()), 16)
+                .cast(Object.class);
+        Flux<Object> added = Flux.range(0, products)
+                .flatMap(i -> service.addProduct("f1", "b1", "Producto " + i, 1).subscribeOn(Schedulers.parallel()), 16)
+                .cast(Object.class);
+        Flux.merge(stock, added).blockLast(Duration.ofSeconds(30));
+
+        // Assert
+        assertEquals(10 + adjustments, branch().findProduct("p1").orElseThrow().getStock());
+        assertEquals(1 + products, branch().getProducts().size());
+    }
+}
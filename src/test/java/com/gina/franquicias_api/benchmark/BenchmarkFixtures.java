@@ -0,0 +1,27 @@
+package com.gina.franquicias_api.benchmark;
+
+import com.gina.franquicias_api.domain.model.Branch;
+import com.gina.franquicias_api.domain.model.Franchise;
+import com.gina.franquicias_api.domain.model.Product;
+
+import java.util.ArrayList;
+import java.util.List;
+
+final class BenchmarkFixtures {
+
+    private BenchmarkFixtures() {
+    }
+
+    // stock pseudoaleatorio pero determinista para que las ejecuciones sean comparables
+    static Franchise franchise(String id, int branches, int productsPerBranch) {
+        List<Branch> branchList = new ArrayList<>(branches);
+        for (int b = 0; b < branches; b++) {
+            List<Product> products = new ArrayList<>(productsPerBranch);
+            for (int p = 0; p < productsPerBranch; p++) {
+                products.add(new Product(id + "-b" + b + "-p" + p, "Producto " + p, (b * 31 + p * 17) % 1000));
+            }
+            branchList.add(new Branch(id + "-b" + b, "Sucursal " + b, products));
+        }
+        return new Franchise(id, "Franquicia " + id, branchList);
+    }
+}
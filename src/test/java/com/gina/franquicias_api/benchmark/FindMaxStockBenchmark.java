@@ -0,0 +1,89 @@
+package com.gina.franquicias_api.benchmark;
+
+import com.gina.franquicias_api.domain.model.Product;
+import com.gina.franquicias_api.domain.model.ProductWithBranch;
+import com.gina.franquicias_api.infrastructure.adapter.out.mongodb.adapter.FranchiseMongoAdapter;
+import com.gina.franquicias_api.infrastructure.adapter.out.mongodb.diagnostics.FranchiseMongoDiagnostics;
+import com.gina.franquicias_api.infrastructure.adapter.out.mongodb.mapper.FranchiseMapper;
+import com.gina.franquicias_api.infrastructure.adapter.out.mongodb.repository.FranchiseMongoRepository;
+import com.mongodb.reactivestreams.client.MongoClient;
+import com.mongodb.reactivestreams.client.MongoClients;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.observation.ObservationRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.repository.support.ReactiveMongoRepositoryFactory;
+import org.springframework.util.unit.DataSize;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Compara el máximo stock por sucursal calculado con la agregación de Mongo contra el cálculo
+ * anterior en la JVM (documento completo + Stream.max). Necesita un MongoDB accesible:
+ * <pre>
+ * ./mvnw -Pbenchmarks test-compile exec:exec -Dbenchmark.args="FindMaxStock -jvmArgs -Dbenchmark.mongo.uri=mongodb://localhost:27017"
+ * </pre>
+ * 1000 sucursales x 1000 productos no cabe en un documento embebido (límite de 16MB),
+ * por eso el caso mayor es 1000 x 100 (~7MB).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FindMaxStockBenchmark {
+
+    @Param({"10", "100", "1000"})
+    int branches;
+
+    @Param({"10", "100"})
+    int productsPerBranch;
+
+    private MongoClient client;
+    private ReactiveMongoTemplate template;
+    private FranchiseMongoAdapter adapter;
+    private String franchiseId;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        client = MongoClients.create(System.getProperty("benchmark.mongo.uri", "mongodb://localhost:27017"));
+        template = new ReactiveMongoTemplate(client, "franquicias_benchmark");
+        FranchiseMongoRepository repository = new ReactiveMongoRepositoryFactory(template)
+                .getRepository(FranchiseMongoRepository.class);
+        FranchiseMapper mapper = new FranchiseMapper();
+        adapter = new FranchiseMongoAdapter(repository, mapper, template, new FranchiseMongoDiagnostics(ObservationRegistry.NOOP,
+                new SimpleMeterRegistry(), mapper, template.getConverter(), Duration.ofSeconds(1), DataSize.ofMegabytes(4),
+                100, 1000));
+
+        franchiseId = "bench-" + branches + "x" + productsPerBranch;
+        template.save(mapper.toDocument(BenchmarkFixtures.franchise(franchiseId, branches, productsPerBranch))).block();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        template.getMongoDatabase().flatMap(db -> Mono.from(db.drop())).block();
+        client.close();
+    }
+
+    @Benchmark
+    public List<ProductWithBranch> aggregation() {
+        return adapter.findMaxStockPerBranch(franchiseId).collectList().block();
+    }
+
+    @Benchmark
+    public List<ProductWithBranch> inJvm() {
+        return adapter.findById(franchiseId)
+                .map(fr -> fr.getBranches().stream()
+                        .map(branch -> new ProductWithBranch(branch.getName(), branch.getProducts().stream()
+                                .max(Comparator.comparingInt(Product::getStock))
+                                .orElse(null)))
+                        .collect(Collectors.toList()))
+                .block();
+    }
+}
@@ -0,0 +1,152 @@
+package com.gina.franquicias_api.benchmark;
+
+import com.gina.franquicias_api.application.service.FranchiseServiceImpl;
+import com.gina.franquicias_api.application.service.OptimisticLockRetry;
+import com.gina.franquicias_api.domain.model.Branch;
+import com.gina.franquicias_api.domain.model.Franchise;
+import com.gina.franquicias_api.domain.model.FranchiseSummary;
+import com.gina.franquicias_api.domain.model.Product;
+import com.gina.franquicias_api.domain.model.ProductWithBranch;
+import com.gina.franquicias_api.domain.model.StockUpdate;
+import com.gina.franquicias_api.domain.model.StockUpdateResult;
+import com.gina.franquicias_api.infrastructure.adapter.out.memory.InMemoryFranchiseRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import reactor.core.publisher.Flux;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cada operación de FranchiseServiceImpl contra un puerto en memoria: mide la lógica del servicio y el
+ * manejo del agregado sin red ni base de datos.
+ * <pre>
+ * ./mvnw -Pbenchmarks test-compile exec:exec -Dbenchmark.args="FranchiseService -prof gc"
+ * </pre>
+ * Las altas se deshacen dentro de la misma operación para que el estado no crezca entre invocaciones.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FranchiseServiceBenchmark {
+    private static final int OTHER_FRANCHISES = 1000;
+    private static final int BATCH_SIZE = 100;
+
+    @Param({"10", "100"})
+    int branches;
+
+    @Param({"10", "1000"})
+    int productsPerBranch;
+
+    private InMemoryFranchiseRepository repo;
+    private FranchiseServiceImpl service;
+    private String franchiseId;
+    private String branchId;
+    private String productId;
+    private List<StockUpdate> batch;
+    private long counter;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        repo = new InMemoryFranchiseRepository();
+        service = new FranchiseServiceImpl(repo,
+                new OptimisticLockRetry(new SimpleMeterRegistry(), 5, Duration.ofMillis(10), Duration.ofMillis(200)));
+
+        for (int i = 0; i < OTHER_FRANCHISES; i++) {
+            repo.save(new Franchise("other-" + i, "Otra " + i, List.of())).block();
+        }
+        Franchise franchise = repo.save(BenchmarkFixtures.franchise("bench", branches, productsPerBranch)).block();
+        franchiseId = franchise.getId();
+        Branch branch = franchise.getBranches().get(branches / 2);
+        branchId = branch.getId();
+        productId = branch.getProducts().get(productsPerBranch / 2).getId();
+
+        batch = new ArrayList<>(BATCH_SIZE);
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            Branch b = franchise.getBranches().get(i % branches);
+            batch.add(new StockUpdate(franchiseId, b.getId(), b.getProducts().get(i % productsPerBranch).getId(), i));
+        }
+    }
+
+    @Benchmark
+    public Franchise createFranchise() {
+        Franchise created = service.createFranchise("Nueva " + counter++).block();
+        repo.delete(created.getId());
+        return created;
+    }
+
+    @Benchmark
+    public Branch addBranch() {
+        Branch added = service.addBranch(franchiseId, "Nueva " + counter++).block();
+        repo.deleteBranch(franchiseId, added.getId());
+        return added;
+    }
+
+    @Benchmark
+    public Branch addAndRemoveProduct() {
+        Product added = service.addProduct(franchiseId, branchId, "Nuevo " + counter++, 5).block();
+        return service.removeProduct(franchiseId, branchId, added.getId()).block();
+    }
+
+    @Benchmark
+    public Product updateStock() {
+        return service.updateStock(franchiseId, branchId, productId, (int) (counter++ & 1023)).block();
+    }
+
+    @Benchmark
+    public Product adjustStock() {
+        // alterna +1 y -1 para que el stock no se agote
+        int delta = (counter++ & 1) == 0 ? 1 : -1;
+        return service.adjustStock(franchiseId, branchId, productId, delta).block();
+    }
+
+    @Benchmark
+    public List<StockUpdateResult> updateStocks() {
+        return service.updateStocks(Flux.fromIterable(batch)).collectList().block();
+    }
+
+    @Benchmark
+    public List<ProductWithBranch> findMaxStock() {
+        return service.findMaxStock(franchiseId).collectList().block();
+    }
+
+    @Benchmark
+    public List<ProductWithBranch> findTopStockProducts() {
+        return service.findTopStockProducts(franchiseId, 50).collectList().block();
+    }
+
+    @Benchmark
+    public List<ProductWithBranch> findLowStockProducts() {
+        return service.findLowStockProducts(franchiseId, 100, 50).collectList().block();
+    }
+
+    @Benchmark
+    public Franchise updateFranchiseName() {
+        return service.updateFranchiseName(franchiseId, "Franquicia " + (counter++ & 1)).block();
+    }
+
+    @Benchmark
+    public Branch updateBranchName() {
+        return service.updateBranchName(franchiseId, branchId, "Renombrada " + (counter++ & 1)).block();
+    }
+
+    @Benchmark
+    public Product updateProductName() {
+        return service.updateProductName(franchiseId, branchId, productId, "Renombrado " + (counter++ & 1)).block();
+    }
+
+    @Benchmark
+    public List<Franchise> listFranchises() {
+        return service.listFranchises(null, 50).collectList().block();
+    }
+
+    @Benchmark
+    public List<FranchiseSummary> listFranchiseSummaries() {
+        return service.listFranchiseSummaries(null, 50).collectList().block();
+    }
+}
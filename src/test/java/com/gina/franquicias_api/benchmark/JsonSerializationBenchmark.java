@@ -0,0 +1,46 @@
+package com.gina.franquicias_api.benchmark;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.gina.franquicias_api.application.dto.response.FranchiseResponseDto;
+import com.gina.franquicias_api.application.mapper.FranchiseDtoMapper;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serialización a JSON de la respuesta de una franquicia, con la misma configuración de Jackson que arma
+ * Spring Boot por defecto.
+ * <pre>
+ * ./mvnw -Pbenchmarks test-compile exec:exec -Dbenchmark.args="JsonSerialization -prof gc"
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JsonSerializationBenchmark {
+
+    @Param({"10", "100"})
+    int branches;
+
+    @Param({"100", "1000"})
+    int productsPerBranch;
+
+    private ObjectWriter writer;
+    private FranchiseResponseDto response;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        writer = Jackson2ObjectMapperBuilder.json().build().writerFor(FranchiseResponseDto.class);
+        response = new FranchiseDtoMapper().toResponse(BenchmarkFixtures.franchise("bench", branches, productsPerBranch));
+    }
+
+    @Benchmark
+    public byte[] franchiseResponse() throws JsonProcessingException {
+        return writer.writeValueAsBytes(response);
+    }
+}
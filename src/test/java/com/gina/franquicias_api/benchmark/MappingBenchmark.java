@@ -0,0 +1,93 @@
+package com.gina.franquicias_api.benchmark;
+
+import com.gina.franquicias_api.application.dto.response.BranchResponseDto;
+import com.gina.franquicias_api.application.dto.response.FranchiseResponseDto;
+import com.gina.franquicias_api.application.dto.response.ProductResponseDto;
+import com.gina.franquicias_api.application.mapper.FranchiseDtoMapper;
+import com.gina.franquicias_api.domain.model.Branch;
+import com.gina.franquicias_api.domain.model.Franchise;
+import com.gina.franquicias_api.domain.model.Product;
+import com.gina.franquicias_api.infrastructure.adapter.out.mongodb.entity.BranchDocument;
+import com.gina.franquicias_api.infrastructure.adapter.out.mongodb.entity.FranchiseDocument;
+import com.gina.franquicias_api.infrastructure.adapter.out.mongodb.mapper.FranchiseMapper;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Costo de los mappers por separado (toDomain, toDocument, toResponse) y del camino completo de una
+ * lectura, documento -> dominio -> DTO. {@code streams} repite el mapeo anterior (Stream +
+ * Collectors.toList, y el constructor copiando la lista); {@code loops} usa los mappers actuales. La asignación por operación sale del perfilador de GC:
+ * <pre>
+ * ./mvnw -Pbenchmarks test-compile exec:exec -Dbenchmark.args="Mapping -prof gc"
+ * </pre>
+ * y se compara la columna gc.alloc.rate.norm (bytes por operación).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MappingBenchmark {
+
+    @Param({"10", "100"})
+    int branches;
+
+    @Param({"100", "1000"})
+    int productsPerBranch;
+
+    private final FranchiseMapper mapper = new FranchiseMapper();
+    private final FranchiseDtoMapper dtoMapper = new FranchiseDtoMapper();
+    private Franchise franchise;
+    private FranchiseDocument document;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        franchise = BenchmarkFixtures.franchise("bench", branches, productsPerBranch);
+        document = mapper.toDocument(franchise);
+    }
+
+    @Benchmark
+    public Franchise toDomain() {
+        return mapper.toDomain(document);
+    }
+
+    @Benchmark
+    public FranchiseDocument toDocument() {
+        return mapper.toDocument(franchise);
+    }
+
+    @Benchmark
+    public FranchiseResponseDto toResponse() {
+        return dtoMapper.toResponse(franchise);
+    }
+
+    @Benchmark
+    public FranchiseResponseDto loops() {
+        return dtoMapper.toResponse(mapper.toDomain(document));
+    }
+
+    @Benchmark
+    public FranchiseResponseDto streams() {
+        List<Branch> domainBranches = document.getBranches().stream()
+                .map(MappingBenchmark::streamToDomain)
+                .collect(Collectors.toList());
+        Franchise franchise = new Franchise(document.getId(), document.getName(), domainBranches, document.getVersion());
+
+        List<BranchResponseDto> branchDtos = franchise.getBranches().stream()
+                .map(b -> new BranchResponseDto(b.getId(), b.getName(), b.getProducts().stream()
+                        .map(p -> new ProductResponseDto(p.getId(), p.getName(), p.getStock()))
+                        .collect(Collectors.toList())))
+                .collect(Collectors.toList());
+        return new FranchiseResponseDto(franchise.getId(), franchise.getName(), branchDtos);
+    }
+
+    private static Branch streamToDomain(BranchDocument bd) {
+        return new Branch(bd.getId(), bd.getName(), bd.getProducts().stream()
+                .map(pd -> new Product(pd.getId(), pd.getName(), pd.getStock()))
+                .collect(Collectors.toList()));
+    }
+}
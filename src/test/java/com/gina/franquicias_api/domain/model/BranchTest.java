@@ -0,0 +1,91 @@
+package com.gina.franquicias_api.domain.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BranchTest {
+
+    @Test
+    void findProduct_shouldFindProductAddedAfterIndexWasBuilt() {
+        Branch branch = new Branch("b1", "Centro", List.of(new Product("p1", "Coca", 5)));
+        branch.findProduct("p1"); // arma el índice
+
+        Product added = new Product("p2", "Pepsi", 3);
+        branch.addProduct(added);
+
+        assertSame(added, branch.findProduct("p2").orElseThrow());
+        assertSame(added, branch.findProductByName("PEPSI").orElseThrow());
+    }
+
+    @Test
+    void renameProduct_shouldMoveNameInIndex() {
+        Branch branch = new Branch("b1", "Centro", List.of(new Product("p1", "Coca", 5)));
+        branch.findProductByName("coca");
+
+        branch.renameProduct("p1", "Coca Zero");
+
+        assertFalse(branch.findProductByName("Coca").isPresent());
+        assertEquals("p1", branch.findProductByName("coca zero").orElseThrow().getId());
+        assertEquals("Coca Zero", branch.findProduct("p1").orElseThrow().getName());
+    }
+
+    @Test
+    void renameProduct_shouldReturnEmpty_whenProductDoesNotExist() {
+        Branch branch = new Branch("b1", "Centro", List.of(new Product("p1", "Coca", 5)));
+
+        assertFalse(branch.renameProduct("p9", "Otra").isPresent());
+        assertTrue(branch.findProductByName("Coca").isPresent());
+    }
+
+    @Test
+    void removeProductById_shouldDropIdAndName() {
+        Branch branch = new Branch("b1", "Centro", List.of(new Product("p1", "Coca", 5), new Product("p2", "Pepsi", 3)));
+        branch.findProduct("p1");
+
+        assertTrue(branch.removeProductById("p1"));
+
+        assertFalse(branch.findProduct("p1").isPresent());
+        assertFalse(branch.findProductByName("coca").isPresent());
+        assertTrue(branch.findProduct("p2").isPresent());
+        assertFalse(branch.removeProductById("p1"));
+    }
+
+    @Test
+    void findProductByName_shouldSeeNameFreedByRemovalOrRename() {
+        // el servicio rechaza duplicados consultando el índice: un nombre liberado vuelve a estar disponible
+        Branch branch = new Branch("b1", "Centro", List.of(new Product("p1", "Coca", 5), new Product("p2", "Pepsi", 3)));
+        assertTrue(branch.findProductByName("COCA").isPresent());
+
+        branch.renameProduct("p1", "Sprite");
+        branch.removeProductById("p2");
+
+        assertFalse(branch.findProductByName("coca").isPresent());
+        assertFalse(branch.findProductByName("pepsi").isPresent());
+        assertTrue(branch.findProductByName("SPRITE").isPresent());
+    }
+
+    @Test
+    void legacyDuplicateNames_shouldResolveToFirstAndFallBackToTheOther() {
+        // datos anteriores a la validación: dos productos con el mismo nombre
+        Product first = new Product("p1", "Coca", 5);
+        Product second = new Product("p2", "coca", 7);
+        Branch branch = new Branch("b1", "Centro", List.of(first, second));
+
+        assertSame(first, branch.findProductByName("Coca").orElseThrow());
+        assertSame(second, branch.findProduct("p2").orElseThrow());
+
+        branch.removeProductById("p1");
+        assertSame(second, branch.findProductByName("COCA").orElseThrow());
+
+        branch.addProduct(new Product("p3", "Coca", 1));
+        branch.renameProduct("p2", "Fanta");
+        assertEquals("p3", branch.findProductByName("coca").orElseThrow().getId());
+        assertEquals("p2", branch.findProductByName("fanta").orElseThrow().getId());
+    }
+}
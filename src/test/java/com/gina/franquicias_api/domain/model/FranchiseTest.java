@@ -0,0 +1,56 @@
+package com.gina.franquicias_api.domain.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FranchiseTest {
+
+    @Test
+    void findBranch_shouldFindBranchAddedAfterIndexWasBuilt() {
+        Franchise franchise = new Franchise("f1", "Gina", List.of(new Branch("b1", "Centro", List.of())));
+        franchise.findBranch("b1");
+
+        Branch added = new Branch("b2", "Norte", List.of());
+        franchise.addBranch(added);
+
+        assertSame(added, franchise.findBranch("b2").orElseThrow());
+        assertSame(added, franchise.findBranchByName("NORTE").orElseThrow());
+    }
+
+    @Test
+    void renameBranch_shouldMoveNameInIndex() {
+        Franchise franchise = new Franchise("f1", "Gina", List.of(new Branch("b1", "Centro", List.of())));
+        assertTrue(franchise.findBranchByName("centro").isPresent());
+
+        franchise.renameBranch("b1", "Sur");
+
+        assertFalse(franchise.findBranchByName("Centro").isPresent());
+        assertEquals("b1", franchise.findBranchByName("sur").orElseThrow().getId());
+        assertEquals("Sur", franchise.findBranch("b1").orElseThrow().getName());
+        assertFalse(franchise.renameBranch("b9", "Otra").isPresent());
+    }
+
+    @Test
+    void legacyDuplicateNames_shouldResolveToFirstAndFallBackAfterRename() {
+        Branch first = new Branch("b1", "Centro", List.of());
+        Branch second = new Branch("b2", "CENTRO", List.of());
+        // como la arman los mappers: vacía y llenada con addBranch antes de la primera búsqueda
+        Franchise franchise = new Franchise("f1", "Gina", 2, 3L);
+        franchise.addBranch(first);
+        franchise.addBranch(second);
+
+        assertSame(first, franchise.findBranchByName("centro").orElseThrow());
+        assertSame(second, franchise.findBranch("b2").orElseThrow());
+
+        franchise.renameBranch("b1", "Norte");
+
+        assertSame(second, franchise.findBranchByName("centro").orElseThrow());
+        assertSame(first, franchise.findBranchByName("norte").orElseThrow());
+    }
+}
@@ -0,0 +1,103 @@
+package com.gina.franquicias_api.infrastructure.adapter.out.cache;
+
+import com.gina.franquicias_api.domain.model.Branch;
+import com.gina.franquicias_api.domain.model.Franchise;
+import com.gina.franquicias_api.domain.model.Product;
+import com.gina.franquicias_api.domain.port.out.FranchiseRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.mockito.Mockito.when;
+
+class CachingFranchiseRepositoryTest {
+
+    private FranchiseRepository delegate;
+    private FranchiseCache cache;
+    private CachingFranchiseRepository repo;
+
+    @BeforeEach
+    void setUp() {
+        delegate = Mockito.mock(FranchiseRepository.class);
+        cache = new FranchiseCache(new SimpleMeterRegistry(), 10_000, Duration.ofMinutes(1));
+        repo = new CachingFranchiseRepository(delegate, cache);
+    }
+
+    private static Franchise franchise(int stock) {
+        return new Franchise("f1", "Gina", List.of(new Branch("b1", "Centro", List.of(new Product("p1", "Coca", stock)))), 1L);
+    }
+
+    private static int stockOf(Franchise f) {
+        return f.findBranch("b1").orElseThrow().findProduct("p1").orElseThrow().getStock();
+    }
+
+    @Test
+    void findById_shouldLoadOnce_whenMissesAreConcurrent() {
+        Sinks.One<Franchise> load = Sinks.one();
+        when(delegate.findById("f1")).thenReturn(load.asMono());
+
+        List<Franchise> results = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            repo.findById("f1").subscribe(results::add);
+        }
+        load.tryEmitValue(franchise(7));
+
+        assertEquals(5, results.size());
+        results.forEach(f -> assertEquals(7, stockOf(f)));
+        Mockito.verify(delegate, Mockito.times(1)).findById("f1");
+    }
+
+    @Test
+    void findById_shouldNotCacheLoad_whenInvalidatedWhileInFlight() {
+        Sinks.One<Franchise> stale = Sinks.one();
+        when(delegate.findById("f1")).thenReturn(stale.asMono(), Mono.just(franchise(9)));
+
+        List<Franchise> first = new ArrayList<>();
+        repo.findById("f1").subscribe(first::add);
+        // una escritura termina mientras la lectura vieja sigue en curso
+        when(delegate.updateProductStock("f1", "b1", "p1", 9)).thenReturn(Mono.just(new Product("p1", "Coca", 9)));
+        repo.updateProductStock("f1", "b1", "p1", 9).block();
+        stale.tryEmitValue(franchise(7));
+
+        assertEquals(7, stockOf(first.get(0)));
+        assertEquals(9, stockOf(repo.findById("f1").block()));
+        Mockito.verify(delegate, Mockito.times(2)).findById("f1");
+    }
+
+    @Test
+    void findById_shouldReturnCopies_soCallersCannotChangeTheEntry() {
+        when(delegate.findById("f1")).thenReturn(Mono.just(franchise(7)));
+
+        Franchise first = repo.findById("f1").block();
+        first.findBranch("b1").orElseThrow().findProduct("p1").orElseThrow().updateStock(0);
+        first.findBranch("b1").orElseThrow().addProduct(new Product("p2", "Pepsi", 1));
+        first.addBranch(new Branch("b2", "Norte", List.of()));
+
+        Franchise second = repo.findById("f1").block();
+        assertNotSame(first, second);
+        assertEquals(7, stockOf(second));
+        assertEquals(1, second.getBranches().size());
+        assertEquals(1, second.findBranch("b1").orElseThrow().getProducts().size());
+        Mockito.verify(delegate, Mockito.times(1)).findById("f1");
+    }
+
+    @Test
+    void write_shouldInvalidate_evenWhenItFails() {
+        when(delegate.findById("f1")).thenReturn(Mono.just(franchise(7)), Mono.just(franchise(8)));
+        when(delegate.adjustProductStock("f1", "b1", "p1", 1)).thenReturn(Mono.error(new IllegalStateException("timeout")));
+
+        repo.findById("f1").block();
+        repo.adjustProductStock("f1", "b1", "p1", 1).onErrorResume(e -> Mono.empty()).block();
+
+        assertEquals(8, stockOf(repo.findById("f1").block()));
+    }
+}
@@ -0,0 +1,188 @@
+package com.gina.franquicias_api.infrastructure.adapter.out.coalescing;
+
+import com.gina.franquicias_api.domain.model.Product;
+import com.gina.franquicias_api.domain.model.StockUpdate;
+import com.gina.franquicias_api.domain.model.StockUpdateResult;
+import com.gina.franquicias_api.domain.port.out.FranchiseRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.TransientDataAccessResourceException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Hooks;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.when;
+
+class CoalescingFranchiseRepositoryTest {
+
+    private FranchiseRepository delegate;
+    // lotes recibidos por el delegado, en orden
+    private final List<List<StockUpdate>> batches = new CopyOnWriteArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        delegate = Mockito.mock(FranchiseRepository.class);
+    }
+
+    private CoalescingFranchiseRepository repo(Duration window, int maxBatch) {
+        return new CoalescingFranchiseRepository(delegate, new SimpleMeterRegistry(), window, maxBatch, 100);
+    }
+
+    // el delegado escribe todo lo que recibe
+    private void delegateWritesAll() {
+        when(delegate.updateProductStocks(eq("f1"), anyList())).thenAnswer(inv -> {
+            List<StockUpdate> updates = inv.getArgument(1);
+            batches.add(updates);
+            return Flux.fromIterable(updates).map(u -> StockUpdateResult.updated(u, "Coca"));
+        });
+    }
+
+    @Test
+    void updateProductStock_shouldWriteOneBatch_whenUpdatesArriveWithinWindow() {
+        delegateWritesAll();
+        CoalescingFranchiseRepository repo = repo(Duration.ofMillis(50), 100);
+
+        Mono<Product> first = repo.updateProductStock("f1", "b1", "p1", 5).cache();
+        Mono<Product> second = repo.updateProductStock("f1", "b1", "p2", 7).cache();
+        first.subscribe();
+        second.subscribe();
+
+        assertEquals(5, first.block(Duration.ofSeconds(5)).getStock());
+        assertEquals(7, second.block(Duration.ofSeconds(5)).getStock());
+        assertEquals(1, batches.size());
+        assertEquals(2, batches.get(0).size());
+    }
+
+    @Test
+    void updateProductStock_shouldFlushWithoutWaiting_whenMaxBatchIsReached() {
+        delegateWritesAll();
+        // una ventana que nunca vence: solo el tamaño puede disparar la escritura
+        CoalescingFranchiseRepository repo = repo(Duration.ofHours(1), 2);
+
+        repo.updateProductStock("f1", "b1", "p1", 5).subscribe();
+        assertTrue(batches.isEmpty());
+        repo.updateProductStock("f1", "b1", "p2", 7).subscribe();
+
+        assertEquals(1, batches.size());
+        assertEquals(2, batches.get(0).size());
+    }
+
+    @Test
+    void updateProductStock_shouldKeepOneBatchInFlight_andSendTheNextWhenItFinishes() {
+        Sinks.Many<StockUpdateResult> firstWrite = Sinks.many().unicast().onBackpressureBuffer();
+        when(delegate.updateProductStocks(eq("f1"), anyList())).thenAnswer(inv -> {
+            List<StockUpdate> updates = inv.getArgument(1);
+            batches.add(updates);
+            return batches.size() == 1
+                    ? firstWrite.asFlux()
+                    : Flux.fromIterable(updates).map(u -> StockUpdateResult.updated(u, "Coca"));
+        });
+        CoalescingFranchiseRepository repo = repo(Duration.ofHours(1), 1);
+
+        List<Product> done = new CopyOnWriteArrayList<>();
+        repo.updateProductStock("f1", "b1", "p1", 5).subscribe(done::add);
+        repo.updateProductStock("f1", "b1", "p1", 6).subscribe(done::add);
+        assertEquals(1, batches.size());
+
+        StockUpdate sent = batches.get(0).get(0);
+        firstWrite.tryEmitNext(StockUpdateResult.updated(sent, "Coca"));
+        firstWrite.tryEmitComplete();
+
+        assertEquals(2, batches.size());
+        assertEquals(6, batches.get(1).get(0).getStock());
+        assertEquals(List.of(5, 6), done.stream().map(Product::getStock).toList());
+    }
+
+    @Test
+    void updateProductStock_shouldCompleteEachCallerFromItsResult() {
+        when(delegate.updateProductStocks(eq("f1"), anyList())).thenAnswer(inv -> {
+            List<StockUpdate> updates = inv.getArgument(1);
+            return Flux.fromIterable(updates).map(u -> switch (u.getProductId()) {
+                case "p1" -> u.getStock() == 5
+                        ? new StockUpdateResult(u, StockUpdateResult.Status.SUPERSEDED, null)
+                        : StockUpdateResult.updated(u, "Coca");
+                case "p2" -> new StockUpdateResult(u, StockUpdateResult.Status.NOT_FOUND, "Producto no encontrado");
+                case "p3" -> u.getStock() == 1
+                        ? new StockUpdateResult(u, StockUpdateResult.Status.SUPERSEDED, null)
+                        : new StockUpdateResult(u, StockUpdateResult.Status.FAILED, "timeout");
+                default -> StockUpdateResult.updated(u, "Pepsi");
+            });
+        });
+        CoalescingFranchiseRepository repo = repo(Duration.ofHours(1), 6);
+
+        // Act: el sexto llamador completa el lote
+        Mono<Product> superseded = repo.updateProductStock("f1", "b1", "p1", 5).cache();
+        Mono<Product> winner = repo.updateProductStock("f1", "b1", "p1", 8).cache();
+        Mono<Product> missing = repo.updateProductStock("f1", "b1", "p2", 3).cache();
+        Mono<Product> lostWinner = repo.updateProductStock("f1", "b1", "p3", 1).cache();
+        Mono<Product> failed = repo.updateProductStock("f1", "b1", "p3", 2).cache();
+        List.of(superseded, winner, missing, lostWinner, failed).forEach(m -> m.subscribe(p -> { }, e -> { }));
+        repo.updateProductStock("f1", "b1", "p4", 0).subscribe();
+
+        // Assert: la reemplazada devuelve su propio stock con el nombre de la ganadora
+        StepVerifier.create(superseded)
+                .assertNext(p -> {
+                    assertEquals(5, p.getStock());
+                    assertEquals("Coca", p.getName());
+                })
+                .verifyComplete();
+        StepVerifier.create(winner).assertNext(p -> assertEquals(8, p.getStock())).verifyComplete();
+        StepVerifier.create(missing).verifyComplete();
+        StepVerifier.create(lostWinner).expectError(DataAccessResourceFailureException.class).verify();
+        StepVerifier.create(failed).expectError(DataAccessResourceFailureException.class).verify();
+    }
+
+    @Test
+    void updateProductStock_shouldErrorEachCallerOnce_whenTheDelegateFailsAfterAPartialEmission() {
+        when(delegate.updateProductStocks(eq("f1"), anyList())).thenAnswer(inv -> {
+            List<StockUpdate> updates = inv.getArgument(1);
+            return Flux.concat(Flux.just(StockUpdateResult.updated(updates.get(0), "Coca")),
+                    Flux.error(new IllegalStateException("se cortó la conexión")));
+        });
+        List<Throwable> dropped = new CopyOnWriteArrayList<>();
+        Hooks.onErrorDropped(dropped::add);
+        try {
+            CoalescingFranchiseRepository repo = repo(Duration.ofHours(1), 2);
+
+            Mono<Product> first = repo.updateProductStock("f1", "b1", "p1", 5).cache();
+            first.subscribe(p -> { }, e -> { });
+            Mono<Product> second = repo.updateProductStock("f1", "b1", "p2", 7).cache();
+            second.subscribe(p -> { }, e -> { });
+
+            StepVerifier.create(first).expectErrorMessage("se cortó la conexión").verify(Duration.ofSeconds(5));
+            StepVerifier.create(second).expectErrorMessage("se cortó la conexión").verify(Duration.ofSeconds(5));
+            assertTrue(dropped.isEmpty(), () -> "errores descartados: " + dropped);
+        } finally {
+            Hooks.resetOnErrorDropped();
+        }
+    }
+
+    @Test
+    void updateProductStock_shouldReject_whenTooManyUpdatesArePending() {
+        // el primer lote no termina nunca: lo que llega después se acumula hasta el tope
+        when(delegate.updateProductStocks(eq("f1"), anyList())).thenReturn(Flux.never());
+        CoalescingFranchiseRepository repo = new CoalescingFranchiseRepository(delegate, new SimpleMeterRegistry(),
+                Duration.ofHours(1), 1, 2);
+
+        repo.updateProductStock("f1", "b1", "p1", 1).subscribe();
+        repo.updateProductStock("f1", "b1", "p1", 2).subscribe();
+        repo.updateProductStock("f1", "b1", "p1", 3).subscribe();
+
+        StepVerifier.create(repo.updateProductStock("f1", "b1", "p1", 4))
+                .expectError(TransientDataAccessResourceException.class)
+                .verify(Duration.ofSeconds(5));
+    }
+}
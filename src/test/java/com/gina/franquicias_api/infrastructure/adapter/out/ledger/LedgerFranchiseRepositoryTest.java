@@ -0,0 +1,80 @@
+package com.gina.franquicias_api.infrastructure.adapter.out.ledger;
+
+import com.gina.franquicias_api.domain.model.Product;
+import com.gina.franquicias_api.domain.model.StockEvent;
+import com.gina.franquicias_api.domain.model.StockUpdate;
+import com.gina.franquicias_api.domain.model.StockUpdateResult;
+import com.gina.franquicias_api.domain.port.out.FranchiseRepository;
+import com.gina.franquicias_api.domain.port.out.StockLedger;
+import com.gina.franquicias_api.infrastructure.adapter.out.coalescing.CoalescingFranchiseRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class LedgerFranchiseRepositoryTest {
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void coalescedUpdates_shouldRecordOnlyTheValueThatWasWritten() {
+        // Arrange: el mismo orden de decoradores que FranchiseRepositoryConfig
+        FranchiseRepository store = Mockito.mock(FranchiseRepository.class);
+        StockLedger ledger = Mockito.mock(StockLedger.class);
+        when(ledger.append(anyList())).thenReturn(Mono.empty());
+        when(store.updateProductStocks(eq("f1"), anyList())).thenAnswer(inv -> {
+            List<StockUpdate> updates = inv.getArgument(1);
+            StockUpdate last = updates.get(updates.size() - 1);
+            return Flux.fromIterable(updates).map(u -> u == last
+                    ? StockUpdateResult.updated(u, "Coca")
+                    : new StockUpdateResult(u, StockUpdateResult.Status.SUPERSEDED, null));
+        });
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        FranchiseRepository repo = new CoalescingFranchiseRepository(
+                new LedgerFranchiseRepository(store, ledger, registry), registry, Duration.ofHours(1), 2, 100);
+
+        // Act
+        Mono<Product> superseded = repo.updateProductStock("f1", "b1", "p1", 5).cache();
+        superseded.subscribe();
+        Product winner = repo.updateProductStock("f1", "b1", "p1", 8).block(Duration.ofSeconds(5));
+
+        assertEquals(5, superseded.block(Duration.ofSeconds(5)).getStock());
+        assertEquals(8, winner.getStock());
+
+        // Assert: la reemplazada respondió bien pero no figura en el historial
+        ArgumentCaptor<List<StockEvent>> events = ArgumentCaptor.forClass(List.class);
+        verify(ledger).append(events.capture());
+        assertEquals(1, events.getValue().size());
+        assertEquals(8, events.getValue().get(0).getStock());
+    }
+
+    @Test
+    void failedAppend_shouldKeepTheWrite_andCountEveryLostEvent() {
+        // Arrange: el lote se escribió pero el historial no está disponible
+        FranchiseRepository store = Mockito.mock(FranchiseRepository.class);
+        StockLedger ledger = Mockito.mock(StockLedger.class);
+        when(ledger.append(anyList())).thenReturn(Mono.error(new IllegalStateException("sin conexión")));
+        when(store.updateProductStocks(eq("f1"), anyList())).thenAnswer(inv -> Flux.fromIterable(inv.<List<StockUpdate>>getArgument(1))
+                .map(u -> StockUpdateResult.updated(u, "Coca")));
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        FranchiseRepository repo = new LedgerFranchiseRepository(store, ledger, registry);
+
+        // Act
+        List<StockUpdateResult> results = repo.updateProductStocks("f1", List.of(
+                new StockUpdate("f1", "b1", "p1", 5), new StockUpdate("f1", "b1", "p2", 6))).collectList().block(Duration.ofSeconds(5));
+
+        // Assert
+        assertEquals(2, results.size());
+        assertEquals(2, registry.get("franchise.stock.ledger.failures").counter().count());
+    }
+}
@@ -0,0 +1,223 @@
+package com.gina.franquicias_api.infrastructure.adapter.out.memory;
+
+import com.gina.franquicias_api.domain.exception.BusinessException;
+import com.gina.franquicias_api.domain.model.Branch;
+import com.gina.franquicias_api.domain.model.Franchise;
+import com.gina.franquicias_api.domain.model.Product;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.OptimisticLockingFailureException;
+import reactor.test.StepVerifier;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+class InMemoryFranchiseRepositoryTest {
+
+    private InMemoryFranchiseRepository repo;
+
+    @BeforeEach
+    void setUp() {
+        repo = new InMemoryFranchiseRepository();
+    }
+
+    private Franchise stored(String id, String name, int products) {
+        List<Product> list = new ArrayList<>();
+        for (int i = 0; i < products; i++) {
+            list.add(new Product("p" + i, "Producto " + i, 10));
+        }
+        return repo.save(new Franchise(id, name, List.of(new Branch("b1", "Centro", list)))).block();
+    }
+
+    @Test
+    void save_shouldFailWithConflict_whenVersionIsStale() {
+        Franchise v0 = stored("f1", "Gina", 1);
+        Franchise stale = new Franchise("f1", "Gina", v0.getBranches(), v0.getVersion());
+        repo.save(new Franchise("f1", "Gina 2", v0.getBranches(), v0.getVersion())).block();
+
+        StepVerifier.create(repo.save(stale))
+                .expectError(OptimisticLockingFailureException.class)
+                .verify();
+        StepVerifier.create(repo.save(new Franchise("f1", "Nueva", List.of())))
+                .expectError(OptimisticLockingFailureException.class)
+                .verify();
+    }
+
+    @Test
+    void save_shouldRejectDuplicateName_ignoringCase() {
+        stored("f1", "Gina", 0);
+
+        StepVerifier.create(repo.save(new Franchise("f2", "GINA", List.of())))
+                .expectError(BusinessException.class)
+                .verify();
+    }
+
+    @Test
+    void saveBranch_shouldFailWithConflict_whenAnotherWriteHappenedSinceTheRead() {
+        stored("f1", "Gina", 2);
+        Franchise view = repo.findBranch("f1", "b1").block();
+        repo.updateProductStock("f1", "b1", "p0", 99).block();
+
+        Branch branch = view.findBranch("b1").orElseThrow();
+        branch.removeProductById("p1");
+
+        StepVerifier.create(repo.saveBranch(view, branch))
+                .expectError(OptimisticLockingFailureException.class)
+                .verify();
+        // la actualización de stock no quedó pisada por la sucursal leída antes
+        assertEquals(99, repo.findById("f1").block().findBranch("b1").orElseThrow().findProduct("p0").orElseThrow().getStock());
+    }
+
+    @Test
+    void insertBranch_shouldFailWithConflict_whenVersionIsStale() {
+        stored("f1", "Gina", 0);
+        Franchise view = repo.findBranchNames("f1").block();
+        repo.insertBranch(view, new Branch("b2", "Norte", List.of())).block();
+
+        StepVerifier.create(repo.insertBranch(view, new Branch("b3", "Sur", List.of())))
+                .expectError(OptimisticLockingFailureException.class)
+                .verify();
+        assertEquals(2, repo.findById("f1").block().getBranches().size());
+    }
+
+    @Test
+    void returnedAggregates_shouldBeCopies() {
+        Franchise saved = stored("f1", "Gina", 1);
+        saved.findBranch("b1").orElseThrow().findProduct("p0").orElseThrow().updateStock(0);
+        saved.addBranch(new Branch("b9", "Fantasma", List.of()));
+
+        Franchise read = repo.findById("f1").block();
+        read.findBranch("b1").orElseThrow().addProduct(new Product("px", "Intruso", 1));
+        repo.findBranch("f1", "b1").block().findBranch("b1").orElseThrow().removeProductById("p0");
+
+        Franchise current = repo.findById("f1").block();
+        assertEquals(1, current.getBranches().size());
+        Branch branch = current.findBranch("b1").orElseThrow();
+        assertEquals(1, branch.getProducts().size());
+        assertEquals(10, branch.findProduct("p0").orElseThrow().getStock());
+    }
+
+    @Test
+    void save_shouldCopyTheArgument() {
+        Franchise franchise = new Franchise("f1", "Gina", new ArrayList<>(List.of(
+                new Branch("b1", "Centro", List.of(new Product("p0", "Coca", 5))))));
+        repo.save(franchise).block();
+
+        franchise.findBranch("b1").orElseThrow().findProduct("p0").orElseThrow().updateStock(1);
+
+        assertEquals(5, repo.findById("f1").block().findBranch("b1").orElseThrow().findProduct("p0").orElseThrow().getStock());
+    }
+
+    @Test
+    void earlierRevision_shouldStayUnchangedAfterStockUpdate() {
+        stored("f1", "Gina", 1);
+        Franchise before = repo.revisions().iterator().next();
+
+        repo.updateProductStock("f1", "b1", "p0", 3).block();
+
+        assertEquals(10, before.findBranch("b1").orElseThrow().findProduct("p0").orElseThrow().getStock());
+    }
+
+    @Test
+    void adjustProductStock_shouldNotLoseUpdates_underConcurrency() throws Exception {
+        // varias franquicias comparten franja de lock; los ajustes de todas deben sumarse completos
+        int franchises = 80;
+        int threads = 8;
+        int perThread = 250;
+        for (int f = 0; f < franchises; f++) {
+            stored("f" + f, "Franquicia " + f, 1);
+        }
+
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            futures.add(pool.submit(() -> {
+                start.await();
+                for (int i = 0; i < perThread; i++) {
+                    for (int f = 1; f < franchises; f += 9) {
+                        repo.adjustProductStock("f" + f, "b1", "p0", 1).block();
+                    }
+                    repo.adjustProductStock("f1", "b1", "p0", 1).block();
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        pool.shutdown();
+
+        assertEquals(10 + threads * perThread * 2, stockOf("f1"));
+        assertEquals(10 + threads * perThread, stockOf("f10"));
+        assertEquals(10, stockOf("f2"));
+    }
+
+    @Test
+    void adjustProductStock_shouldReturnEmpty_whenStockWouldBeNegative() {
+        stored("f1", "Gina", 1);
+
+        StepVerifier.create(repo.adjustProductStock("f1", "b1", "p0", -11)).verifyComplete();
+        assertEquals(10, stockOf("f1"));
+    }
+
+    @Test
+    void adjustProductStock_shouldReturnEmpty_whenStockWouldOverflow() {
+        stored("f1", "Gina", 1);
+
+        StepVerifier.create(repo.adjustProductStock("f1", "b1", "p0", Integer.MAX_VALUE - 9)).verifyComplete();
+        assertEquals(10, stockOf("f1"));
+        StepVerifier.create(repo.adjustProductStock("f1", "b1", "p0", Integer.MAX_VALUE - 10))
+                .expectNextMatches(p -> p.getStock() == Integer.MAX_VALUE)
+                .verifyComplete();
+    }
+
+    @Test
+    void findTopStockProducts_shouldIncludeProductsAtTheMaximumStock() {
+        repo.save(new Franchise("f1", "Gina", List.of(new Branch("b1", "Centro", List.of(
+                new Product("p0", "Lleno", Integer.MAX_VALUE), new Product("p1", "Normal", 10)))))).block();
+
+        StepVerifier.create(repo.findTopStockProducts("f1", 1))
+                .expectNextMatches(row -> row.getProduct().getId().equals("p0"))
+                .verifyComplete();
+    }
+
+    @Test
+    void delete_shouldFreeTheName() {
+        stored("f1", "Gina", 0);
+
+        repo.delete("f1");
+
+        assertFalse(repo.existsById("f1").block());
+        StepVerifier.create(repo.save(new Franchise("f2", "Gina", List.of())))
+                .expectNextCount(1)
+                .verifyComplete();
+    }
+
+    private int stockOf(String franchiseId) {
+        return repo.findById(franchiseId).block().findBranch("b1").orElseThrow().findProduct("p0").orElseThrow().getStock();
+    }
+
+    @Test
+    void ranking_shouldBreakStockTiesByProductId() {
+        // productos con el mismo stock repartidos en dos sucursales, cargados en desorden
+        repo.save(new Franchise("f1", "Gina", List.of(
+                new Branch("b1", "Centro", List.of(new Product("p3", "C", 5), new Product("p1", "A", 5))),
+                new Branch("b2", "Norte", List.of(new Product("p2", "B", 5), new Product("p0", "Z", 9)))))).block();
+
+        StepVerifier.create(repo.findTopStockProducts("f1", 3).map(row -> row.getProduct().getId()))
+                .expectNext("p0", "p1", "p2")
+                .verifyComplete();
+        StepVerifier.create(repo.findLowStockProducts("f1", 9, 2).map(row -> row.getProduct().getId()))
+                .expectNext("p3", "p2")
+                .verifyComplete();
+    }
+}
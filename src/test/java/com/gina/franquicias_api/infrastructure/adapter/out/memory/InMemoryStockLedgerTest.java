@@ -0,0 +1,75 @@
+package com.gina.franquicias_api.infrastructure.adapter.out.memory;
+
+import com.gina.franquicias_api.domain.model.StockEvent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class InMemoryStockLedgerTest {
+
+    private static final Instant T0 = Instant.parse("2026-01-01T00:00:00Z");
+
+    private InMemoryStockLedger ledger;
+
+    @BeforeEach
+    void setUp() {
+        ledger = new InMemoryStockLedger();
+    }
+
+    private static StockEvent event(int stock, long second) {
+        return new StockEvent("f1", "b1", "p1", StockEvent.Type.SET, stock, stock, T0.plusSeconds(second), "updateStock");
+    }
+
+    private Integer stockAt(long second) {
+        StockEvent e = ledger.stockAt("f1", "b1", "p1", T0.plusSeconds(second)).block();
+        return e == null ? null : e.getStock();
+    }
+
+    @Test
+    void stockAt_shouldReturnTheLastEventAtOrBeforeTheInstant() {
+        ledger.append(List.of(event(1, 10), event(2, 20), event(3, 30))).block();
+
+        assertNull(stockAt(9));
+        assertEquals(1, stockAt(10));
+        assertEquals(1, stockAt(19));
+        assertEquals(2, stockAt(20));
+        assertEquals(3, stockAt(31));
+    }
+
+    @Test
+    void append_shouldKeepTheHistoryOrdered_whenEventsArriveOutOfOrder() {
+        ledger.append(List.of(event(3, 30), event(1, 10))).block();
+        ledger.append(List.of(event(2, 20))).block();
+
+        assertEquals(1, stockAt(15));
+        assertEquals(2, stockAt(25));
+        assertEquals(3, stockAt(35));
+    }
+
+    @Test
+    void compact_shouldKeepTheLastEventBeforeTheCutoff() {
+        ledger.append(List.of(event(1, 10), event(2, 20), event(3, 30), event(4, 40))).block();
+
+        // Act: quedan el checkpoint (20) y los eventos desde el corte en adelante
+        assertEquals(1L, ledger.compact(T0.plusSeconds(30)).block());
+
+        assertNull(stockAt(15));
+        assertEquals(2, stockAt(25));
+        assertEquals(3, stockAt(30));
+        assertEquals(4, stockAt(45));
+    }
+
+    @Test
+    void compact_shouldRemoveNothing_whenAtMostOneEventIsOlderThanTheCutoff() {
+        ledger.append(List.of(event(1, 10), event(2, 20))).block();
+
+        assertEquals(0L, ledger.compact(T0.plusSeconds(15)).block());
+        assertEquals(0L, ledger.compact(T0.plusSeconds(5)).block());
+        assertEquals(1, stockAt(10));
+    }
+}
@@ -0,0 +1,108 @@
+package com.gina.franquicias_api.infrastructure.adapter.out.mongodb.adapter;
+
+import com.gina.franquicias_api.domain.model.Branch;
+import com.gina.franquicias_api.domain.model.Franchise;
+import com.gina.franquicias_api.infrastructure.adapter.out.mongodb.entity.FranchiseDocument;
+import com.gina.franquicias_api.infrastructure.adapter.out.mongodb.mapper.FranchiseMapper;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.core.convert.NoOpDbRefResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.UpdateDefinition;
+import reactor.core.scheduler.Schedulers;
+import reactor.test.StepVerifier;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class FranchiseBlockingMongoAdapterTest {
+
+    private MongoTemplate template;
+    private FranchiseBlockingMongoAdapter adapter;
+
+    @BeforeEach
+    void setUp() {
+        template = Mockito.mock(MongoTemplate.class);
+        MappingMongoConverter converter = new MappingMongoConverter(NoOpDbRefResolver.INSTANCE, new MongoMappingContext());
+        converter.afterPropertiesSet();
+        when(template.getConverter()).thenReturn(converter);
+        when(template.getCollectionName(FranchiseDocument.class)).thenReturn("franchises");
+        adapter = new FranchiseBlockingMongoAdapter(template, new FranchiseMapper(), Schedulers.immediate());
+    }
+
+    private void written(Document result) {
+        when(template.findAndModify(any(Query.class), any(UpdateDefinition.class), any(FindAndModifyOptions.class),
+                eq(Document.class), eq("franchises"))).thenReturn(result);
+    }
+
+    @Test
+    void updateProductStock_shouldReturnTheProductFromTheSameWrite() {
+        written(new Document("size", 700).append("branchCount", 2)
+                .append("product", new Document("_id", "p1").append("name", "Coca").append("stock", 9)));
+
+        StepVerifier.create(adapter.updateProductStock("f1", "b1", "p1", 9))
+                .assertNext(p -> {
+                    assertEquals("Coca", p.getName());
+                    assertEquals(9, p.getStock());
+                })
+                .verifyComplete();
+
+        // misma consulta que el adaptador reactivo y sin relectura del producto
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        verify(template).findAndModify(query.capture(), any(UpdateDefinition.class), any(FindAndModifyOptions.class),
+                eq(Document.class), eq("franchises"));
+        Query expected = EmbeddedQueries.productWithSize("f1", "b1", Criteria.where("_id").is("p1"), "p1");
+        assertEquals(expected.getFieldsObject(), query.getValue().getFieldsObject());
+        verify(template, never()).aggregate(any(Aggregation.class), anyString(), any(Class.class));
+        verify(template, never()).aggregate(any(Aggregation.class), any(Class.class), any(Class.class));
+    }
+
+    @Test
+    void adjustProductStock_shouldBeEmpty_whenTheGuardRejectsTheWrite() {
+        written(null);
+
+        StepVerifier.create(adapter.adjustProductStock("f1", "b1", "p1", -5)).verifyComplete();
+    }
+
+    @Test
+    void insertBranch_shouldPushTheBranchWithoutTypeHints() {
+        written(new Document("size", 512).append("branchCount", 1));
+
+        StepVerifier.create(adapter.insertBranch(new Franchise("f1", "Gina", List.of(), 3L), new Branch("b9", "Norte", List.of())))
+                .verifyComplete();
+
+        ArgumentCaptor<UpdateDefinition> update = ArgumentCaptor.forClass(UpdateDefinition.class);
+        verify(template).findAndModify(any(Query.class), update.capture(), any(FindAndModifyOptions.class),
+                eq(Document.class), eq("franchises"));
+        Document pushed = (Document) update.getValue().getUpdateObject().get("$push", Document.class).get("branches");
+        assertEquals("b9", pushed.get("_id"));
+        assertFalse(pushed.containsKey("_class"));
+    }
+
+    @Test
+    void insertBranch_shouldFailWithConflict_whenTheVersionChanged() {
+        written(null);
+
+        StepVerifier.create(adapter.insertBranch(new Franchise("f1", "Gina", List.of(), 3L), new Branch("b9", "Norte", List.of())))
+                .expectError(OptimisticLockingFailureException.class)
+                .verify();
+    }
+}
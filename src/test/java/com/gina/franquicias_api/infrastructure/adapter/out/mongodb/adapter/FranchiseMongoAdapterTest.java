@@ -0,0 +1,201 @@
+package com.gina.franquicias_api.infrastructure.adapter.out.mongodb.adapter;
+
+import com.gina.franquicias_api.domain.model.Branch;
+import com.gina.franquicias_api.domain.model.Franchise;
+import com.gina.franquicias_api.domain.model.Product;
+import com.gina.franquicias_api.infrastructure.adapter.out.mongodb.diagnostics.FranchiseMongoDiagnostics;
+import com.gina.franquicias_api.infrastructure.adapter.out.mongodb.entity.BranchMaxStockDocument;
+import com.gina.franquicias_api.infrastructure.adapter.out.mongodb.entity.FranchiseDocument;
+import com.gina.franquicias_api.infrastructure.adapter.out.mongodb.mapper.FranchiseMapper;
+import com.gina.franquicias_api.infrastructure.adapter.out.mongodb.repository.FranchiseMongoRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.observation.ObservationRegistry;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.core.convert.NoOpDbRefResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.UpdateDefinition;
+import org.springframework.util.unit.DataSize;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class FranchiseMongoAdapterTest {
+
+    private ReactiveMongoTemplate template;
+    private FranchiseMongoRepository repo;
+    private SimpleMeterRegistry registry;
+    private FranchiseMongoAdapter adapter;
+
+    @BeforeEach
+    void setUp() {
+        template = Mockito.mock(ReactiveMongoTemplate.class);
+        MappingMongoConverter converter = new MappingMongoConverter(NoOpDbRefResolver.INSTANCE, new MongoMappingContext());
+        converter.afterPropertiesSet();
+        when(template.getConverter()).thenReturn(converter);
+        when(template.getCollectionName(FranchiseDocument.class)).thenReturn("franchises");
+        registry = new SimpleMeterRegistry();
+        FranchiseMapper mapper = new FranchiseMapper();
+        // umbral bajo para que un documento de 2KB ya cuente como sobredimensionado; en save se mide una de cada
+        // 100 escrituras o desde 3 productos
+        FranchiseMongoDiagnostics diagnostics = new FranchiseMongoDiagnostics(ObservationRegistry.NOOP, registry,
+                mapper, converter, Duration.ofSeconds(10), DataSize.ofKilobytes(1), 100, 3);
+        repo = Mockito.mock(FranchiseMongoRepository.class);
+        adapter = new FranchiseMongoAdapter(repo, mapper, template, diagnostics);
+    }
+
+    private static Franchise view() {
+        return new Franchise("f1", "Gina", List.of(), 3L);
+    }
+
+    private void written(Document result) {
+        when(template.findAndModify(any(Query.class), any(UpdateDefinition.class), any(FindAndModifyOptions.class),
+                eq(Document.class), eq("franchises"))).thenReturn(Mono.justOrEmpty(result));
+    }
+
+    private double recordedSize() {
+        return registry.get("franchise.mongo.document.size").summary().max();
+    }
+
+    private double oversized() {
+        return registry.get("franchise.mongo.flagged").tag("reason", "oversized-document").counter().count();
+    }
+
+    @Test
+    void saveBranch_shouldRecordTheSizeMongoReportsForTheWrittenDocument() {
+        written(new Document("size", 2048).append("branchCount", 3));
+
+        StepVerifier.create(adapter.saveBranch(view(), new Branch("b1", "Centro", List.of(new Product("p1", "Coca", 5)))))
+                .verifyComplete();
+
+        assertEquals(2048, recordedSize());
+        assertEquals(1, oversized());
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        verify(template).findAndModify(query.capture(), any(UpdateDefinition.class), any(FindAndModifyOptions.class),
+                eq(Document.class), eq("franchises"));
+        assertEquals(new Document("$bsonSize", "$$ROOT"), query.getValue().getFieldsObject().get("size"));
+    }
+
+    @Test
+    void save_shouldMeasureTheSizeOnlyForSampledOrLargeAggregates() {
+        when(repo.save(any(FranchiseDocument.class))).thenAnswer(inv -> Mono.just(inv.getArgument(0)));
+        Franchise small = new Franchise("f1", "Gina", List.of(new Branch("b1", "Centro", List.of(new Product("p1", "Coca", 5)))));
+        Franchise large = new Franchise("f2", "Gino", List.of(new Branch("b1", "Centro", List.of(
+                new Product("p1", "Coca", 5), new Product("p2", "Pepsi", 5), new Product("p3", "Fanta", 5)))));
+
+        // la primera escritura cae en la muestra, la segunda no, y la grande se mide siempre
+        StepVerifier.create(adapter.save(small)).expectNextCount(1).verifyComplete();
+        StepVerifier.create(adapter.save(small)).expectNextCount(1).verifyComplete();
+        assertEquals(1, registry.get("franchise.mongo.document.size").summary().count());
+
+        StepVerifier.create(adapter.save(large)).expectNextCount(1).verifyComplete();
+        assertEquals(2, registry.get("franchise.mongo.document.size").summary().count());
+    }
+
+    @Test
+    void insertBranch_shouldPushTheBranchWithoutTypeHints() {
+        written(new Document("size", 512).append("branchCount", 1));
+
+        StepVerifier.create(adapter.insertBranch(view(), new Branch("b9", "Norte", List.of()))).verifyComplete();
+
+        ArgumentCaptor<UpdateDefinition> update = ArgumentCaptor.forClass(UpdateDefinition.class);
+        verify(template).findAndModify(any(Query.class), update.capture(), any(FindAndModifyOptions.class),
+                eq(Document.class), eq("franchises"));
+        Document pushed = (Document) update.getValue().getUpdateObject().get("$push", Document.class).get("branches");
+        assertEquals("b9", pushed.get("_id"));
+        assertFalse(pushed.containsKey("_class"));
+        assertEquals(0, oversized());
+    }
+
+    @Test
+    void insertBranch_shouldFailWithConflict_whenTheVersionChanged() {
+        written(null);
+
+        StepVerifier.create(adapter.insertBranch(view(), new Branch("b9", "Norte", List.of())))
+                .expectError(OptimisticLockingFailureException.class)
+                .verify();
+    }
+
+    @Test
+    void updateProductStock_shouldReturnTheProductAndSizeFromTheSameWrite() {
+        written(new Document("size", 700).append("branchCount", 2)
+                .append("product", new Document("_id", "p1").append("name", "Coca").append("stock", 9)));
+
+        StepVerifier.create(adapter.updateProductStock("f1", "b1", "p1", 9))
+                .assertNext(p -> {
+                    assertEquals("Coca", p.getName());
+                    assertEquals(9, p.getStock());
+                })
+                .verifyComplete();
+
+        assertEquals(700, recordedSize());
+        verify(template, never()).aggregate(any(org.springframework.data.mongodb.core.aggregation.Aggregation.class),
+                any(Class.class), any(Class.class));
+    }
+
+    @Test
+    void adjustProductStock_shouldGuardAgainstOverflowingInt32_whenDeltaIsPositive() {
+        written(null);
+
+        StepVerifier.create(adapter.adjustProductStock("f1", "b1", "p1", 1_000_000)).verifyComplete();
+
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        verify(template).findAndModify(query.capture(), any(UpdateDefinition.class), any(FindAndModifyOptions.class),
+                eq(Document.class), eq("franchises"));
+        Document product = elemMatch(elemMatch(query.getValue().getQueryObject(), "branches"), "products");
+        assertEquals(new Document("$lte", Integer.MAX_VALUE - 1_000_000), product.get("stock"));
+    }
+
+    private static Document elemMatch(Document query, String field) {
+        return (Document) query.get(field, Document.class).get("$elemMatch");
+    }
+
+    @Test
+    void updateProductStock_shouldBeEmpty_whenTheProductDoesNotExist() {
+        written(null);
+
+        StepVerifier.create(adapter.updateProductStock("f1", "b1", "p404", 9)).verifyComplete();
+    }
+
+    @Test
+    void ranking_shouldBreakStockTiesByProductId() {
+        when(template.aggregate(any(Aggregation.class), eq("franchises"), eq(BranchMaxStockDocument.class))).thenReturn(Flux.empty());
+
+        StepVerifier.create(adapter.findTopStockProducts("f1", 3)).verifyComplete();
+        StepVerifier.create(adapter.findLowStockProducts("f1", 9, 3)).verifyComplete();
+
+        ArgumentCaptor<Aggregation> aggregations = ArgumentCaptor.forClass(Aggregation.class);
+        verify(template, Mockito.times(2)).aggregate(aggregations.capture(), eq("franchises"), eq(BranchMaxStockDocument.class));
+        assertEquals(new Document("branches.products.stock", -1).append("branches.products._id", 1),
+                sortStage(aggregations.getAllValues().get(0)));
+        assertEquals(new Document("branches.products.stock", 1).append("branches.products._id", -1),
+                sortStage(aggregations.getAllValues().get(1)));
+    }
+
+    private static Document sortStage(Aggregation aggregation) {
+        return aggregation.toPipeline(Aggregation.DEFAULT_CONTEXT).stream()
+                .filter(stage -> stage.containsKey("$sort"))
+                .map(stage -> stage.get("$sort", Document.class))
+                .findFirst().orElseThrow();
+    }
+}
@@ -0,0 +1,207 @@
+package com.gina.franquicias_api.infrastructure.adapter.out.mongodb.adapter;
+
+import com.gina.franquicias_api.domain.model.Branch;
+import com.gina.franquicias_api.domain.model.Franchise;
+import com.gina.franquicias_api.domain.model.Product;
+import com.gina.franquicias_api.infrastructure.adapter.out.mongodb.entity.FranchiseDocument;
+import com.gina.franquicias_api.infrastructure.adapter.out.mongodb.entity.NormalizedBranchDocument;
+import com.gina.franquicias_api.infrastructure.adapter.out.mongodb.entity.NormalizedProductDocument;
+import com.gina.franquicias_api.infrastructure.adapter.out.mongodb.mapper.NormalizedFranchiseMapper;
+import com.gina.franquicias_api.infrastructure.adapter.out.mongodb.repository.FranchiseMongoRepository;
+import com.mongodb.bulk.BulkWriteResult;
+import com.mongodb.client.result.UpdateResult;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+import org.springframework.data.mongodb.core.BulkOperations.BulkMode;
+import org.springframework.data.mongodb.core.ReactiveBulkOperations;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.UpdateDefinition;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.when;
+
+class FranchiseNormalizedMongoAdapterTest {
+
+    private ReactiveMongoTemplate template;
+    private ReactiveBulkOperations ops;
+    private FranchiseMongoRepository repo;
+    private FranchiseNormalizedMongoAdapter adapter;
+
+    @BeforeEach
+    void setUp() {
+        template = Mockito.mock(ReactiveMongoTemplate.class);
+        ops = Mockito.mock(ReactiveBulkOperations.class, Mockito.RETURNS_SELF);
+        when(ops.execute()).thenReturn(Mono.just(BulkWriteResult.unacknowledged()));
+        when(template.bulkOps(eq(BulkMode.UNORDERED), eq(NormalizedProductDocument.class))).thenReturn(ops);
+        // la raíz conserva la versión leída y la sucursal existe
+        when(template.updateFirst(any(Query.class), any(UpdateDefinition.class), eq(FranchiseDocument.class)))
+                .thenReturn(Mono.just(UpdateResult.acknowledged(1, 1L, null)));
+        when(template.updateFirst(any(Query.class), any(UpdateDefinition.class), eq(NormalizedBranchDocument.class)))
+                .thenReturn(Mono.just(UpdateResult.acknowledged(1, 0L, null)));
+        repo = Mockito.mock(FranchiseMongoRepository.class);
+        adapter = new FranchiseNormalizedMongoAdapter(repo, new NormalizedFranchiseMapper(), template);
+    }
+
+    // lo guardado en la sucursal: p0..p{n-1} con posiciones 0..n-1 y un stock que ya no es el leído
+    private void storedProducts(int n) {
+        List<NormalizedProductDocument> stored = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            NormalizedProductDocument pd = new NormalizedProductDocument();
+            pd.setId("p" + i);
+            pd.setFranchiseId("f1");
+            pd.setBranchId("b1");
+            pd.setName("Producto " + i);
+            pd.setStock(99);
+            pd.setPosition(i);
+            stored.add(pd);
+        }
+        when(template.find(any(Query.class), eq(NormalizedProductDocument.class))).thenReturn(Flux.fromIterable(stored));
+    }
+
+    // la sucursal como la arma el servicio tras leerla: todos los productos, con el stock leído
+    private static Branch branch(int n) {
+        List<Product> products = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            products.add(new Product("p" + i, "Producto " + i, 10));
+        }
+        return new Branch("b1", "Centro", products);
+    }
+
+    private static Franchise view(Branch branch) {
+        return new Franchise("f1", "Gina", List.of(branch), 4L);
+    }
+
+    @Test
+    void saveBranch_shouldInsertOnlyTheAddedProduct() {
+        storedProducts(1000);
+        Branch branch = branch(1000);
+        branch.addProduct(new Product("nuevo", "Nuevo", 5));
+
+        StepVerifier.create(adapter.saveBranch(view(branch), branch)).verifyComplete();
+
+        ArgumentCaptor<Object> inserted = ArgumentCaptor.forClass(Object.class);
+        Mockito.verify(ops).insert(inserted.capture());
+        NormalizedProductDocument pd = (NormalizedProductDocument) inserted.getValue();
+        assertEquals("nuevo", pd.getId());
+        assertEquals(1000, pd.getPosition());
+        Mockito.verify(ops, Mockito.never()).updateOne(any(Query.class), any(UpdateDefinition.class));
+        Mockito.verify(ops, Mockito.never()).remove(any(Query.class));
+        Mockito.verify(ops, Mockito.never()).replaceOne(any(Query.class), any(), any());
+    }
+
+    @Test
+    void saveBranch_shouldDeleteOnlyTheRemovedProduct() {
+        storedProducts(1000);
+        Branch branch = branch(1000);
+        branch.removeProductById("p500");
+
+        StepVerifier.create(adapter.saveBranch(view(branch), branch)).verifyComplete();
+
+        ArgumentCaptor<Query> removed = ArgumentCaptor.forClass(Query.class);
+        Mockito.verify(ops).remove(removed.capture());
+        assertEquals(List.of("p500"), removed.getValue().getQueryObject().get("_id", Document.class).get("$in"));
+        Mockito.verify(ops, Mockito.never()).insert(any(Object.class));
+        Mockito.verify(ops, Mockito.never()).updateOne(any(Query.class), any(UpdateDefinition.class));
+    }
+
+    @Test
+    void saveBranch_shouldSetOnlyTheNameOfTheRenamedProduct() {
+        storedProducts(3);
+        Branch branch = branch(3);
+        branch.renameProduct("p1", "Renombrado");
+
+        StepVerifier.create(adapter.saveBranch(view(branch), branch)).verifyComplete();
+
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        ArgumentCaptor<UpdateDefinition> update = ArgumentCaptor.forClass(UpdateDefinition.class);
+        Mockito.verify(ops).updateOne(query.capture(), update.capture());
+        assertEquals("p1", query.getValue().getQueryObject().get("_id"));
+        assertEquals(new Document("$set", new Document("name", "Renombrado")),
+                update.getValue().getUpdateObject());
+        Mockito.verify(ops, Mockito.never()).insert(any(Object.class));
+    }
+
+    @Test
+    void saveBranch_shouldNotWrite_whenNothingChanged() {
+        storedProducts(3);
+        Branch branch = branch(3);
+
+        StepVerifier.create(adapter.saveBranch(view(branch), branch)).verifyComplete();
+
+        Mockito.verify(template, Mockito.never()).bulkOps(any(BulkMode.class), eq(NormalizedProductDocument.class));
+    }
+
+    @Test
+    void saveBranch_shouldNotWriteBackStockReadBeforeAConcurrentStockUpdate() {
+        // el servicio leyó stock 10; mientras renombraba, otra request dejó 99 en Mongo sin pasar por la raíz
+        storedProducts(3);
+        Branch branch = branch(3);
+        branch.renameProduct("p2", "Renombrado");
+
+        StepVerifier.create(adapter.saveBranch(view(branch), branch)).verifyComplete();
+
+        ArgumentCaptor<UpdateDefinition> update = ArgumentCaptor.forClass(UpdateDefinition.class);
+        Mockito.verify(ops).updateOne(any(Query.class), update.capture());
+        assertFalse(update.getValue().getUpdateObject().toJson().contains("stock"));
+        Mockito.verify(ops, Mockito.never()).insert(any(Object.class));
+        Mockito.verify(ops, Mockito.never()).replaceOne(any(Query.class), any(), any());
+    }
+
+    @Test
+    void save_shouldNotRewriteChildren_whenOnlyTheFranchiseNameChanged() {
+        storedProducts(3);
+        NormalizedBranchDocument storedBranch = new NormalizedBranchDocument();
+        storedBranch.setId("b1");
+        storedBranch.setFranchiseId("f1");
+        storedBranch.setName("Centro");
+        when(template.find(any(Query.class), eq(NormalizedBranchDocument.class))).thenReturn(Flux.just(storedBranch));
+        when(repo.save(any(FranchiseDocument.class))).thenAnswer(inv -> {
+            FranchiseDocument root = inv.getArgument(0);
+            root.setVersion(root.getVersion() + 1);
+            return Mono.just(root);
+        });
+        Franchise renamed = new Franchise("f1", "Gina Norte", List.of(branch(3)), 4L);
+
+        StepVerifier.create(adapter.save(renamed))
+                .expectNextMatches(f -> f.getVersion() == 5L)
+                .verifyComplete();
+
+        Mockito.verify(template, Mockito.never()).bulkOps(any(BulkMode.class), any(Class.class));
+    }
+
+    @Test
+    void ranking_shouldBreakStockTiesByProductId() {
+        when(template.getCollectionName(NormalizedProductDocument.class)).thenReturn("products");
+        when(template.aggregate(any(Aggregation.class), eq("products"), eq(Document.class))).thenReturn(Flux.empty());
+
+        StepVerifier.create(adapter.findTopStockProducts("f1", 3)).verifyComplete();
+        StepVerifier.create(adapter.findLowStockProducts("f1", 9, 3)).verifyComplete();
+
+        // el orden de ix_product_franchise_stock, recorrido hacia adelante y hacia atrás
+        ArgumentCaptor<Aggregation> aggregations = ArgumentCaptor.forClass(Aggregation.class);
+        Mockito.verify(template, Mockito.times(2)).aggregate(aggregations.capture(), eq("products"), eq(Document.class));
+        assertEquals(new Document("stock", -1).append("_id", 1), sortStage(aggregations.getAllValues().get(0)));
+        assertEquals(new Document("stock", 1).append("_id", -1), sortStage(aggregations.getAllValues().get(1)));
+    }
+
+    private static Document sortStage(Aggregation aggregation) {
+        return aggregation.toPipeline(Aggregation.DEFAULT_CONTEXT).stream()
+                .filter(stage -> stage.containsKey("$sort"))
+                .map(stage -> stage.get("$sort", Document.class))
+                .findFirst().orElseThrow();
+    }
+}
@@ -0,0 +1,135 @@
+package com.gina.franquicias_api.infrastructure.adapter.out.mongodb.adapter;
+
+import com.gina.franquicias_api.domain.model.StockEvent;
+import com.gina.franquicias_api.infrastructure.adapter.out.mongodb.entity.StockCheckpointDocument;
+import com.gina.franquicias_api.infrastructure.adapter.out.mongodb.entity.StockEventDocument;
+import com.mongodb.client.result.DeleteResult;
+import com.mongodb.client.result.UpdateResult;
+import com.mongodb.reactivestreams.client.AggregatePublisher;
+import com.mongodb.reactivestreams.client.MongoCollection;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.UpdateDefinition;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Instant;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class MongoStockLedgerTest {
+
+    private static final Instant AT = Instant.parse("2026-01-01T12:00:00Z");
+
+    private ReactiveMongoTemplate template;
+    private MongoStockLedger ledger;
+
+    @BeforeEach
+    void setUp() {
+        template = Mockito.mock(ReactiveMongoTemplate.class);
+        ledger = new MongoStockLedger(template);
+    }
+
+    private static StockEventDocument event(int stock) {
+        StockEventDocument d = new StockEventDocument();
+        d.setFranchiseId("f1");
+        d.setBranchId("b1");
+        d.setProductId("p1");
+        d.setType("SET");
+        d.setAmount(stock);
+        d.setStock(stock);
+        d.setAt(AT.minusSeconds(10));
+        d.setSource("updateStock");
+        return d;
+    }
+
+    private static StockCheckpointDocument checkpoint(int stock) {
+        StockCheckpointDocument d = new StockCheckpointDocument();
+        d.setId(new StockCheckpointDocument.Key("f1", "b1", "p1"));
+        d.setType("ADJUST");
+        d.setAmount(-1);
+        d.setStock(stock);
+        d.setAt(AT.minusSeconds(3600));
+        d.setSource("adjustStock");
+        return d;
+    }
+
+    @Test
+    void stockAt_shouldUseTheEvent_whenOneCoversTheInstant() {
+        when(template.findOne(any(Query.class), eq(StockEventDocument.class))).thenReturn(Mono.just(event(7)));
+
+        StepVerifier.create(ledger.stockAt("f1", "b1", "p1", AT))
+                .assertNext(e -> assertEquals(7, e.getStock()))
+                .verifyComplete();
+        verify(template, never()).findOne(any(Query.class), eq(StockCheckpointDocument.class));
+    }
+
+    @Test
+    void stockAt_shouldFallBackToTheCheckpoint_whenTheEventsWereCompacted() {
+        when(template.findOne(any(Query.class), eq(StockEventDocument.class))).thenReturn(Mono.empty());
+        when(template.findOne(any(Query.class), eq(StockCheckpointDocument.class))).thenReturn(Mono.just(checkpoint(4)));
+
+        StepVerifier.create(ledger.stockAt("f1", "b1", "p1", AT))
+                .assertNext(e -> {
+                    assertEquals(4, e.getStock());
+                    assertEquals(StockEvent.Type.ADJUST, e.getType());
+                    assertEquals("p1", e.getProductId());
+                })
+                .verifyComplete();
+
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        verify(template).findOne(query.capture(), eq(StockCheckpointDocument.class));
+        Document filter = query.getValue().getQueryObject();
+        assertEquals(new Document("franchiseId", "f1").append("branchId", "b1").append("productId", "p1"), filter.get("_id"));
+        assertEquals(new Document("$lte", AT), filter.get("at"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void compact_shouldCheckpointTheLastEventBeforeTheCutoff_andDeleteOnlyThoseEvents() {
+        when(template.updateMulti(any(Query.class), any(UpdateDefinition.class), eq(StockEventDocument.class)))
+                .thenReturn(Mono.just(UpdateResult.acknowledged(3, 3L, null)));
+        MongoCollection<Document> events = Mockito.mock(MongoCollection.class);
+        AggregatePublisher<Document> aggregate = Mockito.mock(AggregatePublisher.class);
+        when(template.getCollection(StockEventDocument.COLLECTION)).thenReturn(Mono.just(events));
+        when(events.aggregate(anyList())).thenReturn(aggregate);
+        when(aggregate.allowDiskUse(anyBoolean())).thenReturn(aggregate);
+        when(aggregate.toCollection()).thenReturn(Mono.empty());
+        when(template.remove(any(Query.class), eq(StockEventDocument.class)))
+                .thenReturn(Mono.just(DeleteResult.acknowledged(3)));
+
+        StepVerifier.create(ledger.compact(AT)).expectNext(3L).verifyComplete();
+
+        ArgumentCaptor<List<Document>> pipeline = ArgumentCaptor.forClass(List.class);
+        verify(events).aggregate(pipeline.capture());
+        List<Document> stages = pipeline.getValue();
+        // los eventos marcados en esta pasada, del más viejo al más nuevo: $last es el último antes del corte
+        ArgumentCaptor<UpdateDefinition> mark = ArgumentCaptor.forClass(UpdateDefinition.class);
+        verify(template).updateMulti(any(Query.class), mark.capture(), eq(StockEventDocument.class));
+        Object pass = mark.getValue().getUpdateObject().get("$set", Document.class).get("compaction");
+        assertEquals(new Document("at", new Document("$lt", Date.from(AT))).append("compaction", pass), stages.get(0).get("$match"));
+        assertEquals(new Document("at", 1).append("_id", 1), stages.get(1).get("$sort"));
+        assertEquals(new Document("$last", "$stock"), ((Document) stages.get(2).get("$group")).get("stock"));
+        assertEquals(new Document("$last", "$at"), ((Document) stages.get(2).get("$group")).get("at"));
+
+        ArgumentCaptor<Query> removed = ArgumentCaptor.forClass(Query.class);
+        verify(template).remove(removed.capture(), eq(StockEventDocument.class));
+        // un evento agregado después de marcar, aunque tenga un instante anterior al corte, no se borra
+        assertEquals(new Document("$lt", AT), removed.getValue().getQueryObject().get("at"));
+        assertEquals(pass, removed.getValue().getQueryObject().get("compaction"));
+    }
+}
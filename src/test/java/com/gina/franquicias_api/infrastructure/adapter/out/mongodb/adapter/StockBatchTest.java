@@ -0,0 +1,79 @@
+package com.gina.franquicias_api.infrastructure.adapter.out.mongodb.adapter;
+
+import com.gina.franquicias_api.domain.model.StockUpdate;
+import com.gina.franquicias_api.domain.model.StockUpdateResult;
+import com.mongodb.bulk.BulkWriteResult;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+class StockBatchTest {
+
+    private static StockUpdate update(String productId, int stock) {
+        return new StockUpdate("f1", "b1", productId, stock);
+    }
+
+    private static BulkWriteResult matched(int documents) {
+        return BulkWriteResult.acknowledged(0, documents, 0, documents, List.of(), List.of());
+    }
+
+    private static Map<String, StockUpdateResult.Status> statuses(List<StockUpdateResult> results) {
+        return results.stream().collect(java.util.stream.Collectors.toMap(
+                r -> r.getUpdate().getProductId() + ':' + r.getUpdate().getStock(), StockUpdateResult::getStatus));
+    }
+
+    @Test
+    void plan_shouldSendOnlyTheLastUpdateOfARepeatedProduct() {
+        StockBatch batch = StockBatch.plan(List.of(update("p1", 5), update("p2", 3), update("p1", 8)));
+
+        assertEquals(List.of(8, 3), batch.applicable().stream().map(StockUpdate::getStock).toList());
+        assertEquals(Map.of("p1:5", StockUpdateResult.Status.SUPERSEDED,
+                        "p2:3", StockUpdateResult.Status.UPDATED,
+                        "p1:8", StockUpdateResult.Status.UPDATED),
+                statuses(batch.written(matched(2)).results((branchId, productId) -> "Coca")));
+    }
+
+    @Test
+    void results_shouldReportNotFound_whenFewerDocumentsMatched() {
+        StockBatch batch = StockBatch.plan(List.of(update("p1", 5), update("p9", 3)));
+
+        List<StockUpdateResult> results = batch.written(matched(1))
+                .results((branchId, productId) -> "p1".equals(productId) ? "Coca" : null);
+
+        assertEquals(Map.of("p1:5", StockUpdateResult.Status.UPDATED, "p9:3", StockUpdateResult.Status.NOT_FOUND),
+                statuses(results));
+        assertEquals("Coca", results.get(0).getProduct().getName());
+    }
+
+    @Test
+    void results_shouldNotDiscardWrites_whenEveryDocumentMatched() {
+        // el producto desapareció después de escribirlo: la escritura igual se aplicó
+        StockBatch batch = StockBatch.plan(List.of(update("p1", 5)));
+
+        assertEquals(StockUpdateResult.Status.UPDATED,
+                batch.written(matched(1)).results((branchId, productId) -> null).get(0).getStatus());
+    }
+
+    @Test
+    void failed_shouldMarkEveryUpdate_whenTheWriteDidNotReachMongo() {
+        StockBatch batch = StockBatch.plan(List.of(update("p1", 5), update("p2", 3)));
+
+        batch.failed(new IllegalStateException("sin conexión"));
+
+        assertFalse(batch.anyApplied());
+        batch.results((branchId, productId) -> "Coca")
+                .forEach(r -> assertEquals(StockUpdateResult.Status.FAILED, r.getStatus()));
+    }
+
+    @Test
+    void written_shouldAssumeEverythingMatched_whenTheWriteWasNotAcknowledged() {
+        StockBatch batch = StockBatch.plan(List.of(update("p1", 5)));
+
+        assertEquals(StockUpdateResult.Status.UPDATED,
+                batch.written(BulkWriteResult.unacknowledged()).results((branchId, productId) -> null).get(0).getStatus());
+    }
+}
@@ -0,0 +1,132 @@
+package com.gina.franquicias_api.infrastructure.adapter.out.mongodb.listener;
+
+import com.gina.franquicias_api.infrastructure.adapter.out.cache.FranchiseCache;
+import com.gina.franquicias_api.infrastructure.adapter.out.mongodb.entity.FranchiseDocument;
+import com.mongodb.MongoCommandException;
+import com.mongodb.ServerAddress;
+import com.mongodb.client.model.changestream.ChangeStreamDocument;
+import com.mongodb.client.model.changestream.OperationType;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.bson.BsonDocument;
+import org.bson.BsonInt32;
+import org.bson.BsonString;
+import org.bson.Document;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.Mockito;
+import org.springframework.data.mongodb.core.ChangeStreamEvent;
+import org.springframework.data.mongodb.core.ChangeStreamOptions;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import reactor.core.publisher.Flux;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.when;
+
+class FranchiseCacheChangeListenerTest {
+    private static final BsonDocument TOKEN = new BsonDocument("_data", new BsonString("t1"));
+
+    private ReactiveMongoTemplate template;
+    private FranchiseCache cache;
+    private FranchiseCacheChangeListener listener;
+
+    @BeforeEach
+    void setUp() {
+        template = Mockito.mock(ReactiveMongoTemplate.class);
+        cache = Mockito.mock(FranchiseCache.class);
+        when(template.getCollectionName(FranchiseDocument.class)).thenReturn("franchises");
+        listener = new FranchiseCacheChangeListener(template, cache, new SimpleMeterRegistry(), Duration.ofMillis(200));
+    }
+
+    @AfterEach
+    void tearDown() {
+        listener.stop();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static ChangeStreamEvent<Document> event(OperationType type, String franchiseId) {
+        ChangeStreamDocument<Document> raw = Mockito.mock(ChangeStreamDocument.class);
+        when(raw.getOperationType()).thenReturn(type);
+        when(raw.getDocumentKey()).thenReturn(franchiseId == null ? null : new BsonDocument("_id", new BsonString(franchiseId)));
+        ChangeStreamEvent<Document> event = Mockito.mock(ChangeStreamEvent.class);
+        when(event.getRaw()).thenReturn(raw);
+        when(event.getResumeToken()).thenReturn(TOKEN);
+        return event;
+    }
+
+    @SuppressWarnings("unchecked")
+    private void streams(Flux<?>... fluxes) {
+        var stubbing = when(template.changeStream(eq("franchises"), any(ChangeStreamOptions.class), eq(Document.class)));
+        for (Flux<?> flux : fluxes) {
+            stubbing = stubbing.thenReturn((Flux<ChangeStreamEvent<Document>>) flux);
+        }
+    }
+
+    private List<ChangeStreamOptions> opened(int times) {
+        ArgumentCaptor<ChangeStreamOptions> options = ArgumentCaptor.forClass(ChangeStreamOptions.class);
+        Mockito.verify(template, timeout(2000).times(times)).changeStream(eq("franchises"), options.capture(), eq(Document.class));
+        return options.getAllValues();
+    }
+
+    @Test
+    void invalidate_shouldFlushWholeCacheRightBeforeReopeningWithoutToken() {
+        AtomicLong closedAt = new AtomicLong();
+        AtomicLong flushedAt = new AtomicLong();
+        Mockito.doAnswer(inv -> {
+            flushedAt.set(System.nanoTime());
+            return null;
+        }).when(cache).invalidateAll();
+        streams(Flux.just(event(OperationType.UPDATE, "f1"), event(OperationType.INVALIDATE, null))
+                .doOnComplete(() -> closedAt.set(System.nanoTime())), Flux.never());
+
+        listener.start();
+        List<ChangeStreamOptions> options = opened(2);
+
+        // se vacía al reabrir, no al recibir el invalidate: lo cargado durante la espera tampoco sobrevive
+        assertTrue(flushedAt.get() > closedAt.get());
+
+        InOrder order = Mockito.inOrder(cache, template);
+        order.verify(template).changeStream(eq("franchises"), any(ChangeStreamOptions.class), eq(Document.class));
+        order.verify(cache).invalidate("f1");
+        order.verify(cache).invalidateAll();
+        order.verify(template).changeStream(eq("franchises"), any(ChangeStreamOptions.class), eq(Document.class));
+        assertFalse(options.get(1).getResumeToken().isPresent());
+    }
+
+    @Test
+    void interruptedStream_shouldResumeFromLastTokenWithoutFlushing() {
+        streams(Flux.concat(Flux.just(event(OperationType.UPDATE, "f1")), Flux.error(new IllegalStateException("red caída"))),
+                Flux.never());
+
+        listener.start();
+        List<ChangeStreamOptions> options = opened(2);
+
+        assertEquals(TOKEN, options.get(1).getResumeToken().orElseThrow());
+        Mockito.verify(cache, Mockito.never()).invalidateAll();
+        assertTrue(listener.isRunning());
+    }
+
+    @Test
+    void lostResumePoint_shouldFlushAndReopenFromNow() {
+        MongoCommandException historyLost = new MongoCommandException(
+                new BsonDocument("ok", new BsonInt32(0)).append("code", new BsonInt32(286)), new ServerAddress());
+        streams(Flux.concat(Flux.just(event(OperationType.UPDATE, "f1")), Flux.error(historyLost)), Flux.never());
+
+        listener.start();
+        List<ChangeStreamOptions> options = opened(2);
+
+        assertFalse(options.get(1).getResumeToken().isPresent());
+        Mockito.verify(cache).invalidateAll();
+    }
+}
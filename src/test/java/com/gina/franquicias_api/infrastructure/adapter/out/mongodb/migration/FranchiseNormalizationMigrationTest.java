@@ -0,0 +1,88 @@
+package com.gina.franquicias_api.infrastructure.adapter.out.mongodb.migration;
+
+import com.gina.franquicias_api.domain.model.Branch;
+import com.gina.franquicias_api.domain.model.Franchise;
+import com.gina.franquicias_api.domain.model.Product;
+import com.gina.franquicias_api.infrastructure.adapter.out.mongodb.entity.FranchiseDocument;
+import com.gina.franquicias_api.infrastructure.adapter.out.mongodb.entity.NormalizedBranchDocument;
+import com.gina.franquicias_api.infrastructure.adapter.out.mongodb.entity.NormalizedProductDocument;
+import com.gina.franquicias_api.infrastructure.adapter.out.mongodb.mapper.FranchiseMapper;
+import com.gina.franquicias_api.infrastructure.adapter.out.mongodb.mapper.NormalizedFranchiseMapper;
+import com.mongodb.bulk.BulkWriteResult;
+import com.mongodb.client.result.DeleteResult;
+import com.mongodb.client.result.UpdateResult;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.mockito.Mockito;
+import org.springframework.context.ApplicationContext;
+import org.springframework.data.mongodb.core.BulkOperations.BulkMode;
+import org.springframework.data.mongodb.core.ReactiveBulkOperations;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.UpdateDefinition;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.calls;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class FranchiseNormalizationMigrationTest {
+
+    private ReactiveMongoTemplate template;
+    private FranchiseNormalizationMigration migration;
+
+    @BeforeEach
+    void setUp() {
+        template = Mockito.mock(ReactiveMongoTemplate.class);
+        ReactiveBulkOperations ops = Mockito.mock(ReactiveBulkOperations.class);
+        when(template.bulkOps(eq(BulkMode.UNORDERED), any(Class.class))).thenReturn(ops);
+        when(ops.execute()).thenReturn(Mono.just(Mockito.mock(BulkWriteResult.class)));
+        when(template.remove(any(Query.class), any(Class.class))).thenReturn(Mono.just(DeleteResult.acknowledged(0)));
+
+        FranchiseMapper mapper = new FranchiseMapper();
+        FranchiseDocument embedded = mapper.toDocument(new Franchise("f1", "Gina",
+                List.of(new Branch("b1", "Centro", List.of(new Product("p1", "Coca", 5)))), 4L));
+        when(template.find(any(Query.class), eq(FranchiseDocument.class))).thenReturn(Flux.just(embedded));
+
+        migration = new FranchiseNormalizationMigration(template, mapper, new NormalizedFranchiseMapper(),
+                Mockito.mock(ApplicationContext.class), 500, false);
+    }
+
+    private void guard(long modified) {
+        when(template.updateFirst(any(Query.class), any(UpdateDefinition.class), eq(FranchiseDocument.class)))
+                .thenReturn(Mono.just(UpdateResult.acknowledged(modified, modified, null)));
+    }
+
+    @Test
+    void run_shouldRemoveTheWrittenChildren_whenTheFranchiseChangedDuringTheMigration() {
+        guard(0);
+
+        migration.run(null);
+
+        // una limpieza antes de escribir (restos de una ejecución interrumpida) y otra al fallar la guarda
+        verify(template, times(2)).remove(any(Query.class), eq(NormalizedProductDocument.class));
+        verify(template, times(2)).remove(any(Query.class), eq(NormalizedBranchDocument.class));
+        InOrder order = inOrder(template);
+        order.verify(template).updateFirst(any(Query.class), any(UpdateDefinition.class), eq(FranchiseDocument.class));
+        order.verify(template, calls(1)).remove(any(Query.class), eq(NormalizedProductDocument.class));
+        order.verify(template, calls(1)).remove(any(Query.class), eq(NormalizedBranchDocument.class));
+    }
+
+    @Test
+    void run_shouldKeepTheChildren_whenTheEmbeddedArrayWasCleared() {
+        guard(1);
+
+        migration.run(null);
+
+        verify(template, times(1)).remove(any(Query.class), eq(NormalizedProductDocument.class));
+        verify(template, times(1)).remove(any(Query.class), eq(NormalizedBranchDocument.class));
+    }
+}
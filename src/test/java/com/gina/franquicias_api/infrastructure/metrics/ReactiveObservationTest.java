@@ -0,0 +1,70 @@
+package com.gina.franquicias_api.infrastructure.metrics;
+
+import io.micrometer.common.KeyValues;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationHandler;
+import io.micrometer.observation.ObservationRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ReactiveObservationTest {
+
+    // resultado de cada observación detenida, en orden
+    private final List<String> stopped = new CopyOnWriteArrayList<>();
+    private ReactiveObservation observation;
+
+    @BeforeEach
+    void setUp() {
+        ObservationRegistry registry = ObservationRegistry.create();
+        registry.observationConfig().observationHandler(new ObservationHandler<>() {
+            @Override
+            public void onStop(Observation.Context context) {
+                stopped.add(context.getLowCardinalityKeyValue("outcome").getValue());
+            }
+
+            @Override
+            public boolean supportsContext(Observation.Context context) {
+                return true;
+            }
+        });
+        observation = new ReactiveObservation(registry, "test");
+    }
+
+    @Test
+    void observe_shouldStopOnce_whenAMonoIsCancelledAfterItsValue() {
+        // Act: next() cancela la fuente después de recibir el valor
+        StepVerifier.create(observation.observe("find", KeyValues.empty(), Flux.just(1, 2, 3)).next())
+                .expectNext(1)
+                .verifyComplete();
+        StepVerifier.create(observation.observe("get", KeyValues.empty(), Mono.just(1)).flux().take(1))
+                .expectNext(1)
+                .verifyComplete();
+
+        // Assert
+        assertEquals(List.of("cancelled", "success"), stopped);
+    }
+
+    @Test
+    void observe_shouldStopOnce_whenCancelAndCompletionRace() {
+        // Act: la cancelación llega desde otro hilo mientras la fuente termina
+        for (int i = 0; i < 500; i++) {
+            Mono.just(i).delayElement(Duration.ofNanos(1), Schedulers.parallel())
+                    .as(m -> observation.observe("race", KeyValues.empty(), m))
+                    .timeout(Duration.ofNanos(1), Mono.empty(), Schedulers.single())
+                    .block(Duration.ofSeconds(5));
+        }
+
+        // Assert
+        assertEquals(500, stopped.size());
+    }
+}
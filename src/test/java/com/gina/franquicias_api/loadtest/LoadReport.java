@@ -0,0 +1,119 @@
+package com.gina.franquicias_api.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latencias (en microsegundos, HdrHistogram) y errores por operación. Se escribe como JSON en
+ * report-<fecha>.json, con la configuración de la corrida, para poder comparar builds.
+ */
+final class LoadReport {
+    private static final DateTimeFormatter FILE_STAMP = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+
+    private final Map<String, ConcurrentHistogram> latencies = new ConcurrentHashMap<>();
+    private final Map<String, LongAdder> errors = new ConcurrentHashMap<>();
+
+    void success(String operation, long micros) {
+        latencies.computeIfAbsent(operation, k -> new ConcurrentHistogram(3)).recordValue(Math.max(1, micros));
+    }
+
+    void error(String operation) {
+        errors.computeIfAbsent(operation, k -> new LongAdder()).increment();
+    }
+
+    Path write(Path directory, Map<String, Object> config, Duration elapsed) throws IOException {
+        Map<String, Object> operations = new LinkedHashMap<>();
+        for (String operation : operationNames()) {
+            operations.put(operation, operation(operation, elapsed));
+        }
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("timestamp", LocalDateTime.now().toString());
+        report.put("config", config);
+        report.put("elapsedSeconds", elapsed.toMillis() / 1000.0);
+        report.put("total", total(elapsed));
+        report.put("operations", operations);
+
+        Files.createDirectories(directory);
+        Path file = directory.resolve("report-" + LocalDateTime.now().format(FILE_STAMP) + ".json");
+        new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(file.toFile(), report);
+        return file;
+    }
+
+    Map<String, Object> operation(String operation, Duration elapsed) {
+        Histogram h = latencies.getOrDefault(operation, new ConcurrentHistogram(3));
+        long failed = errors.containsKey(operation) ? errors.get(operation).sum() : 0;
+        return summary(h, failed, elapsed);
+    }
+
+    Map<String, Object> total(Duration elapsed) {
+        Histogram total = new Histogram(3);
+        long totalErrors = 0;
+        for (String operation : operationNames()) {
+            ConcurrentHistogram h = latencies.get(operation);
+            if (h != null) {
+                total.add(h);
+            }
+            totalErrors += errors.containsKey(operation) ? errors.get(operation).sum() : 0;
+        }
+        return summary(total, totalErrors, elapsed);
+    }
+
+    String table(Duration elapsed) {
+        StringBuilder out = new StringBuilder(String.format("%-20s %10s %8s %10s %9s %9s %9s %9s%n",
+                "operación", "ok", "errores", "req/s", "p50 ms", "p99 ms", "p999 ms", "max ms"));
+        for (String operation : operationNames()) {
+            Histogram h = latencies.getOrDefault(operation, new ConcurrentHistogram(3));
+            long failed = errors.containsKey(operation) ? errors.get(operation).sum() : 0;
+            out.append(String.format("%-20s %10d %8d %10.1f %9.2f %9.2f %9.2f %9.2f%n", operation,
+                    h.getTotalCount(), failed, h.getTotalCount() / seconds(elapsed),
+                    millis(h, 50), millis(h, 99), millis(h, 99.9), h.getMaxValue() / 1000.0));
+        }
+        return out.toString();
+    }
+
+    Iterable<String> operationNames() {
+        TreeSet<String> names = new TreeSet<>(latencies.keySet());
+        names.addAll(errors.keySet());
+        return names;
+    }
+
+    private static Map<String, Object> summary(Histogram h, long failed, Duration elapsed) {
+        Map<String, Object> s = new LinkedHashMap<>();
+        s.put("count", h.getTotalCount());
+        s.put("errors", failed);
+        s.put("throughputPerSecond", round(h.getTotalCount() / seconds(elapsed)));
+        s.put("p50Ms", round(millis(h, 50)));
+        s.put("p90Ms", round(millis(h, 90)));
+        s.put("p99Ms", round(millis(h, 99)));
+        s.put("p999Ms", round(millis(h, 99.9)));
+        s.put("maxMs", round(h.getMaxValue() / 1000.0));
+        return s;
+    }
+
+    private static double millis(Histogram h, double percentile) {
+        return h.getValueAtPercentile(percentile) / 1000.0;
+    }
+
+    private static double seconds(Duration elapsed) {
+        return Math.max(elapsed.toMillis(), 1) / 1000.0;
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 1000) / 1000.0;
+    }
+}
@@ -0,0 +1,75 @@
+package com.gina.franquicias_api.loadtest;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * Compara el stack reactivo con el adaptador bloqueante sobre el mismo MongoDB y con la misma mezcla, concurrencia
+ * y duración: corre {@link LoadTestDriver} una vez por variante (API levantada en el proceso, datos propios de cada
+ * corrida) y resume rendimiento y latencia. Cada corrida deja además su reporte JSON en target/loadtest.
+ * <pre>
+ * ./mvnw -Ploadtest test-compile exec:exec -Dloadtest.main=com.gina.franquicias_api.loadtest.LoadTestComparison \
+ *     -Dloadtest.args="-Dspring.data.mongodb.uri=mongodb://localhost:27017/franquicias -Dloadtest.duration=60s"
+ * </pre>
+ * Variantes ({@code loadtest.variants}, por defecto todas): reactive (WebFlux + driver reactivo), virtual (driver
+ * sincrónico en hilos virtuales; requiere Java 21, si no cae a hilos de plataforma con un WARN) y platform (driver
+ * sincrónico en hilos de plataforma). El resto de las propiedades loadtest.* se aplican igual a todas.
+ */
+public final class LoadTestComparison {
+    private static final Map<String, Variant> VARIANTS = new LinkedHashMap<>();
+
+    static {
+        VARIANTS.put("reactive", new Variant(""));
+        VARIANTS.put("virtual", new Variant("blocking", "franchises.blocking.virtual-threads=true"));
+        VARIANTS.put("platform", new Variant("blocking", "franchises.blocking.virtual-threads=false"));
+    }
+
+    private record Variant(String profiles, String... properties) {
+    }
+
+    private LoadTestComparison() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (!System.getProperty("loadtest.url", "").isEmpty()) {
+            throw new IllegalArgumentException("La comparación levanta cada variante en el proceso: quitar loadtest.url");
+        }
+        Map<String, LoadTestDriver.Run> runs = new LinkedHashMap<>();
+        for (String name : System.getProperty("loadtest.variants", String.join(",", VARIANTS.keySet())).split(",")) {
+            Variant variant = VARIANTS.get(name.trim());
+            if (variant == null) {
+                throw new IllegalArgumentException("Variante desconocida en loadtest.variants: " + name);
+            }
+            runs.put(name.trim(), LoadTestDriver.measure(name.trim(), variant.profiles(), variant.properties()));
+        }
+
+        StringBuilder out = new StringBuilder(String.format("%n%-10s %10s %9s %9s %9s %9s %8s%n",
+                "variante", "req/s", "p50 ms", "p99 ms", "p999 ms", "max ms", "errores"));
+        runs.forEach((name, run) -> {
+            Map<String, Object> t = run.report().total(run.elapsed());
+            out.append(String.format("%-10s %10s %9s %9s %9s %9s %8s%n", name, t.get("throughputPerSecond"),
+                    t.get("p50Ms"), t.get("p99Ms"), t.get("p999Ms"), t.get("maxMs"), t.get("errors")));
+        });
+
+        TreeSet<String> operations = new TreeSet<>();
+        runs.values().forEach(run -> run.report().operationNames().forEach(operations::add));
+        out.append(String.format("%np99 ms por operación%n%-20s", "operación"));
+        runs.keySet().forEach(name -> out.append(String.format(" %10s", name)));
+        out.append('\n');
+        for (String operation : operations) {
+            out.append(String.format("%-20s", operation));
+            for (LoadTestDriver.Run run : runs.values()) {
+                out.append(String.format(" %10s", run.report().operation(operation, run.elapsed()).get("p99Ms")));
+            }
+            out.append('\n');
+        }
+        System.out.print(out);
+
+        List<String> files = new ArrayList<>();
+        runs.values().forEach(run -> files.add(run.file().toAbsolutePath().toString()));
+        System.out.println("Reportes: " + String.join(", ", files));
+    }
+}
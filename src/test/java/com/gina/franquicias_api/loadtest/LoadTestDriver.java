@@ -0,0 +1,339 @@
+package com.gina.franquicias_api.loadtest;
+
+import com.gina.franquicias_api.FranquiciasApiApplication;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.reactive.context.ReactiveWebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Prueba de carga de punta a punta sobre FranchiseController con un cliente WebClient.
+ * <p>
+ * Sin {@code loadtest.url} levanta la API en este mismo proceso con el perfil {@code memory}; con una URL
+ * mide una instancia ya corriendo (lo recomendable para números finales: cliente y servidor no compiten por CPU).
+ * Pasos: carga datos por la API, recorre una vez cada ruta del controlador, calienta y mide con la mezcla
+ * configurada. El resultado queda en {@code target/loadtest/report-<fecha>.json}.
+ * <pre>
+ * ./mvnw -Ploadtest test-compile exec:exec -Dloadtest.args="-Dloadtest.duration=60s -Dloadtest.concurrency=64"
+ * </pre>
+ * Propiedades (todas opcionales):
+ * <ul>
+ *     <li>loadtest.url: base de la API, p. ej. http://localhost:8080</li>
+ *     <li>loadtest.profiles: perfiles de la API levantada en el proceso (memory); vacío = Mongo reactivo</li>
+ *     <li>loadtest.franchises / branches / products: datos iniciales (20 x 10 x 50)</li>
+ *     <li>loadtest.mix: pesos por operación (updateStock=90,maxStock=8,create=2); también adjustStock,
+ *     batchStock, topProducts, lowStock, list, stream, renameFranchise, renameBranch, renameProduct</li>
+ *     <li>loadtest.concurrency: pedidos en vuelo (64)</li>
+ *     <li>loadtest.rate: pedidos por segundo a ritmo fijo; 0 = modelo cerrado limitado por concurrency. Con ritmo
+ *     fijo la latencia se mide desde el instante programado, así una demora del servidor no esconde la cola</li>
+ *     <li>loadtest.warmup / loadtest.duration: 10s / 60s</li>
+ *     <li>loadtest.label: texto libre que se guarda en el reporte (build, commit)</li>
+ * </ul>
+ */
+public final class LoadTestDriver {
+    private static final String API = "/api/franchises";
+
+    private final WebClient client;
+    private final int concurrency;
+    private final AtomicLong sequence = new AtomicLong();
+    private final List<Target> targets = new ArrayList<>();
+    private final Map<String, Supplier<Mono<?>>> operations = new LinkedHashMap<>();
+
+    private LoadTestDriver(WebClient client, int concurrency) {
+        this.client = client;
+        this.concurrency = concurrency;
+        operations.put("updateStock", this::updateStock);
+        operations.put("maxStock", this::maxStock);
+        operations.put("create", this::create);
+        operations.put("adjustStock", this::adjustStock);
+        operations.put("batchStock", this::batchStock);
+        operations.put("topProducts", () -> get(API + "/" + target().franchiseId + "/products/top?k=10"));
+        operations.put("lowStock", () -> get(API + "/" + target().franchiseId + "/products/low-stock?below=100&limit=50"));
+        operations.put("list", () -> get(API + "?view=summary&limit=50"));
+        operations.put("stream", this::stream);
+        operations.put("renameFranchise", this::renameFranchise);
+        operations.put("renameBranch", this::renameBranch);
+        operations.put("renameProduct", this::renameProduct);
+    }
+
+    public static void main(String[] args) throws Exception {
+        Run run = measure(System.getProperty("loadtest.label", ""), System.getProperty("loadtest.profiles", "memory"));
+        System.out.print(run.report().table(run.elapsed()));
+        System.out.println("Reporte: " + run.file().toAbsolutePath());
+    }
+
+    record Run(LoadReport report, Duration elapsed, Path file) {
+    }
+
+    /**
+     * Una corrida completa con la configuración de las propiedades loadtest.*. Sin loadtest.url levanta la API
+     * con {@code profiles} (separados por coma) y {@code properties} (clave=valor) y la cierra al terminar.
+     */
+    static Run measure(String label, String profiles, String... properties) throws Exception {
+        String url = System.getProperty("loadtest.url", "");
+        int concurrency = Integer.getInteger("loadtest.concurrency", 64);
+        Duration warmup = Duration.parse("PT" + System.getProperty("loadtest.warmup", "10s"));
+        Duration duration = Duration.parse("PT" + System.getProperty("loadtest.duration", "60s"));
+        int rate = Integer.getInteger("loadtest.rate", 0);
+        Map<String, Integer> mix = parseMix(System.getProperty("loadtest.mix", "updateStock=90,maxStock=8,create=2"));
+
+        ConfigurableApplicationContext app = null;
+        if (url.isEmpty()) {
+            // como argumentos de línea de comandos: pisan lo que fijan los archivos de cada perfil
+            List<String> appArgs = new ArrayList<>(List.of("--server.port=0", "--logging.level.com.gina=WARN"));
+            for (String property : properties) {
+                appArgs.add("--" + property);
+            }
+            app = new SpringApplicationBuilder(FranquiciasApiApplication.class)
+                    .profiles(profiles.isBlank() ? new String[0] : profiles.split(","))
+                    .run(appArgs.toArray(String[]::new));
+            url = "http://localhost:" + ((ReactiveWebServerApplicationContext) app).getWebServer().getPort();
+        }
+
+        ConnectionProvider connections = ConnectionProvider.builder("loadtest")
+                .maxConnections(concurrency)
+                .pendingAcquireMaxCount(-1)
+                .build();
+        WebClient client = WebClient.builder()
+                .baseUrl(url)
+                .clientConnector(new ReactorClientHttpConnector(HttpClient.create(connections)))
+                .build();
+        try {
+            LoadTestDriver driver = new LoadTestDriver(client, concurrency);
+            driver.seed(Integer.getInteger("loadtest.franchises", 20), Integer.getInteger("loadtest.branches", 10),
+                    Integer.getInteger("loadtest.products", 50));
+            driver.coverAllRoutes();
+
+            driver.run(mix, rate, warmup, new LoadReport());
+            LoadReport report = new LoadReport();
+            long start = System.nanoTime();
+            driver.run(mix, rate, duration, report);
+            Duration elapsed = Duration.ofNanos(System.nanoTime() - start);
+
+            Map<String, Object> config = new LinkedHashMap<>();
+            config.put("label", label);
+            config.put("url", url);
+            config.put("inProcessServer", app != null);
+            if (app != null) {
+                config.put("profiles", profiles);
+                config.put("properties", List.of(properties));
+            }
+            config.put("concurrency", concurrency);
+            config.put("rate", rate);
+            config.put("mix", mix);
+            config.put("franchises", Integer.getInteger("loadtest.franchises", 20));
+            config.put("branches", Integer.getInteger("loadtest.branches", 10));
+            config.put("products", Integer.getInteger("loadtest.products", 50));
+            Path file = report.write(Path.of(System.getProperty("loadtest.report-dir", "target/loadtest")), config, elapsed);
+            return new Run(report, elapsed, file);
+        } finally {
+            connections.dispose();
+            if (app != null) {
+                app.close();
+            }
+        }
+    }
+
+    // ---- preparación
+
+    private void seed(int franchises, int branches, int products) {
+        Flux.range(0, franchises)
+                .flatMap(f -> post(API, Map.of("name", "Carga " + f + "-" + System.nanoTime()))
+                        .flatMapMany(franchise -> Flux.range(0, branches)
+                                .concatMap(b -> post(API + "/" + franchise.get("id") + "/branches", Map.of("name", "Sucursal " + b))
+                                        .flatMap(branch -> Flux.range(0, products)
+                                                .concatMap(p -> post(API + "/" + franchise.get("id") + "/branches/" + branch.get("id")
+                                                        + "/products", Map.of("name", "Producto " + p, "stock", p * 7 % 500)))
+                                                .map(product -> new Target((String) franchise.get("id"),
+                                                        (String) branch.get("id"), (String) product.get("id")))
+                                                .collectList()))),
+                        concurrency)
+                .doOnNext(targets::addAll)
+                .blockLast();
+        System.out.printf("Datos iniciales: %d franquicias, %d productos%n", franchises, targets.size());
+    }
+
+    // cada operación una vez, más las rutas que la mezcla no usa; falla si alguna responde con error
+    private void coverAllRoutes() {
+        Target t = target();
+        for (Map.Entry<String, Supplier<Mono<?>>> op : operations.entrySet()) {
+            op.getValue().get().block();
+        }
+        Map<?, ?> extra = post(API + "/" + t.franchiseId + "/branches/" + t.branchId + "/products",
+                Map.of("name", "Temporal " + sequence.incrementAndGet(), "stock", 1)).block();
+        client.method(HttpMethod.DELETE).uri(API + "/" + t.franchiseId + "/branches/" + t.branchId + "/products/" + extra.get("id"))
+                .retrieve().toBodilessEntity().block();
+        client.post().uri(API + "/stock:batch")
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .bodyValue("{\"franchiseId\":\"" + t.franchiseId + "\",\"branchId\":\"" + t.branchId
+                        + "\",\"productId\":\"" + t.productId + "\",\"stock\":10}\n")
+                .retrieve().toBodilessEntity().block();
+        System.out.println("Todas las rutas respondieron sin error");
+    }
+
+    // ---- medición
+
+    private void run(Map<String, Integer> mix, int rate, Duration duration, LoadReport report) {
+        List<String> weighted = new ArrayList<>();
+        mix.forEach((name, weight) -> {
+            if (!operations.containsKey(name)) {
+                throw new IllegalArgumentException("Operación desconocida en loadtest.mix: " + name);
+            }
+            for (int i = 0; i < weight; i++) {
+                weighted.add(name);
+            }
+        });
+
+        long end = System.nanoTime() + duration.toNanos();
+        Flux<Long> schedule = rate > 0
+                ? scheduled(rate)
+                : Flux.generate(sink -> sink.next(System.nanoTime()));
+
+        schedule.takeWhile(intended -> intended < end)
+                .flatMap(intended -> {
+                    String name = weighted.get(ThreadLocalRandom.current().nextInt(weighted.size()));
+                    return operations.get(name).get()
+                            .doOnSuccess(r -> report.success(name, (System.nanoTime() - intended) / 1000))
+                            .onErrorResume(e -> {
+                                report.error(name);
+                                return Mono.empty();
+                            });
+                }, concurrency, 1)
+                .blockLast();
+    }
+
+    // ritmo fijo: cada milisegundo se emiten los pedidos que correspondían, con su instante programado
+    private static Flux<Long> scheduled(int rate) {
+        long start = System.nanoTime();
+        long intervalNanos = 1_000_000_000L / rate;
+        AtomicLong emitted = new AtomicLong();
+        return Flux.interval(Duration.ofMillis(1))
+                .onBackpressureBuffer()
+                .concatMapIterable(tick -> {
+                    long due = (System.nanoTime() - start) / intervalNanos;
+                    List<Long> batch = new ArrayList<>();
+                    for (long i = emitted.get(); i < due; i++) {
+                        batch.add(start + i * intervalNanos);
+                    }
+                    emitted.set(Math.max(emitted.get(), due));
+                    return batch;
+                });
+    }
+
+    // ---- operaciones
+
+    private Mono<?> updateStock() {
+        Target t = target();
+        return patch(API + "/" + t.franchiseId + "/branches/" + t.branchId + "/products/" + t.productId + "/stock",
+                Map.of("stock", ThreadLocalRandom.current().nextInt(1000)));
+    }
+
+    private Mono<?> adjustStock() {
+        Target t = target();
+        return post(API + "/" + t.franchiseId + "/branches/" + t.branchId + "/products/" + t.productId + "/stock/adjustments",
+                Map.of("delta", 1));
+    }
+
+    private Mono<?> maxStock() {
+        return get(API + "/" + target().franchiseId + "/max-stock");
+    }
+
+    // alterna altas de franquicia, sucursal y producto
+    private Mono<?> create() {
+        long n = sequence.incrementAndGet();
+        Target t = target();
+        return switch ((int) (n % 3)) {
+            case 0 -> post(API, Map.of("name", "Nueva " + n + "-" + System.nanoTime()));
+            case 1 -> post(API + "/" + t.franchiseId + "/branches", Map.of("name", "Nueva " + n));
+            default -> post(API + "/" + t.franchiseId + "/branches/" + t.branchId + "/products",
+                    Map.of("name", "Nuevo " + n, "stock", 10));
+        };
+    }
+
+    private Mono<?> batchStock() {
+        StringBuilder body = new StringBuilder();
+        String franchiseId = target().franchiseId;
+        for (Target t : targets) {
+            if (t.franchiseId.equals(franchiseId) && body.length() < 4096) {
+                body.append("{\"branchId\":\"").append(t.branchId).append("\",\"productId\":\"").append(t.productId)
+                        .append("\",\"stock\":").append(ThreadLocalRandom.current().nextInt(1000)).append("}\n");
+            }
+        }
+        return client.post().uri(API + "/" + franchiseId + "/stock:batch")
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .accept(MediaType.APPLICATION_NDJSON)
+                .bodyValue(body.toString())
+                .retrieve()
+                .bodyToFlux(String.class)
+                .then(Mono.just(true));
+    }
+
+    private Mono<?> stream() {
+        return client.get().uri(API + "?view=summary")
+                .accept(MediaType.APPLICATION_NDJSON)
+                .retrieve()
+                .bodyToFlux(String.class)
+                .count();
+    }
+
+    private Mono<?> renameFranchise() {
+        return patch(API + "/" + target().franchiseId, Map.of("name", "Renombrada " + sequence.incrementAndGet()));
+    }
+
+    private Mono<?> renameBranch() {
+        Target t = target();
+        return patch(API + "/" + t.franchiseId + "/branches/" + t.branchId, Map.of("name", "Renombrada " + sequence.incrementAndGet()));
+    }
+
+    private Mono<?> renameProduct() {
+        Target t = target();
+        return patch(API + "/" + t.franchiseId + "/branches/" + t.branchId + "/products/" + t.productId,
+                Map.of("name", "Renombrado " + sequence.incrementAndGet()));
+    }
+
+    private Target target() {
+        return targets.get(ThreadLocalRandom.current().nextInt(targets.size()));
+    }
+
+    private Mono<Map> get(String uri) {
+        return client.get().uri(uri).accept(MediaType.APPLICATION_JSON).retrieve().bodyToMono(String.class)
+                .thenReturn(Map.of());
+    }
+
+    private Mono<Map> post(String uri, Object body) {
+        return client.post().uri(uri).bodyValue(body).retrieve().bodyToMono(Map.class);
+    }
+
+    private Mono<Map> patch(String uri, Object body) {
+        return client.patch().uri(uri).bodyValue(body).retrieve().bodyToMono(Map.class);
+    }
+
+    private static Map<String, Integer> parseMix(String mix) {
+        Map<String, Integer> weights = new LinkedHashMap<>();
+        for (String entry : mix.split(",")) {
+            String[] parts = entry.trim().split("=");
+            weights.put(parts[0].trim(), Integer.parseInt(parts[1].trim()));
+        }
+        return weights;
+    }
+
+    private record Target(String franchiseId, String branchId, String productId) {
+    }
+}
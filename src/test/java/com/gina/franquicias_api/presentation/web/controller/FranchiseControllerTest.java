@@ -3,13 +3,18 @@ package com.gina.franquicias_api.presentation.web.controller;
 import com.gina.franquicias_api.application.dto.request.*;
 import com.gina.franquicias_api.application.dto.response.BranchResponseDto;
 import com.gina.franquicias_api.application.dto.response.FranchiseResponseDto;
+import com.gina.franquicias_api.application.dto.response.FranchiseSummaryResponseDto;
 import com.gina.franquicias_api.application.dto.response.ProductResponseDto;
 import com.gina.franquicias_api.application.dto.response.ProductWithBranchResponseDto;
+import com.gina.franquicias_api.application.dto.response.StockBatchItemResponseDto;
 import com.gina.franquicias_api.application.mapper.FranchiseDtoMapper;
 import com.gina.franquicias_api.domain.model.Branch;
 import com.gina.franquicias_api.domain.model.Franchise;
+import com.gina.franquicias_api.domain.model.FranchiseSummary;
 import com.gina.franquicias_api.domain.model.Product;
 import com.gina.franquicias_api.domain.model.ProductWithBranch;
+import com.gina.franquicias_api.domain.model.StockUpdate;
+import com.gina.franquicias_api.domain.model.StockUpdateResult;
 import com.gina.franquicias_api.domain.port.in.FranchiseService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -22,6 +27,7 @@ import reactor.core.publisher.Mono;
 import java.util.Collections;
 
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.when;
 
 class FranchiseControllerTest {
@@ -181,6 +187,62 @@ class FranchiseControllerTest {
                 .jsonPath("$.stock").isEqualTo(50);
     }
 
+    @Test
+    void adjustStock_shouldReturnUpdatedProduct() {
+        // Arrange
+        String franchiseId = "1";
+        String branchId = "b1";
+        String productId = "p1";
+        StockAdjustmentRequestDto requestDto = new StockAdjustmentRequestDto(-5);
+        Product domainProduct = new Product(productId, "Producto", 45);
+        ProductResponseDto responseDto = new ProductResponseDto(productId, "Producto", 45);
+
+        when(franchiseService.adjustStock(franchiseId, branchId, productId, -5))
+                .thenReturn(Mono.just(domainProduct));
+
+        when(mapper.toResponse(any(Product.class)))
+                .thenReturn(responseDto);
+
+        // Act & Assert
+        webTestClient.post()
+                .uri("/api/franchises/{franchiseId}/branches/{branchId}/products/{productId}/stock/adjustments",
+                        franchiseId, branchId, productId)
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(requestDto)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.id").isEqualTo(productId)
+                .jsonPath("$.stock").isEqualTo(45);
+    }
+
+    @Test
+    void updateStockBatch_shouldStreamOneResultPerItem() {
+        // Arrange
+        String franchiseId = "1";
+        StockUpdate update = new StockUpdate(franchiseId, "b1", "p1", 30);
+        StockBatchItemResponseDto responseDto =
+                new StockBatchItemResponseDto(franchiseId, "b1", "p1", 30, "UPDATED", null);
+
+        when(mapper.toStockUpdate(any(StockBatchItemRequestDto.class), eq(franchiseId)))
+                .thenReturn(update);
+        when(franchiseService.updateStocks(any()))
+                .thenAnswer(invocation -> invocation.<Flux<StockUpdate>>getArgument(0).map(u -> StockUpdateResult.updated(u, "Producto")));
+        when(mapper.toResponse(any(StockUpdateResult.class)))
+                .thenReturn(responseDto);
+
+        // Act & Assert: el cuerpo es NDJSON, un elemento por línea
+        webTestClient.post()
+                .uri("/api/franchises/{franchiseId}/stock:batch", franchiseId)
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .bodyValue("{\"branchId\":\"b1\",\"productId\":\"p1\",\"stock\":30}\n")
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON)
+                .expectBodyList(StockBatchItemResponseDto.class)
+                .hasSize(1);
+    }
+
     @Test
     void getMaxStockPerBranch_shouldReturnProductsWithMaxStock() {
         // Arrange
@@ -207,6 +269,28 @@ class FranchiseControllerTest {
                 .jsonPath("$[0].product.stock").isEqualTo(100);
     }
 
+    @Test
+    void getTopProducts_shouldReturnRankingAcrossBranches() {
+        // Arrange
+        ProductWithBranch domainPwb = new ProductWithBranch("Sucursal", new Product("p1", "ProductoTop", 300));
+        ProductWithBranchResponseDto responseDto = new ProductWithBranchResponseDto("Sucursal",
+                new ProductResponseDto("p1", "ProductoTop", 300));
+
+        when(franchiseService.findTopStockProducts("1", 5))
+                .thenReturn(Flux.just(domainPwb));
+        when(mapper.toResponse(any(ProductWithBranch.class)))
+                .thenReturn(responseDto);
+
+        // Act & Assert
+        webTestClient.get()
+                .uri("/api/franchises/{franchiseId}/products/top?k=5&by=stock", "1")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$[0].branchName").isEqualTo("Sucursal")
+                .jsonPath("$[0].product.stock").isEqualTo(300);
+    }
+
     @Test
     void renameFranchise_shouldReturnUpdatedFranchise() {
         // Arrange
@@ -290,6 +374,44 @@ class FranchiseControllerTest {
                 .jsonPath("$.stock").isEqualTo(10);
     }
 
+    @Test
+    void listFranchises_shouldReturnPageWithNextCursor() {
+        // Arrange: página llena, hay que devolver el cursor para la siguiente
+        FranchiseSummary domainSummary = new FranchiseSummary("f2", "Franquicia", 2);
+        when(franchiseService.listFranchiseSummaries("f1", 1))
+                .thenReturn(Flux.just(domainSummary));
+        when(mapper.toResponse(any(FranchiseSummary.class)))
+                .thenReturn(new FranchiseSummaryResponseDto("f2", "Franquicia", 2));
 
-}
+        // Act & Assert
+        webTestClient.get()
+                .uri("/api/franchises?after=f1&limit=1&view=summary")
+                .accept(MediaType.APPLICATION_JSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.items[0].id").isEqualTo("f2")
+                .jsonPath("$.items[0].branchCount").isEqualTo(2)
+                .jsonPath("$.nextCursor").isEqualTo("f2");
+    }
+
+    @Test
+    void streamFranchises_shouldEmitNdjson() {
+        // Arrange
+        Franchise domainFranchise = new Franchise("f1", "Franquicia", Collections.emptyList());
+        when(franchiseService.streamFranchises(null))
+                .thenReturn(Flux.just(domainFranchise));
+        when(mapper.toResponse(any(Franchise.class)))
+                .thenReturn(new FranchiseResponseDto("f1", "Franquicia", Collections.emptyList()));
 
+        // Act & Assert
+        webTestClient.get()
+                .uri("/api/franchises")
+                .accept(MediaType.APPLICATION_NDJSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON)
+                .expectBodyList(FranchiseResponseDto.class)
+                .hasSize(1);
+    }
+}
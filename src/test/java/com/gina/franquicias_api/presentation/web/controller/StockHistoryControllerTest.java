@@ -0,0 +1,80 @@
+package com.gina.franquicias_api.presentation.web.controller;
+
+import com.gina.franquicias_api.application.mapper.FranchiseDtoMapper;
+import com.gina.franquicias_api.domain.exception.ResourceNotFoundException;
+import com.gina.franquicias_api.domain.model.StockEvent;
+import com.gina.franquicias_api.domain.port.in.StockHistoryService;
+import com.gina.franquicias_api.presentation.web.advice.GlobalExceptionHandler;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Mono;
+
+import java.time.Instant;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class StockHistoryControllerTest {
+
+    private static final String URI = "/api/franchises/f1/branches/b1/products/p1/stock?at={at}";
+
+    private WebTestClient webTestClient;
+    private StockHistoryService service;
+
+    @BeforeEach
+    void setUp() {
+        service = Mockito.mock(StockHistoryService.class);
+        // el mapper es puro: se usa el real
+        StockHistoryController controller = new StockHistoryController(service, new FranchiseDtoMapper());
+
+        this.webTestClient = WebTestClient.bindToController(controller)
+                .controllerAdvice(new GlobalExceptionHandler())
+                .build();
+    }
+
+    @Test
+    void stockAt_shouldReturnTheStockAtTheInstant() {
+        // Arrange
+        Instant at = Instant.parse("2026-01-31T12:00:00Z");
+        Instant changedAt = Instant.parse("2026-01-31T11:59:00Z");
+        when(service.stockAt("f1", "b1", "p1", at)).thenReturn(Mono.just(
+                new StockEvent("f1", "b1", "p1", StockEvent.Type.ADJUST, -2, 8, changedAt, "adjustStock")));
+
+        // Act & Assert
+        webTestClient.get()
+                .uri(URI, "2026-01-31T12:00:00Z")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.productId").isEqualTo("p1")
+                .jsonPath("$.stock").isEqualTo(8)
+                .jsonPath("$.type").isEqualTo("ADJUST")
+                .jsonPath("$.source").isEqualTo("adjustStock");
+    }
+
+    @Test
+    void stockAt_shouldReturnNotFound_whenTheProductDoesNotExist() {
+        when(service.stockAt(any(), any(), any(), any()))
+                .thenReturn(Mono.error(new ResourceNotFoundException("Producto no encontrado")));
+
+        webTestClient.get()
+                .uri(URI, "2026-01-31T12:00:00Z")
+                .exchange()
+                .expectStatus().isNotFound()
+                .expectBody(String.class).isEqualTo("Producto no encontrado");
+    }
+
+    @Test
+    void stockAt_shouldReturnBadRequest_whenAtIsNotAnInstant() {
+        webTestClient.get()
+                .uri(URI, "31/01/2026")
+                .exchange()
+                .expectStatus().isBadRequest();
+
+        verify(service, never()).stockAt(any(), any(), any(), any());
+    }
+}